@@ -1,10 +1,10 @@
-#version 330
+#version 460
 
 #extension GL_ARB_shading_language_include: require
 #include </quanta/shader_config.incl>
-
-// const int MAX_MATERIALS = 100;
-// const int MAX_TEXTURES = 100;
+#if BINDLESS_TEXTURES
+#extension GL_ARB_bindless_texture: require
+#endif
 
 in vec3 outNormal;
 in vec3 outTangent;
@@ -27,14 +27,36 @@ struct Material {
     int textureIdx;
 };
 
-uniform sampler2D textureSampler[MAX_TEXTURES];
-uniform Material materials[MAX_MATERIALS];
+struct TextureEntry {
+    uvec2 handle;
+    int arrayIdx;
+    int layer;
+};
+
+layout (std430, binding=2) readonly buffer Materials {
+    Material materials[];
+};
+layout (std430, binding=3) readonly buffer Textures {
+    TextureEntry textures[];
+};
+#if !BINDLESS_TEXTURES
+uniform sampler2DArray textureArrays[MAX_TEXTURE_ARRAYS];
+#endif
 
 uniform bool showNormals;
 
+vec4 sampleTexture(int idx, vec2 textCoords) {
+    TextureEntry entry = textures[idx];
+#if BINDLESS_TEXTURES
+    return texture(sampler2D(entry.handle), textCoords);
+#else
+    return texture(textureArrays[entry.arrayIdx], vec3(textCoords, entry.layer));
+#endif
+}
+
 vec3 calcNormal(int idx, vec3 normal, vec3 tangent, vec3 bitangent, vec2 textCoords) {
     mat3 TBN = mat3(tangent, bitangent, normal);
-    vec3 newNormal = texture(textureSampler[idx], textCoords).rgb;
+    vec3 newNormal = sampleTexture(idx, textCoords).rgb;
     newNormal = normalize(newNormal * 2.0 - 1.0);
     newNormal = normalize(TBN * newNormal);
     return newNormal;
@@ -43,7 +65,7 @@ vec3 calcNormal(int idx, vec3 normal, vec3 tangent, vec3 bitangent, vec2 textCoo
 void main() {
     buffPosition = outViewPosition;
     Material material = materials[outMaterialIdx];
-    vec4 text_color = texture(textureSampler[material.textureIdx], outTextCoord);
+    vec4 text_color = sampleTexture(material.textureIdx, outTextCoord);
     if (text_color.a < 0.01) {
         discard;
     }
@@ -3,9 +3,6 @@
 #extension GL_ARB_shading_language_include: require
 #include </quanta/shader_config.incl>
 
-// const int MAX_DRAW_ELEMENTS = 100;
-// const int MAX_ENTITIES = 50;
-
 layout (location=0) in vec3 position;
 layout (location=1) in vec3 normal;
 layout (location=2) in vec3 tangent;
@@ -28,8 +25,12 @@ struct DrawElement {
 uniform mat4 projectionMatrix;
 uniform mat4 viewMatrix;
 uniform mat4 modelMatrix;
-uniform DrawElement drawElements[MAX_DRAW_ELEMENTS];
-uniform mat4 modelMatrices[MAX_ENTITIES];
+layout (std430, binding=0) readonly buffer ModelMatrices {
+    mat4 modelMatrices[];
+};
+layout (std430, binding=1) readonly buffer DrawElements {
+    DrawElement drawElements[];
+};
 
 void main() {
     vec4 initPos = vec4(position, 1.0);
@@ -1,8 +1,5 @@
 #version 460
 
-const int MAX_DRAW_ELEMENTS = 100;
-const int MAX_ENTITIES = 50;
-
 layout (location=0) in vec3 position;
 layout (location=1) in vec3 normal;
 layout (location=2) in vec3 tangent;
@@ -11,12 +8,17 @@ layout (location=4) in vec2 texCoord;
 
 struct DrawElement {
     int modelMatrixIdx;
+    int materialIdx;
 };
 
 uniform mat4 modelMatrix;
 uniform mat4 projectionViewMatrix;
-uniform DrawElement drawElements[MAX_DRAW_ELEMENTS];
-uniform mat4 modelMatrices[MAX_ENTITIES];
+layout (std430, binding=0) readonly buffer ModelMatrices {
+    mat4 modelMatrices[];
+};
+layout (std430, binding=1) readonly buffer DrawElements {
+    DrawElement drawElements[];
+};
 
 void main() {
     vec4 initPos = vec4(position, 1.0);
@@ -0,0 +1,160 @@
+package com.engineersbox.quanta.resources.assets.shader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per frame cost of addressing the lighting pass uniform arrays
+ * by building element names and looking them up in the name to location map,
+ * against indexing the locations resolved up front by a {@link UniformArray}.
+ * The {@code glUniform*} call is replaced by a {@link Blackhole} so only the
+ * location lookup is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UniformLookupBenchmark {
+
+    private static final int POINT_LIGHT_COUNT = 5;
+    private static final int SPOT_LIGHT_COUNT = 5;
+    private static final int SHADOW_CASCADE_COUNT = 3;
+    private static final String[] POINT_LIGHT_MEMBERS = new String[]{
+            "position",
+            "color",
+            "intensity",
+            "att.constant",
+            "att.linear",
+            "att.exponent"
+    };
+    private static final String[] SPOT_LIGHT_MEMBERS = new String[]{
+            "pl.position",
+            "pl.color",
+            "pl.intensity",
+            "pl.att.constant",
+            "pl.att.linear",
+            "pl.att.exponent",
+            "coneDir",
+            "cutoff"
+    };
+    private static final String[] SHADOW_CASCADE_MEMBERS = new String[]{
+            "projectionViewMatrix",
+            "splitDistance"
+    };
+
+    private Map<String, Integer> uniforms;
+    private UniformArray pointLightUniforms;
+    private UniformArray spotLightUniforms;
+    private UniformArray shadowCascadeUniforms;
+
+    @Setup
+    public void setup() {
+        this.uniforms = new HashMap<>();
+        this.pointLightUniforms = createUniformArray("pointLights", UniformLookupBenchmark.POINT_LIGHT_COUNT, UniformLookupBenchmark.POINT_LIGHT_MEMBERS);
+        this.spotLightUniforms = createUniformArray("spotLights", UniformLookupBenchmark.SPOT_LIGHT_COUNT, UniformLookupBenchmark.SPOT_LIGHT_MEMBERS);
+        this.shadowCascadeUniforms = createUniformArray("shadowCascade", UniformLookupBenchmark.SHADOW_CASCADE_COUNT, UniformLookupBenchmark.SHADOW_CASCADE_MEMBERS);
+        // Other uniforms of the lighting program, so the map is of a realistic size
+        for (final String name : new String[]{
+                "albedoSampler",
+                "normalSampler",
+                "specularSampler",
+                "depthSampler",
+                "invProjectionMatrix",
+                "invViewMatrix",
+                "ambientLight.factor",
+                "ambientLight.color",
+                "dirLight.direction",
+                "dirLight.color",
+                "dirLight.intensity",
+                "fog.activeFog",
+                "fog.color",
+                "fog.density"
+        }) {
+            this.uniforms.put(name, this.uniforms.size());
+        }
+    }
+
+    /**
+     * Mirrors {@link Uniforms#createUniformArray} with sequential locations
+     * standing in for {@code glGetUniformLocation}.
+     */
+    private UniformArray createUniformArray(final String name,
+                                            final int length,
+                                            final String[] members) {
+        final int[] locations = new int[length * members.length];
+        for (int i = 0; i < length; i++) {
+            for (int j = 0; j < members.length; j++) {
+                final int location = this.uniforms.size();
+                this.uniforms.put(name + "[" + i + "]." + members[j], location);
+                locations[(i * members.length) + j] = location;
+            }
+        }
+        return new UniformArray(name, length, members, locations);
+    }
+
+    private int getUniformLocation(final String name) {
+        final Integer location = this.uniforms.get(name);
+        if (location == null) {
+            throw new RuntimeException(String.format(
+                    "Cannot find uniform \"%s\"",
+                    name
+            ));
+        }
+        return location;
+    }
+
+    @Benchmark
+    public void stringKeyed(final Blackhole blackhole) {
+        for (int i = 0; i < UniformLookupBenchmark.POINT_LIGHT_COUNT; i++) {
+            final String prefix = "pointLights[" + i + "]";
+            for (final String member : UniformLookupBenchmark.POINT_LIGHT_MEMBERS) {
+                blackhole.consume(getUniformLocation(prefix + "." + member));
+            }
+        }
+        for (int i = 0; i < UniformLookupBenchmark.SPOT_LIGHT_COUNT; i++) {
+            final String prefix = "spotLights[" + i + "]";
+            for (final String member : UniformLookupBenchmark.SPOT_LIGHT_MEMBERS) {
+                blackhole.consume(getUniformLocation(prefix + "." + member));
+            }
+        }
+        for (int i = 0; i < UniformLookupBenchmark.SHADOW_CASCADE_COUNT; i++) {
+            final String prefix = "shadowCascade[" + i + "]";
+            for (final String member : UniformLookupBenchmark.SHADOW_CASCADE_MEMBERS) {
+                blackhole.consume(getUniformLocation(prefix + "." + member));
+            }
+        }
+    }
+
+    @Benchmark
+    public void uniformArray(final Blackhole blackhole) {
+        consumeLocations(this.pointLightUniforms, UniformLookupBenchmark.POINT_LIGHT_MEMBERS.length, blackhole);
+        consumeLocations(this.spotLightUniforms, UniformLookupBenchmark.SPOT_LIGHT_MEMBERS.length, blackhole);
+        consumeLocations(this.shadowCascadeUniforms, UniformLookupBenchmark.SHADOW_CASCADE_MEMBERS.length, blackhole);
+    }
+
+    private static void consumeLocations(final UniformArray uniformArray,
+                                         final int memberCount,
+                                         final Blackhole blackhole) {
+        for (int i = 0; i < uniformArray.length(); i++) {
+            for (int j = 0; j < memberCount; j++) {
+                blackhole.consume(uniformArray.location(i, j));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.engineersbox.quanta.scene.serialization;
+
+import com.engineersbox.quanta.resources.assets.object.Model;
+import com.engineersbox.quanta.resources.assets.object.animation.AnimationData;
+import com.engineersbox.quanta.resources.loader.ModelLoader;
+import com.engineersbox.quanta.scene.Entity;
+import com.engineersbox.quanta.scene.Scene;
+import com.engineersbox.quanta.scene.lighting.SceneLights;
+import com.engineersbox.quanta.utils.serialization.SerializationUtils;
+import org.lwjgl.opengl.GL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.lwjgl.glfw.GLFW.*;
+import static org.lwjgl.system.MemoryUtil.NULL;
+
+/**
+ * Saves and loads a scene of 100,000 entities through the binary snapshot
+ * codec and the JSON serializer. Every twentieth entity is an animated
+ * {@code bob} instance, the rest are {@code cube} instances. Scenes own GL
+ * textures, so the benchmark creates a hidden window for a context and must
+ * be run from the project root, where the assets and config are resolved.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dquanta.config=config/config.conf")
+public class SceneSerializationBenchmark {
+
+    private static final int ENTITY_COUNT = 100_000;
+    private static final int ANIMATED_ENTITY_STRIDE = 20;
+    private static final int GRID_SIZE = 320;
+    private static final String CUBE_MODEL_ID = "cube-model";
+    private static final String BOB_MODEL_ID = "bob-model";
+
+    private long windowHandle;
+    private Scene scene;
+    private Scene readScene;
+    private Path binaryPath;
+    private Path jsonPath;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        if (!glfwInit()) {
+            throw new IllegalStateException("Unable to initialise GLFW");
+        }
+        glfwDefaultWindowHints();
+        glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 4);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 6);
+        glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
+        glfwWindowHint(GLFW_OPENGL_FORWARD_COMPAT, GLFW_TRUE);
+        this.windowHandle = glfwCreateWindow(1, 1, "Scene serialisation benchmark", NULL, NULL);
+        if (this.windowHandle == NULL) {
+            throw new IllegalStateException("Failed to create GLFW window");
+        }
+        glfwMakeContextCurrent(this.windowHandle);
+        GL.createCapabilities();
+
+        this.scene = SceneSerializationBenchmark.createScene();
+        this.binaryPath = Files.createTempFile("quanta-scene", BinarySceneCodec.EXTENSION);
+        this.jsonPath = Files.createTempFile("quanta-scene", ".json");
+        // Both read benchmarks need a snapshot before the write benchmarks run
+        BinarySceneCodec.write(this.scene, this.binaryPath);
+        SerializationUtils.OBJECT_MAPPER.writeValue(this.jsonPath.toFile(), this.scene);
+    }
+
+    private static Scene createScene() {
+        final Scene scene = new Scene(1920, 1080);
+        scene.setSceneLights(new SceneLights());
+        final Model cubeModel = ModelLoader.loadModel(
+                SceneSerializationBenchmark.CUBE_MODEL_ID,
+                "assets/models/cube/cube.obj",
+                scene.getTextureCache(),
+                scene.getMaterialCache(),
+                false
+        );
+        scene.addModel(cubeModel);
+        final Model bobModel = ModelLoader.loadModel(
+                SceneSerializationBenchmark.BOB_MODEL_ID,
+                "assets/models/bob/boblamp.md5mesh",
+                scene.getTextureCache(),
+                scene.getMaterialCache(),
+                true
+        );
+        scene.addModel(bobModel);
+        for (int i = 0; i < SceneSerializationBenchmark.ENTITY_COUNT; i++) {
+            final boolean animated = i % SceneSerializationBenchmark.ANIMATED_ENTITY_STRIDE == 0;
+            final Entity entity = new Entity(
+                    "entity-" + i,
+                    animated ? bobModel.getId() : cubeModel.getId()
+            );
+            entity.setPosition(
+                    (i % SceneSerializationBenchmark.GRID_SIZE) * 2.0f,
+                    0,
+                    (i / SceneSerializationBenchmark.GRID_SIZE) * 2.0f
+            );
+            entity.setRotation(0, 1, 0, i * 0.01f);
+            entity.setScale(animated ? 0.05f : 1.0f);
+            entity.updateModelMatrix();
+            if (animated) {
+                entity.setAnimationData(new AnimationData(bobModel.getAnimations().get(0)));
+            }
+            scene.addEntity(entity);
+        }
+        return scene;
+    }
+
+    @TearDown(Level.Invocation)
+    public void cleanupReadScene() {
+        if (this.readScene != null) {
+            this.readScene.getTextureCache().cleanup();
+            this.readScene = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        this.scene.getTextureCache().cleanup();
+        Files.deleteIfExists(this.binaryPath);
+        Files.deleteIfExists(this.jsonPath);
+        glfwDestroyWindow(this.windowHandle);
+        glfwTerminate();
+    }
+
+    @Benchmark
+    public void binaryWrite() throws IOException {
+        BinarySceneCodec.write(this.scene, this.binaryPath);
+    }
+
+    @Benchmark
+    public Scene binaryRead() throws IOException {
+        this.readScene = BinarySceneCodec.read(this.binaryPath, 1920, 1080);
+        return this.readScene;
+    }
+
+    @Benchmark
+    public void jsonWrite() throws IOException {
+        SerializationUtils.OBJECT_MAPPER.writeValue(this.jsonPath.toFile(), this.scene);
+    }
+
+    @Benchmark
+    public Scene jsonRead() throws IOException {
+        final File file = this.jsonPath.toFile();
+        this.readScene = SerializationUtils.OBJECT_MAPPER.readerFor(Scene.class).readValue(file);
+        return this.readScene;
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.engineersbox.quanta.virtualisation;
+
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+import com.engineersbox.quanta.resources.loader.ModelFixtures;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simplifies every mesh of a bundled model to a fraction of its triangles.
+ * This measures {@link QuadricErrorSimplifier#simplifyData}, which is all of
+ * {@link QuadricErrorSimplifier#simplify} except uploading the result into a
+ * GL backed {@link com.engineersbox.quanta.resources.assets.object.Mesh}, so
+ * no GL context is needed. Must be run from the project root, where the model
+ * paths are resolved. Progress logging of the simplifier is raised to
+ * {@code WARN}, as writing it to the console would dominate the timings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuadricErrorSimplifierBenchmark {
+
+    private static final double AGGRESSIVENESS = 7d;
+
+    @Param({
+            "assets/models/cube/cube.obj",
+            "assets/models/wall/wall.obj",
+            "assets/models/quad/quad.obj",
+            "assets/models/window/window.obj",
+            "assets/models/terrain/terrain.obj",
+            "assets/models/bob/boblamp.md5mesh"
+    })
+    private String modelPath;
+
+    @Param({"0.5", "0.25"})
+    private float targetPercent;
+
+    private QuadricErrorSimplifier[] simplifiers;
+    private int[] targetCounts;
+
+    @Setup
+    public void setup() {
+        Configurator.setLevel(QuadricErrorSimplifier.class.getName(), Level.WARN);
+        final List<MeshData> meshDataList = ModelFixtures.importMeshData(
+                this.modelPath,
+                this.modelPath.endsWith(".md5mesh")
+        );
+        this.simplifiers = new QuadricErrorSimplifier[meshDataList.size()];
+        this.targetCounts = new int[meshDataList.size()];
+        for (int i = 0; i < meshDataList.size(); i++) {
+            final MeshData meshData = meshDataList.get(i);
+            this.simplifiers[i] = new QuadricErrorSimplifier(
+                    meshData.getPositions(),
+                    meshData.getNormals(),
+                    meshData.getIndices(),
+                    new BitSet()
+            );
+            this.targetCounts[i] = (int) ((meshData.getIndices().length / 3) * this.targetPercent);
+        }
+    }
+
+    @Benchmark
+    public void simplify(final Blackhole blackhole) {
+        for (int i = 0; i < this.simplifiers.length; i++) {
+            blackhole.consume(this.simplifiers[i].simplifyData(
+                    this.targetCounts[i],
+                    QuadricErrorSimplifierBenchmark.AGGRESSIVENESS,
+                    false
+            ));
+        }
+    }
+
+}
@@ -8,6 +8,7 @@ import com.engineersbox.quanta.debug.hooks.VariableHook;
 import com.engineersbox.quanta.gui.IGUIInstance;
 import com.engineersbox.quanta.rendering.Renderer;
 import com.engineersbox.quanta.resources.config.ConfigHandler;
+import com.engineersbox.quanta.resources.loader.AsyncModelLoader;
 import com.engineersbox.quanta.scene.Scene;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -31,6 +32,7 @@ public class Engine {
     private final int targetFPS;
     private final int targetUPS;
     private final PipelineStatistics pipelineStatistics;
+    private final AsyncModelLoader modelLoader;
     @VariableHook(name = "engine.capture_pipeline_stats")
     private boolean capturePipelineStats = false;
     private Callback debugCallback;
@@ -61,12 +63,14 @@ public class Engine {
 //        );
         this.pipelineStatistics = new PipelineStatistics();
         this.pipelineStatistics.init();
+        this.modelLoader = new AsyncModelLoader();
         this.appLogic.init(new EngineInitContext(
                 this.window,
                 this.scene,
                 this.renderer,
                 this.pipelineStatistics,
-                info
+                info,
+                this.modelLoader
         ));
         this.running = true;
     }
@@ -122,6 +126,8 @@ public class Engine {
                 deltaUpdate--;
             }
             if (this.targetFPS <= 0 || deltaFps >= 1) {
+                this.modelLoader.processUploads();
+                this.scene.updateModelMatrices();
                 if (this.capturePipelineStats) {
                     this.pipelineStatistics.begin();
                 }
@@ -139,6 +145,7 @@ public class Engine {
 
     private void cleanup() {
         this.appLogic.cleanup();
+        this.modelLoader.cleanup();
         this.renderer.cleanup();
         this.window.cleanup();
         if (ConfigHandler.CONFIG.engine.glOptions.debug && this.debugCallback != null) {
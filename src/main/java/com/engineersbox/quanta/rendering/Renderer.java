@@ -13,6 +13,7 @@ import com.engineersbox.quanta.resources.config.ConfigHandler;
 import com.engineersbox.quanta.resources.config.shader.ShaderConfig;
 import com.engineersbox.quanta.resources.config.shader.ShaderIncludes;
 import com.engineersbox.quanta.scene.Scene;
+import com.engineersbox.quanta.scene.SceneChanges;
 import com.engineersbox.quanta.utils.StreamUtils;
 import org.apache.commons.collections4.map.LinkedMap;
 import org.apache.logging.log4j.LogManager;
@@ -24,10 +25,10 @@ import org.reflections.util.ConfigurationBuilder;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -127,6 +128,7 @@ public class Renderer {
     public void render(final Scene scene,
                        final Window window) {
         updateContext(scene, window);
+        streamSceneChanges(scene);
         StreamUtils.zipForEach(
                 Arrays.stream(ShaderStage.values()),
                 Stream.of(
@@ -145,6 +147,26 @@ public class Renderer {
         }
     }
 
+    private void streamSceneChanges(final Scene scene) {
+        final SceneChanges changes = scene.drainChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        Stream.of(
+                this.preProcessRenderHandlers,
+                this.coreRenderHandlers,
+                this.postProcessRenderHandlers
+        ).forEach((final LinkedMap<String, ShaderRenderHandler> handlers) -> handlers.values().forEach(
+                (final ShaderRenderHandler handler) -> handler.streamData(this.context, changes)
+        ));
+        releaseStaticMeshData(changes.addedModels().stream());
+    }
+
+    private static void releaseStaticMeshData(final Stream<Model> models) {
+        models.filter(Predicate.not(Model::isAnimated))
+                .forEach((final Model model) -> model.getMeshData().clear());
+    }
+
     private static BiConsumer<String, ShaderRenderHandler> createRenderHandlerConsumer(final ShaderStage stage,
                                                                                        final RenderContext context) {
         return (final String name, final ShaderRenderHandler handler) -> {
@@ -249,10 +271,9 @@ public class Renderer {
                     handlers.forEach((final String name, final ShaderRenderHandler handler) -> handler.setupData(this.context));
                 }
         );
-        scene.getModels().values()
-                .stream()
-                .map(Model::getMeshData)
-                .forEach(List::clear);
+        // Changes made while building the scene are already covered by the setup
+        scene.drainChanges();
+        releaseStaticMeshData(scene.getModels().values().stream());
     }
 
     private void updateContext(final Scene scene,
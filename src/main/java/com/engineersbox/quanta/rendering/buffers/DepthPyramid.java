@@ -0,0 +1,64 @@
+package com.engineersbox.quanta.rendering.buffers;
+
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL42.glTexStorage2D;
+
+/**
+ * Hierarchical depth buffer for occlusion culling. Level 0 is a copy of a
+ * depth buffer and every further level halves its size, rounding down, with
+ * each texel holding the farthest depth of the texels it covers in the level
+ * below. On odd sized levels the last row and column of texels also cover
+ * the leftover texels, so the source texel {@code x} of level 0 is always
+ * covered by texel {@code min(x >> level, levelWidth - 1)}.
+ */
+public class DepthPyramid {
+
+    private final int textureId;
+    private final int width;
+    private final int height;
+    private final int levels;
+
+    public DepthPyramid(final int width,
+                        final int height) {
+        this.width = width;
+        this.height = height;
+        this.levels = 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+        this.textureId = glGenTextures();
+        glBindTexture(GL_TEXTURE_2D, this.textureId);
+        glTexStorage2D(GL_TEXTURE_2D, this.levels, GL_R32F, width, height);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST_MIPMAP_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+        glBindTexture(GL_TEXTURE_2D, 0);
+    }
+
+    public int getLevelWidth(final int level) {
+        return Math.max(1, this.width >> level);
+    }
+
+    public int getLevelHeight(final int level) {
+        return Math.max(1, this.height >> level);
+    }
+
+    public int getTextureId() {
+        return this.textureId;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public int getLevels() {
+        return this.levels;
+    }
+
+    public void cleanup() {
+        glDeleteTextures(this.textureId);
+    }
+
+}
@@ -0,0 +1,299 @@
+package com.engineersbox.quanta.rendering.culling;
+
+import com.engineersbox.quanta.rendering.indirect.MeshDrawData;
+import com.engineersbox.quanta.resources.assets.object.animation.Animation;
+import com.engineersbox.quanta.resources.assets.object.animation.AnimationData;
+import com.engineersbox.quanta.scene.Entity;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which animated entities are skinned each frame. Every entity is
+ * given an update {@link Tier} from the fraction of the screen height covered
+ * by the bounding sphere of its meshes, and entities outside the view frustum
+ * and every shadow volume, so neither seen nor casting a visible shadow, are
+ * frozen in their last skinned pose. Throttled entities are staggered
+ * across frames so the work per frame stays even, and entities whose pose is
+ * unchanged since they were last skinned are skipped at any tier.
+ * <p>
+ * Per frame, {@link #begin} is called once, {@link #includeShadowVolume} for
+ * every shadow cascade, {@link #include} for every mesh
+ * of every animated entity, then {@link #resolve} before querying
+ * {@link #isDue}. Skipping an entity is only valid while its skinned output
+ * is retained, so {@link #reset} must be called whenever it is reallocated.
+ */
+public class AnimationScheduler {
+
+    public enum Tier {
+        FULL(1),
+        HALF(2),
+        QUARTER(4),
+        FROZEN(0);
+
+        private final int interval;
+
+        Tier(final int interval) {
+            this.interval = interval;
+        }
+
+        /**
+         * @return Frames between updates, or zero if never updated
+         */
+        public int getInterval() {
+            return this.interval;
+        }
+    }
+
+    private static final class EntityState {
+
+        private final Entity entity;
+        private final int phase;
+        private final Vector3f aabbMin;
+        private final Vector3f aabbMax;
+        private boolean included;
+        private boolean bounded;
+        private boolean skinned;
+        private boolean due;
+        private Tier tier;
+        private Animation animation;
+        private int frameIdx;
+        private double time;
+
+        private EntityState(final Entity entity,
+                            final int phase) {
+            this.entity = entity;
+            this.phase = phase;
+            this.aabbMin = new Vector3f();
+            this.aabbMax = new Vector3f();
+            this.tier = Tier.FULL;
+        }
+
+    }
+
+    private final Matrix4f projectionViewMatrix;
+    private final FrustumIntersection frustumIntersection;
+    private final List<FrustumIntersection> shadowIntersections;
+    private final Vector3f cameraPosition;
+    private final Vector3f worldAabbMin;
+    private final Vector3f worldAabbMax;
+    private final Vector3f centre;
+    private final Map<Entity, EntityState> states;
+    private final List<EntityState> frameStates;
+    private final int[] tierCounts;
+    private float projectionScale;
+    private float fullRateScreenSize;
+    private float halfRateScreenSize;
+    private boolean enabled;
+    private int frame;
+    private int nextPhase;
+    private int dueCount;
+    private int shadowVolumeCount;
+
+    public AnimationScheduler() {
+        this.projectionViewMatrix = new Matrix4f();
+        this.frustumIntersection = new FrustumIntersection();
+        this.shadowIntersections = new ArrayList<>();
+        this.cameraPosition = new Vector3f();
+        this.worldAabbMin = new Vector3f();
+        this.worldAabbMax = new Vector3f();
+        this.centre = new Vector3f();
+        this.states = new IdentityHashMap<>();
+        this.frameStates = new ArrayList<>();
+        this.tierCounts = new int[Tier.values().length];
+        this.fullRateScreenSize = 0.25f;
+        this.halfRateScreenSize = 0.1f;
+        this.enabled = true;
+    }
+
+    /**
+     * Forgets every entity, so each is skinned on its next inclusion.
+     */
+    public void reset() {
+        this.states.clear();
+        this.frameStates.clear();
+        this.nextPhase = 0;
+    }
+
+    public void begin(final Matrix4f projectionMatrix,
+                      final Matrix4f viewMatrix,
+                      final Vector3f cameraPosition) {
+        this.projectionViewMatrix.set(projectionMatrix).mul(viewMatrix);
+        this.frustumIntersection.set(this.projectionViewMatrix, false);
+        this.cameraPosition.set(cameraPosition);
+        // Cotangent of half the vertical field of view
+        this.projectionScale = projectionMatrix.m11();
+        this.shadowVolumeCount = 0;
+        this.frameStates.clear();
+        this.frame++;
+    }
+
+    /**
+     * Adds a volume shadows are rendered from this frame, such as a shadow
+     * cascade, so entities within it are kept animated while off screen.
+     */
+    public void includeShadowVolume(final Matrix4f projectionViewMatrix) {
+        if (this.shadowVolumeCount == this.shadowIntersections.size()) {
+            this.shadowIntersections.add(new FrustumIntersection());
+        }
+        this.shadowIntersections.get(this.shadowVolumeCount++).set(projectionViewMatrix, false);
+    }
+
+    /**
+     * Adds a mesh of an animated entity to the entity's bounds for this frame.
+     */
+    public void include(final Entity entity,
+                        final MeshDrawData meshDrawData) {
+        final EntityState state = this.states.computeIfAbsent(
+                entity,
+                (final Entity key) -> new EntityState(key, this.nextPhase++)
+        );
+        final boolean bounded = meshDrawData.aabbMin() != null && meshDrawData.aabbMax() != null;
+        if (!state.included) {
+            state.included = true;
+            state.bounded = bounded;
+            if (bounded) {
+                state.aabbMin.set(meshDrawData.aabbMin());
+                state.aabbMax.set(meshDrawData.aabbMax());
+            }
+            this.frameStates.add(state);
+            return;
+        }
+        if (!bounded) {
+            state.bounded = false;
+        } else if (state.bounded) {
+            state.aabbMin.min(meshDrawData.aabbMin());
+            state.aabbMax.max(meshDrawData.aabbMax());
+        }
+    }
+
+    /**
+     * Assigns a tier to every entity included this frame and decides which of
+     * them are skinned. Entities decided due are assumed to be skinned.
+     */
+    public void resolve() {
+        Arrays.fill(this.tierCounts, 0);
+        this.dueCount = 0;
+        for (final EntityState state : this.frameStates) {
+            final Tier previousTier = state.tier;
+            state.tier = this.enabled ? selectTier(state) : Tier.FULL;
+            state.due = isDue(state, previousTier);
+            state.included = false;
+            this.tierCounts[state.tier.ordinal()]++;
+            if (!state.due) {
+                continue;
+            }
+            final AnimationData animationData = state.entity.getAnimationData();
+            state.skinned = true;
+            state.animation = animationData.getCurrentAnimation();
+            state.frameIdx = animationData.getCurrentFrameIdx();
+            state.time = animationData.getTime();
+            this.dueCount++;
+        }
+    }
+
+    private Tier selectTier(final EntityState state) {
+        if (!state.bounded) {
+            return Tier.FULL;
+        }
+        state.entity.getModelMatrix().transformAab(
+                state.aabbMin,
+                state.aabbMax,
+                this.worldAabbMin,
+                this.worldAabbMax
+        );
+        if (!this.frustumIntersection.testAab(this.worldAabbMin, this.worldAabbMax)
+            && !inShadowVolume()) {
+            return Tier.FROZEN;
+        }
+        this.worldAabbMin.add(this.worldAabbMax, this.centre).mul(0.5f);
+        final float radius = this.worldAabbMin.distance(this.worldAabbMax) * 0.5f;
+        final float distance = this.centre.distance(this.cameraPosition);
+        if (distance <= radius) {
+            return Tier.FULL;
+        }
+        // Diameter of the bounding sphere as a fraction of the screen height
+        final float screenSize = radius * this.projectionScale / distance;
+        if (screenSize >= this.fullRateScreenSize) {
+            return Tier.FULL;
+        }
+        return screenSize >= this.halfRateScreenSize ? Tier.HALF : Tier.QUARTER;
+    }
+
+    private boolean inShadowVolume() {
+        for (int i = 0; i < this.shadowVolumeCount; i++) {
+            if (this.shadowIntersections.get(i).testAab(this.worldAabbMin, this.worldAabbMax)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isDue(final EntityState state,
+                          final Tier previousTier) {
+        if (!state.skinned) {
+            // Output has never been written
+            return true;
+        }
+        final AnimationData animationData = state.entity.getAnimationData();
+        if (animationData.getCurrentAnimation() == state.animation
+            && animationData.getCurrentFrameIdx() == state.frameIdx
+            && animationData.getTime() == state.time) {
+            return false;
+        }
+        if (state.tier == Tier.FROZEN) {
+            return false;
+        }
+        if (previousTier == Tier.FROZEN) {
+            // Coming back into view with a stale pose
+            return true;
+        }
+        return (this.frame + state.phase) % state.tier.getInterval() == 0;
+    }
+
+    public boolean isDue(final Entity entity) {
+        final EntityState state = this.states.get(entity);
+        return state == null || state.due;
+    }
+
+    public Tier getTier(final Entity entity) {
+        final EntityState state = this.states.get(entity);
+        return state == null ? Tier.FULL : state.tier;
+    }
+
+    /**
+     * @param fullRateScreenSize Screen height fraction at and above which
+     *                           entities update every frame
+     * @param halfRateScreenSize Screen height fraction at and above which
+     *                           entities update every second frame, below
+     *                           which they update every fourth
+     */
+    public void setScreenSizeThresholds(final float fullRateScreenSize,
+                                        final float halfRateScreenSize) {
+        this.fullRateScreenSize = fullRateScreenSize;
+        this.halfRateScreenSize = halfRateScreenSize;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public int getTierCount(final Tier tier) {
+        return this.tierCounts[tier.ordinal()];
+    }
+
+    public int getDueCount() {
+        return this.dueCount;
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.engineersbox.quanta.rendering.culling;
+
+import com.engineersbox.quanta.rendering.indirect.MeshDrawData;
+import com.engineersbox.quanta.scene.Entity;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+/**
+ * Tests mesh bounding boxes, transformed into world space by the model
+ * matrix of the owning {@link Entity}, against the planes of a view frustum.
+ * Intended to be updated once per frame (or per view) and then queried for
+ * every candidate draw when building indirect command buffers. A plane mask
+ * (see {@link FrustumIntersection#PLANE_MASK_NX} and friends) restricts which
+ * planes are tested, e.g. ignoring the near plane for shadow casters that sit
+ * between the light and the shadow volume.
+ * <p>
+ * Bounds of skinned meshes are not their bind pose bounds but the union of
+ * every pose of the model's animations, computed when the model is imported,
+ * so animated draws are tested the same way without culling visible poses.
+ */
+public class FrustumCuller {
+
+    public static final int ALL_PLANES = FrustumIntersection.PLANE_MASK_NX
+            | FrustumIntersection.PLANE_MASK_PX
+            | FrustumIntersection.PLANE_MASK_NY
+            | FrustumIntersection.PLANE_MASK_PY
+            | FrustumIntersection.PLANE_MASK_NZ
+            | FrustumIntersection.PLANE_MASK_PZ;
+
+    private final Matrix4f projectionViewMatrix;
+    private final FrustumIntersection frustumIntersection;
+    private final Vector3f worldAabbMin;
+    private final Vector3f worldAabbMax;
+    private final int planeMask;
+    private boolean enabled;
+    private int tested;
+    private int visible;
+
+    public FrustumCuller() {
+        this(FrustumCuller.ALL_PLANES);
+    }
+
+    public FrustumCuller(final int planeMask) {
+        this.planeMask = planeMask;
+        this.projectionViewMatrix = new Matrix4f();
+        this.frustumIntersection = new FrustumIntersection();
+        this.worldAabbMin = new Vector3f();
+        this.worldAabbMax = new Vector3f();
+        this.enabled = true;
+    }
+
+    public void update(final Matrix4f projectionMatrix,
+                       final Matrix4f viewMatrix) {
+        this.projectionViewMatrix.set(projectionMatrix).mul(viewMatrix);
+        update(this.projectionViewMatrix);
+    }
+
+    public void update(final Matrix4f projectionViewMatrix) {
+        this.frustumIntersection.set(projectionViewMatrix, false);
+        this.tested = 0;
+        this.visible = 0;
+    }
+
+    public boolean isVisible(final MeshDrawData meshDrawData,
+                             final Entity entity) {
+        this.tested++;
+        if (!this.enabled
+            || meshDrawData.aabbMin() == null
+            || meshDrawData.aabbMax() == null) {
+            this.visible++;
+            return true;
+        }
+        entity.getModelMatrix().transformAab(
+                meshDrawData.aabbMin(),
+                meshDrawData.aabbMax(),
+                this.worldAabbMin,
+                this.worldAabbMax
+        );
+        final int result = this.frustumIntersection.intersectAab(
+                this.worldAabbMin.x,
+                this.worldAabbMin.y,
+                this.worldAabbMin.z,
+                this.worldAabbMax.x,
+                this.worldAabbMax.y,
+                this.worldAabbMax.z,
+                this.planeMask
+        );
+        if (result == FrustumIntersection.INSIDE || result == FrustumIntersection.INTERSECT) {
+            this.visible++;
+            return true;
+        }
+        return false;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public int getTested() {
+        return this.tested;
+    }
+
+    public int getVisible() {
+        return this.visible;
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.engineersbox.quanta.rendering.culling;
+
+import com.engineersbox.quanta.rendering.indirect.IndirectDrawBuffer;
+import com.engineersbox.quanta.rendering.indirect.MeshDrawData;
+import com.engineersbox.quanta.virtualisation.LODCutView;
+import com.engineersbox.quanta.virtualisation.Meshlet;
+import com.engineersbox.quanta.virtualisation.MeshletMesh;
+import org.joml.Vector3f;
+
+/**
+ * CPU reference for meshlet culling, rejecting the meshlets of an instance
+ * whose bounding sphere lies outside the view frustum or whose normal cone
+ * faces away from the camera. Tests run in the instance's model space, as
+ * given by an {@link LODCutView}, so meshlet bounds are used untransformed.
+ * Meshlet triangles are stored contiguously in meshlet order, so each run of
+ * consecutive surviving meshlets is drawn with a single command.
+ */
+public class MeshletCuller {
+
+    private boolean coneCulling;
+    private int tested;
+    private int frustumCulled;
+    private int coneCulled;
+
+    public MeshletCuller() {
+        this.coneCulling = true;
+    }
+
+    public void reset() {
+        this.tested = 0;
+        this.frustumCulled = 0;
+        this.coneCulled = 0;
+    }
+
+    /**
+     * Appends draws of the visible meshlets of one instance.
+     *
+     * @param meshDrawData Draw data of the mesh uploaded in meshlet order
+     * @param drawElement Draw element of the instance, used as the base instance
+     * @return Number of commands added
+     */
+    public int cull(final LODCutView view,
+                    final MeshletMesh meshletMesh,
+                    final MeshDrawData meshDrawData,
+                    final IndirectDrawBuffer commandBuffer,
+                    final int drawElement) {
+        final Vector3f cameraPosition = view.getCameraPosition();
+        int commands = 0;
+        int runStart = -1;
+        int runTriangles = 0;
+        for (final Meshlet meshlet : meshletMesh.getMeshlets()) {
+            this.tested++;
+            boolean visible = true;
+            if (!view.isVisible(meshlet.boundingSphere())) {
+                this.frustumCulled++;
+                visible = false;
+            } else if (this.coneCulling && meshlet.isBackfacing(cameraPosition.x, cameraPosition.y, cameraPosition.z)) {
+                this.coneCulled++;
+                visible = false;
+            }
+            if (visible) {
+                if (runStart == -1) {
+                    runStart = meshlet.triangleOffset();
+                }
+                runTriangles += meshlet.triangleCount();
+                continue;
+            }
+            if (runStart != -1) {
+                addRun(meshDrawData, commandBuffer, drawElement, runStart, runTriangles);
+                commands++;
+                runStart = -1;
+                runTriangles = 0;
+            }
+        }
+        if (runStart != -1) {
+            addRun(meshDrawData, commandBuffer, drawElement, runStart, runTriangles);
+            commands++;
+        }
+        return commands;
+    }
+
+    private static void addRun(final MeshDrawData meshDrawData,
+                               final IndirectDrawBuffer commandBuffer,
+                               final int drawElement,
+                               final int firstTriangle,
+                               final int triangleCount) {
+        commandBuffer.addCommand(
+                triangleCount * 3,
+                1,
+                meshDrawData.firstIndex() + (firstTriangle * 3),
+                meshDrawData.offset(),
+                drawElement
+        );
+    }
+
+    public void setConeCulling(final boolean coneCulling) {
+        this.coneCulling = coneCulling;
+    }
+
+    public boolean isConeCulling() {
+        return this.coneCulling;
+    }
+
+    public int getTested() {
+        return this.tested;
+    }
+
+    public int getFrustumCulled() {
+        return this.frustumCulled;
+    }
+
+    public int getConeCulled() {
+        return this.coneCulled;
+    }
+
+}
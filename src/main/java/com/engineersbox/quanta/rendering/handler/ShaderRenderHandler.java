@@ -3,6 +3,7 @@ package com.engineersbox.quanta.rendering.handler;
 import com.engineersbox.quanta.rendering.RenderContext;
 import com.engineersbox.quanta.resources.assets.shader.ShaderProgram;
 import com.engineersbox.quanta.resources.assets.shader.Uniforms;
+import com.engineersbox.quanta.scene.SceneChanges;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
@@ -46,6 +47,14 @@ public abstract class ShaderRenderHandler {
 
     public void setupData(final RenderContext context) {}
 
+    /**
+     * Applies models and entities added to or removed from the scene since the
+     * last frame. Handlers that hold scene derived GPU state should update it
+     * in place here rather than waiting for a full {@link #setupData}.
+     */
+    public void streamData(final RenderContext context,
+                           final SceneChanges changes) {}
+
     public void resize(final int width,
                        final int height) {}
 
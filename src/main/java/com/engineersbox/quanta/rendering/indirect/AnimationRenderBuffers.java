@@ -7,7 +7,10 @@ import com.engineersbox.quanta.resources.assets.object.animation.Animation;
 import com.engineersbox.quanta.scene.Entity;
 import com.engineersbox.quanta.scene.Scene;
 import com.engineersbox.quanta.utils.BufferUtils;
+import com.engineersbox.quanta.virtualisation.MeshletMesh;
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.joml.Matrix4f;
 import org.lwjgl.opengl.GL30;
 import org.lwjgl.system.MemoryUtil;
@@ -16,25 +19,66 @@ import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 
 import static org.lwjgl.opengl.GL15.*;
 import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.GL_COPY_READ_BUFFER;
+import static org.lwjgl.opengl.GL31.glCopyBufferSubData;
 import static org.lwjgl.opengl.GL43.GL_SHADER_STORAGE_BUFFER;
 
 public class AnimationRenderBuffers {
 
-    private int staticVaoId;
+    private static final Logger LOGGER = LogManager.getLogger(AnimationRenderBuffers.class);
+
+    /**
+     * Floats per vertex in the binding pose and skinned output buffers:
+     * position, normal, tangent, bitangent and texture coordinates
+     */
+    public static final int VERTEX_FLOATS = 14;
+    /**
+     * Floats per vertex in the bone weights buffer: four weights followed by
+     * four bone indices
+     */
+    public static final int WEIGHTS_FLOATS = 8;
+
+    /**
+     * GPU memory held for an animated model.
+     *
+     * @param entities Number of entities of the model
+     * @param sharedBytes Bytes of binding pose, weights and indices stored once for the model
+     * @param instanceBytes Bytes of skinned output stored for each entity
+     */
+    public record AnimatedModelMemory(int entities,
+                                      long sharedBytes,
+                                      long instanceBytes) {
+
+        public long totalBytes() {
+            return this.sharedBytes + (this.entities * this.instanceBytes);
+        }
+
+    }
+
+    private final GeometryArena staticGeometry;
     private int animVaoId;
     private int bindingPosesBuffer;
     private int bonesIndicesWeightsBuffer;
     private int bonesMatricesBuffer;
+    private int bonesMatricesSize;
     private int destAnimationBuffer;
+    private SkinningJobBuffer skinningJobBuffer;
+    private final PosePaletteBuffer posePaletteBuffer;
     private final List<Integer> vboIdList;
+    private final Map<String, AnimatedModelMemory> animatedModelMemory;
 
     public AnimationRenderBuffers() {
         this.vboIdList = new ArrayList<>();
+        this.animatedModelMemory = new LinkedHashMap<>();
+        this.staticGeometry = new GeometryArena();
+        this.posePaletteBuffer = new PosePaletteBuffer();
     }
 
     public int getAnimVaoId() {
@@ -57,96 +101,156 @@ public class AnimationRenderBuffers {
         return this.destAnimationBuffer;
     }
 
+    /**
+     * @return Memory held for each loaded animated model, keyed by model id
+     */
+    public Map<String, AnimatedModelMemory> getAnimatedModelMemory() {
+        return this.animatedModelMemory;
+    }
+
+    public SkinningJobBuffer getSkinningJobBuffer() {
+        return this.skinningJobBuffer;
+    }
+
+    public PosePaletteBuffer getPosePaletteBuffer() {
+        return this.posePaletteBuffer;
+    }
+
     public void cleanup() {
-        this.vboIdList.forEach(GL30::glDeleteBuffers);
-        glDeleteVertexArrays(this.staticVaoId);
-        glDeleteVertexArrays(this.animVaoId);
+        unloadAnimatedModels();
+        this.posePaletteBuffer.cleanup();
+        glDeleteBuffers(this.bonesMatricesBuffer);
+        this.staticGeometry.cleanup();
     }
 
     public final int getStaticVaoId() {
-        return this.staticVaoId;
+        return this.staticGeometry.getVaoId();
     }
 
+    public GeometryArena getStaticGeometry() {
+        return this.staticGeometry;
+    }
+
+    /**
+     * Releases the buffers holding animated geometry so that they can be
+     * rebuilt with {@link #loadAnimatedModels(Scene)} after the set of
+     * animated models or entities changes.
+     */
+    public void unloadAnimatedModels() {
+        this.vboIdList.forEach(GL30::glDeleteBuffers);
+        this.vboIdList.clear();
+        if (this.animVaoId != 0) {
+            glDeleteVertexArrays(this.animVaoId);
+            this.animVaoId = 0;
+        }
+        if (this.skinningJobBuffer != null) {
+            this.skinningJobBuffer.cleanup();
+            this.skinningJobBuffer = null;
+        }
+    }
+
+    /**
+     * Lays out the animated models of the scene. The binding pose, bone
+     * weights and indices of each model are stored once and shared by all of
+     * its entities, which only get their own region of the skinned output
+     * buffer. Draws of an entity reuse the model's indices with the entity's
+     * output region as base vertex.
+     */
     public void loadAnimatedModels(final Scene scene) {
         final List<Model> modelList = scene.getModels()
                 .values()
                 .stream()
                 .filter(Model::isAnimated)
                 .toList();
+        modelList.forEach((final Model model) -> model.getMeshDrawData().clear());
+        this.animatedModelMemory.clear();
         loadBindingPoses(modelList);
         loadBonesMatricesBuffer(modelList);
         loadBonesIndicesWeights(modelList);
 
         this.animVaoId = glGenVertexArrays();
         glBindVertexArray(this.animVaoId);
-        int positionsSize = 0;
-        int normalsSize = 0;
-        int textureCoordsSize = 0;
-        int indicesSize = 0;
-        int offset = 0;
-        int chunkBindingPoseOffset = 0;
         int bindingPoseOffset = 0;
-        int chunkWeightsOffset = 0;
         int weightsOffset = 0;
+        int indicesSize = 0;
+        int dstVertices = 0;
         for (final Model model : modelList) {
-            final List<Entity> entities = model.getEntities();
-            for (final Entity entity : entities) {
-                final List<MeshDrawData> meshDrawDataList = model.getMeshDrawData();
-                bindingPoseOffset = chunkBindingPoseOffset;
-                weightsOffset = chunkWeightsOffset;
-                for (final MeshData meshData : model.getMeshData()) {
-                    positionsSize += meshData.getPositions().length;
-                    normalsSize += meshData.getNormals().length;
-                    textureCoordsSize += meshData.getTextCoords().length;
-                    indicesSize += meshData.getIndices().length;
-                    final int meshSizeInBytes = (meshData.getPositions().length + meshData.getNormals().length * 3 + meshData.getTextCoords().length) * 4;
+            final List<MeshData> meshDataList = model.getMeshData();
+            final int[] bindingPoseOffsets = new int[meshDataList.size()];
+            final int[] weightsOffsets = new int[meshDataList.size()];
+            final int[] firstIndices = new int[meshDataList.size()];
+            long sharedBytes = 0;
+            long instanceBytes = 0;
+            for (int meshIdx = 0; meshIdx < meshDataList.size(); meshIdx++) {
+                final MeshData meshData = meshDataList.get(meshIdx);
+                final int vertexCount = meshData.getPositions().length / 3;
+                bindingPoseOffsets[meshIdx] = bindingPoseOffset;
+                weightsOffsets[meshIdx] = weightsOffset;
+                firstIndices[meshIdx] = indicesSize;
+                bindingPoseOffset += vertexCount * AnimationRenderBuffers.VERTEX_FLOATS;
+                weightsOffset += vertexCount * AnimationRenderBuffers.WEIGHTS_FLOATS;
+                indicesSize += meshData.getIndices().length;
+                sharedBytes += ((long) vertexCount * (AnimationRenderBuffers.VERTEX_FLOATS + AnimationRenderBuffers.WEIGHTS_FLOATS)
+                        + meshData.getIndices().length) * 4;
+                instanceBytes += (long) vertexCount * AnimationRenderBuffers.VERTEX_FLOATS * 4;
+            }
+            final List<MeshDrawData> meshDrawDataList = model.getMeshDrawData();
+            for (final Entity entity : model.getEntities()) {
+                for (int meshIdx = 0; meshIdx < meshDataList.size(); meshIdx++) {
+                    final MeshData meshData = meshDataList.get(meshIdx);
+                    final int vertexCount = meshData.getPositions().length / 3;
                     meshDrawDataList.add(new MeshDrawData(
-                            meshSizeInBytes,
+                            vertexCount * AnimationRenderBuffers.VERTEX_FLOATS * 4,
                             meshData.getMaterialIdx(),
-                            offset,
+                            dstVertices,
+                            firstIndices[meshIdx],
                             meshData.getIndices().length,
+                            meshData.getAabbMin(),
+                            meshData.getAabbMax(),
                             new AnimMeshDrawData(
                                     entity,
-                                    bindingPoseOffset,
-                                    weightsOffset
+                                    bindingPoseOffsets[meshIdx],
+                                    weightsOffsets[meshIdx]
                             )
                     ));
-                    bindingPoseOffset += meshSizeInBytes / 4;
-                    final int groupSize = (int) Math.ceil((float) meshSizeInBytes / (14 * 4));
-                    weightsOffset += groupSize * 2 * 4;
-                    offset = positionsSize / 3;
+                    dstVertices += vertexCount;
                 }
             }
-            chunkBindingPoseOffset += bindingPoseOffset;
-            chunkWeightsOffset += weightsOffset;
+            final AnimatedModelMemory memory = new AnimatedModelMemory(
+                    model.getEntities().size(),
+                    sharedBytes,
+                    instanceBytes
+            );
+            this.animatedModelMemory.put(model.getId(), memory);
+            AnimationRenderBuffers.LOGGER.info(
+                    "[ANIMATION] {}: {} entities, {} bytes shared, {} bytes per entity, {} bytes total",
+                    model.getId(),
+                    memory.entities(),
+                    memory.sharedBytes(),
+                    memory.instanceBytes(),
+                    memory.totalBytes()
+            );
         }
 
+        // Skinned output, written by the animation pass before any draw reads it
         this.destAnimationBuffer = glGenBuffers();
         this.vboIdList.add(this.destAnimationBuffer);
-        final FloatBuffer meshesBuffer = MemoryUtil.memAllocFloat(positionsSize + normalsSize * 3 + textureCoordsSize);
-        for (final Model model : modelList) {
-            model.getEntities().forEach(e -> {
-                for (final MeshData meshData : model.getMeshData()) {
-                    populateMeshBuffer(meshesBuffer, meshData);
-                }
-            });
-        }
-        meshesBuffer.flip();
         glBindBuffer(GL_ARRAY_BUFFER, this.destAnimationBuffer);
-        glBufferData(GL_ARRAY_BUFFER, meshesBuffer, GL_STATIC_DRAW);
-        MemoryUtil.memFree(meshesBuffer);
+        glBufferData(
+                GL_ARRAY_BUFFER,
+                Math.max(1L, (long) dstVertices * AnimationRenderBuffers.VERTEX_FLOATS * 4),
+                GL_DYNAMIC_COPY
+        );
         defineVertexAttribs();
 
-        // Index VBO
+        // Index VBO, shared by every entity of a model
         final int vboId = glGenBuffers();
         this.vboIdList.add(vboId);
         final IntBuffer indicesBuffer = MemoryUtil.memAllocInt(indicesSize);
         for (final Model model : modelList) {
-            model.getEntities().forEach(e -> {
-                for (final MeshData meshData : model.getMeshData()) {
-                    indicesBuffer.put(meshData.getIndices());
-                }
-            });
+            for (final MeshData meshData : model.getMeshData()) {
+                indicesBuffer.put(meshData.getIndices());
+            }
         }
         indicesBuffer.flip();
         glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboId);
@@ -154,14 +258,16 @@ public class AnimationRenderBuffers {
         MemoryUtil.memFree(indicesBuffer);
         glBindBuffer(GL_ARRAY_BUFFER, 0);
         glBindVertexArray(0);
+        this.skinningJobBuffer = new SkinningJobBuffer(modelList.stream()
+                .mapToInt((final Model model) -> model.getMeshDrawData().size())
+                .sum());
     }
 
     private void loadBindingPoses(final List<Model> modelList) {
         int meshSize = 0;
         for (final Model model : modelList) {
             for (final MeshData meshData : model.getMeshData()) {
-                meshSize += meshData.getPositions().length + meshData.getNormals().length * 3 +
-                        meshData.getTextCoords().length + meshData.getIndices().length;
+                meshSize += (meshData.getPositions().length / 3) * AnimationRenderBuffers.VERTEX_FLOATS;
             }
         }
 
@@ -181,7 +287,14 @@ public class AnimationRenderBuffers {
         glBindBuffer(GL_ARRAY_BUFFER, 0);
     }
 
+    /**
+     * Appends the bone matrices of frames that have not been uploaded yet to
+     * the bone matrices buffer. Frames drop their CPU side matrices once
+     * uploaded, so the buffer is only ever extended and existing frame
+     * offsets remain valid across rebuilds of the animated geometry.
+     */
     private void loadBonesMatricesBuffer(final List<Model> modelList) {
+        final int matrixSize = 4 * 4 * 4;
         int bufferSize = 0;
         for (final Model model : modelList) {
             final List<Animation> animationsList = model.getAnimations();
@@ -189,21 +302,27 @@ public class AnimationRenderBuffers {
                 final List<AnimatedFrame> frameList = animation.frames();
                 for (final AnimatedFrame frame : frameList) {
                     final Matrix4f[] matrices = frame.getBoneMatrices();
-                    bufferSize += matrices.length * 64;
+                    if (matrices != null) {
+                        bufferSize += matrices.length * matrixSize;
+                    }
                 }
             }
         }
-        this.bonesMatricesBuffer = glGenBuffers();
-        this.vboIdList.add(this.bonesMatricesBuffer);
+        if (bufferSize == 0 && this.bonesMatricesBuffer != 0) {
+            return;
+        }
         final ByteBuffer dataBuffer = MemoryUtil.memAlloc(bufferSize);
-        final int matrixSize = 4 * 4 * 4;
+        final int baseOffset = this.bonesMatricesSize / matrixSize;
         for (final Model model : modelList) {
             final List<Animation> animationsList = model.getAnimations();
             for (final Animation animation : animationsList) {
                 final List<AnimatedFrame> frameList = animation.frames();
                 for (final AnimatedFrame frame : frameList) {
-                    frame.setOffset(dataBuffer.position() / matrixSize);
                     final Matrix4f[] matrices = frame.getBoneMatrices();
+                    if (matrices == null) {
+                        continue;
+                    }
+                    frame.setOffset(baseOffset + dataBuffer.position() / matrixSize);
                     for (final Matrix4f matrix : matrices) {
                         matrix.get(dataBuffer);
                         dataBuffer.position(dataBuffer.position() + matrixSize);
@@ -213,9 +332,19 @@ public class AnimationRenderBuffers {
             }
         }
         dataBuffer.flip();
-        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.bonesMatricesBuffer);
-        glBufferData(GL_SHADER_STORAGE_BUFFER, dataBuffer, GL_STATIC_DRAW);
+        final int buffer = glGenBuffers();
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, buffer);
+        glBufferData(GL_SHADER_STORAGE_BUFFER, (long) this.bonesMatricesSize + bufferSize, GL_STATIC_DRAW);
+        if (this.bonesMatricesBuffer != 0) {
+            glBindBuffer(GL_COPY_READ_BUFFER, this.bonesMatricesBuffer);
+            glCopyBufferSubData(GL_COPY_READ_BUFFER, GL_SHADER_STORAGE_BUFFER, 0, 0, this.bonesMatricesSize);
+            glBindBuffer(GL_COPY_READ_BUFFER, 0);
+            glDeleteBuffers(this.bonesMatricesBuffer);
+        }
+        glBufferSubData(GL_SHADER_STORAGE_BUFFER, this.bonesMatricesSize, dataBuffer);
         MemoryUtil.memFree(dataBuffer);
+        this.bonesMatricesBuffer = buffer;
+        this.bonesMatricesSize += bufferSize;
     }
 
     private void loadBonesIndicesWeights(final List<Model> modelList) {
@@ -254,68 +383,71 @@ public class AnimationRenderBuffers {
     }
 
     public void loadStaticModels(final Scene scene) {
-        final List<Model> modelList = scene.getModels()
+        scene.getModels()
                 .values()
                 .stream()
                 .filter(Predicate.not(Model::isAnimated))
-                .toList();
-        this.staticVaoId = glGenVertexArrays();
-        glBindVertexArray(this.staticVaoId);
-        int positionsSize = 0;
-        int normalsSize = 0;
-        int textureCoordsSize = 0;
-        int indicesSize = 0;
-        int offset = 0;
-        for (final Model model : modelList) {
-            final List<MeshDrawData> meshDrawDataList = model.getMeshDrawData();
-            for (final MeshData meshData : model.getMeshData()) {
-                positionsSize += meshData.getPositions().length;
-                normalsSize += meshData.getNormals().length;
-                textureCoordsSize += meshData.getTextCoords().length;
-                indicesSize += meshData.getIndices().length;
-                final int meshSizeInBytes = meshData.getPositions().length * 14 * 4;
+                .forEach(this::loadStaticModel);
+    }
+
+    /**
+     * Sub-allocates the meshes of a static model in the shared static
+     * geometry arena. Models without CPU side mesh data are skipped, as their
+     * geometry has already been uploaded and is kept while they are removed,
+     * see {@link #unloadStaticModel}. Meshes split into meshlets are
+     * stored with their triangles in meshlet order. Virtualised meshes are
+     * only ever drawn from the cluster pool, so they take no range and are
+     * given draw data holding just their material and bounds.
+     */
+    public void loadStaticModel(final Model model) {
+        if (model.getMeshData().isEmpty()) {
+            return;
+        }
+        final List<MeshDrawData> meshDrawDataList = model.getMeshDrawData();
+        meshDrawDataList.clear();
+        for (int meshIdx = 0; meshIdx < model.getMeshData().size(); meshIdx++) {
+            final MeshData meshData = model.getMeshData().get(meshIdx);
+            if (model.getLODGraph(meshIdx) != null) {
                 meshDrawDataList.add(new MeshDrawData(
-                        meshSizeInBytes,
+                        0,
                         meshData.getMaterialIdx(),
-                        offset,
-                        meshData.getIndices().length
+                        0,
+                        0,
+                        0,
+                        meshData.getAabbMin(),
+                        meshData.getAabbMax()
                 ));
-                offset = positionsSize / 3;
+                continue;
             }
+            final MeshletMesh meshletMesh = model.getMeshletMesh(meshIdx);
+            meshDrawDataList.add(this.staticGeometry.upload(
+                    meshData,
+                    meshletMesh != null ? meshletMesh.getIndices() : meshData.getIndices()
+            ));
         }
+    }
 
-        int vboId = glGenBuffers();
-        this.vboIdList.add(vboId);
-        final FloatBuffer meshesBuffer = MemoryUtil.memAllocFloat(positionsSize + normalsSize * 3 + textureCoordsSize);
-        for (final Model model : modelList) {
-            for (final MeshData meshData : model.getMeshData()) {
-                populateMeshBuffer(meshesBuffer, meshData);
-            }
+    /**
+     * Frees the arena ranges of a removed static model. Once the renderer has
+     * released a model's CPU side mesh data its geometry cannot be uploaded
+     * again, so such a model keeps its ranges and draw data while removed,
+     * and is drawn from them if it is added back.
+     */
+    public void unloadStaticModel(final Model model) {
+        if (model.getMeshData().isEmpty()) {
+            return;
         }
-        meshesBuffer.flip();
-        glBindBuffer(GL_ARRAY_BUFFER, vboId);
-        glBufferData(GL_ARRAY_BUFFER, meshesBuffer, GL_STATIC_DRAW);
-        MemoryUtil.memFree(meshesBuffer);
-        defineVertexAttribs();
-        // Indices
-        vboId = glGenBuffers();
-        this.vboIdList.add(vboId);
-        final IntBuffer indicesBuffer = MemoryUtil.memAllocInt(indicesSize);
-        for (final Model model : modelList) {
-            for (final MeshData meshData : model.getMeshData()) {
-                indicesBuffer.put(meshData.getIndices());
+        final List<MeshDrawData> meshDrawDataList = model.getMeshDrawData();
+        for (int meshIdx = 0; meshIdx < meshDrawDataList.size(); meshIdx++) {
+            if (model.getLODGraph(meshIdx) == null) {
+                this.staticGeometry.free(meshDrawDataList.get(meshIdx));
             }
         }
-        indicesBuffer.flip();
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboId);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indicesBuffer, GL_STATIC_DRAW);
-        MemoryUtil.memFree(indicesBuffer);
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
-        glBindVertexArray(0);
+        meshDrawDataList.clear();
     }
 
-    private void populateMeshBuffer(final FloatBuffer meshesBuffer,
-                                    final MeshData meshData) {
+    static void populateMeshBuffer(final FloatBuffer meshesBuffer,
+                                   final MeshData meshData) {
         final float[] positions = meshData.getPositions();
         final float[] normals = meshData.getNormals();
         final float[] tangents = meshData.getTangents();
@@ -348,7 +480,7 @@ public class AnimationRenderBuffers {
         }
     }
 
-    private void defineVertexAttribs() {
+    static void defineVertexAttribs() {
         final int stride = 3 * 4 * 4 + 2 * 4;
         final int offset = 3 * 4;
         int pointer = 0;
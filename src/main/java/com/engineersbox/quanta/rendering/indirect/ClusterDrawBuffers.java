@@ -0,0 +1,624 @@
+package com.engineersbox.quanta.rendering.indirect;
+
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+import com.engineersbox.quanta.resources.assets.object.Model;
+import com.engineersbox.quanta.virtualisation.ClusterPageStore.ClusterVertexData;
+import com.engineersbox.quanta.virtualisation.ClusterResidency;
+import com.engineersbox.quanta.virtualisation.ClusterStreamer;
+import com.engineersbox.quanta.virtualisation.ClusterStreamer.StreamedPage;
+import com.engineersbox.quanta.virtualisation.LODCutView;
+import com.engineersbox.quanta.virtualisation.LODGraph;
+import com.engineersbox.quanta.virtualisation.MeshCluster;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.glBindBufferBase;
+import static org.lwjgl.opengl.GL31.GL_COPY_WRITE_BUFFER;
+import static org.lwjgl.opengl.GL42.GL_BUFFER_UPDATE_BARRIER_BIT;
+import static org.lwjgl.opengl.GL42.glMemoryBarrier;
+import static org.lwjgl.opengl.GL43.GL_SHADER_STORAGE_BUFFER;
+
+/**
+ * GPU side of the cluster hierarchies of virtualised meshes. Cluster pages
+ * are streamed into a fixed size {@link GeometryArena} as cuts ask for finer
+ * detail, evicting the least recently drawn pages when it is full, while the
+ * pages holding root clusters stay resident for as long as their graph is
+ * loaded. A std430 table of cluster bounds, errors, index ranges and
+ * residency flags lets a compute pass select cuts on the GPU, writing draw
+ * commands into a device only command buffer with the command count in a
+ * parameter buffer for {@code glMultiDrawElementsIndirectCount}. GPU cuts
+ * report the pages they pass through and the groups they could not refine
+ * into, which are copied into a fenced {@link ReadbackBuffer} ring and read
+ * back once the GPU has finished with them to drive eviction and streaming.
+ */
+public class ClusterDrawBuffers {
+
+    public static final int CLUSTERS_BINDING = 4;
+    public static final int COMMANDS_BINDING = 5;
+    public static final int COUNTERS_BINDING = 6;
+    public static final int PAGE_FRAMES_BINDING = 7;
+    public static final int REQUESTS_BINDING = 8;
+    // vec4 boundingSphere, vec4 lodBounds, vec4 parentLodBounds, float lodError,
+    // float parentLodError, uint indexCount, uint firstIndex, int baseVertex,
+    // uint flags, uint page, padding
+    public static final int CLUSTER_SIZE = 20 * 4;
+    public static final int CLUSTER_DRAWABLE = 1;
+    public static final int CLUSTER_REFINABLE = 1 << 1;
+    public static final int MAX_GPU_REQUESTS = 1024;
+    // uint drawCount, uint triangleCount, uint culledCount, uint requestCount
+    private static final int COUNTERS_SIZE = 4 * 4;
+    // Readback region layout: counters, then requests, then page frames
+    private static final int READBACK_REQUESTS_OFFSET = ClusterDrawBuffers.COUNTERS_SIZE;
+    private static final int READBACK_PAGE_FRAMES_OFFSET = ClusterDrawBuffers.READBACK_REQUESTS_OFFSET + (ClusterDrawBuffers.MAX_GPU_REQUESTS * 4);
+    private static final int POOL_VERTEX_CAPACITY = 1 << 20;
+    private static final int POOL_INDEX_CAPACITY = 1 << 22;
+    private static final long INSTALL_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    // Pages drawn within this many frames are kept, so a working set larger
+    // than the pool settles on coarser clusters instead of thrashing
+    private static final int MIN_EVICTION_AGE = 2;
+
+    /**
+     * @param firstCluster Index of the graph's first cluster in the cluster table
+     * @param firstPage Index of the graph's first page in the page frame table
+     * @param materialIdx Material of the mesh the graph was built from
+     * @param residency Residency of the graph's pages
+     * @param clusters Draw data of each cluster, indexed by cluster id and {@code null} while not resident
+     * @param pages Pool ranges of each page, {@code null} while not resident
+     */
+    public record ClusterMeshDrawData(int firstCluster,
+                                      int firstPage,
+                                      int materialIdx,
+                                      ClusterResidency residency,
+                                      MeshDrawData[] clusters,
+                                      MeshDrawData[] pages) {
+    }
+
+    private final Map<LODGraph, ClusterMeshDrawData> meshes;
+    private final GeometryArena pool;
+    private final ClusterStreamer streamer;
+    private final int clusterBuffer;
+    private final int commandBuffer;
+    private final int counterBuffer;
+    private final int pageFrameBuffer;
+    private final int requestBuffer;
+    private ReadbackBuffer readback;
+    private ByteBuffer clusterTable;
+    private int dirtyFrom;
+    private int dirtyTo;
+    private int clusterCount;
+    private int pageCount;
+    private int commandCapacity;
+    private int frame;
+    private int gpuDrawnClusters;
+    private int gpuDrawnTriangles;
+    private int gpuCulledClusters;
+    private int installedPages;
+    private int evictedPages;
+
+    public ClusterDrawBuffers() {
+        this.meshes = new LinkedHashMap<>();
+        this.pool = new GeometryArena(
+                ClusterDrawBuffers.POOL_VERTEX_CAPACITY,
+                ClusterDrawBuffers.POOL_INDEX_CAPACITY,
+                false
+        );
+        this.streamer = new ClusterStreamer();
+        this.clusterBuffer = glGenBuffers();
+        this.commandBuffer = glGenBuffers();
+        this.counterBuffer = glGenBuffers();
+        this.pageFrameBuffer = glGenBuffers();
+        this.requestBuffer = glGenBuffers();
+        glBindBuffer(GL_COPY_WRITE_BUFFER, this.counterBuffer);
+        glBufferData(GL_COPY_WRITE_BUFFER, ClusterDrawBuffers.COUNTERS_SIZE, GL_DYNAMIC_COPY);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, this.requestBuffer);
+        glBufferData(GL_COPY_WRITE_BUFFER, ClusterDrawBuffers.MAX_GPU_REQUESTS * 4L, GL_DYNAMIC_COPY);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        this.clusterTable = MemoryUtil.memCalloc(ClusterDrawBuffers.CLUSTER_SIZE);
+        this.clusterCount = 0;
+        this.pageCount = 0;
+        this.commandCapacity = 0;
+        this.frame = 0;
+        ensureCommandCapacity(1);
+        rebuildClusterTable();
+    }
+
+    /**
+     * Registers every virtualised mesh of a model for streaming. The pages
+     * holding root clusters are read and installed straight away, so the
+     * coarsest level can be drawn from the first frame.
+     */
+    public void load(final Model model) {
+        final List<ClusterResidency> added = new ArrayList<>();
+        for (int meshIdx = 0; meshIdx < model.getMeshDrawData().size(); meshIdx++) {
+            final LODGraph graph = model.getLODGraph(meshIdx);
+            if (graph == null || this.meshes.containsKey(graph)) {
+                continue;
+            }
+            final ClusterResidency residency = this.streamer.register(graph);
+            this.meshes.put(graph, new ClusterMeshDrawData(
+                    0,
+                    0,
+                    model.getMeshDrawData().get(meshIdx).materialIdx(),
+                    residency,
+                    new MeshDrawData[graph.getClusters().size()],
+                    new MeshDrawData[residency.getPageCount()]
+            ));
+            added.add(residency);
+        }
+        rebuildClusterTable();
+        for (final ClusterResidency residency : added) {
+            residency.setFrame(this.frame);
+            for (int page = 0; page < residency.getPageCount(); page++) {
+                if (residency.isPinned(page) && !install(ClusterStreamer.readPage(residency, page))) {
+                    throw new IllegalStateException("Cluster pool is too small to hold the root clusters of every virtualised mesh");
+                }
+            }
+        }
+        updateResidency();
+    }
+
+    public void unload(final Model model) {
+        for (int meshIdx = 0; meshIdx < model.getMeshDrawData().size(); meshIdx++) {
+            final LODGraph graph = model.getLODGraph(meshIdx);
+            if (graph == null) {
+                continue;
+            }
+            final ClusterMeshDrawData clusterMesh = this.meshes.remove(graph);
+            if (clusterMesh != null) {
+                release(clusterMesh);
+            }
+        }
+        rebuildClusterTable();
+    }
+
+    /**
+     * Unloads every mesh, freeing all of the pool.
+     */
+    public void reset() {
+        this.meshes.values().forEach(this::release);
+        this.meshes.clear();
+        rebuildClusterTable();
+    }
+
+    private void release(final ClusterMeshDrawData clusterMesh) {
+        for (final MeshDrawData page : clusterMesh.pages()) {
+            if (page != null) {
+                this.pool.free(page);
+            }
+        }
+        this.streamer.unregister(clusterMesh.residency());
+    }
+
+    /**
+     * Starts loading the pages requested by last frame's cuts, installs pages
+     * that have finished loading within {@link #INSTALL_BUDGET_NANOS} and
+     * updates the residency flags of the cluster table. Must be called once
+     * per frame, before any cuts are selected.
+     */
+    public void update() {
+        this.frame++;
+        this.installedPages = 0;
+        this.evictedPages = 0;
+        this.streamer.dispatchRequests(this.frame);
+        final long start = System.nanoTime();
+        StreamedPage page;
+        while (System.nanoTime() - start < ClusterDrawBuffers.INSTALL_BUDGET_NANOS
+               && (page = this.streamer.pollLoaded()) != null) {
+            if (!install(page)) {
+                // Every page is in use, it will be requested again once some fall out of view
+                page.residency().dropLoaded(page.page());
+                break;
+            }
+        }
+        updateResidency();
+    }
+
+    private boolean install(final StreamedPage page) {
+        final ClusterMeshDrawData clusterMesh = this.meshes.get(page.residency().getGraph());
+        final MeshData meshData = createPageMeshData(page, clusterMesh.materialIdx());
+        MeshDrawData pageDrawData = this.pool.upload(meshData);
+        while (pageDrawData == null) {
+            if (!evictLeastRecentlyUsed()) {
+                return false;
+            }
+            pageDrawData = this.pool.upload(meshData);
+        }
+        clusterMesh.pages()[page.page()] = pageDrawData;
+        int baseVertex = pageDrawData.offset();
+        int firstIndex = pageDrawData.firstIndex();
+        for (int i = 0; i < page.clusters().length; i++) {
+            final MeshCluster cluster = page.clusters()[i];
+            final ClusterVertexData vertexData = page.vertexData()[i];
+            final int vertexCount = vertexData.positions().length / 3;
+            clusterMesh.clusters()[cluster.getId()] = new MeshDrawData(
+                    vertexCount * GeometryArena.VERTEX_SIZE,
+                    clusterMesh.materialIdx(),
+                    baseVertex,
+                    firstIndex,
+                    vertexData.indices().length,
+                    null,
+                    null
+            );
+            baseVertex += vertexCount;
+            firstIndex += vertexData.indices().length;
+            writeCluster(clusterMesh, cluster);
+        }
+        page.residency().markResident(page.page());
+        this.installedPages++;
+        return true;
+    }
+
+    /**
+     * Packs every cluster of a page into one mesh so the page takes a single
+     * range of the pool. Cluster indices stay local to each cluster and are
+     * offset by a per-cluster base vertex when drawn.
+     */
+    private static MeshData createPageMeshData(final StreamedPage page,
+                                               final int materialIdx) {
+        int vertexFloats = 0;
+        int indexCount = 0;
+        for (final ClusterVertexData vertexData : page.vertexData()) {
+            vertexFloats += vertexData.positions().length;
+            indexCount += vertexData.indices().length;
+        }
+        final float[] positions = new float[vertexFloats];
+        final float[] normals = new float[vertexFloats];
+        final int[] indices = new int[indexCount];
+        int vertexOffset = 0;
+        int indexOffset = 0;
+        for (final ClusterVertexData vertexData : page.vertexData()) {
+            System.arraycopy(vertexData.positions(), 0, positions, vertexOffset, vertexData.positions().length);
+            System.arraycopy(vertexData.normals(), 0, normals, vertexOffset, vertexData.normals().length);
+            System.arraycopy(vertexData.indices(), 0, indices, indexOffset, vertexData.indices().length);
+            vertexOffset += vertexData.positions().length;
+            indexOffset += vertexData.indices().length;
+        }
+        // Clusters only keep positions and normals, remaining attributes are zeroed
+        return new MeshData(
+                positions,
+                normals,
+                new float[vertexFloats],
+                new float[vertexFloats],
+                new float[(vertexFloats / 3) * 2],
+                indices,
+                null,
+                null,
+                null,
+                null,
+                materialIdx
+        );
+    }
+
+    /**
+     * Evicts the least recently drawn page that is neither pinned nor drawn
+     * within {@link #MIN_EVICTION_AGE} frames.
+     *
+     * @return Whether a page was evicted
+     */
+    private boolean evictLeastRecentlyUsed() {
+        ClusterMeshDrawData victimMesh = null;
+        int victimPage = -1;
+        int victimLastUsed = this.frame - ClusterDrawBuffers.MIN_EVICTION_AGE + 1;
+        for (final ClusterMeshDrawData clusterMesh : this.meshes.values()) {
+            final ClusterResidency residency = clusterMesh.residency();
+            for (int page = 0; page < residency.getPageCount(); page++) {
+                if (clusterMesh.pages()[page] == null
+                    || residency.isPinned(page)
+                    || residency.getPageLastUsed(page) >= victimLastUsed) {
+                    continue;
+                }
+                victimMesh = clusterMesh;
+                victimPage = page;
+                victimLastUsed = residency.getPageLastUsed(page);
+            }
+        }
+        if (victimMesh == null) {
+            return false;
+        }
+        this.pool.free(victimMesh.pages()[victimPage]);
+        victimMesh.pages()[victimPage] = null;
+        final List<MeshCluster> clusters = victimMesh.residency().getGraph().getClusters();
+        for (final int id : victimMesh.residency().getPageClusters(victimPage)) {
+            victimMesh.clusters()[id] = null;
+            writeCluster(victimMesh, clusters.get(id));
+        }
+        victimMesh.residency().markEvicted(victimPage);
+        this.evictedPages++;
+        return true;
+    }
+
+    private void updateResidency() {
+        for (final ClusterMeshDrawData clusterMesh : this.meshes.values()) {
+            if (clusterMesh.residency().updateReadiness()) {
+                writeFlags(clusterMesh);
+            }
+        }
+        flushClusterTable();
+    }
+
+    private static int clusterFlags(final ClusterResidency residency,
+                                    final MeshCluster cluster) {
+        int flags = 0;
+        if (residency.isDrawable(cluster)) {
+            flags |= ClusterDrawBuffers.CLUSTER_DRAWABLE;
+        }
+        if (residency.isRefinable(cluster)) {
+            flags |= ClusterDrawBuffers.CLUSTER_REFINABLE;
+        }
+        return flags;
+    }
+
+    private void writeCluster(final ClusterMeshDrawData clusterMesh,
+                              final MeshCluster cluster) {
+        final MeshDrawData drawData = clusterMesh.clusters()[cluster.getId()];
+        final int offset = (clusterMesh.firstCluster() + cluster.getId()) * ClusterDrawBuffers.CLUSTER_SIZE;
+        cluster.getBoundingSphere().get(offset, this.clusterTable);
+        cluster.getLodBounds().get(offset + 16, this.clusterTable);
+        cluster.getParentLodBounds().get(offset + 32, this.clusterTable);
+        this.clusterTable.putFloat(offset + 48, cluster.getLodError());
+        this.clusterTable.putFloat(offset + 52, Math.min(cluster.getParentLodError(), LODCutView.MAX_ERROR));
+        this.clusterTable.putInt(offset + 56, drawData == null ? 0 : drawData.vertices());
+        this.clusterTable.putInt(offset + 60, drawData == null ? 0 : drawData.firstIndex());
+        this.clusterTable.putInt(offset + 64, drawData == null ? 0 : drawData.offset());
+        this.clusterTable.putInt(offset + 68, ClusterDrawBuffers.clusterFlags(clusterMesh.residency(), cluster));
+        this.clusterTable.putInt(offset + 72, clusterMesh.firstPage() + clusterMesh.residency().pageOf(cluster));
+        markDirty(offset);
+    }
+
+    private void writeFlags(final ClusterMeshDrawData clusterMesh) {
+        for (final MeshCluster cluster : clusterMesh.residency().getGraph().getClusters()) {
+            final int offset = (clusterMesh.firstCluster() + cluster.getId()) * ClusterDrawBuffers.CLUSTER_SIZE;
+            final int flags = ClusterDrawBuffers.clusterFlags(clusterMesh.residency(), cluster);
+            if (this.clusterTable.getInt(offset + 68) != flags) {
+                this.clusterTable.putInt(offset + 68, flags);
+                markDirty(offset);
+            }
+        }
+    }
+
+    private void markDirty(final int offset) {
+        this.dirtyFrom = Math.min(this.dirtyFrom, offset);
+        this.dirtyTo = Math.max(this.dirtyTo, offset + ClusterDrawBuffers.CLUSTER_SIZE);
+    }
+
+    private void flushClusterTable() {
+        if (this.dirtyFrom >= this.dirtyTo) {
+            return;
+        }
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.clusterBuffer);
+        glBufferSubData(
+                GL_SHADER_STORAGE_BUFFER,
+                this.dirtyFrom,
+                this.clusterTable.slice(this.dirtyFrom, this.dirtyTo - this.dirtyFrom)
+        );
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+        this.dirtyFrom = Integer.MAX_VALUE;
+        this.dirtyTo = 0;
+    }
+
+    /**
+     * Lays out the cluster and page tables for the currently loaded graphs
+     * and uploads them in full.
+     */
+    private void rebuildClusterTable() {
+        int totalClusters = 0;
+        int totalPages = 0;
+        for (final Map.Entry<LODGraph, ClusterMeshDrawData> entry : this.meshes.entrySet()) {
+            final ClusterMeshDrawData clusterMesh = entry.getValue();
+            entry.setValue(new ClusterMeshDrawData(
+                    totalClusters,
+                    totalPages,
+                    clusterMesh.materialIdx(),
+                    clusterMesh.residency(),
+                    clusterMesh.clusters(),
+                    clusterMesh.pages()
+            ));
+            totalClusters += clusterMesh.clusters().length;
+            totalPages += clusterMesh.pages().length;
+        }
+        this.clusterCount = totalClusters;
+        this.pageCount = totalPages;
+        MemoryUtil.memFree(this.clusterTable);
+        this.clusterTable = MemoryUtil.memCalloc(Math.max(1, totalClusters) * ClusterDrawBuffers.CLUSTER_SIZE);
+        for (final ClusterMeshDrawData clusterMesh : this.meshes.values()) {
+            for (final MeshCluster cluster : clusterMesh.residency().getGraph().getClusters()) {
+                writeCluster(clusterMesh, cluster);
+            }
+        }
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.clusterBuffer);
+        glBufferData(GL_SHADER_STORAGE_BUFFER, this.clusterTable, GL_DYNAMIC_DRAW);
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.pageFrameBuffer);
+        glBufferData(GL_SHADER_STORAGE_BUFFER, Math.max(1, totalPages) * 4L, GL_DYNAMIC_COPY);
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+        // Pending readbacks were laid out for the old page table
+        if (this.readback != null) {
+            this.readback.cleanup();
+        }
+        this.readback = new ReadbackBuffer(ClusterDrawBuffers.READBACK_PAGE_FRAMES_OFFSET + (Math.max(1, totalPages) * 4L));
+        this.dirtyFrom = Integer.MAX_VALUE;
+        this.dirtyTo = 0;
+    }
+
+    public ClusterMeshDrawData get(final LODGraph graph) {
+        return this.meshes.get(graph);
+    }
+
+    public void ensureCommandCapacity(final int capacity) {
+        if (capacity <= this.commandCapacity) {
+            return;
+        }
+        this.commandCapacity = capacity;
+        glBindBuffer(GL_COPY_WRITE_BUFFER, this.commandBuffer);
+        glBufferData(GL_COPY_WRITE_BUFFER, (long) capacity * IndirectDrawBuffer.COMMAND_SIZE, GL_DYNAMIC_COPY);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+    }
+
+    /**
+     * Reads back the counters, page frames and refinement requests of every
+     * earlier frame's GPU cuts whose copies the GPU has finished, then clears
+     * the counters for this frame. Readbacks still in flight are left for a
+     * later frame rather than waited on, so the counters reported are those
+     * of the latest completed frame and may lag by a few frames.
+     */
+    public void beginGPUCut() {
+        ByteBuffer region;
+        while ((region = this.readback.poll()) != null) {
+            this.gpuDrawnClusters = Math.min(region.getInt(0), this.commandCapacity);
+            this.gpuDrawnTriangles = region.getInt(4);
+            this.gpuCulledClusters = region.getInt(8);
+            readPageFrames(region);
+            readRequests(region, Math.min(region.getInt(12), ClusterDrawBuffers.MAX_GPU_REQUESTS));
+        }
+        try (final MemoryStack stack = MemoryStack.stackPush()) {
+            glBindBuffer(GL_COPY_WRITE_BUFFER, this.counterBuffer);
+            glBufferSubData(GL_COPY_WRITE_BUFFER, 0, stack.callocInt(ClusterDrawBuffers.COUNTERS_SIZE / 4));
+            glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        }
+    }
+
+    /**
+     * Queues copies of the counters, page frames and refinement requests
+     * written by this frame's GPU cuts into the readback ring. Must be called
+     * after the cuts are dispatched. The copies are skipped if every region
+     * of the ring is still waiting on the GPU.
+     */
+    public void endGPUCut() {
+        if (!this.readback.beginWrite()) {
+            return;
+        }
+        glMemoryBarrier(GL_BUFFER_UPDATE_BARRIER_BIT);
+        this.readback.copy(this.counterBuffer, 0, 0, ClusterDrawBuffers.COUNTERS_SIZE);
+        this.readback.copy(
+                this.requestBuffer,
+                0,
+                ClusterDrawBuffers.READBACK_REQUESTS_OFFSET,
+                ClusterDrawBuffers.MAX_GPU_REQUESTS * 4L
+        );
+        if (this.pageCount > 0) {
+            this.readback.copy(
+                    this.pageFrameBuffer,
+                    0,
+                    ClusterDrawBuffers.READBACK_PAGE_FRAMES_OFFSET,
+                    this.pageCount * 4L
+            );
+        }
+        this.readback.endWrite();
+    }
+
+    private void readPageFrames(final ByteBuffer region) {
+        if (this.pageCount == 0) {
+            return;
+        }
+        for (final ClusterMeshDrawData clusterMesh : this.meshes.values()) {
+            for (int page = 0; page < clusterMesh.pages().length; page++) {
+                clusterMesh.residency().touchPage(
+                        page,
+                        region.getInt(ClusterDrawBuffers.READBACK_PAGE_FRAMES_OFFSET + ((clusterMesh.firstPage() + page) * 4))
+                );
+            }
+        }
+    }
+
+    private void readRequests(final ByteBuffer region,
+                              final int requestCount) {
+        for (int i = 0; i < requestCount; i++) {
+            final int tableIdx = region.getInt(ClusterDrawBuffers.READBACK_REQUESTS_OFFSET + (i * 4));
+            for (final ClusterMeshDrawData clusterMesh : this.meshes.values()) {
+                final int id = tableIdx - clusterMesh.firstCluster();
+                if (id < 0 || id >= clusterMesh.clusters().length) {
+                    continue;
+                }
+                final MeshCluster cluster = clusterMesh.residency().getGraph().getClusters().get(id);
+                if (cluster.getGeneratingGroup() != MeshCluster.NO_GROUP) {
+                    clusterMesh.residency().requestGroup(cluster.getGeneratingGroup());
+                }
+                break;
+            }
+        }
+    }
+
+    public void bindGPUCut() {
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, ClusterDrawBuffers.CLUSTERS_BINDING, this.clusterBuffer);
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, ClusterDrawBuffers.COMMANDS_BINDING, this.commandBuffer);
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, ClusterDrawBuffers.COUNTERS_BINDING, this.counterBuffer);
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, ClusterDrawBuffers.PAGE_FRAMES_BINDING, this.pageFrameBuffer);
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, ClusterDrawBuffers.REQUESTS_BINDING, this.requestBuffer);
+    }
+
+    public boolean isEmpty() {
+        return this.meshes.isEmpty();
+    }
+
+    public int getVaoId() {
+        return this.pool.getVaoId();
+    }
+
+    public int getFrame() {
+        return this.frame;
+    }
+
+    public int getClusterCount() {
+        return this.clusterCount;
+    }
+
+    public int getCommandBuffer() {
+        return this.commandBuffer;
+    }
+
+    public int getCounterBuffer() {
+        return this.counterBuffer;
+    }
+
+    public int getCommandCapacity() {
+        return this.commandCapacity;
+    }
+
+    public int getGPUDrawnClusters() {
+        return this.gpuDrawnClusters;
+    }
+
+    public int getGPUDrawnTriangles() {
+        return this.gpuDrawnTriangles;
+    }
+
+    public int getGPUCulledClusters() {
+        return this.gpuCulledClusters;
+    }
+
+    public int getInstalledPages() {
+        return this.installedPages;
+    }
+
+    public int getEvictedPages() {
+        return this.evictedPages;
+    }
+
+    public int getStreamingPages() {
+        return this.streamer.getInFlight();
+    }
+
+    public float getPoolUsage() {
+        return (float) this.pool.getUsedVertices() / this.pool.getVertexCapacity();
+    }
+
+    public void cleanup() {
+        this.streamer.cleanup();
+        this.pool.cleanup();
+        MemoryUtil.memFree(this.clusterTable);
+        this.readback.cleanup();
+        glDeleteBuffers(this.clusterBuffer);
+        glDeleteBuffers(this.commandBuffer);
+        glDeleteBuffers(this.counterBuffer);
+        glDeleteBuffers(this.pageFrameBuffer);
+        glDeleteBuffers(this.requestBuffer);
+    }
+
+}
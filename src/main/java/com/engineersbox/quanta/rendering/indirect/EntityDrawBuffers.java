@@ -0,0 +1,175 @@
+package com.engineersbox.quanta.rendering.indirect;
+
+import com.engineersbox.quanta.rendering.shadow.ShadowCascade;
+import com.engineersbox.quanta.resources.assets.object.Model;
+import com.engineersbox.quanta.scene.Entity;
+import com.engineersbox.quanta.scene.Scene;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-frame model matrix and draw element tables shared by the scene and
+ * shadow passes through shader storage buffers. Model matrices are written
+ * once per frame, and only for entities whose matrix version differs from the
+ * copy already held in the current ring region. Each pass appends the draw
+ * elements for the instances it submits, addressing them through
+ * {@code gl_BaseInstance + gl_InstanceID}.
+ */
+public class EntityDrawBuffers {
+
+    public static final String ATTRIBUTE_NAME = "entityDrawBuffers";
+    public static final int MODEL_MATRICES_BINDING = 0;
+    public static final int DRAW_ELEMENTS_BINDING = 1;
+    public static final int MODEL_MATRIX_SIZE = 16 * 4;
+    public static final int DRAW_ELEMENT_SIZE = 2 * 4;
+    // Scene pass plus one pass per shadow cascade
+    private static final int DRAW_PASSES = 1 + ShadowCascade.SHADOW_MAP_CASCADE_COUNT;
+    private static final int NOT_UPLOADED = -1;
+
+    private final Map<String, Integer> entitiesIdxMap;
+    private PersistentStorageBuffer modelMatrixBuffer;
+    private PersistentStorageBuffer drawElementBuffer;
+    private int entityCapacity;
+    private int[][] uploadedVersions;
+    private int uploadedMatrices;
+    private int drawElementCapacity;
+    private ByteBuffer drawElements;
+    private int drawElementCount;
+    private boolean frameActive;
+
+    public EntityDrawBuffers() {
+        this.entitiesIdxMap = new HashMap<>();
+        this.entityCapacity = 0;
+        this.uploadedMatrices = 0;
+        this.drawElementCapacity = 0;
+        this.drawElementCount = 0;
+        this.frameActive = false;
+    }
+
+    public void setup(final Scene scene) {
+        this.entitiesIdxMap.clear();
+        int entityIdx = 0;
+        int instances = 0;
+        for (final Model model : scene.getModels().values()) {
+            final List<Entity> entities = model.getEntities();
+            for (final Entity entity : entities) {
+                this.entitiesIdxMap.put(entity.getId(), entityIdx);
+                entityIdx++;
+            }
+            // Animated mesh draw data is already duplicated per entity
+            instances += model.isAnimated()
+                    ? model.getMeshDrawData().size()
+                    : model.getMeshDrawData().size() * entities.size();
+        }
+        if (entityIdx > this.entityCapacity || this.modelMatrixBuffer == null) {
+            if (this.modelMatrixBuffer != null) {
+                this.modelMatrixBuffer.cleanup();
+            }
+            this.entityCapacity = entityIdx;
+            this.modelMatrixBuffer = new PersistentStorageBuffer((long) this.entityCapacity * EntityDrawBuffers.MODEL_MATRIX_SIZE);
+            this.uploadedVersions = new int[this.modelMatrixBuffer.getRegionCount()][this.entityCapacity];
+        }
+        // Entity indices may have been reassigned, so every region is rewritten in full
+        for (final int[] regionVersions : this.uploadedVersions) {
+            Arrays.fill(regionVersions, EntityDrawBuffers.NOT_UPLOADED);
+        }
+        final int drawElements = instances * EntityDrawBuffers.DRAW_PASSES;
+        if (drawElements > this.drawElementCapacity || this.drawElementBuffer == null) {
+            if (this.drawElementBuffer != null) {
+                this.drawElementBuffer.cleanup();
+            }
+            this.drawElementCapacity = drawElements;
+            this.drawElementBuffer = new PersistentStorageBuffer((long) this.drawElementCapacity * EntityDrawBuffers.DRAW_ELEMENT_SIZE);
+        }
+    }
+
+    /**
+     * Claims the next ring region and writes the model matrices that changed
+     * since that region was last written. Only the first call in a frame does
+     * any work, so every pass may call this before drawing.
+     */
+    public void beginFrame(final Scene scene) {
+        if (this.frameActive) {
+            return;
+        }
+        final ByteBuffer modelMatrices = this.modelMatrixBuffer.begin();
+        final int[] regionVersions = this.uploadedVersions[this.modelMatrixBuffer.getRegion()];
+        this.drawElements = this.drawElementBuffer.begin();
+        this.uploadedMatrices = 0;
+        int entityIdx = 0;
+        for (final Model model : scene.getModels().values()) {
+            for (final Entity entity : model.getEntities()) {
+                if (entityIdx >= this.entityCapacity) {
+                    throw new IllegalStateException(String.format(
+                            "Model matrix buffer capacity of %d entities exceeded",
+                            this.entityCapacity
+                    ));
+                }
+                final int version = entity.getModelMatrixVersion();
+                if (regionVersions[entityIdx] != version) {
+                    entity.getModelMatrix().get(entityIdx * EntityDrawBuffers.MODEL_MATRIX_SIZE, modelMatrices);
+                    regionVersions[entityIdx] = version;
+                    this.uploadedMatrices++;
+                }
+                entityIdx++;
+            }
+        }
+        this.drawElementCount = 0;
+        this.frameActive = true;
+    }
+
+    public int addDrawElement(final int modelMatrixIdx,
+                              final int materialIdx) {
+        if (this.drawElementCount >= this.drawElementCapacity) {
+            throw new IllegalStateException(String.format(
+                    "Draw element buffer capacity of %d elements exceeded",
+                    this.drawElementCapacity
+            ));
+        }
+        final int offset = this.drawElementCount * EntityDrawBuffers.DRAW_ELEMENT_SIZE;
+        this.drawElements.putInt(offset, modelMatrixIdx);
+        this.drawElements.putInt(offset + 4, materialIdx);
+        return this.drawElementCount++;
+    }
+
+    public void bind() {
+        this.modelMatrixBuffer.bindRange(EntityDrawBuffers.MODEL_MATRICES_BINDING);
+        this.drawElementBuffer.bindRange(EntityDrawBuffers.DRAW_ELEMENTS_BINDING);
+    }
+
+    public void endFrame() {
+        if (!this.frameActive) {
+            return;
+        }
+        this.modelMatrixBuffer.end();
+        this.drawElementBuffer.end();
+        this.drawElements = null;
+        this.frameActive = false;
+    }
+
+    public int getEntityIdx(final Entity entity) {
+        return this.entitiesIdxMap.get(entity.getId());
+    }
+
+    public int getDrawElementCount() {
+        return this.drawElementCount;
+    }
+
+    public int getUploadedMatrices() {
+        return this.uploadedMatrices;
+    }
+
+    public void cleanup() {
+        if (this.modelMatrixBuffer != null) {
+            this.modelMatrixBuffer.cleanup();
+        }
+        if (this.drawElementBuffer != null) {
+            this.drawElementBuffer.cleanup();
+        }
+    }
+
+}
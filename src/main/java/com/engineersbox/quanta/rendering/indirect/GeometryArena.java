@@ -0,0 +1,240 @@
+package com.engineersbox.quanta.rendering.indirect;
+
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.*;
+
+/**
+ * Shared vertex and index buffers for static geometry, sub-allocated per mesh
+ * so that models can be streamed in and out of a live scene without
+ * re-uploading everything else. Both buffers double in size when an
+ * allocation does not fit, preserving existing contents on the GPU, unless
+ * the arena was created with a fixed size, in which case the upload fails
+ * and the caller decides what to evict.
+ */
+public class GeometryArena {
+
+    public static final int VERTEX_SIZE = 14 * 4;
+    private static final int INITIAL_VERTEX_CAPACITY = 1 << 16;
+    private static final int INITIAL_INDEX_CAPACITY = 1 << 18;
+
+    private final int vaoId;
+    private int vertexBuffer;
+    private int indexBuffer;
+    private final RangeAllocator vertexAllocator;
+    private final RangeAllocator indexAllocator;
+    private final boolean growable;
+
+    public GeometryArena() {
+        this(
+                GeometryArena.INITIAL_VERTEX_CAPACITY,
+                GeometryArena.INITIAL_INDEX_CAPACITY,
+                true
+        );
+    }
+
+    public GeometryArena(final int vertexCapacity,
+                         final int indexCapacity,
+                         final boolean growable) {
+        this.vertexAllocator = new RangeAllocator(vertexCapacity);
+        this.indexAllocator = new RangeAllocator(indexCapacity);
+        this.growable = growable;
+        this.vertexBuffer = createBuffer((long) vertexCapacity * GeometryArena.VERTEX_SIZE);
+        this.indexBuffer = createBuffer((long) indexCapacity * 4);
+        this.vaoId = glGenVertexArrays();
+        bindVertexArrayBuffers();
+    }
+
+    private static int createBuffer(final long size) {
+        final int buffer = glGenBuffers();
+        glBindBuffer(GL_COPY_WRITE_BUFFER, buffer);
+        glBufferData(GL_COPY_WRITE_BUFFER, size, GL_STATIC_DRAW);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        return buffer;
+    }
+
+    private void bindVertexArrayBuffers() {
+        glBindVertexArray(this.vaoId);
+        glBindBuffer(GL_ARRAY_BUFFER, this.vertexBuffer);
+        AnimationRenderBuffers.defineVertexAttribs();
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, this.indexBuffer);
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    private static int growBuffer(final int buffer,
+                                  final long oldSize,
+                                  final long newSize) {
+        final int grown = createBuffer(newSize);
+        glBindBuffer(GL_COPY_READ_BUFFER, buffer);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, grown);
+        glCopyBufferSubData(GL_COPY_READ_BUFFER, GL_COPY_WRITE_BUFFER, 0, 0, oldSize);
+        glBindBuffer(GL_COPY_READ_BUFFER, 0);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        glDeleteBuffers(buffer);
+        return grown;
+    }
+
+    private static int allocate(final RangeAllocator allocator,
+                                final int size,
+                                final GrowHandler onGrow) {
+        int offset = allocator.allocate(size);
+        while (offset == RangeAllocator.INVALID_OFFSET) {
+            final int oldCapacity = allocator.getCapacity();
+            final int newCapacity = Math.max(oldCapacity * 2, oldCapacity + size);
+            onGrow.grow(oldCapacity, newCapacity);
+            allocator.grow(newCapacity);
+            offset = allocator.allocate(size);
+        }
+        return offset;
+    }
+
+    @FunctionalInterface
+    private interface GrowHandler {
+        void grow(final int oldCapacity, final int newCapacity);
+    }
+
+    /**
+     * Copies a mesh into the arena.
+     *
+     * @return Draw data addressing the mesh within the arena, with
+     *         {@link MeshDrawData#offset()} as the base vertex and
+     *         {@link MeshDrawData#firstIndex()} as the first index, or
+     *         {@code null} if the arena has a fixed size and the mesh does
+     *         not fit in its free space
+     */
+    public MeshDrawData upload(final MeshData meshData) {
+        return upload(meshData, meshData.getIndices());
+    }
+
+    /**
+     * Copies a mesh into the arena with its triangles indexed by
+     * {@code indices} in place of the mesh's own, such as the same triangles
+     * reordered into meshlets.
+     */
+    public MeshDrawData upload(final MeshData meshData,
+                               final int[] indices) {
+        final int vertexCount = meshData.getPositions().length / 3;
+        final int indexCount = indices.length;
+        if (!this.growable) {
+            return uploadFixed(meshData, indices, vertexCount, indexCount);
+        }
+        final int vertexOffset = GeometryArena.allocate(
+                this.vertexAllocator,
+                vertexCount,
+                (final int oldCapacity, final int newCapacity) -> {
+                    this.vertexBuffer = GeometryArena.growBuffer(
+                            this.vertexBuffer,
+                            (long) oldCapacity * GeometryArena.VERTEX_SIZE,
+                            (long) newCapacity * GeometryArena.VERTEX_SIZE
+                    );
+                    bindVertexArrayBuffers();
+                }
+        );
+        final int indexOffset = GeometryArena.allocate(
+                this.indexAllocator,
+                indexCount,
+                (final int oldCapacity, final int newCapacity) -> {
+                    this.indexBuffer = GeometryArena.growBuffer(
+                            this.indexBuffer,
+                            (long) oldCapacity * 4,
+                            (long) newCapacity * 4
+                    );
+                    bindVertexArrayBuffers();
+                }
+        );
+        return write(meshData, indices, vertexOffset, indexOffset, vertexCount, indexCount);
+    }
+
+    private MeshDrawData uploadFixed(final MeshData meshData,
+                                     final int[] indices,
+                                     final int vertexCount,
+                                     final int indexCount) {
+        final int vertexOffset = this.vertexAllocator.allocate(vertexCount);
+        if (vertexOffset == RangeAllocator.INVALID_OFFSET) {
+            return null;
+        }
+        final int indexOffset = this.indexAllocator.allocate(indexCount);
+        if (indexOffset == RangeAllocator.INVALID_OFFSET) {
+            this.vertexAllocator.free(vertexOffset, vertexCount);
+            return null;
+        }
+        return write(meshData, indices, vertexOffset, indexOffset, vertexCount, indexCount);
+    }
+
+    private MeshDrawData write(final MeshData meshData,
+                               final int[] meshIndices,
+                               final int vertexOffset,
+                               final int indexOffset,
+                               final int vertexCount,
+                               final int indexCount) {
+        final FloatBuffer vertices = MemoryUtil.memAllocFloat(vertexCount * (GeometryArena.VERTEX_SIZE / 4));
+        AnimationRenderBuffers.populateMeshBuffer(vertices, meshData);
+        vertices.flip();
+        glBindBuffer(GL_ARRAY_BUFFER, this.vertexBuffer);
+        glBufferSubData(GL_ARRAY_BUFFER, (long) vertexOffset * GeometryArena.VERTEX_SIZE, vertices);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        MemoryUtil.memFree(vertices);
+
+        final IntBuffer indices = MemoryUtil.memAllocInt(indexCount);
+        indices.put(meshIndices).flip();
+        glBindBuffer(GL_COPY_WRITE_BUFFER, this.indexBuffer);
+        glBufferSubData(GL_COPY_WRITE_BUFFER, (long) indexOffset * 4, indices);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        MemoryUtil.memFree(indices);
+
+        return new MeshDrawData(
+                vertexCount * GeometryArena.VERTEX_SIZE,
+                meshData.getMaterialIdx(),
+                vertexOffset,
+                indexOffset,
+                indexCount,
+                meshData.getAabbMin(),
+                meshData.getAabbMax()
+        );
+    }
+
+    public void free(final MeshDrawData meshDrawData) {
+        this.vertexAllocator.free(
+                meshDrawData.offset(),
+                meshDrawData.sizeInBytes() / GeometryArena.VERTEX_SIZE
+        );
+        this.indexAllocator.free(
+                meshDrawData.firstIndex(),
+                meshDrawData.vertices()
+        );
+    }
+
+    public int getVaoId() {
+        return this.vaoId;
+    }
+
+    public int getUsedVertices() {
+        return this.vertexAllocator.getUsed();
+    }
+
+    public int getUsedIndices() {
+        return this.indexAllocator.getUsed();
+    }
+
+    public int getVertexCapacity() {
+        return this.vertexAllocator.getCapacity();
+    }
+
+    public int getIndexCapacity() {
+        return this.indexAllocator.getCapacity();
+    }
+
+    public void cleanup() {
+        glDeleteBuffers(this.vertexBuffer);
+        glDeleteBuffers(this.indexBuffer);
+        glDeleteVertexArrays(this.vaoId);
+    }
+
+}
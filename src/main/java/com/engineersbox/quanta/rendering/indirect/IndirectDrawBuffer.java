@@ -0,0 +1,89 @@
+package com.engineersbox.quanta.rendering.indirect;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL40.GL_DRAW_INDIRECT_BUFFER;
+
+/**
+ * CPU staged {@code GL_DRAW_INDIRECT_BUFFER} of
+ * {@code DrawElementsIndirectCommand} entries. Commands are appended each
+ * frame after culling and uploaded in a single {@code glBufferSubData} call,
+ * so only the commands that survive culling are submitted to
+ * {@code glMultiDrawElementsIndirect}.
+ */
+public class IndirectDrawBuffer {
+
+    public static final int COMMAND_SIZE = 5 * 4;
+
+    private final int handle;
+    private final ByteBuffer commandBuffer;
+    private final int capacity;
+    private int drawCount;
+
+    public IndirectDrawBuffer(final int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.commandBuffer = MemoryUtil.memAlloc(this.capacity * IndirectDrawBuffer.COMMAND_SIZE);
+        this.handle = glGenBuffers();
+        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, this.handle);
+        glBufferData(
+                GL_DRAW_INDIRECT_BUFFER,
+                (long) this.capacity * IndirectDrawBuffer.COMMAND_SIZE,
+                GL_DYNAMIC_DRAW
+        );
+        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, 0);
+        this.drawCount = 0;
+    }
+
+    public void reset() {
+        this.commandBuffer.clear();
+        this.drawCount = 0;
+    }
+
+    public void addCommand(final int count,
+                           final int instanceCount,
+                           final int firstIndex,
+                           final int baseVertex,
+                           final int baseInstance) {
+        if (this.drawCount >= this.capacity) {
+            throw new IllegalStateException(String.format(
+                    "Indirect draw buffer capacity of %d commands exceeded",
+                    this.capacity
+            ));
+        }
+        this.commandBuffer.putInt(count);
+        this.commandBuffer.putInt(instanceCount);
+        this.commandBuffer.putInt(firstIndex);
+        this.commandBuffer.putInt(baseVertex);
+        this.commandBuffer.putInt(baseInstance);
+        this.drawCount++;
+    }
+
+    public void upload() {
+        this.commandBuffer.flip();
+        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, this.handle);
+        if (this.commandBuffer.hasRemaining()) {
+            glBufferSubData(GL_DRAW_INDIRECT_BUFFER, 0, this.commandBuffer);
+        }
+    }
+
+    public int getHandle() {
+        return this.handle;
+    }
+
+    public int getDrawCount() {
+        return this.drawCount;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public void cleanup() {
+        glDeleteBuffers(this.handle);
+        MemoryUtil.memFree(this.commandBuffer);
+    }
+
+}
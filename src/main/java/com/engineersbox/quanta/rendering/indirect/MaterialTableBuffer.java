@@ -0,0 +1,126 @@
+package com.engineersbox.quanta.rendering.indirect;
+
+import com.engineersbox.quanta.resources.assets.material.Material;
+import com.engineersbox.quanta.resources.assets.material.MaterialCache;
+import com.engineersbox.quanta.resources.assets.material.TextureCache;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.glBindBufferBase;
+import static org.lwjgl.opengl.GL31.GL_COPY_READ_BUFFER;
+import static org.lwjgl.opengl.GL31.GL_COPY_WRITE_BUFFER;
+import static org.lwjgl.opengl.GL31.glCopyBufferSubData;
+import static org.lwjgl.opengl.GL43.GL_SHADER_STORAGE_BUFFER;
+
+/**
+ * std430 shader storage copy of a {@link MaterialCache}, indexed by
+ * {@link Material#getMaterialIdx()}. Texture references are indices into a
+ * {@link TextureTable}. Materials are only ever appended to the cache, so
+ * each load writes just those added since the last, doubling the buffer's
+ * capacity on the GPU when it is full.
+ */
+public class MaterialTableBuffer {
+
+    public static final int MATERIALS_BINDING = 2;
+    // vec4 diffuse, vec4 specular, float reflectance, int normalMapIdx, int textureIdx, padding
+    public static final int MATERIAL_SIZE = 12 * 4;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int bufferId;
+    private int capacity;
+    private int materialCount;
+
+    public MaterialTableBuffer() {
+        this.bufferId = 0;
+        this.capacity = 0;
+        this.materialCount = 0;
+    }
+
+    /**
+     * Forgets every loaded material, so the next load writes the whole cache.
+     */
+    public void reset() {
+        this.materialCount = 0;
+    }
+
+    /**
+     * Writes the materials added to the cache since the last load, whose
+     * textures must already be in the texture table.
+     */
+    public void load(final MaterialCache materialCache,
+                     final TextureCache textureCache,
+                     final TextureTable textureTable) {
+        final List<Material> materials = materialCache.getMaterials();
+        final int first = this.materialCount;
+        if (materials.size() <= first) {
+            return;
+        }
+        ensureCapacity(materials.size());
+        final ByteBuffer buffer = MemoryUtil.memCalloc((materials.size() - first) * MaterialTableBuffer.MATERIAL_SIZE);
+        for (int i = first; i < materials.size(); i++) {
+            final Material material = materials.get(i);
+            final int offset = (i - first) * MaterialTableBuffer.MATERIAL_SIZE;
+            material.getDiffuseColor().get(offset, buffer);
+            material.getSpecularColor().get(offset + 16, buffer);
+            buffer.putFloat(offset + 32, material.getReflectance());
+            final String normalMapPath = material.getNormalMapPath();
+            buffer.putInt(
+                    offset + 36,
+                    normalMapPath == null ? TextureTable.DEFAULT_TEXTURE_IDX : textureTable.getTextureIdx(normalMapPath)
+            );
+            buffer.putInt(
+                    offset + 40,
+                    textureTable.getTextureIdx(textureCache.getTexture(material.getTexturePath()).getPath())
+            );
+        }
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.bufferId);
+        glBufferSubData(GL_SHADER_STORAGE_BUFFER, (long) first * MaterialTableBuffer.MATERIAL_SIZE, buffer);
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+        MemoryUtil.memFree(buffer);
+        this.materialCount = materials.size();
+    }
+
+    private void ensureCapacity(final int count) {
+        if (count <= this.capacity) {
+            return;
+        }
+        final int grownCapacity = Math.max(Math.max(this.capacity * 2, count), MaterialTableBuffer.INITIAL_CAPACITY);
+        final int grown = glGenBuffers();
+        glBindBuffer(GL_COPY_WRITE_BUFFER, grown);
+        glBufferData(GL_COPY_WRITE_BUFFER, (long) grownCapacity * MaterialTableBuffer.MATERIAL_SIZE, GL_DYNAMIC_DRAW);
+        if (this.bufferId != 0) {
+            glBindBuffer(GL_COPY_READ_BUFFER, this.bufferId);
+            glCopyBufferSubData(
+                    GL_COPY_READ_BUFFER,
+                    GL_COPY_WRITE_BUFFER,
+                    0,
+                    0,
+                    (long) this.materialCount * MaterialTableBuffer.MATERIAL_SIZE
+            );
+            glBindBuffer(GL_COPY_READ_BUFFER, 0);
+            glDeleteBuffers(this.bufferId);
+        }
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        this.bufferId = grown;
+        this.capacity = grownCapacity;
+    }
+
+    public void bind() {
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, MaterialTableBuffer.MATERIALS_BINDING, this.bufferId);
+    }
+
+    public int getMaterialCount() {
+        return this.materialCount;
+    }
+
+    public void cleanup() {
+        if (this.bufferId != 0) {
+            glDeleteBuffers(this.bufferId);
+        }
+    }
+
+}
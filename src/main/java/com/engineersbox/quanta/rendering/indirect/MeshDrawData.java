@@ -2,20 +2,27 @@ package com.engineersbox.quanta.rendering.indirect;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.joml.Vector3f;
 
 @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
 @JsonSerialize
 public record MeshDrawData(int sizeInBytes,
                            int materialIdx,
                            int offset,
+                           int firstIndex,
                            int vertices,
+                           Vector3f aabbMin,
+                           Vector3f aabbMax,
                            AnimMeshDrawData animMeshDrawData) {
 
     public MeshDrawData(final int sizeInBytes,
                         final int materialIdx,
                         final int offset,
-                        final int vertices) {
-        this(sizeInBytes, materialIdx, offset, vertices, null);
+                        final int firstIndex,
+                        final int vertices,
+                        final Vector3f aabbMin,
+                        final Vector3f aabbMax) {
+        this(sizeInBytes, materialIdx, offset, firstIndex, vertices, aabbMin, aabbMax, null);
     }
 
 }
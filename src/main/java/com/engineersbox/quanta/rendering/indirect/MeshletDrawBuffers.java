@@ -0,0 +1,246 @@
+package com.engineersbox.quanta.rendering.indirect;
+
+import com.engineersbox.quanta.resources.assets.object.Model;
+import com.engineersbox.quanta.virtualisation.Meshlet;
+import com.engineersbox.quanta.virtualisation.MeshletMesh;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.glBindBufferBase;
+import static org.lwjgl.opengl.GL31.GL_COPY_WRITE_BUFFER;
+import static org.lwjgl.opengl.GL42.GL_BUFFER_UPDATE_BARRIER_BIT;
+import static org.lwjgl.opengl.GL42.glMemoryBarrier;
+import static org.lwjgl.opengl.GL43.GL_SHADER_STORAGE_BUFFER;
+
+/**
+ * GPU side of meshlet culling for static meshes split into meshlets. A
+ * std430 table holds the bounds, normal cone and index range of every
+ * meshlet of the loaded meshes, addressing their geometry in the static
+ * {@link GeometryArena}, so a compute pass can cull meshlets per instance
+ * and write draw commands for the survivors into a device only command
+ * buffer, with the command count in a parameter buffer for
+ * {@code glMultiDrawElementsIndirectCount}. Counters are copied into a
+ * fenced {@link ReadbackBuffer} ring and read back once the GPU has finished
+ * with them, so they may lag a few frames behind.
+ */
+public class MeshletDrawBuffers {
+
+    public static final int MESHLETS_BINDING = 9;
+    public static final int COMMANDS_BINDING = 10;
+    public static final int COUNTERS_BINDING = 11;
+    // vec4 boundingSphere, vec4 cone, uint indexCount, uint firstIndex,
+    // int baseVertex, padding
+    public static final int MESHLET_SIZE = 12 * 4;
+    // uint drawCount, uint triangleCount, uint frustumCulled, uint coneCulled,
+    // uint occlusionCulled, padding
+    private static final int COUNTERS_SIZE = 8 * 4;
+
+    /**
+     * @param firstMeshlet Index of the mesh's first meshlet in the meshlet table
+     * @param meshletCount Number of meshlets in the mesh
+     */
+    public record MeshletMeshDrawData(int firstMeshlet,
+                                      int meshletCount) {
+    }
+
+    private record LoadedMesh(MeshletMesh meshletMesh,
+                              MeshDrawData meshDrawData) {
+    }
+
+    private final Map<MeshletMesh, LoadedMesh> loaded;
+    private final Map<MeshletMesh, MeshletMeshDrawData> meshes;
+    private final int meshletBuffer;
+    private final int commandBuffer;
+    private final int counterBuffer;
+    private final ReadbackBuffer readback;
+    private int meshletCount;
+    private int commandCapacity;
+    private int gpuDrawnMeshlets;
+    private int gpuDrawnTriangles;
+    private int gpuFrustumCulled;
+    private int gpuConeCulled;
+    private int gpuOcclusionCulled;
+
+    public MeshletDrawBuffers() {
+        this.loaded = new LinkedHashMap<>();
+        this.meshes = new LinkedHashMap<>();
+        this.meshletBuffer = glGenBuffers();
+        this.commandBuffer = glGenBuffers();
+        this.counterBuffer = glGenBuffers();
+        glBindBuffer(GL_COPY_WRITE_BUFFER, this.counterBuffer);
+        glBufferData(GL_COPY_WRITE_BUFFER, MeshletDrawBuffers.COUNTERS_SIZE, GL_DYNAMIC_COPY);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        this.readback = new ReadbackBuffer(MeshletDrawBuffers.COUNTERS_SIZE);
+        this.commandCapacity = 0;
+        ensureCommandCapacity(1);
+        rebuildMeshletTable();
+    }
+
+    /**
+     * Adds the meshlets of every mesh of a model that has them. The model's
+     * geometry must already be uploaded in meshlet order.
+     */
+    public void load(final Model model) {
+        for (int meshIdx = 0; meshIdx < model.getMeshDrawData().size(); meshIdx++) {
+            final MeshletMesh meshletMesh = model.getMeshletMesh(meshIdx);
+            if (meshletMesh != null) {
+                this.loaded.put(meshletMesh, new LoadedMesh(meshletMesh, model.getMeshDrawData().get(meshIdx)));
+            }
+        }
+        rebuildMeshletTable();
+    }
+
+    public void unload(final Model model) {
+        for (int meshIdx = 0; meshIdx < model.getMeshDrawData().size(); meshIdx++) {
+            final MeshletMesh meshletMesh = model.getMeshletMesh(meshIdx);
+            if (meshletMesh != null) {
+                this.loaded.remove(meshletMesh);
+            }
+        }
+        rebuildMeshletTable();
+    }
+
+    public void reset() {
+        this.loaded.clear();
+        rebuildMeshletTable();
+    }
+
+    private void rebuildMeshletTable() {
+        this.meshes.clear();
+        int total = 0;
+        for (final LoadedMesh loadedMesh : this.loaded.values()) {
+            final int count = loadedMesh.meshletMesh().getMeshlets().size();
+            this.meshes.put(loadedMesh.meshletMesh(), new MeshletMeshDrawData(total, count));
+            total += count;
+        }
+        this.meshletCount = total;
+        final ByteBuffer table = MemoryUtil.memCalloc(Math.max(1, total) * MeshletDrawBuffers.MESHLET_SIZE);
+        int offset = 0;
+        for (final LoadedMesh loadedMesh : this.loaded.values()) {
+            final MeshDrawData meshDrawData = loadedMesh.meshDrawData();
+            for (final Meshlet meshlet : loadedMesh.meshletMesh().getMeshlets()) {
+                meshlet.boundingSphere().get(offset, table);
+                meshlet.cone().get(offset + 16, table);
+                table.putInt(offset + 32, meshlet.triangleCount() * 3);
+                table.putInt(offset + 36, meshDrawData.firstIndex() + (meshlet.triangleOffset() * 3));
+                table.putInt(offset + 40, meshDrawData.offset());
+                offset += MeshletDrawBuffers.MESHLET_SIZE;
+            }
+        }
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.meshletBuffer);
+        glBufferData(GL_SHADER_STORAGE_BUFFER, table, GL_STATIC_DRAW);
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+        MemoryUtil.memFree(table);
+    }
+
+    public MeshletMeshDrawData get(final MeshletMesh meshletMesh) {
+        return this.meshes.get(meshletMesh);
+    }
+
+    public void ensureCommandCapacity(final int capacity) {
+        if (capacity <= this.commandCapacity) {
+            return;
+        }
+        this.commandCapacity = capacity;
+        glBindBuffer(GL_COPY_WRITE_BUFFER, this.commandBuffer);
+        glBufferData(GL_COPY_WRITE_BUFFER, (long) capacity * IndirectDrawBuffer.COMMAND_SIZE, GL_DYNAMIC_COPY);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+    }
+
+    /**
+     * Reads back the counters of every earlier frame's culling passes whose
+     * copies the GPU has finished, then clears them for this frame.
+     * Readbacks still in flight are left for a later frame rather than
+     * waited on, so the counters reported are those of the latest completed
+     * frame.
+     */
+    public void beginGPUCulling() {
+        ByteBuffer counters;
+        while ((counters = this.readback.poll()) != null) {
+            this.gpuDrawnMeshlets = Math.min(counters.getInt(0), this.commandCapacity);
+            this.gpuDrawnTriangles = counters.getInt(4);
+            this.gpuFrustumCulled = counters.getInt(8);
+            this.gpuConeCulled = counters.getInt(12);
+            this.gpuOcclusionCulled = counters.getInt(16);
+        }
+        try (final MemoryStack stack = MemoryStack.stackPush()) {
+            glBindBuffer(GL_COPY_WRITE_BUFFER, this.counterBuffer);
+            glBufferSubData(GL_COPY_WRITE_BUFFER, 0, stack.calloc(MeshletDrawBuffers.COUNTERS_SIZE));
+            glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        }
+    }
+
+    /**
+     * Queues a copy of the counters written by this frame's culling passes
+     * into the readback ring. Must be called after the passes are dispatched.
+     * The copy is skipped if every region of the ring is still waiting on the
+     * GPU.
+     */
+    public void endGPUCulling() {
+        if (!this.readback.beginWrite()) {
+            return;
+        }
+        glMemoryBarrier(GL_BUFFER_UPDATE_BARRIER_BIT);
+        this.readback.copy(this.counterBuffer, 0, 0, MeshletDrawBuffers.COUNTERS_SIZE);
+        this.readback.endWrite();
+    }
+
+    public void bindGPUCulling() {
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, MeshletDrawBuffers.MESHLETS_BINDING, this.meshletBuffer);
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, MeshletDrawBuffers.COMMANDS_BINDING, this.commandBuffer);
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, MeshletDrawBuffers.COUNTERS_BINDING, this.counterBuffer);
+    }
+
+    public boolean isEmpty() {
+        return this.meshes.isEmpty();
+    }
+
+    public int getMeshletCount() {
+        return this.meshletCount;
+    }
+
+    public int getCommandBuffer() {
+        return this.commandBuffer;
+    }
+
+    public int getCounterBuffer() {
+        return this.counterBuffer;
+    }
+
+    public int getCommandCapacity() {
+        return this.commandCapacity;
+    }
+
+    public int getGPUDrawnMeshlets() {
+        return this.gpuDrawnMeshlets;
+    }
+
+    public int getGPUDrawnTriangles() {
+        return this.gpuDrawnTriangles;
+    }
+
+    public int getGPUFrustumCulled() {
+        return this.gpuFrustumCulled;
+    }
+
+    public int getGPUConeCulled() {
+        return this.gpuConeCulled;
+    }
+
+    public int getGPUOcclusionCulled() {
+        return this.gpuOcclusionCulled;
+    }
+
+    public void cleanup() {
+        this.readback.cleanup();
+        glDeleteBuffers(this.meshletBuffer);
+        glDeleteBuffers(this.commandBuffer);
+        glDeleteBuffers(this.counterBuffer);
+    }
+
+}
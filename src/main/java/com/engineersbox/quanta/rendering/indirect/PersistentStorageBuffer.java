@@ -0,0 +1,140 @@
+package com.engineersbox.quanta.rendering.indirect;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.lwjgl.opengl.GL11.glGetInteger;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL43.GL_SHADER_STORAGE_BUFFER;
+import static org.lwjgl.opengl.GL43.GL_SHADER_STORAGE_BUFFER_OFFSET_ALIGNMENT;
+import static org.lwjgl.opengl.GL44.GL_MAP_COHERENT_BIT;
+import static org.lwjgl.opengl.GL44.GL_MAP_PERSISTENT_BIT;
+import static org.lwjgl.opengl.GL44.glBufferStorage;
+import static org.lwjgl.system.MemoryUtil.NULL;
+import static org.lwjgl.system.MemoryUtil.memSlice;
+
+/**
+ * Persistently mapped {@code GL_SHADER_STORAGE_BUFFER} split into a ring of
+ * equally sized regions, one per frame in flight. A region is fenced when the
+ * frame that wrote it ends and is only handed out again once the GPU has
+ * passed that fence, so writes never race reads of an earlier frame.
+ */
+public class PersistentStorageBuffer {
+
+    public static final int DEFAULT_REGION_COUNT = 3;
+    private static final long FENCE_TIMEOUT = 1_000_000L;
+    private static final int MAP_FLAGS = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+
+    private final int handle;
+    private final long regionSize;
+    private final ByteBuffer[] regions;
+    private final long[] fences;
+    private int region;
+
+    public PersistentStorageBuffer(final long size) {
+        this(size, PersistentStorageBuffer.DEFAULT_REGION_COUNT);
+    }
+
+    public PersistentStorageBuffer(final long size,
+                                   final int regionCount) {
+        final long alignment = glGetInteger(GL_SHADER_STORAGE_BUFFER_OFFSET_ALIGNMENT);
+        this.regionSize = ((Math.max(1, size) + alignment - 1) / alignment) * alignment;
+        this.regions = new ByteBuffer[regionCount];
+        this.fences = new long[regionCount];
+        this.region = 0;
+        this.handle = glGenBuffers();
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.handle);
+        glBufferStorage(
+                GL_SHADER_STORAGE_BUFFER,
+                this.regionSize * regionCount,
+                PersistentStorageBuffer.MAP_FLAGS
+        );
+        final ByteBuffer mapped = glMapBufferRange(
+                GL_SHADER_STORAGE_BUFFER,
+                0,
+                this.regionSize * regionCount,
+                PersistentStorageBuffer.MAP_FLAGS
+        );
+        if (mapped == null) {
+            throw new IllegalStateException("Unable to map persistent storage buffer " + this.handle);
+        }
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+        for (int i = 0; i < regionCount; i++) {
+            this.regions[i] = memSlice(
+                    mapped,
+                    (int) (i * this.regionSize),
+                    (int) this.regionSize
+            ).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Blocks until the GPU has finished with the current region and returns
+     * its mapped memory for writing with absolute puts.
+     */
+    public ByteBuffer begin() {
+        waitForRegion(this.region);
+        return this.regions[this.region];
+    }
+
+    public void bindRange(final int binding) {
+        glBindBufferRange(
+                GL_SHADER_STORAGE_BUFFER,
+                binding,
+                this.handle,
+                this.region * this.regionSize,
+                this.regionSize
+        );
+    }
+
+    public void end() {
+        this.fences[this.region] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        this.region = (this.region + 1) % this.regions.length;
+    }
+
+    private void waitForRegion(final int regionIdx) {
+        final long fence = this.fences[regionIdx];
+        if (fence == NULL) {
+            return;
+        }
+        int result;
+        do {
+            result = glClientWaitSync(
+                    fence,
+                    GL_SYNC_FLUSH_COMMANDS_BIT,
+                    PersistentStorageBuffer.FENCE_TIMEOUT
+            );
+        } while (result == GL_TIMEOUT_EXPIRED);
+        glDeleteSync(fence);
+        this.fences[regionIdx] = NULL;
+    }
+
+    public int getHandle() {
+        return this.handle;
+    }
+
+    public long getRegionSize() {
+        return this.regionSize;
+    }
+
+    public int getRegion() {
+        return this.region;
+    }
+
+    public int getRegionCount() {
+        return this.regions.length;
+    }
+
+    public void cleanup() {
+        for (int i = 0; i < this.fences.length; i++) {
+            waitForRegion(i);
+        }
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.handle);
+        glUnmapBuffer(GL_SHADER_STORAGE_BUFFER);
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+        glDeleteBuffers(this.handle);
+    }
+
+}
@@ -0,0 +1,177 @@
+package com.engineersbox.quanta.rendering.indirect;
+
+import com.engineersbox.quanta.resources.assets.object.animation.AnimationClip;
+import com.engineersbox.quanta.resources.assets.object.animation.AnimationData;
+import com.engineersbox.quanta.resources.assets.object.animation.PoseSampler;
+import com.engineersbox.quanta.scene.Entity;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL43.GL_SHADER_STORAGE_BUFFER;
+
+/**
+ * Bone palettes of entities playing keyframed animations, sampled each frame
+ * on a fork-join pool and uploaded together to an SSBO read by the skinning
+ * pass. Only the current pose of each entity is stored, in place of the
+ * matrices of every frame of every animation.
+ */
+public class PosePaletteBuffer {
+
+    public static final int PALETTES_BINDING = 13;
+    // Sampling tasks over more entities than this are split in half
+    private static final int SPLIT_THRESHOLD = 16;
+
+    private final ForkJoinPool pool;
+    private final int handle;
+    private final List<Entity> entities;
+    private final Map<Entity, Integer> offsets;
+    private final BitSet reduced;
+    private int[] entityOffsets;
+    private ByteBuffer palettes;
+    private int matrixCount;
+    private int capacity;
+
+    public PosePaletteBuffer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public PosePaletteBuffer(final ForkJoinPool pool) {
+        this.pool = pool;
+        this.handle = glGenBuffers();
+        this.entities = new ArrayList<>();
+        this.offsets = new IdentityHashMap<>();
+        this.reduced = new BitSet();
+        this.entityOffsets = new int[0];
+        this.capacity = 0;
+        ensureCapacity(1);
+    }
+
+    public void reset() {
+        this.entities.clear();
+        this.offsets.clear();
+        this.reduced.clear();
+        this.matrixCount = 0;
+    }
+
+    /**
+     * Reserves a palette for the entity's keyframed animation, shared by all
+     * of its meshes.
+     *
+     * @param reduced Whether to sample the entity's reduced skeleton
+     * @return Index of the entity's first palette matrix
+     */
+    public int add(final Entity entity,
+                   final boolean reduced) {
+        final Integer existing = this.offsets.get(entity);
+        if (existing != null) {
+            return existing;
+        }
+        final int offset = this.matrixCount;
+        final AnimationClip clip = entity.getAnimationData().getCurrentAnimation().clip();
+        this.matrixCount += clip.getSkeleton().getPaletteSize();
+        this.offsets.put(entity, offset);
+        this.reduced.set(this.entities.size(), reduced);
+        this.entities.add(entity);
+        return offset;
+    }
+
+    /**
+     * Samples the palette of every added entity and uploads them.
+     */
+    public void upload() {
+        if (this.entities.isEmpty()) {
+            return;
+        }
+        ensureCapacity(this.matrixCount);
+        if (this.entityOffsets.length < this.entities.size()) {
+            this.entityOffsets = new int[this.entities.size()];
+        }
+        for (int i = 0; i < this.entities.size(); i++) {
+            this.entityOffsets[i] = this.offsets.get(this.entities.get(i));
+        }
+        this.pool.invoke(new SampleTask(0, this.entities.size()));
+        this.palettes.limit(this.matrixCount * PoseSampler.MATRIX_SIZE);
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.handle);
+        glBufferSubData(GL_SHADER_STORAGE_BUFFER, 0, this.palettes);
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+        this.palettes.clear();
+    }
+
+    private void ensureCapacity(final int matrices) {
+        if (matrices <= this.capacity) {
+            return;
+        }
+        final int grown = Math.max(matrices, this.capacity * 2);
+        if (this.palettes != null) {
+            MemoryUtil.memFree(this.palettes);
+        }
+        this.palettes = MemoryUtil.memCalloc(grown * PoseSampler.MATRIX_SIZE);
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.handle);
+        glBufferData(GL_SHADER_STORAGE_BUFFER, (long) grown * PoseSampler.MATRIX_SIZE, GL_DYNAMIC_DRAW);
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+        this.capacity = grown;
+    }
+
+    public int getHandle() {
+        return this.handle;
+    }
+
+    public int getEntityCount() {
+        return this.entities.size();
+    }
+
+    public long getSizeInBytes() {
+        return (long) this.matrixCount * PoseSampler.MATRIX_SIZE;
+    }
+
+    public void cleanup() {
+        glDeleteBuffers(this.handle);
+        MemoryUtil.memFree(this.palettes);
+    }
+
+    private final class SampleTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+
+        private SampleTask(final int from,
+                           final int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > PosePaletteBuffer.SPLIT_THRESHOLD) {
+                final int mid = (this.from + this.to) >>> 1;
+                invokeAll(
+                        new SampleTask(this.from, mid),
+                        new SampleTask(mid, this.to)
+                );
+                return;
+            }
+            final PoseSampler sampler = new PoseSampler();
+            for (int i = this.from; i < this.to; i++) {
+                final AnimationData animationData = PosePaletteBuffer.this.entities.get(i).getAnimationData();
+                sampler.sample(
+                        animationData.getCurrentAnimation().clip(),
+                        animationData.getTime(),
+                        PosePaletteBuffer.this.palettes,
+                        PosePaletteBuffer.this.entityOffsets[i] * PoseSampler.MATRIX_SIZE,
+                        PosePaletteBuffer.this.reduced.get(i)
+                );
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.engineersbox.quanta.rendering.indirect;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * First-fit free list allocator over the element range {@code [0, capacity)}
+ * of a GPU buffer. Freed ranges are coalesced with adjacent free ranges so
+ * that streaming content in and out does not steadily fragment the buffer.
+ */
+public class RangeAllocator {
+
+    public static final int INVALID_OFFSET = -1;
+
+    private final TreeMap<Integer, Integer> freeRanges;
+    private int capacity;
+    private int used;
+
+    public RangeAllocator(final int capacity) {
+        this.freeRanges = new TreeMap<>();
+        this.capacity = capacity;
+        this.used = 0;
+        if (capacity > 0) {
+            this.freeRanges.put(0, capacity);
+        }
+    }
+
+    /**
+     * @return Offset of the allocated range, or {@link #INVALID_OFFSET} when
+     *         no free range is large enough
+     */
+    public int allocate(final int size) {
+        if (size <= 0) {
+            return 0;
+        }
+        for (final Map.Entry<Integer, Integer> range : this.freeRanges.entrySet()) {
+            if (range.getValue() < size) {
+                continue;
+            }
+            final int offset = range.getKey();
+            this.freeRanges.remove(offset);
+            if (range.getValue() > size) {
+                this.freeRanges.put(offset + size, range.getValue() - size);
+            }
+            this.used += size;
+            return offset;
+        }
+        return RangeAllocator.INVALID_OFFSET;
+    }
+
+    public void free(final int offset,
+                     final int size) {
+        if (size <= 0) {
+            return;
+        }
+        int start = offset;
+        int length = size;
+        final Map.Entry<Integer, Integer> previous = this.freeRanges.floorEntry(offset);
+        if (previous != null && previous.getKey() + previous.getValue() == offset) {
+            start = previous.getKey();
+            length += previous.getValue();
+            this.freeRanges.remove(previous.getKey());
+        }
+        final Integer nextLength = this.freeRanges.remove(offset + size);
+        if (nextLength != null) {
+            length += nextLength;
+        }
+        this.freeRanges.put(start, length);
+        this.used -= size;
+    }
+
+    /**
+     * Extends the managed range to {@code newCapacity}, appending the new
+     * space to any free range that already ends at the old capacity.
+     */
+    public void grow(final int newCapacity) {
+        if (newCapacity <= this.capacity) {
+            return;
+        }
+        final int oldCapacity = this.capacity;
+        this.capacity = newCapacity;
+        this.used += newCapacity - oldCapacity;
+        free(oldCapacity, newCapacity - oldCapacity);
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public int getUsed() {
+        return this.used;
+    }
+
+}
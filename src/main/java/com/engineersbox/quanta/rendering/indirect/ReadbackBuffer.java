@@ -0,0 +1,156 @@
+package com.engineersbox.quanta.rendering.indirect;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL44.GL_MAP_COHERENT_BIT;
+import static org.lwjgl.opengl.GL44.GL_MAP_PERSISTENT_BIT;
+import static org.lwjgl.opengl.GL44.glBufferStorage;
+import static org.lwjgl.system.MemoryUtil.NULL;
+import static org.lwjgl.system.MemoryUtil.memSlice;
+
+/**
+ * Persistently mapped buffer split into a ring of equally sized regions that
+ * GPU written buffers are copied into for reading on the CPU. Each region is
+ * fenced once its copies are issued and is only handed to the reader once
+ * the GPU has passed that fence, polled without waiting, so reading never
+ * stalls on work still in flight. While every region is waiting to be read
+ * new copies are dropped rather than blocking.
+ */
+public class ReadbackBuffer {
+
+    public static final int DEFAULT_REGION_COUNT = 3;
+    private static final int MAP_FLAGS = GL_MAP_READ_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+
+    private final int handle;
+    private final long regionSize;
+    private final ByteBuffer[] regions;
+    private final long[] fences;
+    private int writeRegion;
+    private int readRegion;
+
+    public ReadbackBuffer(final long size) {
+        this(size, ReadbackBuffer.DEFAULT_REGION_COUNT);
+    }
+
+    public ReadbackBuffer(final long size,
+                          final int regionCount) {
+        this.regionSize = Math.max(1, size);
+        this.regions = new ByteBuffer[regionCount];
+        this.fences = new long[regionCount];
+        this.writeRegion = 0;
+        this.readRegion = 0;
+        this.handle = glGenBuffers();
+        glBindBuffer(GL_COPY_WRITE_BUFFER, this.handle);
+        glBufferStorage(
+                GL_COPY_WRITE_BUFFER,
+                this.regionSize * regionCount,
+                ReadbackBuffer.MAP_FLAGS
+        );
+        final ByteBuffer mapped = glMapBufferRange(
+                GL_COPY_WRITE_BUFFER,
+                0,
+                this.regionSize * regionCount,
+                ReadbackBuffer.MAP_FLAGS
+        );
+        if (mapped == null) {
+            throw new IllegalStateException("Unable to map readback buffer " + this.handle);
+        }
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        for (int i = 0; i < regionCount; i++) {
+            this.regions[i] = memSlice(
+                    mapped,
+                    (int) (i * this.regionSize),
+                    (int) this.regionSize
+            ).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * @return Whether the next region is free to copy into, if not the
+     *         copies for this frame should be skipped
+     */
+    public boolean beginWrite() {
+        return this.fences[this.writeRegion] == NULL;
+    }
+
+    /**
+     * Copies {@code size} bytes of {@code source} from {@code sourceOffset}
+     * to {@code offset} within the current write region.
+     */
+    public void copy(final int source,
+                     final long sourceOffset,
+                     final long offset,
+                     final long size) {
+        glBindBuffer(GL_COPY_READ_BUFFER, source);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, this.handle);
+        glCopyBufferSubData(
+                GL_COPY_READ_BUFFER,
+                GL_COPY_WRITE_BUFFER,
+                sourceOffset,
+                (this.writeRegion * this.regionSize) + offset,
+                size
+        );
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        glBindBuffer(GL_COPY_READ_BUFFER, 0);
+    }
+
+    public void endWrite() {
+        this.fences[this.writeRegion] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        this.writeRegion = (this.writeRegion + 1) % this.regions.length;
+    }
+
+    /**
+     * Returns the oldest written region if the GPU has finished copying into
+     * it, without waiting. The region is handed back to the writer, so it
+     * must be read before the next {@link #beginWrite}.
+     *
+     * @return Mapped memory of the region, or {@code null} if none is ready
+     */
+    public ByteBuffer poll() {
+        final long fence = this.fences[this.readRegion];
+        if (fence == NULL) {
+            return null;
+        }
+        final int result = glClientWaitSync(fence, GL_SYNC_FLUSH_COMMANDS_BIT, 0);
+        if (result != GL_ALREADY_SIGNALED && result != GL_CONDITION_SATISFIED) {
+            return null;
+        }
+        glDeleteSync(fence);
+        this.fences[this.readRegion] = NULL;
+        final ByteBuffer region = this.regions[this.readRegion];
+        this.readRegion = (this.readRegion + 1) % this.regions.length;
+        return region;
+    }
+
+    /**
+     * Drops every region waiting to be read.
+     */
+    public void discard() {
+        for (int i = 0; i < this.fences.length; i++) {
+            if (this.fences[i] != NULL) {
+                glDeleteSync(this.fences[i]);
+                this.fences[i] = NULL;
+            }
+        }
+        this.writeRegion = 0;
+        this.readRegion = 0;
+    }
+
+    public long getRegionSize() {
+        return this.regionSize;
+    }
+
+    public void cleanup() {
+        discard();
+        glBindBuffer(GL_COPY_WRITE_BUFFER, this.handle);
+        glUnmapBuffer(GL_COPY_WRITE_BUFFER);
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        glDeleteBuffers(this.handle);
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.engineersbox.quanta.rendering.indirect;
+
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL43.GL_DISPATCH_INDIRECT_BUFFER;
+import static org.lwjgl.opengl.GL43.GL_SHADER_STORAGE_BUFFER;
+
+/**
+ * CPU staged table of skinning jobs, one per animated mesh instance, read by
+ * the animation compute shader. Each job records where its binding pose,
+ * weights, bone palette and skinned output live, along with the index of its
+ * first vertex across all jobs of the frame. Every invocation of a single
+ * {@code glDispatchComputeIndirect} skins one vertex and finds its job by
+ * binary search over those first vertex indices, so the whole frame is
+ * skinned in one dispatch whose size is written alongside the table. Jobs
+ * read their bones either from a baked frame or from a sampled pose palette.
+ */
+public class SkinningJobBuffer {
+
+    public static final int JOBS_BINDING = 12;
+    public static final int WORKGROUP_SIZE = 64;
+    public static final int NO_PALETTE = -1;
+    // int srcOffset, int srcSize, int weightsOffset, int bonesMatricesOffset,
+    // int dstOffset, int firstVertex, int paletteOffset
+    public static final int JOB_SIZE = 7 * 4;
+
+    private final int handle;
+    private final int dispatchHandle;
+    private final ByteBuffer jobBuffer;
+    private final int capacity;
+    private int jobCount;
+    private int vertexCount;
+
+    public SkinningJobBuffer(final int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.jobBuffer = MemoryUtil.memAlloc(this.capacity * SkinningJobBuffer.JOB_SIZE);
+        this.handle = glGenBuffers();
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.handle);
+        glBufferData(
+                GL_SHADER_STORAGE_BUFFER,
+                (long) this.capacity * SkinningJobBuffer.JOB_SIZE,
+                GL_DYNAMIC_DRAW
+        );
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+        this.dispatchHandle = glGenBuffers();
+        glBindBuffer(GL_DISPATCH_INDIRECT_BUFFER, this.dispatchHandle);
+        glBufferData(GL_DISPATCH_INDIRECT_BUFFER, 3 * 4, GL_DYNAMIC_DRAW);
+        glBindBuffer(GL_DISPATCH_INDIRECT_BUFFER, 0);
+        this.jobCount = 0;
+        this.vertexCount = 0;
+    }
+
+    public void reset() {
+        this.jobBuffer.clear();
+        this.jobCount = 0;
+        this.vertexCount = 0;
+    }
+
+    /**
+     * @param srcOffset Float offset of the binding pose in the binding poses buffer
+     * @param vertexCount Number of vertices to skin
+     * @param weightsOffset Float offset of the bone weights and indices
+     * @param bonesMatricesOffset Index of the first bone matrix of the current frame
+     * @param dstOffset Float offset of the skinned output
+     * @param paletteOffset Index of the first matrix of the entity's pose
+     *                      palette, or {@link #NO_PALETTE} to read the baked
+     *                      frame at {@code bonesMatricesOffset}
+     */
+    public void addJob(final int srcOffset,
+                       final int vertexCount,
+                       final int weightsOffset,
+                       final int bonesMatricesOffset,
+                       final int dstOffset,
+                       final int paletteOffset) {
+        if (this.jobCount >= this.capacity) {
+            throw new IllegalStateException(String.format(
+                    "Skinning job buffer capacity of %d jobs exceeded",
+                    this.capacity
+            ));
+        }
+        this.jobBuffer.putInt(srcOffset);
+        this.jobBuffer.putInt(vertexCount * AnimationRenderBuffers.VERTEX_FLOATS);
+        this.jobBuffer.putInt(weightsOffset);
+        this.jobBuffer.putInt(bonesMatricesOffset);
+        this.jobBuffer.putInt(dstOffset);
+        this.jobBuffer.putInt(this.vertexCount);
+        this.jobBuffer.putInt(paletteOffset);
+        this.jobCount++;
+        this.vertexCount += vertexCount;
+    }
+
+    /**
+     * Uploads the jobs added since the last reset along with the dispatch
+     * size covering all of their vertices.
+     */
+    public void upload() {
+        this.jobBuffer.flip();
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.handle);
+        if (this.jobBuffer.hasRemaining()) {
+            glBufferSubData(GL_SHADER_STORAGE_BUFFER, 0, this.jobBuffer);
+        }
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+        try (final MemoryStack stack = MemoryStack.stackPush()) {
+            final IntBuffer dispatch = stack.mallocInt(3);
+            dispatch.put(0, (int) Math.ceil((float) this.vertexCount / SkinningJobBuffer.WORKGROUP_SIZE));
+            dispatch.put(1, 1);
+            dispatch.put(2, 1);
+            glBindBuffer(GL_DISPATCH_INDIRECT_BUFFER, this.dispatchHandle);
+            glBufferSubData(GL_DISPATCH_INDIRECT_BUFFER, 0, dispatch);
+            glBindBuffer(GL_DISPATCH_INDIRECT_BUFFER, 0);
+        }
+    }
+
+    public int getHandle() {
+        return this.handle;
+    }
+
+    public int getDispatchHandle() {
+        return this.dispatchHandle;
+    }
+
+    public int getJobCount() {
+        return this.jobCount;
+    }
+
+    public int getVertexCount() {
+        return this.vertexCount;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public void cleanup() {
+        glDeleteBuffers(this.handle);
+        glDeleteBuffers(this.dispatchHandle);
+        MemoryUtil.memFree(this.jobBuffer);
+    }
+
+}
@@ -0,0 +1,285 @@
+package com.engineersbox.quanta.rendering.indirect;
+
+import com.engineersbox.quanta.debug.GLVersion;
+import com.engineersbox.quanta.resources.assets.material.Texture;
+import com.engineersbox.quanta.resources.assets.material.TextureCache;
+import com.engineersbox.quanta.resources.config.ConfigHandler;
+import com.engineersbox.quanta.resources.config.shader.provide.ShaderDefine;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.lwjgl.opengl.ARBBindlessTexture.*;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
+import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.lwjgl.opengl.GL14.GL_TEXTURE_LOD_BIAS;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL21.GL_SRGB8_ALPHA8;
+import static org.lwjgl.opengl.GL30.GL_TEXTURE_2D_ARRAY;
+import static org.lwjgl.opengl.GL30.glBindBufferBase;
+import static org.lwjgl.opengl.GL31.GL_COPY_READ_BUFFER;
+import static org.lwjgl.opengl.GL31.GL_COPY_WRITE_BUFFER;
+import static org.lwjgl.opengl.GL31.glCopyBufferSubData;
+import static org.lwjgl.opengl.GL42.glTexStorage3D;
+import static org.lwjgl.opengl.GL43.GL_SHADER_STORAGE_BUFFER;
+import static org.lwjgl.opengl.GL43.glCopyImageSubData;
+
+/**
+ * Shader storage table of every texture in a {@link TextureCache}, indexed by
+ * the texture indices stored in the material table. When
+ * {@code GL_ARB_bindless_texture} is available each entry holds a resident
+ * bindless handle. Otherwise textures are copied into one
+ * {@code GL_TEXTURE_2D_ARRAY} per distinct size, and each entry holds the
+ * array and layer to sample. The default texture is always entry 0.
+ * <p>
+ * Textures are only ever appended, so streaming in a model copies just its
+ * new textures. The table and each array double their capacity when full,
+ * copying their existing contents on the GPU.
+ */
+public class TextureTable {
+
+    private static final Logger LOGGER = LogManager.getLogger(TextureTable.class);
+    public static final String BINDLESS_TEXTURE_EXTENSION_ARB = "GL_ARB_bindless_texture";
+    @ShaderDefine(name = "BINDLESS_TEXTURES")
+    public static final int BINDLESS_TEXTURES = GLVersion.isExtensionSupported(TextureTable.BINDLESS_TEXTURE_EXTENSION_ARB) ? 1 : 0;
+    @ShaderDefine(name = "MAX_TEXTURE_ARRAYS")
+    public static final int MAX_TEXTURE_ARRAYS = 16;
+    public static final int TEXTURES_BINDING = 3;
+    public static final int DEFAULT_TEXTURE_IDX = 0;
+    private static final int ENTRY_SIZE = 4 * 4;
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Array holding every texture of one size, one layer each.
+     */
+    private static final class TextureArray {
+
+        private final int width;
+        private final int height;
+        private final int levels;
+        private int arrayId;
+        private int layerCount;
+        private int layerCapacity;
+
+        private TextureArray(final int width,
+                             final int height) {
+            this.width = width;
+            this.height = height;
+            this.levels = 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+            this.arrayId = 0;
+            this.layerCount = 0;
+            this.layerCapacity = 0;
+        }
+
+        /**
+         * @return Layer the texture was copied into
+         */
+        private int add(final Texture texture) {
+            if (this.layerCount == this.layerCapacity) {
+                grow(Math.max(1, this.layerCapacity * 2));
+            }
+            final int layer = this.layerCount++;
+            for (int level = 0; level < this.levels; level++) {
+                glCopyImageSubData(
+                        texture.getTextureId(), GL_TEXTURE_2D, level, 0, 0, 0,
+                        this.arrayId, GL_TEXTURE_2D_ARRAY, level, 0, 0, layer,
+                        Math.max(1, this.width >> level),
+                        Math.max(1, this.height >> level),
+                        1
+                );
+            }
+            return layer;
+        }
+
+        private void grow(final int layerCapacity) {
+            final int grown = glGenTextures();
+            glBindTexture(GL_TEXTURE_2D_ARRAY, grown);
+            glTexStorage3D(
+                    GL_TEXTURE_2D_ARRAY,
+                    this.levels,
+                    GL_SRGB8_ALPHA8,
+                    this.width,
+                    this.height,
+                    layerCapacity
+            );
+            glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MIN_FILTER, Texture.getMinFilter());
+            glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+            glTexParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_LOD_BIAS, ConfigHandler.CONFIG.render.texture.lodBias);
+            glBindTexture(GL_TEXTURE_2D_ARRAY, 0);
+            if (this.arrayId != 0) {
+                for (int level = 0; level < this.levels; level++) {
+                    glCopyImageSubData(
+                            this.arrayId, GL_TEXTURE_2D_ARRAY, level, 0, 0, 0,
+                            grown, GL_TEXTURE_2D_ARRAY, level, 0, 0, 0,
+                            Math.max(1, this.width >> level),
+                            Math.max(1, this.height >> level),
+                            this.layerCount
+                    );
+                }
+                glDeleteTextures(this.arrayId);
+            }
+            this.arrayId = grown;
+            this.layerCapacity = layerCapacity;
+        }
+
+    }
+
+    private final Map<String, Integer> textureIdxMap;
+    private final Map<Long, Integer> sizeArrayIdx;
+    private final List<TextureArray> arrays;
+    private final List<Long> residentHandles;
+    private int bufferId;
+    private int capacity;
+    private int textureCount;
+
+    public TextureTable(final TextureCache textureCache) {
+        this.textureIdxMap = new HashMap<>();
+        this.sizeArrayIdx = new HashMap<>();
+        this.arrays = new ArrayList<>();
+        this.residentHandles = new ArrayList<>();
+        this.bufferId = 0;
+        this.capacity = 0;
+        this.textureCount = 0;
+        update(textureCache);
+    }
+
+    public static boolean isBindless() {
+        return TextureTable.BINDLESS_TEXTURES != 0;
+    }
+
+    /**
+     * Appends every texture of the cache not already in the table. Existing
+     * entries, handles and array layers are left untouched.
+     */
+    public void update(final TextureCache textureCache) {
+        final List<Texture> added = new ArrayList<>();
+        if (this.textureCount == 0) {
+            added.add(textureCache.getTexture(TextureCache.DEFAULT_TEXTURE));
+        }
+        for (final Texture texture : textureCache.getAll()) {
+            if (!TextureCache.DEFAULT_TEXTURE.equals(texture.getPath())
+                && !this.textureIdxMap.containsKey(texture.getPath())) {
+                added.add(texture);
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+        final int first = this.textureCount;
+        ensureCapacity(first + added.size());
+        final ByteBuffer entries = MemoryUtil.memAlloc(added.size() * TextureTable.ENTRY_SIZE);
+        for (final Texture texture : added) {
+            this.textureIdxMap.put(texture.getPath(), this.textureCount++);
+            if (TextureTable.isBindless()) {
+                writeBindlessEntry(texture, entries);
+            } else {
+                writeArrayEntry(texture, entries);
+            }
+        }
+        entries.flip();
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.bufferId);
+        glBufferSubData(GL_SHADER_STORAGE_BUFFER, (long) first * TextureTable.ENTRY_SIZE, entries);
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, 0);
+        MemoryUtil.memFree(entries);
+    }
+
+    private void ensureCapacity(final int count) {
+        if (count <= this.capacity) {
+            return;
+        }
+        final int grownCapacity = Math.max(Math.max(this.capacity * 2, count), TextureTable.INITIAL_CAPACITY);
+        final int grown = glGenBuffers();
+        glBindBuffer(GL_COPY_WRITE_BUFFER, grown);
+        glBufferData(GL_COPY_WRITE_BUFFER, (long) grownCapacity * TextureTable.ENTRY_SIZE, GL_DYNAMIC_DRAW);
+        if (this.bufferId != 0) {
+            glBindBuffer(GL_COPY_READ_BUFFER, this.bufferId);
+            glCopyBufferSubData(
+                    GL_COPY_READ_BUFFER,
+                    GL_COPY_WRITE_BUFFER,
+                    0,
+                    0,
+                    (long) this.textureCount * TextureTable.ENTRY_SIZE
+            );
+            glBindBuffer(GL_COPY_READ_BUFFER, 0);
+            glDeleteBuffers(this.bufferId);
+        }
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        this.bufferId = grown;
+        this.capacity = grownCapacity;
+    }
+
+    private void writeBindlessEntry(final Texture texture,
+                                    final ByteBuffer entries) {
+        final long handle = glGetTextureHandleARB(texture.getTextureId());
+        glMakeTextureHandleResidentARB(handle);
+        this.residentHandles.add(handle);
+        entries.putLong(handle);
+        entries.putInt(0);
+        entries.putInt(0);
+    }
+
+    private void writeArrayEntry(final Texture texture,
+                                 final ByteBuffer entries) {
+        // All textures are loaded as RGBA8, so size alone determines the array
+        final long key = ((long) texture.getWidth() << 32) | texture.getHeight();
+        Integer arrayIdx = this.sizeArrayIdx.get(key);
+        if (arrayIdx == null) {
+            if (this.arrays.size() >= TextureTable.MAX_TEXTURE_ARRAYS) {
+                TextureTable.LOGGER.warn(
+                        "Texture {} needs a texture array beyond the {} that can be bound, it will use the default texture",
+                        texture.getPath(),
+                        TextureTable.MAX_TEXTURE_ARRAYS
+                );
+                // Default texture is entry 0, so it is always the first layer of the first array
+                entries.putLong(0);
+                entries.putInt(0);
+                entries.putInt(0);
+                return;
+            }
+            arrayIdx = this.arrays.size();
+            this.arrays.add(new TextureArray(texture.getWidth(), texture.getHeight()));
+            this.sizeArrayIdx.put(key, arrayIdx);
+        }
+        final int layer = this.arrays.get(arrayIdx).add(texture);
+        entries.putLong(0);
+        entries.putInt(arrayIdx);
+        entries.putInt(layer);
+    }
+
+    public void bind() {
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, TextureTable.TEXTURES_BINDING, this.bufferId);
+        for (int i = 0; i < this.arrays.size(); i++) {
+            glActiveTexture(GL_TEXTURE0 + i);
+            glBindTexture(GL_TEXTURE_2D_ARRAY, this.arrays.get(i).arrayId);
+        }
+    }
+
+    public int getTextureIdx(final String path) {
+        if (path == null) {
+            return TextureTable.DEFAULT_TEXTURE_IDX;
+        }
+        return this.textureIdxMap.getOrDefault(path, TextureTable.DEFAULT_TEXTURE_IDX);
+    }
+
+    public int getArrayCount() {
+        return this.arrays.size();
+    }
+
+    public void cleanup() {
+        for (final long handle : this.residentHandles) {
+            glMakeTextureHandleNonResidentARB(handle);
+        }
+        for (final TextureArray array : this.arrays) {
+            glDeleteTextures(array.arrayId);
+        }
+        glDeleteBuffers(this.bufferId);
+    }
+
+}
@@ -19,6 +19,7 @@ import com.engineersbox.quanta.resources.assets.object.QuadMesh;
 import com.engineersbox.quanta.resources.assets.shader.ShaderModuleData;
 import com.engineersbox.quanta.resources.assets.shader.ShaderProgram;
 import com.engineersbox.quanta.resources.assets.shader.ShaderType;
+import com.engineersbox.quanta.resources.assets.shader.UniformArray;
 import com.engineersbox.quanta.resources.assets.shader.Uniforms;
 import com.engineersbox.quanta.resources.config.ConfigHandler;
 import com.engineersbox.quanta.scene.Scene;
@@ -48,6 +49,25 @@ public class LightingRenderer extends ShaderRenderHandler {
     public static final String RENDERER_NAME = "@quanta__LIGHTING_RENDERER";
     private static final int MAX_POINT_LIGHTS = 5;
     private static final int MAX_SPOT_LIGHTS = 5;
+    private static final String[] POINT_LIGHT_MEMBERS = new String[]{
+            "position",
+            "color",
+            "intensity",
+            "att.constant",
+            "att.linear",
+            "att.exponent"
+    };
+    private static final int POINT_LIGHT_POSITION = 0;
+    private static final int POINT_LIGHT_COLOR = 1;
+    private static final int POINT_LIGHT_INTENSITY = 2;
+    private static final int POINT_LIGHT_ATT_CONSTANT = 3;
+    private static final int POINT_LIGHT_ATT_LINEAR = 4;
+    private static final int POINT_LIGHT_ATT_EXPONENT = 5;
+    private static final int SPOT_LIGHT_CONE_DIR = 6;
+    private static final int SPOT_LIGHT_CUTOFF = 7;
+    private static final int SHADOW_CASCADE_PROJECTION_VIEW_MATRIX = 0;
+    private static final int SHADOW_CASCADE_SPLIT_DISTANCE = 1;
+    private static final Vector3f ZERO_VECTOR = new Vector3f();
     @VariableHook(name = "lighting.shadows.show_cascades")
     private static boolean SHOW_CASCADES = false;
     @VariableHook(name = "renderer.show_depth")
@@ -85,6 +105,13 @@ public class LightingRenderer extends ShaderRenderHandler {
     }
 
     private final QuadMesh quadMesh;
+    private UniformArray pointLightUniforms;
+    private UniformArray spotLightUniforms;
+    private UniformArray shadowCascadeUniforms;
+    private int[] shadowMapUniforms;
+    private final Vector4f auxVector;
+    private final Vector3f lightPosition;
+    private final Vector3f lightDirection;
 
     public LightingRenderer() {
         super(new ShaderProgram(
@@ -93,6 +120,9 @@ public class LightingRenderer extends ShaderRenderHandler {
                 new ShaderModuleData("assets/shaders/lighting/lighting.frag", ShaderType.FRAGMENT)
         ));
         this.quadMesh = new QuadMesh();
+        this.auxVector = new Vector4f();
+        this.lightPosition = new Vector3f();
+        this.lightDirection = new Vector3f();
         createUniforms();
     }
 
@@ -122,36 +152,29 @@ public class LightingRenderer extends ShaderRenderHandler {
                 "brightnessThreshold"
         ).forEach(uniforms::createUniform);
 
-        for (int i = 0; i < LightingRenderer.MAX_POINT_LIGHTS; i++) {
-            final String name = "pointLights[" + i + "]";
-            Stream.of(
-                    name + ".position",
-                    name + ".color",
-                    name + ".intensity",
-                    name + ".att.constant",
-                    name + ".att.linear",
-                    name + ".att.exponent"
-            ).forEach(uniforms::createUniform);
-        }
-        for (int i = 0; i < LightingRenderer.MAX_SPOT_LIGHTS; i++) {
-            final String name = "spotLights[" + i + "]";
-            Stream.of(
-                    name + ".pl.position",
-                    name + ".pl.color",
-                    name + ".pl.intensity",
-                    name + ".pl.att.constant",
-                    name + ".pl.att.linear",
-                    name + ".pl.att.exponent",
-                    name + ".coneDir",
-                    name + ".cutoff"
-            ).forEach(uniforms::createUniform);
-        }
+        this.pointLightUniforms = uniforms.createUniformArray(
+                "pointLights",
+                LightingRenderer.MAX_POINT_LIGHTS,
+                LightingRenderer.POINT_LIGHT_MEMBERS
+        );
+        final String[] spotLightMembers = Stream.concat(
+                Stream.of(LightingRenderer.POINT_LIGHT_MEMBERS).map((final String member) -> "pl." + member),
+                Stream.of("coneDir", "cutoff")
+        ).toArray(String[]::new);
+        this.spotLightUniforms = uniforms.createUniformArray(
+                "spotLights",
+                LightingRenderer.MAX_SPOT_LIGHTS,
+                spotLightMembers
+        );
+        this.shadowCascadeUniforms = uniforms.createUniformArray(
+                "shadowCascade",
+                ShadowCascade.SHADOW_MAP_CASCADE_COUNT,
+                "projectionViewMatrix",
+                "splitDistance"
+        );
+        this.shadowMapUniforms = new int[ShadowCascade.SHADOW_MAP_CASCADE_COUNT];
         for (int i = 0; i < ShadowCascade.SHADOW_MAP_CASCADE_COUNT; i++) {
-            Stream.of(
-                    "shadowMap_" + i,
-                    "shadowCascade[" + i + "]" + ".projectionViewMatrix",
-                    "shadowCascade[" + i + "]" + ".splitDistance"
-            ).forEach(uniforms::createUniform);
+            this.shadowMapUniforms[i] = uniforms.createUniform("shadowMap_" + i);
         }
     }
 
@@ -260,16 +283,16 @@ public class LightingRenderer extends ShaderRenderHandler {
         for (int i = 0; i < ShadowCascade.SHADOW_MAP_CASCADE_COUNT; i++) {
             glActiveTexture(GL_TEXTURE0 + GBuffer.TOTAL_TEXTURES + i);
             uniforms.setUniform(
-                    "shadowMap_" + i,
+                    this.shadowMapUniforms[i],
                     GBuffer.TOTAL_TEXTURES + i
             );
             final ShadowCascade cascadeShadow = cascadeShadows.get(i);
             uniforms.setUniform(
-                    "shadowCascade[" + i + "]" + ".projectionViewMatrix",
+                    this.shadowCascadeUniforms.location(i, LightingRenderer.SHADOW_CASCADE_PROJECTION_VIEW_MATRIX),
                     cascadeShadow.getProjectionViewMatrix()
             );
             uniforms.setUniform(
-                    "shadowCascade[" + i + "]" + ".splitDistance",
+                    this.shadowCascadeUniforms.location(i, LightingRenderer.SHADOW_CASCADE_SPLIT_DISTANCE),
                     cascadeShadow.getSplitDistance()
             );
         }
@@ -301,16 +324,16 @@ public class LightingRenderer extends ShaderRenderHandler {
                 ambientLight.getColor()
         );
         final DirectionalLight directionalLight = sceneLights.getDirectionalLight();
-        final Vector4f auxDir = new Vector4f(directionalLight.getDirection(), 0);
-        auxDir.mul(viewMatrix);
-        final Vector3f dir = new Vector3f(auxDir.x, auxDir.y, auxDir.z);
+        this.auxVector.set(directionalLight.getDirection(), 0);
+        this.auxVector.mul(viewMatrix);
+        this.lightDirection.set(this.auxVector.x, this.auxVector.y, this.auxVector.z);
         uniforms.setUniform(
                 "directionalLight.color",
                 directionalLight.getColor()
         );
         uniforms.setUniform(
                 "directionalLight.direction",
-                dir
+                this.lightDirection
         );
         uniforms.setUniform(
                 "directionalLight.intensity",
@@ -321,8 +344,7 @@ public class LightingRenderer extends ShaderRenderHandler {
         PointLight pointLight;
         for (int i = 0; i < LightingRenderer.MAX_POINT_LIGHTS; i++) {
             pointLight = i < numPointLights ? pointLights.get(i) : null;
-            final String name = "pointLights[" + i + "]";
-            updatePointLight(pointLight, name, viewMatrix);
+            updatePointLight(pointLight, this.pointLightUniforms, i, viewMatrix);
         }
         final List<SpotLight> spotLights = sceneLights.getSpotLights();
         final int numSpotLights = spotLights.size();
@@ -333,27 +355,24 @@ public class LightingRenderer extends ShaderRenderHandler {
             } else {
                 spotLight = null;
             }
-            final String name = "spotLights[" + i + "]";
-            updateSpotLight(spotLight, name, viewMatrix);
+            updateSpotLight(spotLight, i, viewMatrix);
         }
     }
 
     private void updatePointLight(final PointLight pointLight,
-                                  final String prefix,
+                                  final UniformArray lightUniforms,
+                                  final int index,
                                   final Matrix4f viewMatrix) {
         final Uniforms uniforms = super.getUniforms("Lighting");
-        final Vector4f aux = new Vector4f();
-        final Vector3f lightPosition = new Vector3f();
-        final Vector3f color = new Vector3f();
+        this.lightPosition.zero();
         float intensity = 0.0f;
         float constant = 0.0f;
         float linear = 0.0f;
         float exponent = 0.0f;
         if (pointLight != null) {
-            aux.set(pointLight.getPosition(), 1);
-            aux.mul(viewMatrix);
-            lightPosition.set(aux.x, aux.y, aux.z);
-            color.set(pointLight.getColor());
+            this.auxVector.set(pointLight.getPosition(), 1);
+            this.auxVector.mul(viewMatrix);
+            this.lightPosition.set(this.auxVector.x, this.auxVector.y, this.auxVector.z);
             intensity = pointLight.getIntensity();
             final Attenuation attenuation = pointLight.getAttenuation();
             constant = attenuation.getConstant();
@@ -361,37 +380,37 @@ public class LightingRenderer extends ShaderRenderHandler {
             exponent = attenuation.getExponent();
         }
         uniforms.setUniform(
-                prefix + ".position",
-                lightPosition
+                lightUniforms.location(index, LightingRenderer.POINT_LIGHT_POSITION),
+                this.lightPosition
         );
         uniforms.setUniform(
-                prefix + ".color",
-                color
+                lightUniforms.location(index, LightingRenderer.POINT_LIGHT_COLOR),
+                pointLight != null ? pointLight.getColor() : LightingRenderer.ZERO_VECTOR
         );
         uniforms.setUniform(
-                prefix + ".intensity",
+                lightUniforms.location(index, LightingRenderer.POINT_LIGHT_INTENSITY),
                 intensity
         );
         uniforms.setUniform(
-                prefix + ".att.constant",
+                lightUniforms.location(index, LightingRenderer.POINT_LIGHT_ATT_CONSTANT),
                 constant
         );
         uniforms.setUniform(
-                prefix + ".att.linear",
+                lightUniforms.location(index, LightingRenderer.POINT_LIGHT_ATT_LINEAR),
                 linear
         );
         uniforms.setUniform(
-                prefix + ".att.exponent",
+                lightUniforms.location(index, LightingRenderer.POINT_LIGHT_ATT_EXPONENT),
                 exponent
         );
     }
 
     private void updateSpotLight(final SpotLight spotLight,
-                                 final String prefix,
+                                 final int index,
                                  final Matrix4f viewMatrix) {
         final Uniforms uniforms = super.getUniforms("Lighting");
         PointLight pointLight = null;
-        Vector3f coneDirection = new Vector3f();
+        Vector3f coneDirection = LightingRenderer.ZERO_VECTOR;
         float cutoff = 0.0f;
         if (spotLight != null) {
             coneDirection = spotLight.getConeDirection();
@@ -399,14 +418,14 @@ public class LightingRenderer extends ShaderRenderHandler {
             pointLight = spotLight.getPointLight();
         }
         uniforms.setUniform(
-                prefix + ".coneDir",
+                this.spotLightUniforms.location(index, LightingRenderer.SPOT_LIGHT_CONE_DIR),
                 coneDirection
         );
         uniforms.setUniform(
-                prefix + ".coneDir",
+                this.spotLightUniforms.location(index, LightingRenderer.SPOT_LIGHT_CUTOFF),
                 cutoff
         );
-        updatePointLight(pointLight, prefix + ".pl", viewMatrix);
+        updatePointLight(pointLight, this.spotLightUniforms, index, viewMatrix);
     }
 
     @Override
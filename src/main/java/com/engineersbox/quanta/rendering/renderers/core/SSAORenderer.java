@@ -13,6 +13,7 @@ import com.engineersbox.quanta.resources.assets.object.QuadMesh;
 import com.engineersbox.quanta.resources.assets.shader.ShaderModuleData;
 import com.engineersbox.quanta.resources.assets.shader.ShaderProgram;
 import com.engineersbox.quanta.resources.assets.shader.ShaderType;
+import com.engineersbox.quanta.resources.assets.shader.UniformArray;
 import com.engineersbox.quanta.resources.assets.shader.Uniforms;
 import org.joml.Vector3f;
 
@@ -34,6 +35,7 @@ public class SSAORenderer extends ShaderRenderHandler {
     public static final String RENDERER_NAME = "@quanta__SSAO_RENDERER";
 
     private final QuadMesh quadMesh;
+    private UniformArray sampleUniforms;
 
     public SSAORenderer() {
         super(
@@ -82,9 +84,10 @@ public class SSAORenderer extends ShaderRenderHandler {
                 "texNoise",
                 "projection"
         ).forEach(uniforms::createUniform);
-        for (int i = 0; i < SSAOBuffer.KERNEL_SIZE; i++) {
-            uniforms.createUniform("samples[" + i + "]");
-        }
+        this.sampleUniforms = uniforms.createUniformArray(
+                "samples",
+                SSAOBuffer.KERNEL_SIZE
+        );
         uniforms = super.getUniforms("SSAO Blur");
         Stream.of(
                 "ssaoInput"
@@ -115,7 +118,7 @@ public class SSAORenderer extends ShaderRenderHandler {
         final List<Vector3f> kernel = ssaoBuffer.getKernel();
         for (int i = 0; i < SSAOBuffer.KERNEL_SIZE; i++) {
             uniforms.setUniform(
-                    "samples[" + i + "]",
+                    this.sampleUniforms.location(i),
                     kernel.get(i)
             );
         }
@@ -2,43 +2,62 @@ package com.engineersbox.quanta.rendering.renderers.core;
 
 import com.engineersbox.quanta.debug.hooks.VariableHook;
 import com.engineersbox.quanta.rendering.RenderContext;
+import com.engineersbox.quanta.rendering.buffers.DepthPyramid;
 import com.engineersbox.quanta.rendering.buffers.GBuffer;
+import com.engineersbox.quanta.rendering.culling.FrustumCuller;
+import com.engineersbox.quanta.rendering.culling.MeshletCuller;
 import com.engineersbox.quanta.rendering.handler.RenderHandler;
 import com.engineersbox.quanta.rendering.handler.RenderPriority;
 import com.engineersbox.quanta.rendering.handler.ShaderRenderHandler;
 import com.engineersbox.quanta.rendering.handler.ShaderStage;
 import com.engineersbox.quanta.rendering.indirect.AnimMeshDrawData;
 import com.engineersbox.quanta.rendering.indirect.AnimationRenderBuffers;
+import com.engineersbox.quanta.rendering.indirect.ClusterDrawBuffers;
+import com.engineersbox.quanta.rendering.indirect.ClusterDrawBuffers.ClusterMeshDrawData;
+import com.engineersbox.quanta.rendering.indirect.EntityDrawBuffers;
+import com.engineersbox.quanta.rendering.indirect.IndirectDrawBuffer;
+import com.engineersbox.quanta.rendering.indirect.MaterialTableBuffer;
 import com.engineersbox.quanta.rendering.indirect.MeshDrawData;
-import com.engineersbox.quanta.resources.assets.material.Material;
-import com.engineersbox.quanta.resources.assets.material.MaterialCache;
-import com.engineersbox.quanta.resources.assets.material.Texture;
-import com.engineersbox.quanta.resources.assets.material.TextureCache;
+import com.engineersbox.quanta.rendering.indirect.MeshletDrawBuffers;
+import com.engineersbox.quanta.rendering.indirect.MeshletDrawBuffers.MeshletMeshDrawData;
+import com.engineersbox.quanta.rendering.indirect.TextureTable;
 import com.engineersbox.quanta.resources.assets.object.Model;
 import com.engineersbox.quanta.resources.assets.shader.ShaderModuleData;
 import com.engineersbox.quanta.resources.assets.shader.ShaderProgram;
 import com.engineersbox.quanta.resources.assets.shader.ShaderType;
+import com.engineersbox.quanta.resources.assets.shader.UniformArray;
 import com.engineersbox.quanta.resources.assets.shader.Uniforms;
 import com.engineersbox.quanta.resources.config.ConfigHandler;
 import com.engineersbox.quanta.scene.Entity;
 import com.engineersbox.quanta.scene.Scene;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.lwjgl.system.MemoryUtil;
+import com.engineersbox.quanta.scene.SceneChanges;
+import com.engineersbox.quanta.virtualisation.ClusterCut;
+import com.engineersbox.quanta.virtualisation.LODCutView;
+import com.engineersbox.quanta.virtualisation.LODGraph;
+import com.engineersbox.quanta.virtualisation.MeshletMesh;
+import com.engineersbox.quanta.virtualisation.TriangleBudget;
 
-import java.nio.ByteBuffer;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
 import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.lwjgl.opengl.GL15.GL_WRITE_ONLY;
+import static org.lwjgl.opengl.GL15.glBindBuffer;
 import static org.lwjgl.opengl.GL30.*;
 import static org.lwjgl.opengl.GL40.GL_DRAW_INDIRECT_BUFFER;
+import static org.lwjgl.opengl.GL42.GL_COMMAND_BARRIER_BIT;
+import static org.lwjgl.opengl.GL42.GL_TEXTURE_FETCH_BARRIER_BIT;
+import static org.lwjgl.opengl.GL42.glBindImageTexture;
+import static org.lwjgl.opengl.GL42.glMemoryBarrier;
+import static org.lwjgl.opengl.GL43.GL_SHADER_STORAGE_BARRIER_BIT;
+import static org.lwjgl.opengl.GL43.glDispatchCompute;
 import static org.lwjgl.opengl.GL43.glMultiDrawElementsIndirect;
+import static org.lwjgl.opengl.GL46.GL_PARAMETER_BUFFER;
+import static org.lwjgl.opengl.GL46.glMultiDrawElementsIndirectCount;
 
 @RenderHandler(
         name = SceneRenderer.RENDERER_NAME,
@@ -47,37 +66,132 @@ import static org.lwjgl.opengl.GL43.glMultiDrawElementsIndirect;
 )
 public class SceneRenderer extends ShaderRenderHandler {
 
-    private static final Logger LOGGER = LogManager.getLogger(SceneRenderer.class);
     public static final String RENDERER_NAME = "@quanta__SCENE_RENDERER";
-    public static final int MAX_DRAW_ELEMENTS = 100;
-    public static final int MAX_ENTITIES = 50;
-    private static final int COMMAND_SIZE = 5 * 4;
-    private static final int MAX_MATERIALS = 100;
-    private static final int MAX_TEXTURES = 100;
     @VariableHook(name = "renderer.show_normals")
     private static boolean SHOW_NORMALS = false;
-    private final Map<String, Integer> entitiesIdxMap;
-    private int staticDrawCount;
-    private int staticRenderBufferHandle;
-    private int animDrawCount;
-    private int animRenderBufferHandle;
+    @VariableHook(name = "renderer.frustum_culling")
+    private static boolean FRUSTUM_CULLING = ConfigHandler.CONFIG.render.camera.frustrumCulling;
+    @VariableHook(name = "renderer.virtualisation.gpu_cut")
+    private static boolean GPU_CLUSTER_CUT = false;
+    @VariableHook(name = "renderer.virtualisation.triangle_budget")
+    private static int TRIANGLE_BUDGET = 4_000_000;
+    @VariableHook(name = "renderer.virtualisation.min_pixel_error")
+    private static float MIN_PIXEL_ERROR = 1.0f;
+    private static final float MAX_PIXEL_ERROR = 64.0f;
+    private static final int CLUSTER_CUT_GROUP_SIZE = 64;
+    @VariableHook(name = "renderer.meshlets.cone_culling")
+    private static boolean MESHLET_CONE_CULLING = true;
+    @VariableHook(name = "renderer.meshlets.gpu_culling")
+    private static boolean GPU_MESHLET_CULLING = false;
+    /**
+     * Culls meshlets hidden behind last frame's depth, so meshlets revealed
+     * by fast camera movement can be missing for a frame.
+     */
+    @VariableHook(name = "renderer.meshlets.occlusion_culling")
+    private static boolean MESHLET_OCCLUSION_CULLING = false;
+    private static final int MESHLET_CULL_GROUP_SIZE = 64;
+    private static final int DEPTH_PYRAMID_GROUP_SIZE = 8;
+    // First unit past the texture arrays bound for the scene pass
+    private static final int DEPTH_PYRAMID_TEXTURE_UNIT = TextureTable.MAX_TEXTURE_ARRAYS;
+    private final FrustumCuller frustumCuller;
+    private IndirectDrawBuffer staticCommandBuffer;
+    private IndirectDrawBuffer clusterCommandBuffer;
+    private IndirectDrawBuffer meshletCommandBuffer;
+    private IndirectDrawBuffer animCommandBuffer;
+    private final MaterialTableBuffer materialTable;
+    private TextureTable textureTable;
+    private UniformArray textureArrayUniforms;
+    private UniformArray frustumPlaneUniforms;
+    private UniformArray meshletFrustumPlaneUniforms;
+    private final ClusterDrawBuffers clusterDrawBuffers;
+    private final LODCutView cutView;
+    private final TriangleBudget triangleBudget;
+    private final List<ClusterCutJob> clusterCutJobs;
+    private final MeshletCuller meshletCuller;
+    private final MeshletDrawBuffers meshletDrawBuffers;
+    private final List<MeshletCullJob> meshletCullJobs;
+    private DepthPyramid depthPyramid;
+    private boolean gpuMeshletCullingDispatched;
+    private int frameMeshletsTested;
+    private int frameMeshletsCulled;
+    private int meshletsTested;
+    private int meshletsCulled;
+    private boolean gpuCutDispatched;
+    private int frameClustersTested;
+    private int frameClustersSelected;
+    private int frameClusterTriangles;
+    private int clustersTested;
+    private int clustersSelected;
+    private int clusterTriangles;
+
+    private record ClusterCutJob(LODGraph graph,
+                                 Entity entity,
+                                 int drawElement) {
+    }
+
+    private record MeshletCullJob(MeshletMesh meshletMesh,
+                                  Entity entity,
+                                  int drawElement) {
+    }
 
     public SceneRenderer() {
-        super(new ShaderProgram(
-                "Scene",
-                new ShaderModuleData("assets/shaders/scene/scene.vert", ShaderType.VERTEX),
-                new ShaderModuleData("assets/shaders/scene/scene.frag", ShaderType.FRAGMENT)
-        ));
+        super(
+                new ShaderProgram(
+                        "Scene",
+                        new ShaderModuleData("assets/shaders/scene/scene.vert", ShaderType.VERTEX),
+                        new ShaderModuleData("assets/shaders/scene/scene.frag", ShaderType.FRAGMENT)
+                ),
+                new ShaderProgram(
+                        "ClusterCut",
+                        new ShaderModuleData("assets/shaders/virtualisation/cluster_cut.comp", ShaderType.COMPUTE)
+                ),
+                new ShaderProgram(
+                        "MeshletCull",
+                        new ShaderModuleData("assets/shaders/culling/meshlet_cull.comp", ShaderType.COMPUTE)
+                ),
+                new ShaderProgram(
+                        "DepthPyramid",
+                        new ShaderModuleData("assets/shaders/culling/depth_pyramid.comp", ShaderType.COMPUTE)
+                )
+        );
         createUniforms();
-        this.entitiesIdxMap = new HashMap<>();
+        this.frustumCuller = new FrustumCuller();
+        this.materialTable = new MaterialTableBuffer();
+        this.clusterDrawBuffers = new ClusterDrawBuffers();
+        this.cutView = new LODCutView();
+        this.triangleBudget = new TriangleBudget(
+                SceneRenderer.MIN_PIXEL_ERROR,
+                SceneRenderer.MAX_PIXEL_ERROR
+        );
+        this.clusterCutJobs = new ArrayList<>();
+        this.gpuCutDispatched = false;
+        this.meshletCuller = new MeshletCuller();
+        this.meshletDrawBuffers = new MeshletDrawBuffers();
+        this.meshletCullJobs = new ArrayList<>();
+        this.gpuMeshletCullingDispatched = false;
     }
 
     @Override
     public void cleanup(final RenderContext context) {
         super.cleanup(context);
         ((GBuffer) context.attributes().get("gBuffer")).cleanup();
-        glDeleteBuffers(this.staticRenderBufferHandle);
-        glDeleteBuffers(this.animRenderBufferHandle);
+        this.staticCommandBuffer.cleanup();
+        this.clusterCommandBuffer.cleanup();
+        this.meshletCommandBuffer.cleanup();
+        this.animCommandBuffer.cleanup();
+        this.materialTable.cleanup();
+        this.clusterDrawBuffers.cleanup();
+        this.meshletDrawBuffers.cleanup();
+        if (this.depthPyramid != null) {
+            this.depthPyramid.cleanup();
+        }
+        if (this.textureTable != null) {
+            this.textureTable.cleanup();
+        }
+        final EntityDrawBuffers entityDrawBuffers = (EntityDrawBuffers) context.attributes().remove(EntityDrawBuffers.ATTRIBUTE_NAME);
+        if (entityDrawBuffers != null) {
+            entityDrawBuffers.cleanup();
+        }
     }
 
     private void createUniforms() {
@@ -87,29 +201,52 @@ public class SceneRenderer extends ShaderRenderHandler {
                 "viewMatrix",
                 "showNormals"
         ).forEach(uniforms::createUniform);
-        for (int i = 0; i < SceneRenderer.MAX_TEXTURES; i++) {
-            uniforms.createUniform("textureSampler[" + i + "]");
-        }
-        for (int i = 0; i < SceneRenderer.MAX_MATERIALS; i++) {
-            final String name = "materials[" + i + "]";
-            Stream.of(
-                    name + ".diffuse",
-                    name + ".specular",
-                    name + ".reflectance",
-                    name + ".normalMapIdx",
-                    name + ".textureIdx"
-            ).forEach(uniforms::createUniform);
-        }
-        for (int i = 0; i < SceneRenderer.MAX_DRAW_ELEMENTS; i++) {
-            final String name = "drawElements[" + i + "]";
-            Stream.of(
-                    name + ".modelMatrixIdx",
-                    name + ".materialIdx"
-            ).forEach(uniforms::createUniform);
-        }
-        for (int i = 0; i < SceneRenderer.MAX_ENTITIES; i++) {
-            uniforms.createUniform("modelMatrices[" + i + "]");
+        if (!TextureTable.isBindless()) {
+            this.textureArrayUniforms = uniforms.createUniformArray(
+                    "textureArrays",
+                    TextureTable.MAX_TEXTURE_ARRAYS
+            );
         }
+        final Uniforms cutUniforms = super.getUniforms("ClusterCut");
+        Stream.of(
+                "cutParameters.cameraPosition",
+                "cutParameters.errorScale",
+                "cutParameters.pixelThreshold",
+                "cutParameters.minDistance",
+                "cutParameters.culling",
+                "cutParameters.firstCluster",
+                "cutParameters.clusterCount",
+                "cutParameters.baseInstance",
+                "cutParameters.maxCommands",
+                "cutParameters.maxRequests",
+                "cutParameters.frame"
+        ).forEach(cutUniforms::createUniform);
+        this.frustumPlaneUniforms = cutUniforms.createUniformArray(
+                "frustumPlanes",
+                LODCutView.FRUSTUM_PLANES
+        );
+        final Uniforms meshletUniforms = super.getUniforms("MeshletCull");
+        Stream.of(
+                "cullParameters.cameraPosition",
+                "cullParameters.frustumCulling",
+                "cullParameters.coneCulling",
+                "cullParameters.occlusionCulling",
+                "cullParameters.firstMeshlet",
+                "cullParameters.meshletCount",
+                "cullParameters.baseInstance",
+                "cullParameters.maxCommands",
+                "projectionViewModelMatrix",
+                "depthPyramid"
+        ).forEach(meshletUniforms::createUniform);
+        this.meshletFrustumPlaneUniforms = meshletUniforms.createUniformArray(
+                "frustumPlanes",
+                LODCutView.FRUSTUM_PLANES
+        );
+        final Uniforms pyramidUniforms = super.getUniforms("DepthPyramid");
+        Stream.of(
+                "source",
+                "sourceLevel"
+        ).forEach(pyramidUniforms::createUniform);
     }
 
     @Override
@@ -137,31 +274,22 @@ public class SceneRenderer extends ShaderRenderHandler {
                 "showNormals",
                 SHOW_NORMALS
         );
-        final TextureCache textureCache = context.scene().getTextureCache();
-        final List<Texture> textures = textureCache.getAll().stream().toList();
-        final int numTextures = textures.size();
-        if (numTextures > SceneRenderer.MAX_TEXTURES) {
-            SceneRenderer.LOGGER.warn("Only " + SceneRenderer.MAX_TEXTURES + " textures can be used");
-        }
-        for (int i = 0; i < Math.min(SceneRenderer.MAX_TEXTURES, numTextures); i++) {
-            uniforms.setUniform("textureSampler[" + i + "]", i);
-            final Texture texture = textures.get(i);
-            glActiveTexture(GL_TEXTURE0 + i);
-            texture.bind();
-        }
-        int entityIdx = 0;
-        for (final Model model : context.scene().getModels().values()) {
-            final List<Entity> entities = model.getEntities();
-            for (final Entity entity : entities) {
-                uniforms.setUniform(
-                        "modelMatrices[" + entityIdx + "]",
-                        entity.getModelMatrix()
-                );
-                entityIdx++;
-            }
-        }
+        this.textureTable.bind();
+        this.materialTable.bind();
+        final EntityDrawBuffers entityDrawBuffers = (EntityDrawBuffers) context.attributes().get(EntityDrawBuffers.ATTRIBUTE_NAME);
+        entityDrawBuffers.beginFrame(context.scene());
+        entityDrawBuffers.bind();
+        this.frustumCuller.setEnabled(SceneRenderer.FRUSTUM_CULLING);
+        this.frustumCuller.update(
+                context.scene().getProjection().getProjectionMatrix(),
+                context.scene().getCamera().getViewMatrix()
+        );
         // Static meshes
-        int drawElement = 0;
+        this.staticCommandBuffer.reset();
+        this.clusterCommandBuffer.reset();
+        this.meshletCommandBuffer.reset();
+        beginClusterCuts();
+        beginMeshletCulling();
         List<Model> modelList = context.scene().getModels()
                 .values()
                 .stream()
@@ -169,32 +297,75 @@ public class SceneRenderer extends ShaderRenderHandler {
                 .toList();
         for (final Model model : modelList) {
             final List<Entity> entities = model.getEntities();
-            for (final MeshDrawData meshDrawData : model.getMeshDrawData()) {
+            for (int meshIdx = 0; meshIdx < model.getMeshDrawData().size(); meshIdx++) {
+                final MeshDrawData meshDrawData = model.getMeshDrawData().get(meshIdx);
+                final LODGraph graph = model.getLODGraph(meshIdx);
+                if (graph != null) {
+                    // Virtualised meshes have no static geometry to fall back to
+                    if (this.clusterDrawBuffers.get(graph) != null) {
+                        addClusterCuts(context, entityDrawBuffers, meshDrawData, graph, entities);
+                    }
+                    continue;
+                }
+                final MeshletMesh meshletMesh = model.getMeshletMesh(meshIdx);
+                if (meshletMesh != null && this.meshletDrawBuffers.get(meshletMesh) != null) {
+                    addMeshletDraws(context, entityDrawBuffers, meshDrawData, meshletMesh, entities);
+                    continue;
+                }
+                final int baseInstance = entityDrawBuffers.getDrawElementCount();
                 for (final Entity entity : entities) {
-                    final String name = "drawElements[" + drawElement + "]";
-                    uniforms.setUniform(
-                            name + ".modelMatrixIdx",
-                            this.entitiesIdxMap.get(entity.getId())
-                    );
-                    uniforms.setUniform(
-                            name + ".materialIdx",
+                    if (!this.frustumCuller.isVisible(meshDrawData, entity)) {
+                        continue;
+                    }
+                    entityDrawBuffers.addDrawElement(
+                            entityDrawBuffers.getEntityIdx(entity),
                             meshDrawData.materialIdx()
                     );
-                    drawElement++;
+                }
+                final int visibleInstances = entityDrawBuffers.getDrawElementCount() - baseInstance;
+                if (visibleInstances > 0) {
+                    this.staticCommandBuffer.addCommand(
+                            meshDrawData.vertices(),
+                            visibleInstances,
+                            meshDrawData.firstIndex(),
+                            meshDrawData.offset(),
+                            baseInstance
+                    );
                 }
             }
         }
-        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, this.staticRenderBufferHandle);
+        this.staticCommandBuffer.upload();
         glBindVertexArray(animationRenderBuffers.getStaticVaoId());
         glMultiDrawElementsIndirect(
                 GL_TRIANGLES,
                 GL_UNSIGNED_INT,
                 0,
-                this.staticDrawCount,
+                this.staticCommandBuffer.getDrawCount(),
+                0
+        );
+        // Meshlet culled meshes, drawn from the static geometry in meshlet order
+        this.meshletCommandBuffer.upload();
+        glMultiDrawElementsIndirect(
+                GL_TRIANGLES,
+                GL_UNSIGNED_INT,
+                0,
+                this.meshletCommandBuffer.getDrawCount(),
                 0
         );
+        drawGPUMeshletCulling(context, animationRenderBuffers);
+        // Virtualised meshes, drawn from the cluster pool
+        this.clusterCommandBuffer.upload();
+        glBindVertexArray(this.clusterDrawBuffers.getVaoId());
+        glMultiDrawElementsIndirect(
+                GL_TRIANGLES,
+                GL_UNSIGNED_INT,
+                0,
+                this.clusterCommandBuffer.getDrawCount(),
+                0
+        );
+        drawGPUClusterCuts(context);
         // Animated meshes
-        drawElement = 0;
+        this.animCommandBuffer.reset();
         modelList = context.scene().getModels()
                 .values()
                 .stream()
@@ -204,35 +375,379 @@ public class SceneRenderer extends ShaderRenderHandler {
             for (final MeshDrawData meshDrawData : model.getMeshDrawData()) {
                 final AnimMeshDrawData animMeshDrawData = meshDrawData.animMeshDrawData();
                 final Entity entity = animMeshDrawData.entity();
-                final String name = "drawElements[" + drawElement + "]";
-                uniforms.setUniform(
-                        name + ".modelMatrixIdx",
-                        this.entitiesIdxMap.get(entity.getId())
-                );
-                uniforms.setUniform(
-                        name + ".materialIdx",
-                        meshDrawData.materialIdx()
-                );
-                drawElement++;
+                if (this.frustumCuller.isVisible(meshDrawData, entity)) {
+                    final int drawElement = entityDrawBuffers.addDrawElement(
+                            entityDrawBuffers.getEntityIdx(entity),
+                            meshDrawData.materialIdx()
+                    );
+                    this.animCommandBuffer.addCommand(
+                            meshDrawData.vertices(),
+                            1,
+                            meshDrawData.firstIndex(),
+                            meshDrawData.offset(),
+                            drawElement
+                    );
+                }
             }
         }
-        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, this.animRenderBufferHandle);
+        this.animCommandBuffer.upload();
         glBindVertexArray(animationRenderBuffers.getAnimVaoId());
         glMultiDrawElementsIndirect(
                 GL_TRIANGLES,
                 GL_UNSIGNED_INT,
                 0,
-                this.animDrawCount,
+                this.animCommandBuffer.getDrawCount(),
                 0
         );
         glBindVertexArray(0);
+        entityDrawBuffers.endFrame();
         glEnable(GL_BLEND);
         super.unbind("Scene");
+        if (SceneRenderer.MESHLET_OCCLUSION_CULLING) {
+            buildDepthPyramid(gBuffer);
+        }
         if (ConfigHandler.CONFIG.engine.glOptions.wireframe) {
             glPolygonMode(GL_FRONT_AND_BACK, GL_FILL);
         }
     }
 
+    /**
+     * Publishes the cluster counters of the previous frame, including those
+     * written by its GPU cuts, and adapts the pixel error threshold towards
+     * the triangle budget from them. Pages requested by last frame's cuts
+     * start streaming and those that have arrived are installed, before any
+     * of this frame's cuts are selected.
+     */
+    private void beginClusterCuts() {
+        if ((SceneRenderer.GPU_CLUSTER_CUT && !this.clusterDrawBuffers.isEmpty()) || this.gpuCutDispatched) {
+            this.clusterDrawBuffers.beginGPUCut();
+        }
+        if (this.gpuCutDispatched) {
+            this.frameClustersSelected += this.clusterDrawBuffers.getGPUDrawnClusters();
+            this.frameClusterTriangles += this.clusterDrawBuffers.getGPUDrawnTriangles();
+        }
+        this.clusterDrawBuffers.update();
+        this.clustersTested = this.frameClustersTested;
+        this.clustersSelected = this.frameClustersSelected;
+        this.clusterTriangles = this.frameClusterTriangles;
+        this.triangleBudget.update(
+                this.clusterTriangles,
+                SceneRenderer.TRIANGLE_BUDGET,
+                SceneRenderer.MIN_PIXEL_ERROR
+        );
+        this.frameClustersTested = 0;
+        this.frameClustersSelected = 0;
+        this.frameClusterTriangles = 0;
+        this.gpuCutDispatched = false;
+        this.clusterCutJobs.clear();
+    }
+
+    /**
+     * Draws a virtualised mesh for each visible entity using the cluster cut
+     * for that entity's view. CPU cuts are appended to the cluster command
+     * buffer straight away, while GPU cuts are queued and dispatched after
+     * the static draw.
+     */
+    private void addClusterCuts(final RenderContext context,
+                                final EntityDrawBuffers entityDrawBuffers,
+                                final MeshDrawData meshDrawData,
+                                final LODGraph graph,
+                                final List<Entity> entities) {
+        final ClusterMeshDrawData clusterMesh = this.clusterDrawBuffers.get(graph);
+        for (final Entity entity : entities) {
+            if (!this.frustumCuller.isVisible(meshDrawData, entity)) {
+                continue;
+            }
+            final int drawElement = entityDrawBuffers.addDrawElement(
+                    entityDrawBuffers.getEntityIdx(entity),
+                    meshDrawData.materialIdx()
+            );
+            if (SceneRenderer.GPU_CLUSTER_CUT) {
+                this.clusterCutJobs.add(new ClusterCutJob(graph, entity, drawElement));
+                continue;
+            }
+            updateCutView(context, entity);
+            final ClusterCut cut = graph.viewDependentCut(this.cutView, clusterMesh.residency());
+            final int[] clusters = cut.getClusters();
+            for (int i = 0; i < cut.getClusterCount(); i++) {
+                final MeshDrawData clusterDrawData = clusterMesh.clusters()[clusters[i]];
+                this.clusterCommandBuffer.addCommand(
+                        clusterDrawData.vertices(),
+                        1,
+                        clusterDrawData.firstIndex(),
+                        clusterDrawData.offset(),
+                        drawElement
+                );
+            }
+            this.frameClustersTested += cut.getTested();
+            this.frameClustersSelected += cut.getClusterCount();
+            this.frameClusterTriangles += cut.getTriangleCount();
+        }
+    }
+
+    private void updateCutView(final RenderContext context,
+                               final Entity entity) {
+        this.cutView.setCulling(SceneRenderer.FRUSTUM_CULLING);
+        this.cutView.update(
+                context.window(),
+                context.scene().getCamera(),
+                context.scene().getProjection(),
+                entity.getModelMatrix(),
+                this.triangleBudget.getPixelError()
+        );
+    }
+
+    /**
+     * Selects the queued GPU cuts with one dispatch per entity, each thread
+     * testing a single cluster, then draws every selected cluster with one
+     * indirect draw sourcing its command count from the counter buffer. The
+     * cuts' counters, page frames and requests are then queued for readback.
+     */
+    private void drawGPUClusterCuts(final RenderContext context) {
+        if (this.clusterCutJobs.isEmpty()) {
+            return;
+        }
+        super.bind("ClusterCut");
+        final Uniforms uniforms = super.getUniforms("ClusterCut");
+        this.clusterDrawBuffers.bindGPUCut();
+        for (final ClusterCutJob job : this.clusterCutJobs) {
+            final ClusterMeshDrawData clusterMesh = this.clusterDrawBuffers.get(job.graph());
+            final int clusterCount = clusterMesh.clusters().length;
+            updateCutView(context, job.entity());
+            uniforms.setUniform("cutParameters.cameraPosition", this.cutView.getCameraPosition());
+            uniforms.setUniform("cutParameters.errorScale", this.cutView.getErrorScale());
+            uniforms.setUniform("cutParameters.pixelThreshold", this.cutView.getPixelThreshold());
+            uniforms.setUniform("cutParameters.minDistance", this.cutView.getMinDistance());
+            uniforms.setUniform("cutParameters.culling", this.cutView.isCulling());
+            uniforms.setUniform("cutParameters.firstCluster", clusterMesh.firstCluster());
+            uniforms.setUniform("cutParameters.clusterCount", clusterCount);
+            uniforms.setUniform("cutParameters.baseInstance", job.drawElement());
+            uniforms.setUniform("cutParameters.maxCommands", this.clusterDrawBuffers.getCommandCapacity());
+            uniforms.setUniform("cutParameters.maxRequests", ClusterDrawBuffers.MAX_GPU_REQUESTS);
+            uniforms.setUniform("cutParameters.frame", this.clusterDrawBuffers.getFrame());
+            for (int i = 0; i < LODCutView.FRUSTUM_PLANES; i++) {
+                uniforms.setUniform(
+                        this.frustumPlaneUniforms.location(i),
+                        this.cutView.getFrustumPlanes()[i]
+                );
+            }
+            glDispatchCompute(
+                    (clusterCount + SceneRenderer.CLUSTER_CUT_GROUP_SIZE - 1) / SceneRenderer.CLUSTER_CUT_GROUP_SIZE,
+                    1,
+                    1
+            );
+            this.frameClustersTested += clusterCount;
+        }
+        glMemoryBarrier(GL_COMMAND_BARRIER_BIT | GL_SHADER_STORAGE_BARRIER_BIT);
+        super.bind("Scene");
+        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, this.clusterDrawBuffers.getCommandBuffer());
+        glBindBuffer(GL_PARAMETER_BUFFER, this.clusterDrawBuffers.getCounterBuffer());
+        glMultiDrawElementsIndirectCount(
+                GL_TRIANGLES,
+                GL_UNSIGNED_INT,
+                0,
+                0,
+                this.clusterDrawBuffers.getCommandCapacity(),
+                0
+        );
+        glBindBuffer(GL_PARAMETER_BUFFER, 0);
+        this.clusterDrawBuffers.endGPUCut();
+        this.gpuCutDispatched = true;
+    }
+
+    /**
+     * Publishes the meshlet counters of the previous frame, including those
+     * of the latest GPU culling passes to have been read back.
+     */
+    private void beginMeshletCulling() {
+        if ((SceneRenderer.GPU_MESHLET_CULLING && !this.meshletDrawBuffers.isEmpty()) || this.gpuMeshletCullingDispatched) {
+            this.meshletDrawBuffers.beginGPUCulling();
+        }
+        if (this.gpuMeshletCullingDispatched) {
+            this.frameMeshletsCulled += this.meshletDrawBuffers.getGPUFrustumCulled()
+                    + this.meshletDrawBuffers.getGPUConeCulled()
+                    + this.meshletDrawBuffers.getGPUOcclusionCulled();
+        }
+        this.meshletsTested = this.frameMeshletsTested;
+        this.meshletsCulled = this.frameMeshletsCulled + this.meshletCuller.getFrustumCulled() + this.meshletCuller.getConeCulled();
+        this.frameMeshletsTested = 0;
+        this.frameMeshletsCulled = 0;
+        this.meshletCuller.reset();
+        this.meshletCuller.setConeCulling(SceneRenderer.MESHLET_CONE_CULLING);
+        this.gpuMeshletCullingDispatched = false;
+        this.meshletCullJobs.clear();
+    }
+
+    /**
+     * Draws the meshlets of a mesh that survive culling for each visible
+     * entity, culling on the CPU straight away or queueing a GPU culling
+     * pass.
+     */
+    private void addMeshletDraws(final RenderContext context,
+                                 final EntityDrawBuffers entityDrawBuffers,
+                                 final MeshDrawData meshDrawData,
+                                 final MeshletMesh meshletMesh,
+                                 final List<Entity> entities) {
+        for (final Entity entity : entities) {
+            if (!this.frustumCuller.isVisible(meshDrawData, entity)) {
+                continue;
+            }
+            final int drawElement = entityDrawBuffers.addDrawElement(
+                    entityDrawBuffers.getEntityIdx(entity),
+                    meshDrawData.materialIdx()
+            );
+            this.frameMeshletsTested += meshletMesh.getMeshlets().size();
+            if (SceneRenderer.GPU_MESHLET_CULLING) {
+                this.meshletCullJobs.add(new MeshletCullJob(meshletMesh, entity, drawElement));
+                continue;
+            }
+            updateCutView(context, entity);
+            this.meshletCuller.cull(
+                    this.cutView,
+                    meshletMesh,
+                    meshDrawData,
+                    this.meshletCommandBuffer,
+                    drawElement
+            );
+        }
+    }
+
+    /**
+     * Culls the meshlets of the queued instances with one dispatch each,
+     * every thread testing one meshlet, then draws the survivors with one
+     * indirect draw sourcing its command count from the counter buffer. The
+     * counters are then queued for readback.
+     */
+    private void drawGPUMeshletCulling(final RenderContext context,
+                                       final AnimationRenderBuffers animationRenderBuffers) {
+        if (this.meshletCullJobs.isEmpty()) {
+            return;
+        }
+        super.bind("MeshletCull");
+        final Uniforms uniforms = super.getUniforms("MeshletCull");
+        this.meshletDrawBuffers.bindGPUCulling();
+        final boolean occlusionCulling = SceneRenderer.MESHLET_OCCLUSION_CULLING && this.depthPyramid != null;
+        if (occlusionCulling) {
+            glActiveTexture(GL_TEXTURE0 + SceneRenderer.DEPTH_PYRAMID_TEXTURE_UNIT);
+            glBindTexture(GL_TEXTURE_2D, this.depthPyramid.getTextureId());
+        }
+        uniforms.setUniform("depthPyramid", SceneRenderer.DEPTH_PYRAMID_TEXTURE_UNIT);
+        uniforms.setUniform("cullParameters.coneCulling", SceneRenderer.MESHLET_CONE_CULLING);
+        uniforms.setUniform("cullParameters.occlusionCulling", occlusionCulling);
+        uniforms.setUniform("cullParameters.maxCommands", this.meshletDrawBuffers.getCommandCapacity());
+        for (final MeshletCullJob job : this.meshletCullJobs) {
+            final MeshletMeshDrawData meshletMeshDrawData = this.meshletDrawBuffers.get(job.meshletMesh());
+            updateCutView(context, job.entity());
+            uniforms.setUniform("cullParameters.cameraPosition", this.cutView.getCameraPosition());
+            uniforms.setUniform("cullParameters.frustumCulling", this.cutView.isCulling());
+            uniforms.setUniform("cullParameters.firstMeshlet", meshletMeshDrawData.firstMeshlet());
+            uniforms.setUniform("cullParameters.meshletCount", meshletMeshDrawData.meshletCount());
+            uniforms.setUniform("cullParameters.baseInstance", job.drawElement());
+            uniforms.setUniform("projectionViewModelMatrix", this.cutView.getProjectionViewModelMatrix());
+            for (int i = 0; i < LODCutView.FRUSTUM_PLANES; i++) {
+                uniforms.setUniform(
+                        this.meshletFrustumPlaneUniforms.location(i),
+                        this.cutView.getFrustumPlanes()[i]
+                );
+            }
+            glDispatchCompute(
+                    (meshletMeshDrawData.meshletCount() + SceneRenderer.MESHLET_CULL_GROUP_SIZE - 1) / SceneRenderer.MESHLET_CULL_GROUP_SIZE,
+                    1,
+                    1
+            );
+        }
+        if (occlusionCulling) {
+            glBindTexture(GL_TEXTURE_2D, 0);
+            glActiveTexture(GL_TEXTURE0);
+        }
+        glMemoryBarrier(GL_COMMAND_BARRIER_BIT | GL_SHADER_STORAGE_BARRIER_BIT);
+        super.bind("Scene");
+        glBindVertexArray(animationRenderBuffers.getStaticVaoId());
+        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, this.meshletDrawBuffers.getCommandBuffer());
+        glBindBuffer(GL_PARAMETER_BUFFER, this.meshletDrawBuffers.getCounterBuffer());
+        glMultiDrawElementsIndirectCount(
+                GL_TRIANGLES,
+                GL_UNSIGNED_INT,
+                0,
+                0,
+                this.meshletDrawBuffers.getCommandCapacity(),
+                0
+        );
+        glBindBuffer(GL_PARAMETER_BUFFER, 0);
+        this.meshletDrawBuffers.endGPUCulling();
+        this.gpuMeshletCullingDispatched = true;
+    }
+
+    /**
+     * Reduces this frame's depth into the pyramid used to cull the next
+     * frame's meshlets by occlusion, one dispatch per level.
+     */
+    private void buildDepthPyramid(final GBuffer gBuffer) {
+        if (this.depthPyramid == null
+            || this.depthPyramid.getWidth() != gBuffer.getWidth()
+            || this.depthPyramid.getHeight() != gBuffer.getHeight()) {
+            if (this.depthPyramid != null) {
+                this.depthPyramid.cleanup();
+            }
+            this.depthPyramid = new DepthPyramid(gBuffer.getWidth(), gBuffer.getHeight());
+        }
+        super.bind("DepthPyramid");
+        final Uniforms uniforms = super.getUniforms("DepthPyramid");
+        uniforms.setUniform("source", SceneRenderer.DEPTH_PYRAMID_TEXTURE_UNIT);
+        glActiveTexture(GL_TEXTURE0 + SceneRenderer.DEPTH_PYRAMID_TEXTURE_UNIT);
+        for (int level = 0; level < this.depthPyramid.getLevels(); level++) {
+            if (level == 0) {
+                glBindTexture(GL_TEXTURE_2D, gBuffer.getTextureIds()[GBuffer.TOTAL_TEXTURES - 1]);
+                uniforms.setUniform("sourceLevel", 0);
+            } else {
+                glBindTexture(GL_TEXTURE_2D, this.depthPyramid.getTextureId());
+                uniforms.setUniform("sourceLevel", level - 1);
+            }
+            glBindImageTexture(0, this.depthPyramid.getTextureId(), level, false, 0, GL_WRITE_ONLY, GL_R32F);
+            glDispatchCompute(
+                    (this.depthPyramid.getLevelWidth(level) + SceneRenderer.DEPTH_PYRAMID_GROUP_SIZE - 1) / SceneRenderer.DEPTH_PYRAMID_GROUP_SIZE,
+                    (this.depthPyramid.getLevelHeight(level) + SceneRenderer.DEPTH_PYRAMID_GROUP_SIZE - 1) / SceneRenderer.DEPTH_PYRAMID_GROUP_SIZE,
+                    1
+            );
+            glMemoryBarrier(GL_TEXTURE_FETCH_BARRIER_BIT);
+        }
+        glBindTexture(GL_TEXTURE_2D, 0);
+        glActiveTexture(GL_TEXTURE0);
+        super.unbind("DepthPyramid");
+    }
+
+    public int getMeshletsTested() {
+        return this.meshletsTested;
+    }
+
+    public int getMeshletsCulled() {
+        return this.meshletsCulled;
+    }
+
+    public MeshletDrawBuffers getMeshletDrawBuffers() {
+        return this.meshletDrawBuffers;
+    }
+
+    public int getClustersTested() {
+        return this.clustersTested;
+    }
+
+    public int getClustersSelected() {
+        return this.clustersSelected;
+    }
+
+    public int getClusterTriangles() {
+        return this.clusterTriangles;
+    }
+
+    public float getClusterPixelError() {
+        return this.triangleBudget.getPixelError();
+    }
+
+    public ClusterDrawBuffers getClusterDrawBuffers() {
+        return this.clusterDrawBuffers;
+    }
+
     private void setupAnimCommandBuffer(final Scene scene) {
         final List<Model> modelList = scene.getModels()
                 .values()
@@ -243,30 +758,13 @@ public class SceneRenderer extends ShaderRenderHandler {
         for (final Model model : modelList) {
             numMeshes += model.getMeshDrawData().size();
         }
-        int firstIndex = 0;
-        int baseInstance = 0;
-        final ByteBuffer commandBuffer = MemoryUtil.memAlloc(numMeshes * SceneRenderer.COMMAND_SIZE);
-        for (final Model model : modelList) {
-            for (final MeshDrawData meshDrawData : model.getMeshDrawData()) {
-                // count
-                commandBuffer.putInt(meshDrawData.vertices());
-                // instanceCount
-                commandBuffer.putInt(1);
-                commandBuffer.putInt(firstIndex);
-                // baseVertex
-                commandBuffer.putInt(meshDrawData.offset());
-                commandBuffer.putInt(baseInstance);
-
-                firstIndex += meshDrawData.vertices();
-                baseInstance++;
+        if (this.animCommandBuffer != null) {
+            if (this.animCommandBuffer.getCapacity() >= numMeshes) {
+                return;
             }
+            this.animCommandBuffer.cleanup();
         }
-        commandBuffer.flip();
-        this.animDrawCount = commandBuffer.remaining() / SceneRenderer.COMMAND_SIZE;
-        this.animRenderBufferHandle = glGenBuffers();
-        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, this.animRenderBufferHandle);
-        glBufferData(GL_DRAW_INDIRECT_BUFFER, commandBuffer, GL_DYNAMIC_DRAW);
-        MemoryUtil.memFree(commandBuffer);
+        this.animCommandBuffer = new IndirectDrawBuffer(numMeshes);
     }
 
     @Override
@@ -275,74 +773,98 @@ public class SceneRenderer extends ShaderRenderHandler {
                 "gBuffer",
                 new GBuffer(context.window())
         );
+        context.attributes().put(SceneRenderer.RENDERER_NAME, this);
         final Scene scene = context.scene();
-        setupEntitiesData(scene);
+        final EntityDrawBuffers entityDrawBuffers = (EntityDrawBuffers) context.attributes().computeIfAbsent(
+                EntityDrawBuffers.ATTRIBUTE_NAME,
+                (final Object ignored) -> new EntityDrawBuffers()
+        );
+        entityDrawBuffers.setup(scene);
+        setupClusters(context);
+        setupMeshlets(scene);
         setupStaticCommandBuffer(scene);
         setupAnimCommandBuffer(scene);
-        setupMaterialsUniform(scene.getTextureCache(), scene.getMaterialCache());
+        setupMaterials(scene);
     }
 
-    private void setupEntitiesData(final Scene scene) {
-        this.entitiesIdxMap.clear();
-        int entityIdx = 0;
-        for (final Model model : scene.getModels().values()) {
-            final List<Entity> entities = model.getEntities();
-            for (final Entity entity : entities) {
-                this.entitiesIdxMap.put(entity.getId(), entityIdx);
-                entityIdx++;
+    private void setupClusters(final RenderContext context) {
+        this.clusterDrawBuffers.reset();
+        context.scene()
+                .getModels()
+                .values()
+                .stream()
+                .filter((final Model model) -> !model.isAnimated() && model.isVirtualised())
+                .forEach(this.clusterDrawBuffers::load);
+    }
+
+    private void setupMeshlets(final Scene scene) {
+        this.meshletDrawBuffers.reset();
+        scene.getModels()
+                .values()
+                .stream()
+                .filter(Predicate.not(Model::isAnimated))
+                .forEach(this.meshletDrawBuffers::load);
+    }
+
+    @Override
+    public void streamData(final RenderContext context,
+                           final SceneChanges changes) {
+        final Scene scene = context.scene();
+        ((EntityDrawBuffers) context.attributes().get(EntityDrawBuffers.ATTRIBUTE_NAME)).setup(scene);
+        for (final Model model : changes.removedModels()) {
+            if (!model.isAnimated() && model.isVirtualised()) {
+                this.clusterDrawBuffers.unload(model);
+            }
+            if (!model.isAnimated()) {
+                this.meshletDrawBuffers.unload(model);
             }
         }
+        for (final Model model : changes.addedModels()) {
+            if (!model.isAnimated() && model.isVirtualised()) {
+                this.clusterDrawBuffers.load(model);
+            }
+            if (!model.isAnimated()) {
+                this.meshletDrawBuffers.load(model);
+            }
+        }
+        setupStaticCommandBuffer(scene);
+        setupAnimCommandBuffer(scene);
+        if (!changes.addedModels().isEmpty()) {
+            updateMaterials(scene);
+        }
     }
 
-    private void setupMaterialsUniform(final TextureCache textureCache,
-                                       final MaterialCache materialCache) {
-        final List<Texture> textures = textureCache.getAll().stream().toList();
-        final int numTextures = textures.size();
-        if (numTextures > SceneRenderer.MAX_TEXTURES) {
-            SceneRenderer.LOGGER.warn("Only " + SceneRenderer.MAX_TEXTURES + " textures can be used");
+    private void setupMaterials(final Scene scene) {
+        if (this.textureTable != null) {
+            this.textureTable.cleanup();
         }
-        final Map<String, Integer> texturePosMap = new HashMap<>();
-        for (int i = 0; i < Math.min(SceneRenderer.MAX_TEXTURES, numTextures); i++) {
-            texturePosMap.put(textures.get(i).getPath(), i);
+        this.textureTable = new TextureTable(scene.getTextureCache());
+        this.materialTable.reset();
+        updateMaterials(scene);
+        if (TextureTable.isBindless()) {
+            return;
         }
         super.bind("Scene");
         final Uniforms uniforms = super.getUniforms("Scene");
-        final List<Material> materialList = materialCache.getMaterials();
-        final int numMaterials = materialList.size();
-        for (int i = 0; i < numMaterials; i++) {
-            final Material material = materialCache.getMaterial(i);
-            final String name = "materials[" + i + "]";
-            uniforms.setUniform(
-                    name + ".diffuse",
-                    material.getDiffuseColor()
-            );
-            uniforms.setUniform(
-                    name + ".specular",
-                    material.getSpecularColor()
-            );
-            uniforms.setUniform(
-                    name + ".reflectance",
-                    material.getReflectance()
-            );
-            final String normalMapPath = material.getNormalMapPath();
-            int idx = 0;
-            if (normalMapPath != null) {
-                idx = texturePosMap.computeIfAbsent(normalMapPath, k -> 0);
-            }
-            uniforms.setUniform(
-                    name + ".normalMapIdx",
-                    idx
-            );
-            final Texture texture = textureCache.getTexture(material.getTexturePath());
-            idx = texturePosMap.computeIfAbsent(texture.getPath(), (final String ignored) -> 0);
-            uniforms.setUniform(
-                    name + ".textureIdx",
-                    idx
-            );
+        for (int i = 0; i < TextureTable.MAX_TEXTURE_ARRAYS; i++) {
+            uniforms.setUniform(this.textureArrayUniforms.location(i), i);
         }
         super.unbind("Scene");
     }
 
+    /**
+     * Appends the textures and materials of models added since the tables
+     * were last updated, leaving the existing entries in place.
+     */
+    private void updateMaterials(final Scene scene) {
+        this.textureTable.update(scene.getTextureCache());
+        this.materialTable.load(
+                scene.getMaterialCache(),
+                scene.getTextureCache(),
+                this.textureTable
+        );
+    }
+
     private void setupStaticCommandBuffer(final Scene scene) {
         final List<Model> modelList = scene.getModels()
                 .values()
@@ -350,34 +872,45 @@ public class SceneRenderer extends ShaderRenderHandler {
                 .filter((final Model model) -> !model.isAnimated())
                 .toList();
         int numMeshes = 0;
+        int numClusterDraws = 0;
+        int numMeshletDraws = 0;
         for (final Model model : modelList) {
-            numMeshes += model.getMeshDrawData().size();
+            for (int meshIdx = 0; meshIdx < model.getMeshDrawData().size(); meshIdx++) {
+                final LODGraph graph = model.getLODGraph(meshIdx);
+                final MeshletMesh meshletMesh = model.getMeshletMesh(meshIdx);
+                if (graph == null && meshletMesh != null) {
+                    numMeshletDraws += meshletMesh.getMeshlets().size() * model.getEntities().size();
+                    continue;
+                }
+                if (graph == null) {
+                    numMeshes++;
+                    continue;
+                }
+                // A cut may select up to every cluster, once per entity
+                numClusterDraws += graph.getClusters().size() * model.getEntities().size();
+            }
         }
-        int firstIndex = 0;
-        int baseInstance = 0;
-        final ByteBuffer commandBuffer = MemoryUtil.memAlloc(numMeshes * SceneRenderer.COMMAND_SIZE);
-        for (final Model model : modelList) {
-            final List<Entity> entities = model.getEntities();
-            final int numEntities = entities.size();
-            for (final MeshDrawData meshDrawData : model.getMeshDrawData()) {
-                // count
-                commandBuffer.putInt(meshDrawData.vertices());
-                // instanceCount
-                commandBuffer.putInt(numEntities);
-                commandBuffer.putInt(firstIndex);
-                // baseVertex
-                commandBuffer.putInt(meshDrawData.offset());
-                commandBuffer.putInt(baseInstance);
-                firstIndex += meshDrawData.vertices();
-                baseInstance += entities.size();
+        this.clusterDrawBuffers.ensureCommandCapacity(numClusterDraws);
+        if (this.clusterCommandBuffer == null || this.clusterCommandBuffer.getCapacity() < numClusterDraws) {
+            if (this.clusterCommandBuffer != null) {
+                this.clusterCommandBuffer.cleanup();
+            }
+            this.clusterCommandBuffer = new IndirectDrawBuffer(numClusterDraws);
+        }
+        this.meshletDrawBuffers.ensureCommandCapacity(numMeshletDraws);
+        if (this.meshletCommandBuffer == null || this.meshletCommandBuffer.getCapacity() < numMeshletDraws) {
+            if (this.meshletCommandBuffer != null) {
+                this.meshletCommandBuffer.cleanup();
+            }
+            this.meshletCommandBuffer = new IndirectDrawBuffer(numMeshletDraws);
+        }
+        if (this.staticCommandBuffer != null) {
+            if (this.staticCommandBuffer.getCapacity() >= numMeshes) {
+                return;
             }
+            this.staticCommandBuffer.cleanup();
         }
-        commandBuffer.flip();
-        this.staticDrawCount = commandBuffer.remaining() / SceneRenderer.COMMAND_SIZE;
-        this.staticRenderBufferHandle = glGenBuffers();
-        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, this.staticRenderBufferHandle);
-        glBufferData(GL_DRAW_INDIRECT_BUFFER, commandBuffer, GL_DYNAMIC_DRAW);
-        MemoryUtil.memFree(commandBuffer);
+        this.staticCommandBuffer = new IndirectDrawBuffer(numMeshes);
     }
 
 }
@@ -1,7 +1,9 @@
 package com.engineersbox.quanta.rendering.renderers.preprocess;
 
+import com.engineersbox.quanta.debug.hooks.VariableHook;
 import com.engineersbox.quanta.rendering.RenderContext;
 import com.engineersbox.quanta.rendering.buffers.GBuffer;
+import com.engineersbox.quanta.rendering.culling.AnimationScheduler;
 import com.engineersbox.quanta.rendering.handler.RenderHandler;
 import com.engineersbox.quanta.rendering.handler.RenderPriority;
 import com.engineersbox.quanta.rendering.handler.ShaderRenderHandler;
@@ -9,16 +11,22 @@ import com.engineersbox.quanta.rendering.handler.ShaderStage;
 import com.engineersbox.quanta.rendering.indirect.AnimMeshDrawData;
 import com.engineersbox.quanta.rendering.indirect.AnimationRenderBuffers;
 import com.engineersbox.quanta.rendering.indirect.MeshDrawData;
+import com.engineersbox.quanta.rendering.indirect.PosePaletteBuffer;
+import com.engineersbox.quanta.rendering.indirect.SkinningJobBuffer;
+import com.engineersbox.quanta.rendering.shadow.ShadowCascade;
 import com.engineersbox.quanta.resources.assets.object.Model;
 import com.engineersbox.quanta.resources.assets.object.animation.AnimatedFrame;
+import com.engineersbox.quanta.resources.assets.object.animation.AnimationData;
 import com.engineersbox.quanta.resources.assets.shader.ShaderModuleData;
 import com.engineersbox.quanta.resources.assets.shader.ShaderProgram;
 import com.engineersbox.quanta.resources.assets.shader.ShaderType;
-import com.engineersbox.quanta.resources.assets.shader.Uniforms;
 import com.engineersbox.quanta.scene.Entity;
+import com.engineersbox.quanta.scene.SceneChanges;
 
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.lwjgl.opengl.GL15.glBindBuffer;
 import static org.lwjgl.opengl.GL30.glBindBufferBase;
 import static org.lwjgl.opengl.GL42.glMemoryBarrier;
 import static org.lwjgl.opengl.GL43.*;
@@ -32,19 +40,34 @@ public class AnimationRenderer extends ShaderRenderHandler {
 
     public static final String RENDERER_NAME = "@quanta__ANIMATION_RENDERER";
 
+    @VariableHook(name = "renderer.animation.lod")
+    private static boolean ANIMATION_LOD = true;
+    @VariableHook(name = "renderer.animation.full_rate_screen_size")
+    private static float FULL_RATE_SCREEN_SIZE = 0.25f;
+    @VariableHook(name = "renderer.animation.half_rate_screen_size")
+    private static float HALF_RATE_SCREEN_SIZE = 0.1f;
+    /**
+     * Whether keyframed animations at the lowest update rate only sample
+     * their skeleton's reduced node set
+     */
+    @VariableHook(name = "renderer.animation.reduced_skeleton")
+    private static boolean REDUCED_SKELETON = true;
+
+    private final AnimationScheduler scheduler;
+    // Cascades of this frame, the shadow renderer computes its own after skinning
+    private final List<ShadowCascade> shadowCascades;
+
     public AnimationRenderer() {
         super(new ShaderProgram(
                 "Animation",
                 new ShaderModuleData("assets/shaders/animation/animation.comp", ShaderType.COMPUTE)
         ));
-        final Uniforms uniforms = super.getUniforms("Animation");
-        Stream.of(
-                "drawParameters.srcOffset",
-                "drawParameters.srcSize",
-                "drawParameters.weightsOffset",
-                "drawParameters.bonesMatricesOffset",
-                "drawParameters.dstOffset"
-        ).forEach(uniforms::createUniform);
+        super.getUniforms("Animation").createUniform("jobCount");
+        this.scheduler = new AnimationScheduler();
+        this.shadowCascades = new ArrayList<>();
+        for (int i = 0; i < ShadowCascade.SHADOW_MAP_CASCADE_COUNT; i++) {
+            this.shadowCascades.add(new ShadowCascade());
+        }
     }
 
     @Override
@@ -52,22 +75,62 @@ public class AnimationRenderer extends ShaderRenderHandler {
         final AnimationRenderBuffers animationRenderBuffers = new AnimationRenderBuffers();
         animationRenderBuffers.loadStaticModels(context.scene());
         animationRenderBuffers.loadAnimatedModels(context.scene());
-        context.attributes().put(
+        final Object previous = context.attributes().put(
                 "animationRenderBuffers",
                 animationRenderBuffers
         );
+        if (previous != null) {
+            ((AnimationRenderBuffers) previous).cleanup();
+        }
+        this.scheduler.reset();
     }
 
+    @Override
+    public void streamData(final RenderContext context,
+                           final SceneChanges changes) {
+        final AnimationRenderBuffers animationRenderBuffers = (AnimationRenderBuffers) context.attributes().get("animationRenderBuffers");
+        boolean animatedChanged = false;
+        for (final Model model : changes.removedModels()) {
+            if (model.isAnimated()) {
+                animatedChanged = true;
+                continue;
+            }
+            animationRenderBuffers.unloadStaticModel(model);
+        }
+        for (final Model model : changes.addedModels()) {
+            if (model.isAnimated()) {
+                animatedChanged = true;
+                continue;
+            }
+            animationRenderBuffers.loadStaticModel(model);
+        }
+        // Skinned output is laid out per entity instance, so any change to
+        // animated models or entities requires the animated buffers be rebuilt
+        if (animatedChanged || changes.entitiesChanged()) {
+            animationRenderBuffers.unloadAnimatedModels();
+            animationRenderBuffers.loadAnimatedModels(context.scene());
+            this.scheduler.reset();
+        }
+    }
+
+    /**
+     * Skins every animated mesh instance due an update in a single indirect
+     * dispatch over a job table written once per frame. Entities playing
+     * keyframed animations have their pose sampled into a palette first.
+     * Entities skipped by the {@link AnimationScheduler} keep their previous
+     * skinned output.
+     */
     @Override
     public void render(final RenderContext context) {
-        super.bind("Animation");
-        final Uniforms uniforms = super.getUniforms("Animation");
         final AnimationRenderBuffers animationRenderBuffers = (AnimationRenderBuffers) context.attributes().get("animationRenderBuffers");
-        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, 0, animationRenderBuffers.getBindingPosesBuffer());
-        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, 1, animationRenderBuffers.getBonesIndicesWeightsBuffer());
-        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, 2, animationRenderBuffers.getBonesMatricesBuffer());
-        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, 3, animationRenderBuffers.getDestAnimationBuffer());
-        int dstOffset = 0;
+        final SkinningJobBuffer skinningJobBuffer = animationRenderBuffers.getSkinningJobBuffer();
+        if (skinningJobBuffer == null) {
+            return;
+        }
+        final PosePaletteBuffer posePaletteBuffer = animationRenderBuffers.getPosePaletteBuffer();
+        skinningJobBuffer.reset();
+        posePaletteBuffer.reset();
+        scheduleEntities(context);
         for (final Model model : context.scene().getModels().values()) {
             if (!model.isAnimated()) {
                 continue;
@@ -75,36 +138,85 @@ public class AnimationRenderer extends ShaderRenderHandler {
             for (final MeshDrawData meshDrawData : model.getMeshDrawData()) {
                 final AnimMeshDrawData animMeshDrawData = meshDrawData.animMeshDrawData();
                 final Entity entity = animMeshDrawData.entity();
-                final AnimatedFrame frame = entity.getAnimationData().getCurrentFrame();
-                final int groupSize = (int) Math.ceil((float) meshDrawData.sizeInBytes() / (14 * 4));
-                uniforms.setUniform(
-                        "drawParameters.srcOffset",
-                        animMeshDrawData.bindingPoseOffset()
-                );
-                uniforms.setUniform(
-                        "drawParameters.srcSize",
-                        meshDrawData.sizeInBytes() / 4
-                );
-                uniforms.setUniform(
-                        "drawParameters.weightsOffset",
-                        animMeshDrawData.weightsOffset()
+                if (!this.scheduler.isDue(entity)) {
+                    continue;
+                }
+                final AnimationData animationData = entity.getAnimationData();
+                final int bonesMatricesOffset;
+                final int paletteOffset;
+                if (animationData.getCurrentAnimation().isKeyframed()) {
+                    bonesMatricesOffset = 0;
+                    paletteOffset = posePaletteBuffer.add(
+                            entity,
+                            AnimationRenderer.REDUCED_SKELETON
+                            && this.scheduler.getTier(entity) == AnimationScheduler.Tier.QUARTER
+                    );
+                } else {
+                    final AnimatedFrame frame = animationData.getCurrentFrame();
+                    bonesMatricesOffset = frame.getOffset();
+                    paletteOffset = SkinningJobBuffer.NO_PALETTE;
+                }
+                skinningJobBuffer.addJob(
+                        animMeshDrawData.bindingPoseOffset(),
+                        meshDrawData.sizeInBytes() / (AnimationRenderBuffers.VERTEX_FLOATS * 4),
+                        animMeshDrawData.weightsOffset(),
+                        bonesMatricesOffset,
+                        meshDrawData.offset() * AnimationRenderBuffers.VERTEX_FLOATS,
+                        paletteOffset
                 );
-                uniforms.setUniform(
-                        "drawParameters.bonesMatricesOffset",
-                        frame.getOffset()
-                );
-                uniforms.setUniform(
-                        "drawParameters.dstOffset",
-                        dstOffset
-                );
-                glDispatchCompute(groupSize, 1, 1);
-                dstOffset += meshDrawData.sizeInBytes() / 4;
             }
         }
+        if (skinningJobBuffer.getVertexCount() == 0) {
+            return;
+        }
+        posePaletteBuffer.upload();
+        skinningJobBuffer.upload();
+        super.bind("Animation");
+        super.getUniforms("Animation").setUniform("jobCount", skinningJobBuffer.getJobCount());
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, 0, animationRenderBuffers.getBindingPosesBuffer());
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, 1, animationRenderBuffers.getBonesIndicesWeightsBuffer());
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, 2, animationRenderBuffers.getBonesMatricesBuffer());
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, 3, animationRenderBuffers.getDestAnimationBuffer());
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, SkinningJobBuffer.JOBS_BINDING, skinningJobBuffer.getHandle());
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, PosePaletteBuffer.PALETTES_BINDING, posePaletteBuffer.getHandle());
+        glBindBuffer(GL_DISPATCH_INDIRECT_BUFFER, skinningJobBuffer.getDispatchHandle());
+        glDispatchComputeIndirect(0);
+        glBindBuffer(GL_DISPATCH_INDIRECT_BUFFER, 0);
         glMemoryBarrier(GL_SHADER_STORAGE_BARRIER_BIT);
         super.unbind("Animation");
     }
 
+    private void scheduleEntities(final RenderContext context) {
+        this.scheduler.setEnabled(AnimationRenderer.ANIMATION_LOD);
+        this.scheduler.setScreenSizeThresholds(
+                AnimationRenderer.FULL_RATE_SCREEN_SIZE,
+                AnimationRenderer.HALF_RATE_SCREEN_SIZE
+        );
+        this.scheduler.begin(
+                context.scene().getProjection().getProjectionMatrix(),
+                context.scene().getCamera().getViewMatrix(),
+                context.scene().getCamera().getPosition()
+        );
+        // Off screen entities casting shadows into view must keep animating
+        ShadowCascade.updateCascadeShadows(this.shadowCascades, context.scene());
+        for (final ShadowCascade shadowCascade : this.shadowCascades) {
+            this.scheduler.includeShadowVolume(shadowCascade.getProjectionViewMatrix());
+        }
+        for (final Model model : context.scene().getModels().values()) {
+            if (!model.isAnimated()) {
+                continue;
+            }
+            for (final MeshDrawData meshDrawData : model.getMeshDrawData()) {
+                this.scheduler.include(meshDrawData.animMeshDrawData().entity(), meshDrawData);
+            }
+        }
+        this.scheduler.resolve();
+    }
+
+    public AnimationScheduler getScheduler() {
+        return this.scheduler;
+    }
+
     @Override
     public void cleanup(final RenderContext context) {
         super.cleanup(context);
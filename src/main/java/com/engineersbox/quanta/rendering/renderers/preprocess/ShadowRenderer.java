@@ -1,12 +1,18 @@
 package com.engineersbox.quanta.rendering.renderers.preprocess;
 
+import com.engineersbox.quanta.debug.hooks.VariableHook;
 import com.engineersbox.quanta.rendering.RenderContext;
+import com.engineersbox.quanta.rendering.culling.FrustumCuller;
 import com.engineersbox.quanta.rendering.handler.RenderHandler;
 import com.engineersbox.quanta.rendering.handler.RenderPriority;
 import com.engineersbox.quanta.rendering.handler.ShaderRenderHandler;
 import com.engineersbox.quanta.rendering.handler.ShaderStage;
 import com.engineersbox.quanta.rendering.indirect.AnimMeshDrawData;
 import com.engineersbox.quanta.rendering.indirect.AnimationRenderBuffers;
+import com.engineersbox.quanta.rendering.indirect.ClusterDrawBuffers;
+import com.engineersbox.quanta.rendering.indirect.ClusterDrawBuffers.ClusterMeshDrawData;
+import com.engineersbox.quanta.rendering.indirect.EntityDrawBuffers;
+import com.engineersbox.quanta.rendering.indirect.IndirectDrawBuffer;
 import com.engineersbox.quanta.rendering.indirect.MeshDrawData;
 import com.engineersbox.quanta.rendering.renderers.core.SceneRenderer;
 import com.engineersbox.quanta.rendering.shadow.ShadowBuffer;
@@ -19,19 +25,20 @@ import com.engineersbox.quanta.resources.assets.shader.Uniforms;
 import com.engineersbox.quanta.resources.config.ConfigHandler;
 import com.engineersbox.quanta.scene.Entity;
 import com.engineersbox.quanta.scene.Scene;
-import org.lwjgl.system.MemoryUtil;
+import com.engineersbox.quanta.scene.SceneChanges;
+import com.engineersbox.quanta.virtualisation.ClusterCut;
+import com.engineersbox.quanta.virtualisation.LODCutView;
+import com.engineersbox.quanta.virtualisation.LODGraph;
+import org.joml.FrustumIntersection;
 
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.function.Predicate;
 
 import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
 import static org.lwjgl.opengl.GL11.GL_UNSIGNED_INT;
 import static org.lwjgl.opengl.GL30.*;
-import static org.lwjgl.opengl.GL40.GL_DRAW_INDIRECT_BUFFER;
 import static org.lwjgl.opengl.GL43.glMultiDrawElementsIndirect;
 
 @RenderHandler(
@@ -43,14 +50,47 @@ public class ShadowRenderer extends ShaderRenderHandler {
 
     public static final String RENDERER_NAME = "@quanta__SHADOW_RENDERER";
 
-    private static final int COMMAND_SIZE = 5 * 4;
+    // Casters between the light and a cascade still cast into it, so the near plane is not tested
+    private static final int CASCADE_CULLING_PLANES = FrustumCuller.ALL_PLANES & ~FrustumIntersection.PLANE_MASK_NZ;
+    @VariableHook(name = "lighting.shadows.cascade_culling")
+    private static boolean CASCADE_CULLING = true;
     private final List<ShadowCascade> shadowCascades;
-    private final Map<String, Integer> entitiesIdxMap;
     private final ShadowBuffer shadowBuffer;
-    private int staticDrawCount;
-    private int staticRenderBufferHandle;
-    private int animDrawCount;
-    private int animRenderBufferHandle;
+    private final FrustumCuller cascadeCuller;
+    private final IndirectDrawBuffer[] staticCommandBuffers;
+    private final IndirectDrawBuffer[] animCommandBuffers;
+    private final IndirectDrawBuffer[] clusterCommandBuffers;
+    private final LODCutView cutView;
+    private final List<ClusterCaster> clusterCasters;
+    private int[] casterClusters;
+    private int casterClusterCount;
+
+    /**
+     * Entity drawing a virtualised mesh, whose cut is selected the first time
+     * it falls within a cascade and is then shared by the remaining cascades.
+     */
+    private static final class ClusterCaster {
+
+        private final MeshDrawData meshDrawData;
+        private final Entity entity;
+        private final LODGraph graph;
+        private final ClusterMeshDrawData clusterMesh;
+        private int firstCluster;
+        private int clusterCount;
+
+        private ClusterCaster(final MeshDrawData meshDrawData,
+                              final Entity entity,
+                              final LODGraph graph,
+                              final ClusterMeshDrawData clusterMesh) {
+            this.meshDrawData = meshDrawData;
+            this.entity = entity;
+            this.graph = graph;
+            this.clusterMesh = clusterMesh;
+            this.firstCluster = -1;
+            this.clusterCount = 0;
+        }
+
+    }
 
     public ShadowRenderer() {
         super(new ShaderProgram(
@@ -59,7 +99,16 @@ public class ShadowRenderer extends ShaderRenderHandler {
         ));
         this.shadowBuffer = new ShadowBuffer();
         this.shadowCascades = new ArrayList<>();
-        this.entitiesIdxMap = new HashMap<>();
+        this.cascadeCuller = new FrustumCuller(ShadowRenderer.CASCADE_CULLING_PLANES);
+        this.staticCommandBuffers = new IndirectDrawBuffer[ShadowCascade.SHADOW_MAP_CASCADE_COUNT];
+        this.animCommandBuffers = new IndirectDrawBuffer[ShadowCascade.SHADOW_MAP_CASCADE_COUNT];
+        this.clusterCommandBuffers = new IndirectDrawBuffer[ShadowCascade.SHADOW_MAP_CASCADE_COUNT];
+        this.cutView = new LODCutView();
+        // Casters out of view still shade what is in view, so cuts are not culled to the camera
+        this.cutView.setCulling(false);
+        this.clusterCasters = new ArrayList<>();
+        this.casterClusters = new int[0];
+        this.casterClusterCount = 0;
         createUniforms();
     }
 
@@ -70,21 +119,17 @@ public class ShadowRenderer extends ShaderRenderHandler {
         }
         final Uniforms uniforms = super.getUniforms("Shadow");
         uniforms.createUniform("projectionViewMatrix");
-        for (int i = 0; i < SceneRenderer.MAX_DRAW_ELEMENTS; i++) {
-            final String name = "drawElements[" + i + "]";
-            uniforms.createUniform(name + ".modelMatrixIdx");
-        }
-        for (int i = 0; i < SceneRenderer.MAX_ENTITIES; i++) {
-            uniforms.createUniform("modelMatrices[" + i + "]");
-        }
     }
 
     @Override
     public void cleanup(final RenderContext context) {
         super.cleanup(context);
         this.shadowBuffer.cleanup();
-        glDeleteBuffers(this.staticRenderBufferHandle);
-        glDeleteBuffers(this.animRenderBufferHandle);
+        for (int i = 0; i < ShadowCascade.SHADOW_MAP_CASCADE_COUNT; i++) {
+            this.staticCommandBuffers[i].cleanup();
+            this.animCommandBuffers[i].cleanup();
+            this.clusterCommandBuffers[i].cleanup();
+        }
     }
 
     public List<ShadowCascade> getShadowCascades() {
@@ -110,14 +155,9 @@ public class ShadowRenderer extends ShaderRenderHandler {
         glViewport(0, 0, ShadowBuffer.SHADOW_MAP_WIDTH, ShadowBuffer.SHADOW_MAP_HEIGHT);
         super.bind("Shadow");
         final Uniforms uniforms = super.getUniforms("Shadow");
-        int entityIdx = 0;
-        for (final Model model : context.scene().getModels().values()) {
-            final List<Entity> entities = model.getEntities();
-            for (final Entity entity : entities) {
-                uniforms.setUniform("modelMatrices[" + entityIdx + "]", entity.getModelMatrix());
-                entityIdx++;
-            }
-        }
+        final EntityDrawBuffers entityDrawBuffers = (EntityDrawBuffers) context.attributes().get(EntityDrawBuffers.ATTRIBUTE_NAME);
+        entityDrawBuffers.beginFrame(context.scene());
+        entityDrawBuffers.bind();
         for (int i = 0; i < ShadowCascade.SHADOW_MAP_CASCADE_COUNT; i++) {
             glFramebufferTexture2D(
                     GL_FRAMEBUFFER,
@@ -129,87 +169,58 @@ public class ShadowRenderer extends ShaderRenderHandler {
             glClear(GL_DEPTH_BUFFER_BIT);
         }
         // Static meshes
-        int drawElement = 0;
-        List<Model> modelList = context.scene().getModels()
+        final List<Model> staticModels = context.scene().getModels()
                 .values()
                 .stream()
                 .filter(Predicate.not(Model::isAnimated))
                 .toList();
-        for (final Model model : modelList) {
-            final List<Entity> entities = model.getEntities();
-            for (final MeshDrawData ignored : model.getMeshDrawData()) {
-                for (final Entity entity : entities) {
-                    final String name = "drawElements[" + drawElement + "]";
-                    uniforms.setUniform(
-                            name + ".modelMatrixIdx",
-                            this.entitiesIdxMap.get(entity.getId())
-                    );
-                    drawElement++;
-                }
-            }
-        }
-        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, this.staticRenderBufferHandle);
         glBindVertexArray(animationRenderBuffers.getStaticVaoId());
         for (int i = 0; i < ShadowCascade.SHADOW_MAP_CASCADE_COUNT; i++) {
-            glFramebufferTexture2D(
-                    GL_FRAMEBUFFER,
-                    GL_DEPTH_ATTACHMENT,
-                    GL_TEXTURE_2D,
-                    this.shadowBuffer.getDepthMapTexture().getIds()[i],
-                    0
-            );
-            final ShadowCascade shadowCascade = this.shadowCascades.get(i);
-            uniforms.setUniform(
-                    "projectionViewMatrix",
-                    shadowCascade.getProjectionViewMatrix()
-            );
+            bindCascade(uniforms, i);
+            final IndirectDrawBuffer commandBuffer = this.staticCommandBuffers[i];
+            populateStaticCommands(staticModels, entityDrawBuffers, commandBuffer);
             glMultiDrawElementsIndirect(
                     GL_TRIANGLES,
                     GL_UNSIGNED_INT,
                     0,
-                    this.staticDrawCount,
+                    commandBuffer.getDrawCount(),
                     0
             );
         }
+        // Virtualised meshes, drawn from the cluster pool
+        final SceneRenderer sceneRenderer = (SceneRenderer) context.attributes().get(SceneRenderer.RENDERER_NAME);
+        collectClusterCasters(staticModels, sceneRenderer);
+        if (!this.clusterCasters.isEmpty()) {
+            glBindVertexArray(sceneRenderer.getClusterDrawBuffers().getVaoId());
+            for (int i = 0; i < ShadowCascade.SHADOW_MAP_CASCADE_COUNT; i++) {
+                bindCascade(uniforms, i);
+                final IndirectDrawBuffer commandBuffer = this.clusterCommandBuffers[i];
+                populateClusterCommands(context, sceneRenderer, entityDrawBuffers, commandBuffer);
+                glMultiDrawElementsIndirect(
+                        GL_TRIANGLES,
+                        GL_UNSIGNED_INT,
+                        0,
+                        commandBuffer.getDrawCount(),
+                        0
+                );
+            }
+        }
         // Animated meshes
-        drawElement = 0;
-        modelList = context.scene().getModels()
+        final List<Model> animModels = context.scene().getModels()
                 .values()
                 .stream()
                 .filter(Model::isAnimated)
                 .toList();
-        for (final Model model : modelList) {
-            for (final MeshDrawData meshDrawData : model.getMeshDrawData()) {
-                final AnimMeshDrawData animMeshDrawData = meshDrawData.animMeshDrawData();
-                final Entity entity = animMeshDrawData.entity();
-                final String name = "drawElements[" + drawElement + "]";
-                uniforms.setUniform(
-                        name + ".modelMatrixIdx",
-                        this.entitiesIdxMap.get(entity.getId())
-                );
-                drawElement++;
-            }
-        }
-        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, this.animRenderBufferHandle);
         glBindVertexArray(animationRenderBuffers.getAnimVaoId());
         for (int i = 0; i < ShadowCascade.SHADOW_MAP_CASCADE_COUNT; i++) {
-            glFramebufferTexture2D(
-                    GL_FRAMEBUFFER,
-                    GL_DEPTH_ATTACHMENT,
-                    GL_TEXTURE_2D,
-                    this.shadowBuffer.getDepthMapTexture().getIds()[i],
-                    0
-            );
-            final ShadowCascade shadowCascade = this.shadowCascades.get(i);
-            uniforms.setUniform(
-                    "projectionViewMatrix",
-                    shadowCascade.getProjectionViewMatrix()
-            );
+            bindCascade(uniforms, i);
+            final IndirectDrawBuffer commandBuffer = this.animCommandBuffers[i];
+            populateAnimCommands(animModels, entityDrawBuffers, commandBuffer);
             glMultiDrawElementsIndirect(
                     GL_TRIANGLES,
                     GL_UNSIGNED_INT,
                     0,
-                    this.animDrawCount,
+                    commandBuffer.getDrawCount(),
                     0
             );
         }
@@ -224,6 +235,181 @@ public class ShadowRenderer extends ShaderRenderHandler {
         }
     }
 
+    private void bindCascade(final Uniforms uniforms,
+                             final int cascadeIdx) {
+        glFramebufferTexture2D(
+                GL_FRAMEBUFFER,
+                GL_DEPTH_ATTACHMENT,
+                GL_TEXTURE_2D,
+                this.shadowBuffer.getDepthMapTexture().getIds()[cascadeIdx],
+                0
+        );
+        final ShadowCascade shadowCascade = this.shadowCascades.get(cascadeIdx);
+        uniforms.setUniform(
+                "projectionViewMatrix",
+                shadowCascade.getProjectionViewMatrix()
+        );
+        this.cascadeCuller.setEnabled(ShadowRenderer.CASCADE_CULLING);
+        this.cascadeCuller.update(shadowCascade.getProjectionViewMatrix());
+    }
+
+    private void populateStaticCommands(final List<Model> modelList,
+                                        final EntityDrawBuffers entityDrawBuffers,
+                                        final IndirectDrawBuffer commandBuffer) {
+        commandBuffer.reset();
+        for (final Model model : modelList) {
+            final List<Entity> entities = model.getEntities();
+            for (int meshIdx = 0; meshIdx < model.getMeshDrawData().size(); meshIdx++) {
+                if (model.getLODGraph(meshIdx) != null) {
+                    // Drawn from the cluster pool, see populateClusterCommands
+                    continue;
+                }
+                final MeshDrawData meshDrawData = model.getMeshDrawData().get(meshIdx);
+                final int baseInstance = entityDrawBuffers.getDrawElementCount();
+                for (final Entity entity : entities) {
+                    if (!this.cascadeCuller.isVisible(meshDrawData, entity)) {
+                        continue;
+                    }
+                    entityDrawBuffers.addDrawElement(
+                            entityDrawBuffers.getEntityIdx(entity),
+                            meshDrawData.materialIdx()
+                    );
+                }
+                final int visibleInstances = entityDrawBuffers.getDrawElementCount() - baseInstance;
+                if (visibleInstances > 0) {
+                    commandBuffer.addCommand(
+                            meshDrawData.vertices(),
+                            visibleInstances,
+                            meshDrawData.firstIndex(),
+                            meshDrawData.offset(),
+                            baseInstance
+                    );
+                }
+            }
+        }
+        commandBuffer.upload();
+    }
+
+    private void collectClusterCasters(final List<Model> modelList,
+                                       final SceneRenderer sceneRenderer) {
+        this.clusterCasters.clear();
+        this.casterClusterCount = 0;
+        if (sceneRenderer == null) {
+            return;
+        }
+        final ClusterDrawBuffers clusterDrawBuffers = sceneRenderer.getClusterDrawBuffers();
+        for (final Model model : modelList) {
+            if (!model.isVirtualised()) {
+                continue;
+            }
+            for (int meshIdx = 0; meshIdx < model.getMeshDrawData().size(); meshIdx++) {
+                final LODGraph graph = model.getLODGraph(meshIdx);
+                final ClusterMeshDrawData clusterMesh = graph == null ? null : clusterDrawBuffers.get(graph);
+                if (clusterMesh == null) {
+                    continue;
+                }
+                for (final Entity entity : model.getEntities()) {
+                    this.clusterCasters.add(new ClusterCaster(
+                            model.getMeshDrawData().get(meshIdx),
+                            entity,
+                            graph,
+                            clusterMesh
+                    ));
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws the casters within the bound cascade from the clusters resident
+     * in the pool. Cuts are measured from the camera, as that is where the
+     * shadows are seen, at the pixel error the scene pass currently adapts
+     * to. Selecting them touches the pages of the chosen clusters, so casters
+     * keep their pages from being evicted while they cast into view.
+     */
+    private void populateClusterCommands(final RenderContext context,
+                                         final SceneRenderer sceneRenderer,
+                                         final EntityDrawBuffers entityDrawBuffers,
+                                         final IndirectDrawBuffer commandBuffer) {
+        commandBuffer.reset();
+        for (final ClusterCaster caster : this.clusterCasters) {
+            if (!this.cascadeCuller.isVisible(caster.meshDrawData, caster.entity)) {
+                continue;
+            }
+            if (caster.firstCluster == -1) {
+                selectCut(context, sceneRenderer, caster);
+            }
+            if (caster.clusterCount == 0) {
+                continue;
+            }
+            final int drawElement = entityDrawBuffers.addDrawElement(
+                    entityDrawBuffers.getEntityIdx(caster.entity),
+                    caster.meshDrawData.materialIdx()
+            );
+            for (int i = caster.firstCluster; i < caster.firstCluster + caster.clusterCount; i++) {
+                final MeshDrawData clusterDrawData = caster.clusterMesh.clusters()[this.casterClusters[i]];
+                commandBuffer.addCommand(
+                        clusterDrawData.vertices(),
+                        1,
+                        clusterDrawData.firstIndex(),
+                        clusterDrawData.offset(),
+                        drawElement
+                );
+            }
+        }
+        commandBuffer.upload();
+    }
+
+    private void selectCut(final RenderContext context,
+                           final SceneRenderer sceneRenderer,
+                           final ClusterCaster caster) {
+        this.cutView.update(
+                context.window(),
+                context.scene().getCamera(),
+                context.scene().getProjection(),
+                caster.entity.getModelMatrix(),
+                sceneRenderer.getClusterPixelError()
+        );
+        final ClusterCut cut = caster.graph.viewDependentCut(this.cutView, caster.clusterMesh.residency());
+        if (this.casterClusterCount + cut.getClusterCount() > this.casterClusters.length) {
+            this.casterClusters = Arrays.copyOf(
+                    this.casterClusters,
+                    Math.max(this.casterClusters.length * 2, this.casterClusterCount + cut.getClusterCount())
+            );
+        }
+        // The cut is overwritten by the next one through the same graph
+        System.arraycopy(cut.getClusters(), 0, this.casterClusters, this.casterClusterCount, cut.getClusterCount());
+        caster.firstCluster = this.casterClusterCount;
+        caster.clusterCount = cut.getClusterCount();
+        this.casterClusterCount += cut.getClusterCount();
+    }
+
+    private void populateAnimCommands(final List<Model> modelList,
+                                      final EntityDrawBuffers entityDrawBuffers,
+                                      final IndirectDrawBuffer commandBuffer) {
+        commandBuffer.reset();
+        for (final Model model : modelList) {
+            for (final MeshDrawData meshDrawData : model.getMeshDrawData()) {
+                final AnimMeshDrawData animMeshDrawData = meshDrawData.animMeshDrawData();
+                final Entity entity = animMeshDrawData.entity();
+                if (this.cascadeCuller.isVisible(meshDrawData, entity)) {
+                    final int drawElement = entityDrawBuffers.addDrawElement(
+                            entityDrawBuffers.getEntityIdx(entity),
+                            meshDrawData.materialIdx()
+                    );
+                    commandBuffer.addCommand(
+                            meshDrawData.vertices(),
+                            1,
+                            meshDrawData.firstIndex(),
+                            meshDrawData.offset(),
+                            drawElement
+                    );
+                }
+            }
+        }
+        commandBuffer.upload();
+    }
+
     private void setupAnimCommandBuffer(final Scene scene) {
         final List<Model> modelList = scene.getModels()
                 .values()
@@ -234,50 +420,36 @@ public class ShadowRenderer extends ShaderRenderHandler {
         for (final Model model : modelList) {
             numMeshes += model.getMeshDrawData().size();
         }
-        int firstIndex = 0;
-        int baseInstance = 0;
-        final ByteBuffer commandBuffer = MemoryUtil.memAlloc(numMeshes * ShadowRenderer.COMMAND_SIZE);
-        for (final Model model : modelList) {
-            for (final MeshDrawData meshDrawData : model.getMeshDrawData()) {
-                // count
-                commandBuffer.putInt(meshDrawData.vertices());
-                // instanceCount
-                commandBuffer.putInt(1);
-                commandBuffer.putInt(firstIndex);
-                // baseVertex
-                commandBuffer.putInt(meshDrawData.offset());
-                commandBuffer.putInt(baseInstance);
-
-                firstIndex += meshDrawData.vertices();
-                baseInstance++;
+        for (int i = 0; i < ShadowCascade.SHADOW_MAP_CASCADE_COUNT; i++) {
+            if (this.animCommandBuffers[i] != null) {
+                if (this.animCommandBuffers[i].getCapacity() >= numMeshes) {
+                    continue;
+                }
+                this.animCommandBuffers[i].cleanup();
             }
+            this.animCommandBuffers[i] = new IndirectDrawBuffer(numMeshes);
         }
-        commandBuffer.flip();
-        this.animDrawCount = commandBuffer.remaining() / ShadowRenderer.COMMAND_SIZE;
-        this.animRenderBufferHandle = glGenBuffers();
-        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, this.animRenderBufferHandle);
-        glBufferData(GL_DRAW_INDIRECT_BUFFER, commandBuffer, GL_DYNAMIC_DRAW);
-        MemoryUtil.memFree(commandBuffer);
     }
 
     @Override
     public void setupData(final RenderContext context) {
         final Scene scene = context.scene();
-        setupEntitiesData(scene);
+        final EntityDrawBuffers entityDrawBuffers = (EntityDrawBuffers) context.attributes().computeIfAbsent(
+                EntityDrawBuffers.ATTRIBUTE_NAME,
+                (final Object ignored) -> new EntityDrawBuffers()
+        );
+        entityDrawBuffers.setup(scene);
         setupStaticCommandBuffer(scene);
         setupAnimCommandBuffer(scene);
     }
 
-    private void setupEntitiesData(final Scene scene) {
-        this.entitiesIdxMap.clear();
-        int entityIdx = 0;
-        for (final Model model : scene.getModels().values()) {
-            final List<Entity> entities = model.getEntities();
-            for (final Entity entity : entities) {
-                this.entitiesIdxMap.put(entity.getId(), entityIdx);
-                entityIdx++;
-            }
-        }
+    @Override
+    public void streamData(final RenderContext context,
+                           final SceneChanges changes) {
+        final Scene scene = context.scene();
+        ((EntityDrawBuffers) context.attributes().get(EntityDrawBuffers.ATTRIBUTE_NAME)).setup(scene);
+        setupStaticCommandBuffer(scene);
+        setupAnimCommandBuffer(scene);
     }
 
     private void setupStaticCommandBuffer(final Scene scene) {
@@ -287,33 +459,32 @@ public class ShadowRenderer extends ShaderRenderHandler {
                 .filter((final Model model) -> !model.isAnimated())
                 .toList();
         int numMeshes = 0;
+        int numClusterDraws = 0;
         for (final Model model : modelList) {
-            numMeshes += model.getMeshDrawData().size();
+            for (int meshIdx = 0; meshIdx < model.getMeshDrawData().size(); meshIdx++) {
+                final LODGraph graph = model.getLODGraph(meshIdx);
+                if (graph == null) {
+                    numMeshes++;
+                    continue;
+                }
+                // A cut may select up to every cluster, once per entity
+                numClusterDraws += graph.getClusters().size() * model.getEntities().size();
+            }
         }
-        int firstIndex = 0;
-        int baseInstance = 0;
-        final ByteBuffer commandBuffer = MemoryUtil.memAlloc(numMeshes * ShadowRenderer.COMMAND_SIZE);
-        for (final Model model : modelList) {
-            final List<Entity> entities = model.getEntities();
-            final int numEntities = entities.size();
-            for (final MeshDrawData meshDrawData : model.getMeshDrawData()) {
-                // count
-                commandBuffer.putInt(meshDrawData.vertices());
-                // instanceCount
-                commandBuffer.putInt(numEntities);
-                commandBuffer.putInt(firstIndex);
-                // baseVertex
-                commandBuffer.putInt(meshDrawData.offset());
-                commandBuffer.putInt(baseInstance);
-                firstIndex += meshDrawData.vertices();
-                baseInstance += entities.size();
+        for (int i = 0; i < ShadowCascade.SHADOW_MAP_CASCADE_COUNT; i++) {
+            if (this.clusterCommandBuffers[i] == null || this.clusterCommandBuffers[i].getCapacity() < numClusterDraws) {
+                if (this.clusterCommandBuffers[i] != null) {
+                    this.clusterCommandBuffers[i].cleanup();
+                }
+                this.clusterCommandBuffers[i] = new IndirectDrawBuffer(numClusterDraws);
+            }
+            if (this.staticCommandBuffers[i] != null) {
+                if (this.staticCommandBuffers[i].getCapacity() >= numMeshes) {
+                    continue;
+                }
+                this.staticCommandBuffers[i].cleanup();
             }
+            this.staticCommandBuffers[i] = new IndirectDrawBuffer(numMeshes);
         }
-        commandBuffer.flip();
-        this.staticDrawCount = commandBuffer.remaining() / ShadowRenderer.COMMAND_SIZE;
-        this.staticRenderBufferHandle = glGenBuffers();
-        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, this.staticRenderBufferHandle);
-        glBufferData(GL_DRAW_INDIRECT_BUFFER, commandBuffer, GL_DYNAMIC_DRAW);
-        MemoryUtil.memFree(commandBuffer);
     }
 }
@@ -2,23 +2,19 @@ package com.engineersbox.quanta.resources.assets.material;
 
 import com.engineersbox.quanta.resources.config.Config;
 import com.engineersbox.quanta.resources.config.ConfigHandler;
-import com.engineersbox.quanta.resources.loader.ResourceLoader;
-import org.lwjgl.system.MemoryStack;
-import org.lwjgl.system.MemoryUtil;
 
-import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.IntBuffer;
 
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL14.GL_TEXTURE_LOD_BIAS;
 import static org.lwjgl.opengl.GL21.GL_SRGB_ALPHA;
 import static org.lwjgl.opengl.GL30.glGenerateMipmap;
-import static org.lwjgl.stb.STBImage.*;
 
 public class Texture {
 
     private int textureId;
+    private int width;
+    private int height;
     private final String path;
 
     public Texture(final int width,
@@ -34,41 +30,17 @@ public class Texture {
 
     public Texture(final String path,
                    final boolean classPathResource) {
-        try (final MemoryStack stack = MemoryStack.stackPush()) {
-            this.path = path;
-            final IntBuffer w = stack.mallocInt(1);
-            final IntBuffer h = stack.mallocInt(1);
-            final IntBuffer channels = stack.mallocInt(1);
-
-            final ByteBuffer data;
-            if (classPathResource) {
-                final ByteBuffer rawData = ResourceLoader.loadResource(path);
-                if (rawData == null) {
-                    throw new IllegalStateException("Unable to find texture at " + path);
-                }
-                data = stbi_load_from_memory(
-                        rawData,
-                        w, h,
-                        channels,
-                        4
-                );
-                MemoryUtil.memFree(rawData);
-            } else {
-                data = stbi_load(
-                        path,
-                        w, h,
-                        channels,
-                        4
-                );
-            }
-            if (data == null) {
-                throw new IllegalStateException("Unable to find texture at " + path);
-            }
-            generateTexture(w.get(), h.get(), data);
-            stbi_image_free(data);
-        } catch (final IOException e) {
-            throw new IllegalStateException("Unable to find texture at " + path, e);
-        }
+        this(TextureData.decode(path, classPathResource));
+    }
+
+    /**
+     * Uploads decoded image data and releases it. Must be called on the thread
+     * owning the GL context.
+     */
+    public Texture(final TextureData textureData) {
+        this.path = textureData.path();
+        generateTexture(textureData.width(), textureData.height(), textureData.data());
+        textureData.free();
     }
 
     public void bind() {
@@ -82,9 +54,29 @@ public class Texture {
     private void generateTexture(final int width,
                                  final int height,
                                  final ByteBuffer data) {
+        this.width = width;
+        this.height = height;
         this.textureId = glGenTextures();
         glBindTexture(GL_TEXTURE_2D, this.textureId);
         glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, Texture.getMinFilter());
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_LOD_BIAS, ConfigHandler.CONFIG.render.texture.lodBias);
+        glTexImage2D(
+                GL_TEXTURE_2D,
+                0,
+                GL_SRGB_ALPHA, // TODO: Conditionally switch between GL_RGBA and GL_SRGB_ALPHA
+                width,
+                height,
+                0,
+                GL_RGBA,
+                GL_UNSIGNED_BYTE,
+                data
+        );
+        glGenerateMipmap(GL_TEXTURE_2D);
+    }
+
+    public static int getMinFilter() {
         /* MIPMAPPING CONFIGURATIONS
          *
          * Filter Combination                     | Bilinear | Bilinear | Mipmapping
@@ -103,7 +95,7 @@ public class Texture {
          * GL_LINEAR / GL_NEAREST                 | On       | Off      | None
          * GL_LINEAR / GL_LINEAR                  | On       | On       | None
          */
-        final int minFilter = switch (ConfigHandler.CONFIG.render.texture.mipmaps) {
+        return switch (ConfigHandler.CONFIG.render.texture.mipmaps) {
             case NONE -> ConfigHandler.CONFIG.render.texture.mipmapDistance == Config.MipMapDistance.FAR
                     ? GL_LINEAR : GL_NEAREST;
             case BILINEAR -> ConfigHandler.CONFIG.render.texture.mipmapDistance == Config.MipMapDistance.FAR
@@ -111,25 +103,22 @@ public class Texture {
             case TRILINEAR -> ConfigHandler.CONFIG.render.texture.mipmapDistance == Config.MipMapDistance.FAR
                     ? GL_LINEAR_MIPMAP_LINEAR : GL_NEAREST_MIPMAP_LINEAR;
         };
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, minFilter);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_LOD_BIAS, ConfigHandler.CONFIG.render.texture.lodBias);
-        glTexImage2D(
-                GL_TEXTURE_2D,
-                0,
-                GL_SRGB_ALPHA, // TODO: Conditionally switch between GL_RGBA and GL_SRGB_ALPHA
-                width,
-                height,
-                0,
-                GL_RGBA,
-                GL_UNSIGNED_BYTE,
-                data
-        );
-        glGenerateMipmap(GL_TEXTURE_2D);
     }
 
     public String getPath() {
         return this.path;
     }
 
+    public int getTextureId() {
+        return this.textureId;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
 }
@@ -1,8 +1,8 @@
 package com.engineersbox.quanta.resources.assets.material;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TextureCache {
 
@@ -11,7 +11,8 @@ public class TextureCache {
     private final Map<String, Texture> textureMap;
 
     public TextureCache() {
-        this.textureMap = new HashMap<>();
+        // Concurrent so that loader threads can check for existing textures
+        this.textureMap = new ConcurrentHashMap<>();
         this.textureMap.put(TextureCache.DEFAULT_TEXTURE, new Texture(TextureCache.DEFAULT_TEXTURE, true));
     }
 
@@ -23,6 +24,21 @@ public class TextureCache {
         return this.textureMap.computeIfAbsent(texturePath, Texture::new);
     }
 
+    public Texture addTexture(final TextureData textureData) {
+        final Texture existing = this.textureMap.get(textureData.path());
+        if (existing != null) {
+            textureData.free();
+            return existing;
+        }
+        final Texture texture = new Texture(textureData);
+        this.textureMap.put(textureData.path(), texture);
+        return texture;
+    }
+
+    public boolean hasTexture(final String texturePath) {
+        return this.textureMap.containsKey(texturePath);
+    }
+
     public Texture getTexture(final String texturePath) {
         Texture texture = null;
         if (texturePath != null) {
@@ -0,0 +1,68 @@
+package com.engineersbox.quanta.resources.assets.material;
+
+import com.engineersbox.quanta.resources.loader.ResourceLoader;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.stb.STBImage.*;
+
+/**
+ * Decoded RGBA8 image data awaiting upload to a {@link Texture}. Decoding does
+ * not touch the GL context, so it may happen on any thread.
+ */
+public record TextureData(String path,
+                          int width,
+                          int height,
+                          ByteBuffer data) {
+
+    public static TextureData decode(final String path,
+                                     final boolean classPathResource) {
+        try (final MemoryStack stack = MemoryStack.stackPush()) {
+            final IntBuffer w = stack.mallocInt(1);
+            final IntBuffer h = stack.mallocInt(1);
+            final IntBuffer channels = stack.mallocInt(1);
+
+            final ByteBuffer data;
+            if (classPathResource) {
+                final ByteBuffer rawData = ResourceLoader.loadResource(path);
+                if (rawData == null) {
+                    throw new IllegalStateException("Unable to find texture at " + path);
+                }
+                data = stbi_load_from_memory(
+                        rawData,
+                        w, h,
+                        channels,
+                        4
+                );
+                MemoryUtil.memFree(rawData);
+            } else {
+                data = stbi_load(
+                        path,
+                        w, h,
+                        channels,
+                        4
+                );
+            }
+            if (data == null) {
+                throw new IllegalStateException("Unable to find texture at " + path);
+            }
+            return new TextureData(
+                    path,
+                    w.get(),
+                    h.get(),
+                    data
+            );
+        } catch (final IOException e) {
+            throw new IllegalStateException("Unable to find texture at " + path, e);
+        }
+    }
+
+    public void free() {
+        stbi_image_free(this.data);
+    }
+
+}
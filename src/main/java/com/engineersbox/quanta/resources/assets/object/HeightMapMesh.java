@@ -81,8 +81,8 @@ public class HeightMapMesh extends Mesh {
                 ListUtils.intListToArray(indices),
                 new int[0],
                 new float[0],
-                new Vector3f(),
-                new Vector3f()
+                new Vector3f(HeightMapMesh.START_X, this.minY, HeightMapMesh.START_Z),
+                new Vector3f(-HeightMapMesh.START_X, this.maxY, -HeightMapMesh.START_Z)
         );
     }
 
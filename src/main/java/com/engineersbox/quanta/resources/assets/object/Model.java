@@ -5,6 +5,8 @@ import com.engineersbox.quanta.resources.assets.object.animation.Animation;
 import com.engineersbox.quanta.resources.assets.object.builtin.Terrain;
 import com.engineersbox.quanta.resources.assets.object.serialization.ModelDeserializer;
 import com.engineersbox.quanta.scene.Entity;
+import com.engineersbox.quanta.virtualisation.LODGraph;
+import com.engineersbox.quanta.virtualisation.MeshletMesh;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
@@ -12,7 +14,9 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @JsonTypeInfo(
         use = JsonTypeInfo.Id.CLASS,
@@ -34,6 +38,8 @@ public class Model {
     protected final List<Entity> entities;
     protected final List<MeshData> meshData;
     protected final List<MeshDrawData> meshDrawData;
+    protected final Map<Integer, LODGraph> lodGraphs;
+    protected final Map<Integer, MeshletMesh> meshlets;
     private boolean isInternal;
 
     public Model(final String id,
@@ -56,6 +62,8 @@ public class Model {
         this.animations = animations;
         this.entities = new ArrayList<>();
         this.meshDrawData = new ArrayList<>();
+        this.lodGraphs = new HashMap<>();
+        this.meshlets = new HashMap<>();
         this.isInternal = false;
     }
 
@@ -89,6 +97,45 @@ public class Model {
         return this.meshDrawData;
     }
 
+    /**
+     * @return Cluster hierarchy drawn in place of the mesh at {@code meshIdx},
+     *         or {@code null} if the mesh is drawn as is
+     */
+    @JsonIgnore
+    public LODGraph getLODGraph(final int meshIdx) {
+        return this.lodGraphs.get(meshIdx);
+    }
+
+    @JsonIgnore
+    public void setLODGraph(final int meshIdx,
+                            final LODGraph lodGraph) {
+        this.lodGraphs.put(meshIdx, lodGraph);
+    }
+
+    /**
+     * @return Meshlets the mesh at {@code meshIdx} is split into for culling,
+     *         or {@code null} if it is culled as a whole
+     */
+    @JsonIgnore
+    public MeshletMesh getMeshletMesh(final int meshIdx) {
+        return this.meshlets.get(meshIdx);
+    }
+
+    /**
+     * Must be set before the model's geometry is uploaded, which stores the
+     * mesh's triangles in meshlet order.
+     */
+    @JsonIgnore
+    public void setMeshletMesh(final int meshIdx,
+                               final MeshletMesh meshletMesh) {
+        this.meshlets.put(meshIdx, meshletMesh);
+    }
+
+    @JsonIgnore
+    public boolean isVirtualised() {
+        return !this.lodGraphs.isEmpty();
+    }
+
     @JsonProperty("is_animated")
     public boolean isAnimated() {
         return this.animations != null && !this.animations.isEmpty();
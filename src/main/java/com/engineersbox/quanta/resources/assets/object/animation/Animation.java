@@ -1,13 +1,31 @@
 package com.engineersbox.quanta.resources.assets.object.animation;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import java.util.List;
 
+/**
+ * An animation either baked into bone matrices for each of its frames, or
+ * kept as keyframe tracks in a {@link AnimationClip} with no frames.
+ */
 @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
 @JsonSerialize
 public record Animation(String name,
                         double duration,
-                        List<AnimatedFrame> frames) {
+                        List<AnimatedFrame> frames,
+                        @JsonIgnore AnimationClip clip) {
+
+    public Animation(final String name,
+                     final double duration,
+                     final List<AnimatedFrame> frames) {
+        this(name, duration, frames, null);
+    }
+
+    @JsonIgnore
+    public boolean isKeyframed() {
+        return this.clip != null;
+    }
+
 }
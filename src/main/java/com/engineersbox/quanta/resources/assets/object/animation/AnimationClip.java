@@ -0,0 +1,92 @@
+package com.engineersbox.quanta.resources.assets.object.animation;
+
+/**
+ * Keyframe tracks of an animation over a {@link Skeleton}, sampled at
+ * arbitrary times by a {@link PoseSampler} instead of being baked into bone
+ * matrices for every frame. Tracks are indexed by skeleton node, with
+ * {@code null} entries for nodes the animation leaves in their bind
+ * transform.
+ */
+public class AnimationClip {
+
+    private static final float DEFAULT_TICKS_PER_SECOND = 25.0f;
+
+    private final Skeleton skeleton;
+    private final float duration;
+    private final float ticksPerSecond;
+    private final VectorTrack[] translations;
+    private final QuaternionTrack[] rotations;
+    private final VectorTrack[] scales;
+
+    /**
+     * @param duration Length of the clip in ticks
+     * @param ticksPerSecond Playback rate, or zero for the default rate
+     */
+    public AnimationClip(final Skeleton skeleton,
+                         final float duration,
+                         final float ticksPerSecond,
+                         final VectorTrack[] translations,
+                         final QuaternionTrack[] rotations,
+                         final VectorTrack[] scales) {
+        this.skeleton = skeleton;
+        this.duration = duration;
+        this.ticksPerSecond = ticksPerSecond > 0 ? ticksPerSecond : AnimationClip.DEFAULT_TICKS_PER_SECOND;
+        this.translations = translations;
+        this.rotations = rotations;
+        this.scales = scales;
+    }
+
+    public Skeleton getSkeleton() {
+        return this.skeleton;
+    }
+
+    public float getDuration() {
+        return this.duration;
+    }
+
+    public float getTicksPerSecond() {
+        return this.ticksPerSecond;
+    }
+
+    public double getDurationSeconds() {
+        return this.duration / this.ticksPerSecond;
+    }
+
+    public VectorTrack getTranslation(final int node) {
+        return this.translations[node];
+    }
+
+    public QuaternionTrack getRotation(final int node) {
+        return this.rotations[node];
+    }
+
+    public VectorTrack getScale(final int node) {
+        return this.scales[node];
+    }
+
+    public boolean isAnimated(final int node) {
+        return this.translations[node] != null
+               || this.rotations[node] != null
+               || this.scales[node] != null;
+    }
+
+    /**
+     * @return Bytes held by the clip's keys
+     */
+    public long getSizeInBytes() {
+        long size = 0;
+        for (int node = 0; node < this.translations.length; node++) {
+            if (this.translations[node] != null) {
+                size += this.translations[node].getKeyCount() * 4L * Float.BYTES;
+            }
+            if (this.rotations[node] != null) {
+                size += this.rotations[node].getKeyCount() * (long) (Float.BYTES + Long.BYTES);
+            }
+            if (this.scales[node] != null) {
+                size += this.scales[node].getKeyCount() * 4L * Float.BYTES;
+            }
+        }
+        return size;
+    }
+
+}
@@ -18,6 +18,7 @@ public class AnimationData {
 
     private Animation currentAnimation;
     private int currentFrameIdx;
+    private double time;
 
     public AnimationData(final Animation currentAnimation) {
         this(currentAnimation, 0);
@@ -35,6 +36,14 @@ public class AnimationData {
         return this.currentAnimation;
     }
 
+    public AnimationData(final AnimationData other) {
+        this(other.currentAnimation, other.currentFrameIdx);
+        this.time = other.time;
+    }
+
+    /**
+     * @return Current frame of a baked animation
+     */
     public AnimatedFrame getCurrentFrame() {
         return this.currentAnimation.frames().get(this.currentFrameIdx);
     }
@@ -44,7 +53,37 @@ public class AnimationData {
         return this.currentFrameIdx;
     }
 
+    /**
+     * @return Playback time in seconds of a keyframed animation
+     */
+    public double getTime() {
+        return this.time;
+    }
+
+    /**
+     * Advances a keyframed animation by the elapsed time, independent of how
+     * often it is updated. Baked animations step to their next frame.
+     */
+    public void advance(final double seconds) {
+        final AnimationClip clip = this.currentAnimation.clip();
+        if (clip == null) {
+            nextFrame();
+            return;
+        }
+        final double duration = clip.getDurationSeconds();
+        this.time = duration > 0 ? (this.time + seconds) % duration : 0;
+    }
+
+    /**
+     * Steps a baked animation by one frame, or a keyframed animation by one
+     * tick of its clip.
+     */
     public void nextFrame() {
+        final AnimationClip clip = this.currentAnimation.clip();
+        if (clip != null) {
+            advance(1.0 / clip.getTicksPerSecond());
+            return;
+        }
         final int nextFrame = this.currentFrameIdx + 1;
         this.currentFrameIdx = nextFrame > this.currentAnimation.frames().size() - 1
                 ? 0
@@ -53,6 +92,7 @@ public class AnimationData {
 
     public void setCurrentAnimation(final Animation currentAnimation) {
         this.currentFrameIdx = 0;
+        this.time = 0;
         this.currentAnimation = currentAnimation;
     }
 }
@@ -0,0 +1,42 @@
+package com.engineersbox.quanta.resources.assets.object.animation;
+
+final class KeyframeSearch {
+
+    private KeyframeSearch() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @return Index of the last key at or before {@code time}, clamped to the
+     *         keys of the track
+     */
+    static int findSegment(final float[] times,
+                           final float time) {
+        int low = 0;
+        int high = times.length - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (times[mid] <= time) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return Position of {@code time} between key {@code key} and the next,
+     *         clamped to {@code [0, 1]}
+     */
+    static float segmentFactor(final float[] times,
+                               final int key,
+                               final float time) {
+        final float span = times[key + 1] - times[key];
+        if (span <= 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(1, (time - times[key]) / span));
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.engineersbox.quanta.resources.assets.object.animation;
+
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Evaluates {@link AnimationClip}s into bone palettes. Samplers hold the
+ * scratch state of an evaluation and are not thread safe, so each worker
+ * uses its own.
+ */
+public class PoseSampler {
+
+    public static final int MATRIX_SIZE = 16 * Float.BYTES;
+
+    private final Vector3f translation;
+    private final Quaternionf rotation;
+    private final Quaternionf nextRotation;
+    private final Vector3f scale;
+    private final Matrix4f bone;
+    private Matrix4f[] globals;
+
+    public PoseSampler() {
+        this.translation = new Vector3f();
+        this.rotation = new Quaternionf();
+        this.nextRotation = new Quaternionf();
+        this.scale = new Vector3f();
+        this.bone = new Matrix4f();
+        this.globals = new Matrix4f[0];
+    }
+
+    /**
+     * Writes the bone palette of the clip at the given playback time to
+     * {@code dest}, one column major matrix per bone id starting at byte
+     * {@code offset}. Times past the end of the clip wrap around.
+     */
+    public void sample(final AnimationClip clip,
+                       final double seconds,
+                       final ByteBuffer dest,
+                       final int offset) {
+        sample(clip, seconds, dest, offset, false);
+    }
+
+    /**
+     * @param reduced Whether to only evaluate the tracks of nodes in the
+     *                skeleton's {@linkplain Skeleton#getReducedNodes() reduced
+     *                skeleton}
+     */
+    public void sample(final AnimationClip clip,
+                       final double seconds,
+                       final ByteBuffer dest,
+                       final int offset,
+                       final boolean reduced) {
+        final Skeleton skeleton = clip.getSkeleton();
+        ensureCapacity(skeleton.getNodeCount());
+        final float ticks = clip.getDuration() > 0
+                ? (float) ((seconds * clip.getTicksPerSecond()) % clip.getDuration())
+                : 0;
+        final int[] parents = skeleton.getParents();
+        final Matrix4f[] bindTransforms = skeleton.getBindTransforms();
+        final boolean[] reducedNodes = skeleton.getReducedNodes();
+        for (int node = 0; node < skeleton.getNodeCount(); node++) {
+            final Matrix4f global = this.globals[node];
+            if (parents[node] == Skeleton.NO_PARENT) {
+                // The root starts from its own bind transform, as when baking
+                global.set(bindTransforms[node]);
+            } else {
+                global.set(this.globals[parents[node]]);
+            }
+            if (!clip.isAnimated(node) || (reduced && !reducedNodes[node])) {
+                global.mul(bindTransforms[node]);
+                continue;
+            }
+            final VectorTrack translationTrack = clip.getTranslation(node);
+            if (translationTrack != null) {
+                global.translate(translationTrack.sample(ticks, this.translation));
+            }
+            final QuaternionTrack rotationTrack = clip.getRotation(node);
+            if (rotationTrack != null) {
+                global.rotate(rotationTrack.sample(ticks, this.rotation, this.nextRotation));
+            }
+            final VectorTrack scaleTrack = clip.getScale(node);
+            if (scaleTrack != null) {
+                global.scale(scaleTrack.sample(ticks, this.scale));
+            }
+        }
+        final int[] boneNodes = skeleton.getBoneNodes();
+        final int[] boneIds = skeleton.getBoneIds();
+        final Matrix4f[] boneOffsets = skeleton.getBoneOffsets();
+        for (int i = 0; i < boneIds.length; i++) {
+            if (boneNodes[i] == Skeleton.NO_PARENT) {
+                this.bone.identity();
+            } else {
+                this.bone.set(skeleton.getGlobalInverseTransform())
+                        .mul(this.globals[boneNodes[i]])
+                        .mul(boneOffsets[i]);
+            }
+            this.bone.get(offset + (boneIds[i] * PoseSampler.MATRIX_SIZE), dest);
+        }
+    }
+
+    private void ensureCapacity(final int nodeCount) {
+        if (this.globals.length >= nodeCount) {
+            return;
+        }
+        final Matrix4f[] grown = new Matrix4f[nodeCount];
+        System.arraycopy(this.globals, 0, grown, 0, this.globals.length);
+        for (int i = this.globals.length; i < nodeCount; i++) {
+            grown[i] = new Matrix4f();
+        }
+        this.globals = grown;
+    }
+
+}
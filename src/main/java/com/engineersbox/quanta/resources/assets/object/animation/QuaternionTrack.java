@@ -0,0 +1,198 @@
+package com.engineersbox.quanta.resources.assets.object.animation;
+
+import org.joml.Quaternionf;
+
+/**
+ * Rotation keys of a node, quantised to 64 bits each with the smallest three
+ * encoding: the largest component is dropped, as it can be recovered from the
+ * other three of a unit quaternion, and the remaining three, which lie within
+ * {@code [-1/sqrt(2), 1/sqrt(2)]}, are stored in 20 bits each alongside the
+ * 2 bit index of the dropped one. Keys are blended with normalised linear
+ * interpolation.
+ *
+ * @param times Ascending key times in animation ticks
+ * @param rotations Packed rotation of each key
+ */
+public record QuaternionTrack(float[] times,
+                              long[] rotations) {
+
+    private static final int COMPONENT_BITS = 20;
+    private static final long COMPONENT_MASK = (1L << QuaternionTrack.COMPONENT_BITS) - 1;
+    private static final float COMPONENT_RANGE = (float) (1.0 / Math.sqrt(2.0));
+
+    public int getKeyCount() {
+        return this.times.length;
+    }
+
+    /**
+     * @param scratch Quaternion overwritten with the key after {@code time}
+     */
+    public Quaternionf sample(final float time,
+                              final Quaternionf dest,
+                              final Quaternionf scratch) {
+        final int key = KeyframeSearch.findSegment(this.times, time);
+        QuaternionTrack.unpack(this.rotations[key], dest);
+        if (key == this.times.length - 1) {
+            return dest;
+        }
+        final float t = KeyframeSearch.segmentFactor(this.times, key, time);
+        QuaternionTrack.unpack(this.rotations[key + 1], scratch);
+        return QuaternionTrack.nlerp(dest, scratch.x, scratch.y, scratch.z, scratch.w, t);
+    }
+
+    /**
+     * Fits the keys as {@link VectorTrack#fit(float[], float[], float)} does,
+     * dropping keys whose rotation is reproduced by interpolating the kept
+     * keys either side of it to within {@code tolerance}, measured as
+     * {@code 1 - |dot(q, q')|}.
+     *
+     * @param values Four values per key, ordered {@code x, y, z, w}
+     */
+    public static QuaternionTrack fit(final float[] times,
+                                      final float[] values,
+                                      final float tolerance) {
+        final int keyCount = times.length;
+        final int[] kept = new int[Math.max(1, keyCount)];
+        int keptCount = 0;
+        if (keyCount > 0) {
+            kept[keptCount++] = 0;
+        }
+        int anchor = 0;
+        for (int end = 2; end < keyCount; end++) {
+            if (!QuaternionTrack.fitsCurve(times, values, anchor, end, tolerance)) {
+                anchor = end - 1;
+                kept[keptCount++] = anchor;
+            }
+        }
+        if (keyCount > 1) {
+            kept[keptCount++] = keyCount - 1;
+        }
+        if (keptCount == 2 && QuaternionTrack.error(values, 0, values, (keyCount - 1) * 4) <= tolerance) {
+            keptCount = 1;
+        }
+        final float[] keptTimes = new float[keptCount];
+        final long[] packed = new long[keptCount];
+        for (int i = 0; i < keptCount; i++) {
+            final int key = kept[i] * 4;
+            keptTimes[i] = times[kept[i]];
+            packed[i] = QuaternionTrack.pack(values[key], values[key + 1], values[key + 2], values[key + 3]);
+        }
+        return new QuaternionTrack(keptTimes, packed);
+    }
+
+    public static long pack(final float x,
+                            final float y,
+                            final float z,
+                            final float w) {
+        final float[] components = {x, y, z, w};
+        final float length = (float) Math.sqrt((x * x) + (y * y) + (z * z) + (w * w));
+        int largest = 0;
+        for (int i = 1; i < 4; i++) {
+            if (Math.abs(components[i]) > Math.abs(components[largest])) {
+                largest = i;
+            }
+        }
+        // q and -q are the same rotation, so the dropped component is made positive
+        final float sign = components[largest] < 0 ? -1 : 1;
+        long packed = largest;
+        for (int i = 0; i < 4; i++) {
+            if (i == largest) {
+                continue;
+            }
+            final float value = length > 0 ? (components[i] * sign) / length : 0;
+            final float normalised = (value / QuaternionTrack.COMPONENT_RANGE * 0.5f) + 0.5f;
+            final long quantised = Math.round(Math.max(0, Math.min(1, normalised)) * QuaternionTrack.COMPONENT_MASK);
+            packed = (packed << QuaternionTrack.COMPONENT_BITS) | quantised;
+        }
+        return packed;
+    }
+
+    public static Quaternionf unpack(final long packed,
+                                     final Quaternionf dest) {
+        final int largest = (int) (packed >>> (QuaternionTrack.COMPONENT_BITS * 3));
+        final float a = QuaternionTrack.component(packed, 2);
+        final float b = QuaternionTrack.component(packed, 1);
+        final float c = QuaternionTrack.component(packed, 0);
+        final float d = (float) Math.sqrt(Math.max(0, 1 - (a * a) - (b * b) - (c * c)));
+        return switch (largest) {
+            case 0 -> dest.set(d, a, b, c);
+            case 1 -> dest.set(a, d, b, c);
+            case 2 -> dest.set(a, b, d, c);
+            default -> dest.set(a, b, c, d);
+        };
+    }
+
+    private static float component(final long packed,
+                                   final int slot) {
+        final long quantised = (packed >>> (slot * QuaternionTrack.COMPONENT_BITS)) & QuaternionTrack.COMPONENT_MASK;
+        return ((quantised / (float) QuaternionTrack.COMPONENT_MASK) - 0.5f) * 2.0f * QuaternionTrack.COMPONENT_RANGE;
+    }
+
+    private static Quaternionf nlerp(final Quaternionf from,
+                                     final float x,
+                                     final float y,
+                                     final float z,
+                                     final float w,
+                                     final float t) {
+        // Blend along the shorter arc
+        final float dot = (from.x * x) + (from.y * y) + (from.z * z) + (from.w * w);
+        final float to = dot < 0 ? -t : t;
+        final float keep = 1 - t;
+        return from.set(
+                (from.x * keep) + (x * to),
+                (from.y * keep) + (y * to),
+                (from.z * keep) + (z * to),
+                (from.w * keep) + (w * to)
+        ).normalize();
+    }
+
+    private static boolean fitsCurve(final float[] times,
+                                     final float[] values,
+                                     final int start,
+                                     final int end,
+                                     final float tolerance) {
+        final float span = times[end] - times[start];
+        final Quaternionf interpolated = new Quaternionf();
+        final float[] blended = new float[4];
+        for (int key = start + 1; key < end; key++) {
+            final float t = span > 0 ? (times[key] - times[start]) / span : 0;
+            interpolated.set(values[start * 4], values[(start * 4) + 1], values[(start * 4) + 2], values[(start * 4) + 3])
+                    .normalize();
+            QuaternionTrack.nlerp(
+                    interpolated,
+                    values[end * 4],
+                    values[(end * 4) + 1],
+                    values[(end * 4) + 2],
+                    values[(end * 4) + 3],
+                    t
+            );
+            blended[0] = interpolated.x;
+            blended[1] = interpolated.y;
+            blended[2] = interpolated.z;
+            blended[3] = interpolated.w;
+            if (QuaternionTrack.error(blended, 0, values, key * 4) > tolerance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static float error(final float[] a,
+                               final int aOffset,
+                               final float[] b,
+                               final int bOffset) {
+        float dot = 0;
+        float lengthA = 0;
+        float lengthB = 0;
+        for (int i = 0; i < 4; i++) {
+            dot += a[aOffset + i] * b[bOffset + i];
+            lengthA += a[aOffset + i] * a[aOffset + i];
+            lengthB += b[bOffset + i] * b[bOffset + i];
+        }
+        if (lengthA <= 0 || lengthB <= 0) {
+            return 0;
+        }
+        return 1 - (Math.abs(dot) / (float) Math.sqrt(lengthA * lengthB));
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.engineersbox.quanta.resources.assets.object.animation;
+
+import org.joml.Matrix4f;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Node hierarchy of an animated model flattened into an array in which every
+ * node comes after its parent, so global transforms can be accumulated in a
+ * single forward pass. Bones reference the node that drives them by index.
+ */
+public class Skeleton {
+
+    public static final int NO_PARENT = -1;
+    // Nodes driving fewer bones than this, counting their descendants, are
+    // left out of the reduced skeleton
+    private static final int REDUCED_MIN_BONES = 4;
+
+    private final String[] names;
+    private final int[] parents;
+    private final Matrix4f[] bindTransforms;
+    private final int[] boneNodes;
+    private final int[] boneIds;
+    private final Matrix4f[] boneOffsets;
+    private final Matrix4f globalInverseTransform;
+    private final Map<String, Integer> nodeIndices;
+    private final int paletteSize;
+    private final boolean[] reducedNodes;
+
+    public Skeleton(final String[] names,
+                    final int[] parents,
+                    final Matrix4f[] bindTransforms,
+                    final int[] boneNodes,
+                    final int[] boneIds,
+                    final Matrix4f[] boneOffsets,
+                    final Matrix4f globalInverseTransform) {
+        this.names = names;
+        this.parents = parents;
+        this.bindTransforms = bindTransforms;
+        this.boneNodes = boneNodes;
+        this.boneIds = boneIds;
+        this.boneOffsets = boneOffsets;
+        this.globalInverseTransform = globalInverseTransform;
+        this.nodeIndices = new HashMap<>();
+        // First node wins for duplicate names, matching a depth first search
+        for (int i = names.length - 1; i >= 0; i--) {
+            this.nodeIndices.put(names[i], i);
+        }
+        int maxBoneId = -1;
+        for (final int boneId : boneIds) {
+            maxBoneId = Math.max(maxBoneId, boneId);
+        }
+        this.paletteSize = maxBoneId + 1;
+        final int[] subtreeBones = new int[names.length];
+        for (final int boneNode : boneNodes) {
+            if (boneNode != Skeleton.NO_PARENT) {
+                subtreeBones[boneNode]++;
+            }
+        }
+        // Children come after their parents, so a reverse pass accumulates subtrees
+        for (int i = names.length - 1; i >= 0; i--) {
+            if (parents[i] != Skeleton.NO_PARENT) {
+                subtreeBones[parents[i]] += subtreeBones[i];
+            }
+        }
+        this.reducedNodes = new boolean[names.length];
+        for (int i = 0; i < names.length; i++) {
+            this.reducedNodes[i] = subtreeBones[i] >= Skeleton.REDUCED_MIN_BONES;
+        }
+    }
+
+    /**
+     * Flattens the tree under {@code root} in depth first pre-order. Bones
+     * whose node is missing from the tree keep a node index of
+     * {@link #NO_PARENT} and an identity palette entry.
+     */
+    public static Skeleton flatten(final Node root,
+                                   final List<Bone> bones,
+                                   final Matrix4f globalInverseTransform) {
+        final List<Node> nodes = new ArrayList<>();
+        final List<Integer> parents = new ArrayList<>();
+        final Deque<Node> stack = new ArrayDeque<>();
+        final Deque<Integer> parentStack = new ArrayDeque<>();
+        stack.push(root);
+        parentStack.push(Skeleton.NO_PARENT);
+        while (!stack.isEmpty()) {
+            final Node node = stack.pop();
+            final int parent = parentStack.pop();
+            final int index = nodes.size();
+            nodes.add(node);
+            parents.add(parent);
+            final List<Node> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+                parentStack.push(index);
+            }
+        }
+        final String[] names = new String[nodes.size()];
+        final int[] parentIndices = new int[nodes.size()];
+        final Matrix4f[] bindTransforms = new Matrix4f[nodes.size()];
+        final Map<String, Integer> nodeIndices = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            names[i] = nodes.get(i).getName();
+            parentIndices[i] = parents.get(i);
+            bindTransforms[i] = nodes.get(i).getNodeTransformation();
+            nodeIndices.putIfAbsent(names[i], i);
+        }
+        final int[] boneNodes = new int[bones.size()];
+        final int[] boneIds = new int[bones.size()];
+        final Matrix4f[] boneOffsets = new Matrix4f[bones.size()];
+        for (int i = 0; i < bones.size(); i++) {
+            final Bone bone = bones.get(i);
+            boneNodes[i] = nodeIndices.getOrDefault(bone.boneName(), Skeleton.NO_PARENT);
+            boneIds[i] = bone.boneId();
+            boneOffsets[i] = bone.offsetMatrix();
+        }
+        return new Skeleton(
+                names,
+                parentIndices,
+                bindTransforms,
+                boneNodes,
+                boneIds,
+                boneOffsets,
+                globalInverseTransform
+        );
+    }
+
+    /**
+     * @return Index of the first node with the given name, or
+     *         {@link #NO_PARENT} if there is none
+     */
+    public int getNodeIndex(final String name) {
+        return this.nodeIndices.getOrDefault(name, Skeleton.NO_PARENT);
+    }
+
+    public int getNodeCount() {
+        return this.names.length;
+    }
+
+    public String[] getNames() {
+        return this.names;
+    }
+
+    public int[] getParents() {
+        return this.parents;
+    }
+
+    public Matrix4f[] getBindTransforms() {
+        return this.bindTransforms;
+    }
+
+    public int getBoneCount() {
+        return this.boneIds.length;
+    }
+
+    public int[] getBoneNodes() {
+        return this.boneNodes;
+    }
+
+    public int[] getBoneIds() {
+        return this.boneIds;
+    }
+
+    public Matrix4f[] getBoneOffsets() {
+        return this.boneOffsets;
+    }
+
+    public Matrix4f getGlobalInverseTransform() {
+        return this.globalInverseTransform;
+    }
+
+    /**
+     * @return Whether each node is animated in the reduced skeleton used at
+     *         low detail. Short terminal chains such as fingers and facial
+     *         bones are excluded and follow their parent in the bind pose.
+     */
+    public boolean[] getReducedNodes() {
+        return this.reducedNodes;
+    }
+
+    /**
+     * @return Number of matrices in a pose palette, one past the highest bone id
+     */
+    public int getPaletteSize() {
+        return this.paletteSize;
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.engineersbox.quanta.resources.assets.object.animation;
+
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+
+/**
+ * Piecewise linear curve of three component keys, used for node translation
+ * and scale. Times are in animation ticks and sampling is clamped to the
+ * first and last key.
+ *
+ * @param times Ascending key times
+ * @param values Three values per key
+ */
+public record VectorTrack(float[] times,
+                          float[] values) {
+
+    public int getKeyCount() {
+        return this.times.length;
+    }
+
+    public Vector3f sample(final float time,
+                           final Vector3f dest) {
+        final int key = KeyframeSearch.findSegment(this.times, time);
+        if (key == this.times.length - 1) {
+            return dest.set(this.values[key * 3], this.values[(key * 3) + 1], this.values[(key * 3) + 2]);
+        }
+        final float t = KeyframeSearch.segmentFactor(this.times, key, time);
+        final int a = key * 3;
+        final int b = a + 3;
+        return dest.set(
+                this.values[a] + ((this.values[b] - this.values[a]) * t),
+                this.values[a + 1] + ((this.values[b + 1] - this.values[a + 1]) * t),
+                this.values[a + 2] + ((this.values[b + 2] - this.values[a + 2]) * t)
+        );
+    }
+
+    /**
+     * Fits a piecewise linear curve through the keys, dropping every key that
+     * the line between the kept keys either side of it passes within
+     * {@code tolerance} of on each axis.
+     */
+    public static VectorTrack fit(final float[] times,
+                                  final float[] values,
+                                  final float tolerance) {
+        final int keyCount = times.length;
+        if (keyCount <= 2) {
+            return new VectorTrack(times, values);
+        }
+        final int[] kept = new int[keyCount];
+        int keptCount = 0;
+        kept[keptCount++] = 0;
+        int anchor = 0;
+        for (int end = 2; end < keyCount; end++) {
+            if (!VectorTrack.fitsLine(times, values, anchor, end, tolerance)) {
+                anchor = end - 1;
+                kept[keptCount++] = anchor;
+            }
+        }
+        kept[keptCount++] = keyCount - 1;
+        // Constant tracks collapse to a single key
+        if (keptCount == 2 && VectorTrack.withinTolerance(values, 0, keyCount - 1, tolerance)) {
+            return new VectorTrack(
+                    new float[]{times[0]},
+                    Arrays.copyOf(values, 3)
+            );
+        }
+        final float[] keptTimes = new float[keptCount];
+        final float[] keptValues = new float[keptCount * 3];
+        for (int i = 0; i < keptCount; i++) {
+            keptTimes[i] = times[kept[i]];
+            System.arraycopy(values, kept[i] * 3, keptValues, i * 3, 3);
+        }
+        return new VectorTrack(keptTimes, keptValues);
+    }
+
+    private static boolean fitsLine(final float[] times,
+                                    final float[] values,
+                                    final int start,
+                                    final int end,
+                                    final float tolerance) {
+        final float span = times[end] - times[start];
+        for (int key = start + 1; key < end; key++) {
+            final float t = span > 0 ? (times[key] - times[start]) / span : 0;
+            for (int axis = 0; axis < 3; axis++) {
+                final float a = values[(start * 3) + axis];
+                final float b = values[(end * 3) + axis];
+                if (Math.abs(a + ((b - a) * t) - values[(key * 3) + axis]) > tolerance) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean withinTolerance(final float[] values,
+                                           final int a,
+                                           final int b,
+                                           final float tolerance) {
+        for (int axis = 0; axis < 3; axis++) {
+            if (Math.abs(values[(a * 3) + axis] - values[(b * 3) + axis]) > tolerance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
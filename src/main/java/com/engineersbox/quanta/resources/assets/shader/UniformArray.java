@@ -0,0 +1,51 @@
+package com.engineersbox.quanta.resources.assets.shader;
+
+import java.util.Arrays;
+
+public class UniformArray {
+
+    private final String name;
+    private final int length;
+    private final String[] members;
+    private final int[] locations;
+
+    UniformArray(final String name,
+                 final int length,
+                 final String[] members,
+                 final int[] locations) {
+        this.name = name;
+        this.length = length;
+        this.members = members;
+        this.locations = locations;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public int length() {
+        return this.length;
+    }
+
+    public int member(final String member) {
+        final int idx = Arrays.asList(this.members).indexOf(member);
+        if (idx < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Uniform array \"%s\" has no member \"%s\"",
+                    this.name,
+                    member
+            ));
+        }
+        return idx;
+    }
+
+    public int location(final int index) {
+        return this.locations[index * Math.max(1, this.members.length)];
+    }
+
+    public int location(final int index,
+                        final int member) {
+        return this.locations[(index * this.members.length) + member];
+    }
+
+}
@@ -22,7 +22,7 @@ public class Uniforms {
         this.uniforms = new HashMap<>();
     }
 
-    public void createUniform(final String name) {
+    public int createUniform(final String name) {
         final int location = glGetUniformLocation(this.programId, name);
         if (location < 0) {
             throw new RuntimeException(String.format(
@@ -32,9 +32,45 @@ public class Uniforms {
             ));
         }
         this.uniforms.put(name, location);
+        return location;
+    }
+
+    /**
+     * Resolves the locations of every element (and every struct member, if
+     * any are given) of a uniform array up front, so that render loops can
+     * address elements by index without building uniform name strings.
+     *
+     * @param name Name of the uniform array, without any subscript
+     * @param length Number of elements to resolve
+     * @param members Struct member names (including nested paths such as
+     *                {@code att.linear}) to resolve for each element, or none
+     *                for an array of non-struct values
+     * @return Resolved locations for the array
+     */
+    public UniformArray createUniformArray(final String name,
+                                           final int length,
+                                           final String... members) {
+        final int memberCount = Math.max(1, members.length);
+        final int[] locations = new int[length * memberCount];
+        for (int i = 0; i < length; i++) {
+            final String elementName = name + "[" + i + "]";
+            if (members.length == 0) {
+                locations[i] = createUniform(elementName);
+                continue;
+            }
+            for (int j = 0; j < members.length; j++) {
+                locations[(i * memberCount) + j] = createUniform(elementName + "." + members[j]);
+            }
+        }
+        return new UniformArray(
+                name,
+                length,
+                members,
+                locations
+        );
     }
 
-    private int getUniformLocation(final String name) {
+    public int getUniformLocation(final String name) {
         final Integer location = this.uniforms.get(name);
         if (location == null) {
             throw new RuntimeException(String.format(
@@ -48,9 +84,14 @@ public class Uniforms {
 
     public void setUniform(final String name,
                            final Matrix4f value) {
+        setUniform(getUniformLocation(name), value);
+    }
+
+    public void setUniform(final int location,
+                           final Matrix4f value) {
         try (final MemoryStack stack = MemoryStack.stackPush()) {
             glUniformMatrix4fv(
-                    getUniformLocation(name),
+                    location,
                     false,
                     value.get(stack.mallocFloat(16))
             );
@@ -59,24 +100,39 @@ public class Uniforms {
 
     public void setUniform(final String name,
                            final int value) {
+        setUniform(getUniformLocation(name), value);
+    }
+
+    public void setUniform(final int location,
+                           final int value) {
         glUniform1i(
-                getUniformLocation(name),
+                location,
                 value
         );
     }
 
     public void setUniform(final String name,
                            final boolean value) {
+        setUniform(getUniformLocation(name), value);
+    }
+
+    public void setUniform(final int location,
+                           final boolean value) {
         glUniform1i(
-                getUniformLocation(name),
+                location,
                 value ? 1 : 0
         );
     }
 
     public void setUniform(final String name,
                            final Vector4f value) {
+        setUniform(getUniformLocation(name), value);
+    }
+
+    public void setUniform(final int location,
+                           final Vector4f value) {
         glUniform4f(
-                getUniformLocation(name),
+                location,
                 value.x,
                 value.y,
                 value.z,
@@ -86,8 +142,13 @@ public class Uniforms {
 
     public void setUniform(final String name,
                            final Vector2f value) {
+        setUniform(getUniformLocation(name), value);
+    }
+
+    public void setUniform(final int location,
+                           final Vector2f value) {
         glUniform2f(
-                getUniformLocation(name),
+                location,
                 value.x,
                 value.y
         );
@@ -95,8 +156,13 @@ public class Uniforms {
 
     public void setUniform(final String name,
                            final Vector3f value) {
+        setUniform(getUniformLocation(name), value);
+    }
+
+    public void setUniform(final int location,
+                           final Vector3f value) {
         glUniform3f(
-                getUniformLocation(name),
+                location,
                 value.x,
                 value.y,
                 value.z
@@ -105,14 +171,24 @@ public class Uniforms {
 
     public void setUniform(final String name,
                            final float value) {
+        setUniform(getUniformLocation(name), value);
+    }
+
+    public void setUniform(final int location,
+                           final float value) {
         glUniform1f(
-                getUniformLocation(name),
+                location,
                 value
         );
     }
 
     public void setUniform(final String name,
                            final Matrix4f[] matrices) {
+        setUniform(getUniformLocation(name), matrices);
+    }
+
+    public void setUniform(final int location,
+                           final Matrix4f[] matrices) {
         try (final MemoryStack stack = MemoryStack.stackPush()) {
             final int length = matrices != null ? matrices.length : 0;
             final FloatBuffer fb = stack.mallocFloat(16 * length);
@@ -120,7 +196,7 @@ public class Uniforms {
                 matrices[i].get(16 * i, fb);
             }
             glUniformMatrix4fv(
-                    getUniformLocation(name),
+                    location,
                     false,
                     fb
             );
@@ -0,0 +1,240 @@
+package com.engineersbox.quanta.resources.loader;
+
+import com.engineersbox.quanta.resources.assets.object.animation.AnimatedFrame;
+import com.engineersbox.quanta.resources.assets.object.animation.Animation;
+import com.engineersbox.quanta.resources.assets.object.animation.Skeleton;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.lwjgl.PointerBuffer;
+import org.lwjgl.assimp.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Bakes the bone matrices of every frame of every animation of a scene. Keys
+ * are copied out of Assimp once and assigned to skeleton nodes through a name
+ * index, after which frames are independent and are baked in parallel on a
+ * fork-join pool. Each frame is a single forward pass over the flattened
+ * skeleton, reusing per task scratch matrices.
+ */
+final class AnimationBaker {
+
+    private static final Logger LOGGER = LogManager.getLogger(AnimationBaker.class);
+
+    // Bake tasks over more frames than this are split in half
+    private static final int SPLIT_THRESHOLD = 8;
+    private static final Matrix4f IDENTITY_MATRIX = new Matrix4f();
+
+    /**
+     * Keys of a node in one animation, copied out of Assimp. Frame {@code i}
+     * uses key {@code i} of each, or the last key if there are fewer.
+     */
+    private record ChannelKeys(float[] positions,
+                               float[] rotations,
+                               float[] scales) {
+    }
+
+    private record BakeJob(ChannelKeys[] channels,
+                           AnimatedFrame[] frames) {
+    }
+
+    private AnimationBaker() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static List<Animation> bake(final String modelId,
+                                final AIScene aiScene,
+                                final Skeleton skeleton) {
+        return AnimationBaker.bake(modelId, aiScene, skeleton, ForkJoinPool.commonPool());
+    }
+
+    static List<Animation> bake(final String modelId,
+                                final AIScene aiScene,
+                                final Skeleton skeleton,
+                                final ForkJoinPool pool) {
+        final long start = System.nanoTime();
+        final int numAnimations = aiScene.mNumAnimations();
+        final PointerBuffer aiAnimations = aiScene.mAnimations();
+        final BakeJob[] jobs = new BakeJob[numAnimations];
+        final int[] firstFrames = new int[numAnimations + 1];
+        for (int i = 0; i < numAnimations; i++) {
+            final AIAnimation aiAnimation = AIAnimation.create(aiAnimations.get(i));
+            final ChannelKeys[] channels = AnimationBaker.extractChannels(aiAnimation, skeleton);
+            jobs[i] = new BakeJob(channels, new AnimatedFrame[ModelLoader.calcAnimationMaxFrames(aiAnimation)]);
+            firstFrames[i + 1] = firstFrames[i] + jobs[i].frames().length;
+        }
+        pool.invoke(new BakeTask(skeleton, jobs, firstFrames, 0, firstFrames[numAnimations]));
+        final List<Animation> animations = new ArrayList<>(numAnimations);
+        for (int i = 0; i < numAnimations; i++) {
+            final AIAnimation aiAnimation = AIAnimation.create(aiAnimations.get(i));
+            animations.add(new Animation(
+                    aiAnimation.mName().dataString(),
+                    aiAnimation.mDuration(),
+                    new ArrayList<>(Arrays.asList(jobs[i].frames()))
+            ));
+        }
+        AnimationBaker.LOGGER.info(
+                "[ANIMATION] Baked {} frames of {} animations for {} in {} ms",
+                firstFrames[numAnimations],
+                numAnimations,
+                modelId,
+                (System.nanoTime() - start) / 1_000_000
+        );
+        return animations;
+    }
+
+    /**
+     * @return Keys of each skeleton node, or {@code null} for nodes the
+     *         animation has no channel for. Nodes sharing a name share its
+     *         channel.
+     */
+    private static ChannelKeys[] extractChannels(final AIAnimation aiAnimation,
+                                                 final Skeleton skeleton) {
+        final int numChannels = aiAnimation.mNumChannels();
+        final PointerBuffer aiChannels = aiAnimation.mChannels();
+        final Map<String, ChannelKeys> channelsByName = new HashMap<>(numChannels * 2);
+        for (int i = 0; i < numChannels; i++) {
+            final AINodeAnim aiNodeAnim = AINodeAnim.create(aiChannels.get(i));
+            // The first channel for a node wins
+            channelsByName.putIfAbsent(aiNodeAnim.mNodeName().dataString(), new ChannelKeys(
+                    AnimationBaker.extractVectorKeys(aiNodeAnim.mPositionKeys(), aiNodeAnim.mNumPositionKeys()),
+                    AnimationBaker.extractRotationKeys(aiNodeAnim.mRotationKeys(), aiNodeAnim.mNumRotationKeys()),
+                    AnimationBaker.extractVectorKeys(aiNodeAnim.mScalingKeys(), aiNodeAnim.mNumScalingKeys())
+            ));
+        }
+        final String[] names = skeleton.getNames();
+        final ChannelKeys[] channels = new ChannelKeys[names.length];
+        for (int node = 0; node < names.length; node++) {
+            channels[node] = channelsByName.get(names[node]);
+        }
+        return channels;
+    }
+
+    private static float[] extractVectorKeys(final AIVectorKey.Buffer keys,
+                                             final int numKeys) {
+        final float[] values = new float[keys == null ? 0 : numKeys * 3];
+        for (int i = 0; i < values.length / 3; i++) {
+            final AIVector3D value = keys.get(i).mValue();
+            values[i * 3] = value.x();
+            values[(i * 3) + 1] = value.y();
+            values[(i * 3) + 2] = value.z();
+        }
+        return values;
+    }
+
+    private static float[] extractRotationKeys(final AIQuatKey.Buffer keys,
+                                               final int numKeys) {
+        final float[] values = new float[keys == null ? 0 : numKeys * 4];
+        for (int i = 0; i < values.length / 4; i++) {
+            final AIQuaternion value = keys.get(i).mValue();
+            values[i * 4] = value.x();
+            values[(i * 4) + 1] = value.y();
+            values[(i * 4) + 2] = value.z();
+            values[(i * 4) + 3] = value.w();
+        }
+        return values;
+    }
+
+    private static final class BakeTask extends RecursiveAction {
+
+        private final Skeleton skeleton;
+        private final BakeJob[] jobs;
+        private final int[] firstFrames;
+        private final int from;
+        private final int to;
+
+        private BakeTask(final Skeleton skeleton,
+                         final BakeJob[] jobs,
+                         final int[] firstFrames,
+                         final int from,
+                         final int to) {
+            this.skeleton = skeleton;
+            this.jobs = jobs;
+            this.firstFrames = firstFrames;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > AnimationBaker.SPLIT_THRESHOLD) {
+                final int mid = (this.from + this.to) >>> 1;
+                invokeAll(
+                        new BakeTask(this.skeleton, this.jobs, this.firstFrames, this.from, mid),
+                        new BakeTask(this.skeleton, this.jobs, this.firstFrames, mid, this.to)
+                );
+                return;
+            }
+            final Matrix4f[] globals = new Matrix4f[this.skeleton.getNodeCount()];
+            for (int i = 0; i < globals.length; i++) {
+                globals[i] = new Matrix4f();
+            }
+            final Quaternionf rotation = new Quaternionf();
+            int job = 0;
+            for (int frame = this.from; frame < this.to; frame++) {
+                while (frame >= this.firstFrames[job + 1]) {
+                    job++;
+                }
+                final int jobFrame = frame - this.firstFrames[job];
+                this.jobs[job].frames()[jobFrame] = bakeFrame(this.jobs[job].channels(), jobFrame, globals, rotation);
+            }
+        }
+
+        private AnimatedFrame bakeFrame(final ChannelKeys[] channels,
+                                        final int frame,
+                                        final Matrix4f[] globals,
+                                        final Quaternionf rotation) {
+            final int[] parents = this.skeleton.getParents();
+            final Matrix4f[] bindTransforms = this.skeleton.getBindTransforms();
+            for (int node = 0; node < globals.length; node++) {
+                final Matrix4f global = globals[node];
+                // The root starts from its own bind transform
+                global.set(parents[node] == Skeleton.NO_PARENT ? bindTransforms[node] : globals[parents[node]]);
+                final ChannelKeys channel = channels[node];
+                if (channel == null) {
+                    global.mul(bindTransforms[node]);
+                    continue;
+                }
+                final float[] positions = channel.positions();
+                if (positions.length > 0) {
+                    final int key = Math.min((positions.length / 3) - 1, frame) * 3;
+                    global.translate(positions[key], positions[key + 1], positions[key + 2]);
+                }
+                final float[] rotations = channel.rotations();
+                if (rotations.length > 0) {
+                    final int key = Math.min((rotations.length / 4) - 1, frame) * 4;
+                    global.rotate(rotation.set(rotations[key], rotations[key + 1], rotations[key + 2], rotations[key + 3]));
+                }
+                final float[] scales = channel.scales();
+                if (scales.length > 0) {
+                    final int key = Math.min((scales.length / 3) - 1, frame) * 3;
+                    global.scale(scales[key], scales[key + 1], scales[key + 2]);
+                }
+            }
+            final Matrix4f[] boneMatrices = new Matrix4f[ModelLoader.MAX_BONES];
+            Arrays.fill(boneMatrices, AnimationBaker.IDENTITY_MATRIX);
+            final int[] boneNodes = this.skeleton.getBoneNodes();
+            final int[] boneIds = this.skeleton.getBoneIds();
+            final Matrix4f[] boneOffsets = this.skeleton.getBoneOffsets();
+            for (int i = 0; i < boneIds.length; i++) {
+                if (boneNodes[i] == Skeleton.NO_PARENT) {
+                    continue;
+                }
+                boneMatrices[boneIds[i]] = new Matrix4f(this.skeleton.getGlobalInverseTransform())
+                        .mul(globals[boneNodes[i]])
+                        .mul(boneOffsets[i]);
+            }
+            return new AnimatedFrame(boneMatrices);
+        }
+
+    }
+
+}
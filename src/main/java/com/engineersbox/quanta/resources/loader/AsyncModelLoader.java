@@ -0,0 +1,114 @@
+package com.engineersbox.quanta.resources.loader;
+
+import com.engineersbox.quanta.resources.assets.material.MaterialCache;
+import com.engineersbox.quanta.resources.assets.material.TextureCache;
+import com.engineersbox.quanta.resources.assets.material.TextureData;
+import com.engineersbox.quanta.resources.assets.object.Model;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads models off the render thread. Assimp import, mesh conversion,
+ * animation frame building and texture decoding run on a worker pool, while
+ * texture creation and material registration are queued for the render
+ * thread and drained each frame by {@link #processUploads()} within
+ * {@link #UPLOAD_BUDGET_NANOS}. Returned futures complete on the render
+ * thread, so a model can be added to the scene directly from a dependent
+ * stage such as {@code thenAccept(scene::addModel)}.
+ */
+public class AsyncModelLoader {
+
+    public static final long UPLOAD_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
+
+    private final ExecutorService executor;
+    private final UploadQueue uploadQueue;
+
+    public AsyncModelLoader() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    public AsyncModelLoader(final int workers) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ThreadFactory threadFactory = (final Runnable runnable) -> {
+            final Thread thread = new Thread(runnable, "Model Loader " + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = Executors.newFixedThreadPool(workers, threadFactory);
+        this.uploadQueue = new UploadQueue();
+    }
+
+    public CompletableFuture<Model> loadModel(final String modelId,
+                                              final String modelPath,
+                                              final TextureCache textureCache,
+                                              final MaterialCache materialCache,
+                                              final boolean animated) {
+        return loadModel(
+                modelId,
+                modelPath,
+                textureCache,
+                materialCache,
+                ModelLoader.importFlags(animated),
+                false
+        );
+    }
+
+    public CompletableFuture<Model> loadModel(final String modelId,
+                                              final String modelPath,
+                                              final TextureCache textureCache,
+                                              final MaterialCache materialCache,
+                                              final int flags,
+                                              final boolean classPathResource) {
+        return CompletableFuture.supplyAsync(
+                () -> ModelLoader.importModel(
+                        modelId,
+                        modelPath,
+                        flags,
+                        classPathResource
+                ),
+                this.executor
+        ).thenCompose((final ModelLoader.ImportedModel importedModel) -> loadTextures(importedModel, textureCache)
+                .thenCompose((final Void ignored) -> this.uploadQueue.submit(
+                        () -> ModelLoader.assembleModel(importedModel, materialCache)
+                ))
+        );
+    }
+
+    private CompletableFuture<Void> loadTextures(final ModelLoader.ImportedModel importedModel,
+                                                 final TextureCache textureCache) {
+        return CompletableFuture.allOf(importedModel.texturePaths()
+                .stream()
+                .filter((final String path) -> !textureCache.hasTexture(path))
+                .map((final String path) -> CompletableFuture.supplyAsync(
+                        () -> TextureData.decode(path, false),
+                        this.executor
+                ).thenCompose((final TextureData textureData) -> this.uploadQueue.submit(
+                        () -> textureCache.addTexture(textureData)
+                ))).toArray(CompletableFuture[]::new)
+        );
+    }
+
+    /**
+     * Runs pending GL uploads for in-flight loads. Must be called on the
+     * thread owning the GL context.
+     *
+     * @return Number of upload tasks run
+     */
+    public int processUploads() {
+        return this.uploadQueue.drain(AsyncModelLoader.UPLOAD_BUDGET_NANOS);
+    }
+
+    public int getPendingUploads() {
+        return this.uploadQueue.size();
+    }
+
+    public void cleanup() {
+        this.executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,567 @@
+package com.engineersbox.quanta.resources.loader;
+
+import com.engineersbox.quanta.resources.assets.material.Material;
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+import com.engineersbox.quanta.resources.assets.object.animation.AnimatedFrame;
+import com.engineersbox.quanta.resources.assets.object.animation.Animation;
+import com.engineersbox.quanta.resources.assets.object.animation.AnimationClip;
+import com.engineersbox.quanta.resources.assets.object.animation.QuaternionTrack;
+import com.engineersbox.quanta.resources.assets.object.animation.Skeleton;
+import com.engineersbox.quanta.resources.assets.object.animation.VectorTrack;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.joml.Vector4f;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Binary cache of imported models, written after the first Assimp import of a
+ * source file and memory mapped on subsequent loads. Entries record the
+ * SHA-256 of the source file contents along with the import flags and
+ * options, such as whether meshes were optimised, and are discarded when any
+ * no longer matches. Values are stored in native byte
+ * order, so a cache is only valid on the architecture that wrote it.
+ */
+public class MeshCache {
+
+    private static final Logger LOGGER = LogManager.getLogger(MeshCache.class);
+    public static final Path CACHE_DIRECTORY = Path.of("cache", "meshes");
+    private static final String CACHE_EXTENSION = ".qmc";
+    private static final int MAGIC = 0x434D5551; // "QUMC"
+    private static final int VERSION = 4;
+    static final int OPTIMISED = 1;
+    static final int KEYFRAMED = 1 << 1;
+    private static final byte TRANSLATION_TRACK = 1;
+    private static final byte ROTATION_TRACK = 1 << 1;
+    private static final byte SCALE_TRACK = 1 << 2;
+    private static final int NULL_LENGTH = -1;
+
+    private MeshCache() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    private static Path resolveCacheFile(final String modelPath,
+                                         final int flags,
+                                         final int options) {
+        final String key = HexFormat.of().formatHex(MeshCache.digest(
+                ByteBuffer.wrap(modelPath.getBytes(StandardCharsets.UTF_8))
+        )) + "_" + Integer.toHexString(flags)
+                + ((options & MeshCache.OPTIMISED) != 0 ? "_o" : "")
+                + ((options & MeshCache.KEYFRAMED) != 0 ? "_k" : "");
+        return MeshCache.CACHE_DIRECTORY.resolve(key + MeshCache.CACHE_EXTENSION);
+    }
+
+    private static byte[] digest(final ByteBuffer data) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(data);
+            return digest.digest();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 digest is not available", e);
+        }
+    }
+
+    /**
+     * @param source Contents of the source model file
+     * @return Content hash used to validate cache entries
+     */
+    public static byte[] hashSource(final ByteBuffer source) {
+        return MeshCache.digest(source.duplicate());
+    }
+
+    public static byte[] hashSource(final Path sourcePath) throws IOException {
+        try (final FileChannel channel = FileChannel.open(sourcePath, StandardOpenOption.READ)) {
+            return MeshCache.hashSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return The cached import of the model, or {@code null} if there is no
+     *         valid cache entry for the given source contents, flags and
+     *         options
+     */
+    static ModelLoader.ImportedModel read(final String modelId,
+                                          final String modelPath,
+                                          final int flags,
+                                          final int options,
+                                          final byte[] sourceHash) {
+        final Path cacheFile = MeshCache.resolveCacheFile(modelPath, flags, options);
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try (final FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.nativeOrder());
+            if (mapped.getInt() != MeshCache.MAGIC || mapped.getInt() != MeshCache.VERSION) {
+                return null;
+            }
+            final byte[] cachedHash = new byte[sourceHash.length];
+            mapped.get(cachedHash);
+            if (mapped.getInt() != flags
+                    || mapped.get() != options
+                    || !Arrays.equals(cachedHash, sourceHash)
+                    || !modelPath.equals(MeshCache.getString(mapped))) {
+                MeshCache.LOGGER.debug("Stale mesh cache entry {} for {}", cacheFile, modelPath);
+                return null;
+            }
+            return MeshCache.readModel(mapped, modelId, modelPath);
+        } catch (final IOException | RuntimeException e) {
+            MeshCache.LOGGER.warn("Unable to read mesh cache entry {} for {}, re-importing", cacheFile, modelPath, e);
+            return null;
+        }
+    }
+
+    private static ModelLoader.ImportedModel readModel(final ByteBuffer buffer,
+                                                       final String modelId,
+                                                       final String modelPath) {
+        final boolean registerMaterials = buffer.get() != 0;
+        final int materialCount = buffer.getInt();
+        final List<Material> materials = new ArrayList<>(materialCount);
+        for (int i = 0; i < materialCount; i++) {
+            final Material material = new Material();
+            material.setAmbientColor(MeshCache.getVector4f(buffer));
+            material.setDiffuseColor(MeshCache.getVector4f(buffer));
+            material.setSpecularColor(MeshCache.getVector4f(buffer));
+            material.setReflectance(buffer.getFloat());
+            material.setTexturePath(MeshCache.getString(buffer));
+            material.setNormalMapPath(MeshCache.getString(buffer));
+            materials.add(material);
+        }
+        final int texturePathCount = buffer.getInt();
+        final Set<String> texturePaths = new LinkedHashSet<>();
+        for (int i = 0; i < texturePathCount; i++) {
+            texturePaths.add(MeshCache.getString(buffer));
+        }
+        final int meshCount = buffer.getInt();
+        final List<MeshData> meshData = new ArrayList<>(meshCount);
+        final int[] meshMaterials = new int[meshCount];
+        for (int i = 0; i < meshCount; i++) {
+            meshMaterials[i] = buffer.getInt();
+            final Vector3f aabbMin = MeshCache.getVector3f(buffer);
+            final Vector3f aabbMax = MeshCache.getVector3f(buffer);
+            meshData.add(new MeshData(
+                    MeshCache.getFloats(buffer),
+                    MeshCache.getFloats(buffer),
+                    MeshCache.getFloats(buffer),
+                    MeshCache.getFloats(buffer),
+                    MeshCache.getFloats(buffer),
+                    MeshCache.getInts(buffer),
+                    MeshCache.getInts(buffer),
+                    MeshCache.getFloats(buffer),
+                    aabbMin,
+                    aabbMax
+            ));
+        }
+        final Skeleton skeleton = buffer.get() != 0 ? MeshCache.getSkeleton(buffer) : null;
+        final int animationCount = buffer.getInt();
+        final List<Animation> animations = new ArrayList<>(animationCount);
+        for (int i = 0; i < animationCount; i++) {
+            final String name = MeshCache.getString(buffer);
+            final double duration = buffer.getDouble();
+            if (buffer.get() != 0) {
+                animations.add(new Animation(name, duration, new ArrayList<>(), MeshCache.getClip(buffer, skeleton)));
+                continue;
+            }
+            final int frameCount = buffer.getInt();
+            final List<AnimatedFrame> frames = new ArrayList<>(frameCount);
+            for (int j = 0; j < frameCount; j++) {
+                final Matrix4f[] boneMatrices = new Matrix4f[buffer.getInt()];
+                for (int k = 0; k < boneMatrices.length; k++) {
+                    boneMatrices[k] = new Matrix4f().set(buffer);
+                    buffer.position(buffer.position() + 16 * Float.BYTES);
+                }
+                frames.add(new AnimatedFrame(boneMatrices));
+            }
+            animations.add(new Animation(name, duration, frames));
+        }
+        return new ModelLoader.ImportedModel(
+                modelId,
+                modelPath,
+                materials,
+                registerMaterials,
+                meshData,
+                meshMaterials,
+                animations,
+                texturePaths
+        );
+    }
+
+    /**
+     * Writes the imported model to the cache. Failures are logged and
+     * otherwise ignored, as the cache is purely an optimisation.
+     */
+    static void write(final ModelLoader.ImportedModel model,
+                      final int flags,
+                      final int options,
+                      final byte[] sourceHash) {
+        final Path cacheFile = MeshCache.resolveCacheFile(model.modelPath(), flags, options);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(MeshCache.sizeOf(model, sourceHash))
+                .order(ByteOrder.nativeOrder());
+        buffer.putInt(MeshCache.MAGIC);
+        buffer.putInt(MeshCache.VERSION);
+        buffer.put(sourceHash);
+        buffer.putInt(flags);
+        buffer.put((byte) options);
+        MeshCache.putString(buffer, model.modelPath());
+        buffer.put((byte) (model.registerMaterials() ? 1 : 0));
+        buffer.putInt(model.materials().size());
+        for (final Material material : model.materials()) {
+            MeshCache.putVector4f(buffer, material.getAmbientColor());
+            MeshCache.putVector4f(buffer, material.getDiffuseColor());
+            MeshCache.putVector4f(buffer, material.getSpecularColor());
+            buffer.putFloat(material.getReflectance());
+            MeshCache.putString(buffer, material.getTexturePath());
+            MeshCache.putString(buffer, material.getNormalMapPath());
+        }
+        buffer.putInt(model.texturePaths().size());
+        model.texturePaths().forEach((final String path) -> MeshCache.putString(buffer, path));
+        buffer.putInt(model.meshData().size());
+        for (int i = 0; i < model.meshData().size(); i++) {
+            final MeshData meshData = model.meshData().get(i);
+            buffer.putInt(model.meshMaterials()[i]);
+            MeshCache.putVector3f(buffer, meshData.getAabbMin());
+            MeshCache.putVector3f(buffer, meshData.getAabbMax());
+            MeshCache.putFloats(buffer, meshData.getPositions());
+            MeshCache.putFloats(buffer, meshData.getNormals());
+            MeshCache.putFloats(buffer, meshData.getTangents());
+            MeshCache.putFloats(buffer, meshData.getBiTangents());
+            MeshCache.putFloats(buffer, meshData.getTextCoords());
+            MeshCache.putInts(buffer, meshData.getIndices());
+            MeshCache.putInts(buffer, meshData.getBoneIndices());
+            MeshCache.putFloats(buffer, meshData.getWeights());
+        }
+        final Skeleton skeleton = MeshCache.findSkeleton(model.animations());
+        buffer.put((byte) (skeleton != null ? 1 : 0));
+        if (skeleton != null) {
+            MeshCache.putSkeleton(buffer, skeleton);
+        }
+        buffer.putInt(model.animations().size());
+        for (final Animation animation : model.animations()) {
+            MeshCache.putString(buffer, animation.name());
+            buffer.putDouble(animation.duration());
+            buffer.put((byte) (animation.isKeyframed() ? 1 : 0));
+            if (animation.isKeyframed()) {
+                MeshCache.putClip(buffer, animation.clip());
+                continue;
+            }
+            buffer.putInt(animation.frames().size());
+            for (final AnimatedFrame frame : animation.frames()) {
+                final Matrix4f[] boneMatrices = frame.getBoneMatrices();
+                buffer.putInt(boneMatrices.length);
+                for (final Matrix4f matrix : boneMatrices) {
+                    matrix.get(buffer);
+                    buffer.position(buffer.position() + 16 * Float.BYTES);
+                }
+            }
+        }
+        buffer.flip();
+        try {
+            Files.createDirectories(MeshCache.CACHE_DIRECTORY);
+            final Path tempFile = Files.createTempFile(MeshCache.CACHE_DIRECTORY, null, MeshCache.CACHE_EXTENSION);
+            try (final FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            MeshCache.LOGGER.warn("Unable to write mesh cache entry {} for {}", cacheFile, model.modelPath(), e);
+        }
+    }
+
+    private static int sizeOf(final ModelLoader.ImportedModel model,
+                              final byte[] sourceHash) {
+        int size = 3 * Integer.BYTES + 1 + sourceHash.length + MeshCache.sizeOf(model.modelPath());
+        size += 1 + Integer.BYTES;
+        for (final Material material : model.materials()) {
+            size += 13 * Float.BYTES
+                    + MeshCache.sizeOf(material.getTexturePath())
+                    + MeshCache.sizeOf(material.getNormalMapPath());
+        }
+        size += Integer.BYTES;
+        for (final String path : model.texturePaths()) {
+            size += MeshCache.sizeOf(path);
+        }
+        size += Integer.BYTES;
+        for (final MeshData meshData : model.meshData()) {
+            size += Integer.BYTES + 6 * Float.BYTES + 8 * Integer.BYTES;
+            size += (meshData.getPositions().length
+                    + meshData.getNormals().length
+                    + meshData.getTangents().length
+                    + meshData.getBiTangents().length
+                    + meshData.getTextCoords().length
+                    + meshData.getIndices().length
+                    + meshData.getBoneIndices().length
+                    + meshData.getWeights().length) * Float.BYTES;
+        }
+        final Skeleton skeleton = MeshCache.findSkeleton(model.animations());
+        size += 1 + (skeleton != null ? MeshCache.sizeOf(skeleton) : 0);
+        size += Integer.BYTES;
+        for (final Animation animation : model.animations()) {
+            size += MeshCache.sizeOf(animation.name()) + Double.BYTES + 1;
+            if (animation.isKeyframed()) {
+                size += MeshCache.sizeOf(animation.clip());
+                continue;
+            }
+            size += Integer.BYTES;
+            for (final AnimatedFrame frame : animation.frames()) {
+                size += Integer.BYTES + frame.getBoneMatrices().length * 16 * Float.BYTES;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return The skeleton shared by the keyframed animations, or
+     *         {@code null} if there are none
+     */
+    private static Skeleton findSkeleton(final List<Animation> animations) {
+        for (final Animation animation : animations) {
+            if (animation.isKeyframed()) {
+                return animation.clip().getSkeleton();
+            }
+        }
+        return null;
+    }
+
+    private static void putSkeleton(final ByteBuffer buffer,
+                                    final Skeleton skeleton) {
+        buffer.putInt(skeleton.getNodeCount());
+        for (int i = 0; i < skeleton.getNodeCount(); i++) {
+            MeshCache.putString(buffer, skeleton.getNames()[i]);
+            buffer.putInt(skeleton.getParents()[i]);
+            MeshCache.putMatrix4f(buffer, skeleton.getBindTransforms()[i]);
+        }
+        buffer.putInt(skeleton.getBoneCount());
+        for (int i = 0; i < skeleton.getBoneCount(); i++) {
+            buffer.putInt(skeleton.getBoneNodes()[i]);
+            buffer.putInt(skeleton.getBoneIds()[i]);
+            MeshCache.putMatrix4f(buffer, skeleton.getBoneOffsets()[i]);
+        }
+        MeshCache.putMatrix4f(buffer, skeleton.getGlobalInverseTransform());
+    }
+
+    private static Skeleton getSkeleton(final ByteBuffer buffer) {
+        final int nodeCount = buffer.getInt();
+        final String[] names = new String[nodeCount];
+        final int[] parents = new int[nodeCount];
+        final Matrix4f[] bindTransforms = new Matrix4f[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            names[i] = MeshCache.getString(buffer);
+            parents[i] = buffer.getInt();
+            bindTransforms[i] = MeshCache.getMatrix4f(buffer);
+        }
+        final int boneCount = buffer.getInt();
+        final int[] boneNodes = new int[boneCount];
+        final int[] boneIds = new int[boneCount];
+        final Matrix4f[] boneOffsets = new Matrix4f[boneCount];
+        for (int i = 0; i < boneCount; i++) {
+            boneNodes[i] = buffer.getInt();
+            boneIds[i] = buffer.getInt();
+            boneOffsets[i] = MeshCache.getMatrix4f(buffer);
+        }
+        return new Skeleton(
+                names,
+                parents,
+                bindTransforms,
+                boneNodes,
+                boneIds,
+                boneOffsets,
+                MeshCache.getMatrix4f(buffer)
+        );
+    }
+
+    private static int sizeOf(final Skeleton skeleton) {
+        int size = 3 * Integer.BYTES + 16 * Float.BYTES;
+        for (final String name : skeleton.getNames()) {
+            size += MeshCache.sizeOf(name) + Integer.BYTES + 16 * Float.BYTES;
+        }
+        return size + skeleton.getBoneCount() * (2 * Integer.BYTES + 16 * Float.BYTES);
+    }
+
+    private static void putClip(final ByteBuffer buffer,
+                                final AnimationClip clip) {
+        buffer.putFloat(clip.getDuration());
+        buffer.putFloat(clip.getTicksPerSecond());
+        for (int node = 0; node < clip.getSkeleton().getNodeCount(); node++) {
+            final VectorTrack translation = clip.getTranslation(node);
+            final QuaternionTrack rotation = clip.getRotation(node);
+            final VectorTrack scale = clip.getScale(node);
+            buffer.put((byte) ((translation != null ? MeshCache.TRANSLATION_TRACK : 0)
+                    | (rotation != null ? MeshCache.ROTATION_TRACK : 0)
+                    | (scale != null ? MeshCache.SCALE_TRACK : 0)));
+            if (translation != null) {
+                MeshCache.putFloats(buffer, translation.times());
+                MeshCache.putFloats(buffer, translation.values());
+            }
+            if (rotation != null) {
+                MeshCache.putFloats(buffer, rotation.times());
+                MeshCache.putLongs(buffer, rotation.rotations());
+            }
+            if (scale != null) {
+                MeshCache.putFloats(buffer, scale.times());
+                MeshCache.putFloats(buffer, scale.values());
+            }
+        }
+    }
+
+    private static AnimationClip getClip(final ByteBuffer buffer,
+                                         final Skeleton skeleton) {
+        final float duration = buffer.getFloat();
+        final float ticksPerSecond = buffer.getFloat();
+        final int nodeCount = skeleton.getNodeCount();
+        final VectorTrack[] translations = new VectorTrack[nodeCount];
+        final QuaternionTrack[] rotations = new QuaternionTrack[nodeCount];
+        final VectorTrack[] scales = new VectorTrack[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            final byte tracks = buffer.get();
+            if ((tracks & MeshCache.TRANSLATION_TRACK) != 0) {
+                translations[node] = new VectorTrack(MeshCache.getFloats(buffer), MeshCache.getFloats(buffer));
+            }
+            if ((tracks & MeshCache.ROTATION_TRACK) != 0) {
+                rotations[node] = new QuaternionTrack(MeshCache.getFloats(buffer), MeshCache.getLongs(buffer));
+            }
+            if ((tracks & MeshCache.SCALE_TRACK) != 0) {
+                scales[node] = new VectorTrack(MeshCache.getFloats(buffer), MeshCache.getFloats(buffer));
+            }
+        }
+        return new AnimationClip(skeleton, duration, ticksPerSecond, translations, rotations, scales);
+    }
+
+    private static int sizeOf(final AnimationClip clip) {
+        int size = 2 * Float.BYTES;
+        for (int node = 0; node < clip.getSkeleton().getNodeCount(); node++) {
+            size += 1;
+            final VectorTrack translation = clip.getTranslation(node);
+            if (translation != null) {
+                size += 2 * Integer.BYTES + (translation.times().length + translation.values().length) * Float.BYTES;
+            }
+            final QuaternionTrack rotation = clip.getRotation(node);
+            if (rotation != null) {
+                size += 2 * Integer.BYTES + rotation.times().length * Float.BYTES + rotation.rotations().length * Long.BYTES;
+            }
+            final VectorTrack scale = clip.getScale(node);
+            if (scale != null) {
+                size += 2 * Integer.BYTES + (scale.times().length + scale.values().length) * Float.BYTES;
+            }
+        }
+        return size;
+    }
+
+    private static int sizeOf(final String value) {
+        return Integer.BYTES + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static void putString(final ByteBuffer buffer,
+                                  final String value) {
+        if (value == null) {
+            buffer.putInt(MeshCache.NULL_LENGTH);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length == MeshCache.NULL_LENGTH) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putFloats(final ByteBuffer buffer,
+                                  final float[] values) {
+        buffer.putInt(values.length);
+        buffer.asFloatBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Float.BYTES);
+    }
+
+    private static float[] getFloats(final ByteBuffer buffer) {
+        final float[] values = new float[buffer.getInt()];
+        buffer.asFloatBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Float.BYTES);
+        return values;
+    }
+
+    private static void putInts(final ByteBuffer buffer,
+                                final int[] values) {
+        buffer.putInt(values.length);
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+
+    private static int[] getInts(final ByteBuffer buffer) {
+        final int[] values = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    private static void putLongs(final ByteBuffer buffer,
+                                 final long[] values) {
+        buffer.putInt(values.length);
+        buffer.asLongBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Long.BYTES);
+    }
+
+    private static long[] getLongs(final ByteBuffer buffer) {
+        final long[] values = new long[buffer.getInt()];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Long.BYTES);
+        return values;
+    }
+
+    private static void putMatrix4f(final ByteBuffer buffer,
+                                    final Matrix4f value) {
+        value.get(buffer);
+        buffer.position(buffer.position() + 16 * Float.BYTES);
+    }
+
+    private static Matrix4f getMatrix4f(final ByteBuffer buffer) {
+        final Matrix4f value = new Matrix4f().set(buffer);
+        buffer.position(buffer.position() + 16 * Float.BYTES);
+        return value;
+    }
+
+    private static void putVector3f(final ByteBuffer buffer,
+                                    final Vector3f value) {
+        buffer.putFloat(value.x).putFloat(value.y).putFloat(value.z);
+    }
+
+    private static Vector3f getVector3f(final ByteBuffer buffer) {
+        return new Vector3f(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+    }
+
+    private static void putVector4f(final ByteBuffer buffer,
+                                    final Vector4f value) {
+        buffer.putFloat(value.x).putFloat(value.y).putFloat(value.z).putFloat(value.w);
+    }
+
+    private static Vector4f getVector4f(final ByteBuffer buffer) {
+        return new Vector4f(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+    }
+
+}
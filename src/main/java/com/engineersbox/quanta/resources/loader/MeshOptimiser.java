@@ -0,0 +1,505 @@
+package com.engineersbox.quanta.resources.loader;
+
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+
+/**
+ * Reorders imported meshes for the GPU. Triangles are first ordered for the
+ * post-transform vertex cache with Forsyth's linear speed vertex cache
+ * optimisation, then split into clusters at the points where the cache
+ * restarts and the clusters sorted to draw outward facing ones first,
+ * reducing overdraw while keeping the cache order within each cluster
+ * (Sander et al., "Fast Triangle Reordering for Vertex Locality and Reduced
+ * Overdraw"). Finally vertices are renumbered in order of first use so that
+ * vertex fetches walk memory linearly, dropping any that no triangle uses.
+ */
+public final class MeshOptimiser {
+
+    private static final Logger LOGGER = LogManager.getLogger(MeshOptimiser.class);
+
+    /**
+     * FIFO cache size assumed when measuring cache efficiency and finding
+     * cluster boundaries, typical of current hardware.
+     */
+    public static final int SIMULATED_CACHE_SIZE = 16;
+    /**
+     * Maximum increase in cache misses traded for reduced overdraw.
+     */
+    public static final float OVERDRAW_THRESHOLD = 1.05f;
+    // Forsyth's scoring parameters, for a modelled LRU cache of 32 entries
+    private static final int SCORING_CACHE_SIZE = 32;
+    private static final float CACHE_DECAY_POWER = 1.5f;
+    private static final float LAST_TRIANGLE_SCORE = 0.75f;
+    private static final float VALENCE_BOOST_SCALE = 2.0f;
+    private static final float VALENCE_BOOST_POWER = 0.5f;
+    private static final int SCORED_VALENCES = 32;
+    private static final float[] CACHE_POSITION_SCORES = MeshOptimiser.cachePositionScores();
+    private static final float[] VALENCE_SCORES = MeshOptimiser.valenceScores();
+
+    /**
+     * @param acmr Average cache miss ratio, transformed vertices per triangle
+     * @param atvr Average transformed vertex ratio, transformed vertices per referenced vertex
+     */
+    public record VertexCacheStatistics(int transformedVertices,
+                                        float acmr,
+                                        float atvr) {
+    }
+
+    private MeshOptimiser() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Applies every optimisation to a mesh, logging its cache efficiency
+     * before and after.
+     *
+     * @param name Name of the mesh used in the log
+     * @return Optimised copy of the mesh, with the same bounds and material
+     */
+    public static MeshData optimise(final MeshData meshData,
+                                    final String name) {
+        final int vertexCount = meshData.getPositions().length / 3;
+        final VertexCacheStatistics before = MeshOptimiser.analyseVertexCache(
+                meshData.getIndices(),
+                vertexCount,
+                MeshOptimiser.SIMULATED_CACHE_SIZE
+        );
+        int[] indices = MeshOptimiser.optimiseVertexCache(meshData.getIndices(), vertexCount);
+        indices = MeshOptimiser.optimiseOverdraw(
+                indices,
+                meshData.getPositions(),
+                MeshOptimiser.OVERDRAW_THRESHOLD
+        );
+        final MeshData optimised = MeshOptimiser.optimiseVertexFetch(meshData, indices);
+        final VertexCacheStatistics after = MeshOptimiser.analyseVertexCache(
+                optimised.getIndices(),
+                optimised.getPositions().length / 3,
+                MeshOptimiser.SIMULATED_CACHE_SIZE
+        );
+        MeshOptimiser.LOGGER.info(
+                "[MESH OPTIMISER] {}: {} triangles, ACMR {} -> {}, ATVR {} -> {}",
+                name,
+                optimised.triangleCount(),
+                String.format("%.3f", before.acmr()),
+                String.format("%.3f", after.acmr()),
+                String.format("%.3f", before.atvr()),
+                String.format("%.3f", after.atvr())
+        );
+        return optimised;
+    }
+
+    /**
+     * Simulates a FIFO post-transform cache of {@code cacheSize} entries.
+     */
+    public static VertexCacheStatistics analyseVertexCache(final int[] indices,
+                                                           final int vertexCount,
+                                                           final int cacheSize) {
+        final int[] timestamps = new int[vertexCount];
+        final boolean[] referenced = new boolean[vertexCount];
+        int uniqueVertices = 0;
+        int time = cacheSize + 1;
+        int misses = 0;
+        for (final int index : indices) {
+            if (time - timestamps[index] > cacheSize) {
+                timestamps[index] = time++;
+                misses++;
+            }
+            if (!referenced[index]) {
+                referenced[index] = true;
+                uniqueVertices++;
+            }
+        }
+        final int triangleCount = indices.length / 3;
+        return new VertexCacheStatistics(
+                misses,
+                triangleCount == 0 ? 0 : (float) misses / triangleCount,
+                uniqueVertices == 0 ? 0 : (float) misses / uniqueVertices
+        );
+    }
+
+    /**
+     * Reorders triangles for the post-transform vertex cache. Each step
+     * emits the triangle whose vertices score highest, where vertices score
+     * for being recently used and for having few triangles left, so that
+     * vertices are finished off while still cached.
+     */
+    public static int[] optimiseVertexCache(final int[] indices,
+                                            final int vertexCount) {
+        final int triangleCount = indices.length / 3;
+        final int[] offsets = new int[vertexCount + 1];
+        for (int i = 0; i < triangleCount * 3; i++) {
+            offsets[indices[i] + 1]++;
+        }
+        for (int i = 0; i < vertexCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        // Triangles still to emit around each vertex are kept at the start of its row
+        final int[] vertexTriangles = new int[triangleCount * 3];
+        final int[] valences = new int[vertexCount];
+        for (int i = 0; i < triangleCount * 3; i++) {
+            final int vertex = indices[i];
+            vertexTriangles[offsets[vertex] + valences[vertex]++] = i / 3;
+        }
+        final int[] cachePositions = new int[vertexCount];
+        Arrays.fill(cachePositions, -1);
+        final float[] vertexScores = new float[vertexCount];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            vertexScores[vertex] = MeshOptimiser.vertexScore(-1, valences[vertex]);
+        }
+        final float[] triangleScores = new float[triangleCount];
+        for (int triangle = 0; triangle < triangleCount; triangle++) {
+            triangleScores[triangle] = vertexScores[indices[triangle * 3]]
+                    + vertexScores[indices[(triangle * 3) + 1]]
+                    + vertexScores[indices[(triangle * 3) + 2]];
+        }
+        final boolean[] emitted = new boolean[triangleCount];
+        final int[] cache = new int[MeshOptimiser.SCORING_CACHE_SIZE + 3];
+        final int[] nextCache = new int[MeshOptimiser.SCORING_CACHE_SIZE + 3];
+        int cacheCount = 0;
+        final int[] result = new int[triangleCount * 3];
+        int scan = 0;
+        int best = -1;
+        for (int output = 0; output < triangleCount; output++) {
+            if (best == -1) {
+                // Nothing in the cache has triangles left, restart from the next unused one
+                while (emitted[scan]) {
+                    scan++;
+                }
+                best = scan;
+            }
+            emitted[best] = true;
+            int nextCount = 0;
+            for (int corner = 0; corner < 3; corner++) {
+                final int vertex = indices[(best * 3) + corner];
+                result[(output * 3) + corner] = vertex;
+                MeshOptimiser.removeTriangle(vertexTriangles, offsets[vertex], valences[vertex]--, best);
+                if (cachePositions[vertex] != -2) {
+                    nextCache[nextCount++] = vertex;
+                    // Marks the vertex as already moved to the front
+                    cachePositions[vertex] = -2;
+                }
+            }
+            for (int i = 0; i < cacheCount; i++) {
+                final int vertex = cache[i];
+                if (cachePositions[vertex] != -2) {
+                    nextCache[nextCount++] = vertex;
+                }
+            }
+            System.arraycopy(nextCache, 0, cache, 0, nextCount);
+            cacheCount = nextCount;
+            // Vertices pushed past the modelled cache are scored as uncached once more
+            for (int i = 0; i < cacheCount; i++) {
+                cachePositions[cache[i]] = i < MeshOptimiser.SCORING_CACHE_SIZE ? i : -1;
+            }
+            best = -1;
+            float bestScore = -1;
+            for (int i = 0; i < cacheCount; i++) {
+                final int vertex = cache[i];
+                final float score = MeshOptimiser.vertexScore(cachePositions[vertex], valences[vertex]);
+                final float delta = score - vertexScores[vertex];
+                vertexScores[vertex] = score;
+                for (int j = offsets[vertex]; j < offsets[vertex] + valences[vertex]; j++) {
+                    final int triangle = vertexTriangles[j];
+                    triangleScores[triangle] += delta;
+                    if (triangleScores[triangle] > bestScore) {
+                        bestScore = triangleScores[triangle];
+                        best = triangle;
+                    }
+                }
+            }
+            cacheCount = Math.min(cacheCount, MeshOptimiser.SCORING_CACHE_SIZE);
+        }
+        return result;
+    }
+
+    private static void removeTriangle(final int[] vertexTriangles,
+                                       final int rowStart,
+                                       final int valence,
+                                       final int triangle) {
+        for (int i = rowStart; i < rowStart + valence; i++) {
+            if (vertexTriangles[i] == triangle) {
+                vertexTriangles[i] = vertexTriangles[rowStart + valence - 1];
+                return;
+            }
+        }
+    }
+
+    private static float vertexScore(final int cachePosition,
+                                     final int valence) {
+        if (valence == 0) {
+            // No triangles left, nothing is gained by using the vertex
+            return -1;
+        }
+        final float cacheScore = cachePosition >= 0 ? MeshOptimiser.CACHE_POSITION_SCORES[cachePosition] : 0;
+        return cacheScore + (valence < MeshOptimiser.SCORED_VALENCES
+                ? MeshOptimiser.VALENCE_SCORES[valence]
+                : MeshOptimiser.valenceScore(valence));
+    }
+
+    private static float[] cachePositionScores() {
+        final float[] scores = new float[MeshOptimiser.SCORING_CACHE_SIZE];
+        final float scale = 1.0f / (MeshOptimiser.SCORING_CACHE_SIZE - 3);
+        for (int position = 0; position < MeshOptimiser.SCORING_CACHE_SIZE; position++) {
+            // Vertices of the last triangle score lower to avoid strips that
+            // wind back over the same edge
+            scores[position] = position < 3
+                    ? MeshOptimiser.LAST_TRIANGLE_SCORE
+                    : (float) Math.pow(1.0f - ((position - 3) * scale), MeshOptimiser.CACHE_DECAY_POWER);
+        }
+        return scores;
+    }
+
+    private static float[] valenceScores() {
+        final float[] scores = new float[MeshOptimiser.SCORED_VALENCES];
+        for (int valence = 1; valence < MeshOptimiser.SCORED_VALENCES; valence++) {
+            scores[valence] = MeshOptimiser.valenceScore(valence);
+        }
+        return scores;
+    }
+
+    private static float valenceScore(final int valence) {
+        return MeshOptimiser.VALENCE_BOOST_SCALE * (float) Math.pow(valence, -MeshOptimiser.VALENCE_BOOST_POWER);
+    }
+
+    /**
+     * Reorders cache ordered triangles to reduce overdraw. The triangles are
+     * split into clusters wherever the simulated cache misses on every
+     * vertex, which costs nothing to reorder, and further wherever the
+     * cluster so far misses no more than {@code threshold} times the mesh's
+     * average. Clusters are then sorted by how far their mean normal points
+     * away from the mesh's centre, so that the outer surfaces of convex parts
+     * are drawn before what lies behind them.
+     */
+    public static int[] optimiseOverdraw(final int[] indices,
+                                         final float[] positions,
+                                         final float threshold) {
+        final int triangleCount = indices.length / 3;
+        final int vertexCount = positions.length / 3;
+        if (triangleCount == 0) {
+            return indices;
+        }
+        final float meshAcmr = MeshOptimiser.analyseVertexCache(
+                indices,
+                vertexCount,
+                MeshOptimiser.SIMULATED_CACHE_SIZE
+        ).acmr();
+        final int[] clusterStarts = MeshOptimiser.findClusters(indices, vertexCount, meshAcmr * threshold);
+        final int clusterCount = clusterStarts.length - 1;
+        // Area weighted centroid of the whole mesh
+        float meshX = 0;
+        float meshY = 0;
+        float meshZ = 0;
+        float meshArea = 0;
+        final float[] clusterGeometry = new float[clusterCount * 7];
+        final float[] triangle = new float[7];
+        for (int cluster = 0; cluster < clusterCount; cluster++) {
+            for (int t = clusterStarts[cluster]; t < clusterStarts[cluster + 1]; t++) {
+                MeshOptimiser.triangleGeometry(indices, positions, t, triangle);
+                for (int i = 0; i < 7; i++) {
+                    clusterGeometry[(cluster * 7) + i] += triangle[i];
+                }
+            }
+            meshX += clusterGeometry[cluster * 7];
+            meshY += clusterGeometry[(cluster * 7) + 1];
+            meshZ += clusterGeometry[(cluster * 7) + 2];
+            meshArea += clusterGeometry[(cluster * 7) + 6];
+        }
+        if (meshArea <= 0) {
+            return indices;
+        }
+        meshX /= meshArea;
+        meshY /= meshArea;
+        meshZ /= meshArea;
+        final long[] keys = new long[clusterCount];
+        for (int cluster = 0; cluster < clusterCount; cluster++) {
+            final int offset = cluster * 7;
+            final float area = clusterGeometry[offset + 6];
+            float sortKey = 0;
+            if (area > 0) {
+                final float normalX = clusterGeometry[offset + 3];
+                final float normalY = clusterGeometry[offset + 4];
+                final float normalZ = clusterGeometry[offset + 5];
+                final float normalLength = (float) Math.sqrt((normalX * normalX) + (normalY * normalY) + (normalZ * normalZ));
+                if (normalLength > 0) {
+                    sortKey = (((clusterGeometry[offset] / area) - meshX) * normalX
+                               + ((clusterGeometry[offset + 1] / area) - meshY) * normalY
+                               + ((clusterGeometry[offset + 2] / area) - meshZ) * normalZ) / normalLength;
+                }
+            }
+            // Descending by key, ties kept in cache order
+            keys[cluster] = ((long) MeshOptimiser.descendingBits(sortKey) << 32) | cluster;
+        }
+        Arrays.sort(keys);
+        final int[] result = new int[triangleCount * 3];
+        int write = 0;
+        for (final long key : keys) {
+            final int cluster = (int) key;
+            final int start = clusterStarts[cluster] * 3;
+            final int length = (clusterStarts[cluster + 1] * 3) - start;
+            System.arraycopy(indices, start, result, write, length);
+            write += length;
+        }
+        return result;
+    }
+
+    /**
+     * @return Sortable bits of a float that order larger values first
+     */
+    private static int descendingBits(final float value) {
+        final int bits = Float.floatToIntBits(value);
+        // Flip to an unsigned order ascending with the value, then invert it
+        final int ascending = bits < 0 ? ~bits : bits | Integer.MIN_VALUE;
+        // Stored in the upper half of a signed long, so rebias to signed order
+        return ~ascending ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * @return Index of the first triangle of each cluster, followed by the
+     *         triangle count
+     */
+    private static int[] findClusters(final int[] indices,
+                                      final int vertexCount,
+                                      final float maxAcmr) {
+        final int triangleCount = indices.length / 3;
+        final int[] starts = new int[triangleCount + 1];
+        int clusterCount = 0;
+        final int[] timestamps = new int[vertexCount];
+        int time = MeshOptimiser.SIMULATED_CACHE_SIZE + 1;
+        int clusterMisses = 0;
+        int clusterTriangles = 0;
+        for (int t = 0; t < triangleCount; t++) {
+            int misses = 0;
+            for (int corner = 0; corner < 3; corner++) {
+                final int vertex = indices[(t * 3) + corner];
+                if (time - timestamps[vertex] > MeshOptimiser.SIMULATED_CACHE_SIZE) {
+                    timestamps[vertex] = time++;
+                    misses++;
+                }
+            }
+            final boolean hardBoundary = misses == 3;
+            final boolean softBoundary = clusterTriangles > 0
+                    && (float) clusterMisses / clusterTriangles <= maxAcmr;
+            if (t == 0 || hardBoundary || softBoundary) {
+                starts[clusterCount++] = t;
+                clusterMisses = 0;
+                clusterTriangles = 0;
+                if (!hardBoundary && t > 0) {
+                    // A soft boundary flushes the cache as far as the reordered mesh is concerned
+                    time += MeshOptimiser.SIMULATED_CACHE_SIZE + 1;
+                    misses = 0;
+                    for (int corner = 0; corner < 3; corner++) {
+                        final int vertex = indices[(t * 3) + corner];
+                        if (time - timestamps[vertex] > MeshOptimiser.SIMULATED_CACHE_SIZE) {
+                            timestamps[vertex] = time++;
+                            misses++;
+                        }
+                    }
+                }
+            }
+            clusterMisses += misses;
+            clusterTriangles++;
+        }
+        starts[clusterCount] = triangleCount;
+        return Arrays.copyOf(starts, clusterCount + 1);
+    }
+
+    /**
+     * Writes the area weighted centroid, the area weighted normal and the
+     * area of a triangle.
+     */
+    private static void triangleGeometry(final int[] indices,
+                                         final float[] positions,
+                                         final int triangle,
+                                         final float[] result) {
+        final int a = indices[triangle * 3] * 3;
+        final int b = indices[(triangle * 3) + 1] * 3;
+        final int c = indices[(triangle * 3) + 2] * 3;
+        final float abX = positions[b] - positions[a];
+        final float abY = positions[b + 1] - positions[a + 1];
+        final float abZ = positions[b + 2] - positions[a + 2];
+        final float acX = positions[c] - positions[a];
+        final float acY = positions[c + 1] - positions[a + 1];
+        final float acZ = positions[c + 2] - positions[a + 2];
+        // Cross product length is twice the area, which cancels out in every use
+        final float normalX = (abY * acZ) - (abZ * acY);
+        final float normalY = (abZ * acX) - (abX * acZ);
+        final float normalZ = (abX * acY) - (abY * acX);
+        final float area = (float) Math.sqrt((normalX * normalX) + (normalY * normalY) + (normalZ * normalZ));
+        result[0] = area * (positions[a] + positions[b] + positions[c]) / 3.0f;
+        result[1] = area * (positions[a + 1] + positions[b + 1] + positions[c + 1]) / 3.0f;
+        result[2] = area * (positions[a + 2] + positions[b + 2] + positions[c + 2]) / 3.0f;
+        result[3] = normalX;
+        result[4] = normalY;
+        result[5] = normalZ;
+        result[6] = area;
+    }
+
+    /**
+     * Renumbers vertices in the order the triangles first use them and
+     * reorders every vertex attribute to match, dropping unused vertices.
+     */
+    public static MeshData optimiseVertexFetch(final MeshData meshData,
+                                               final int[] indices) {
+        final int vertexCount = meshData.getPositions().length / 3;
+        final int[] remap = new int[vertexCount];
+        Arrays.fill(remap, -1);
+        final int[] order = new int[vertexCount];
+        int used = 0;
+        final int[] remapped = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            final int vertex = indices[i];
+            if (remap[vertex] == -1) {
+                order[used] = vertex;
+                remap[vertex] = used++;
+            }
+            remapped[i] = remap[vertex];
+        }
+        return new MeshData(
+                MeshOptimiser.reorder(meshData.getPositions(), vertexCount, order, used),
+                MeshOptimiser.reorder(meshData.getNormals(), vertexCount, order, used),
+                MeshOptimiser.reorder(meshData.getTangents(), vertexCount, order, used),
+                MeshOptimiser.reorder(meshData.getBiTangents(), vertexCount, order, used),
+                MeshOptimiser.reorder(meshData.getTextCoords(), vertexCount, order, used),
+                remapped,
+                MeshOptimiser.reorder(meshData.getBoneIndices(), vertexCount, order, used),
+                MeshOptimiser.reorder(meshData.getWeights(), vertexCount, order, used),
+                meshData.getAabbMin(),
+                meshData.getAabbMax(),
+                meshData.getMaterialIdx()
+        );
+    }
+
+    private static float[] reorder(final float[] attribute,
+                                   final int vertexCount,
+                                   final int[] order,
+                                   final int used) {
+        if (attribute == null || vertexCount == 0) {
+            return attribute;
+        }
+        final int stride = attribute.length / vertexCount;
+        final float[] result = new float[used * stride];
+        for (int i = 0; i < used; i++) {
+            System.arraycopy(attribute, order[i] * stride, result, i * stride, stride);
+        }
+        return result;
+    }
+
+    private static int[] reorder(final int[] attribute,
+                                 final int vertexCount,
+                                 final int[] order,
+                                 final int used) {
+        if (attribute == null || vertexCount == 0) {
+            return attribute;
+        }
+        final int stride = attribute.length / vertexCount;
+        final int[] result = new int[used * stride];
+        for (int i = 0; i < used; i++) {
+            System.arraycopy(attribute, order[i] * stride, result, i * stride, stride);
+        }
+        return result;
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.engineersbox.quanta.resources.loader;
 
+import com.engineersbox.quanta.debug.hooks.VariableHook;
 import com.engineersbox.quanta.resources.assets.material.Material;
 import com.engineersbox.quanta.resources.assets.material.MaterialCache;
 import com.engineersbox.quanta.resources.assets.material.TextureCache;
@@ -8,8 +9,9 @@ import com.engineersbox.quanta.resources.assets.object.MeshData;
 import com.engineersbox.quanta.resources.assets.object.Model;
 import com.engineersbox.quanta.resources.assets.object.animation.*;
 import com.engineersbox.quanta.utils.ListUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.joml.Matrix4f;
-import org.joml.Quaternionf;
 import org.joml.Vector3f;
 import org.joml.Vector4f;
 import org.lwjgl.PointerBuffer;
@@ -27,13 +29,51 @@ import static org.lwjgl.assimp.Assimp.*;
 
 public class ModelLoader {
 
+    private static final Logger LOGGER = LogManager.getLogger(ModelLoader.class);
+
     public static final int MAX_BONES = 150;
-    private static final Matrix4f IDENTITY_MATRIX = new Matrix4f();
+    /**
+     * Whether imported meshes are reordered by {@link MeshOptimiser}. Cached
+     * imports are kept separately for each setting.
+     */
+    @VariableHook(name = "loader.optimise_meshes")
+    private static boolean OPTIMISE_MESHES = true;
+    /**
+     * Whether animations are baked into bone matrices for every frame, or
+     * kept as compressed keyframe tracks sampled at runtime. Cached imports
+     * are kept separately for each setting.
+     */
+    @VariableHook(name = "loader.bake_animations")
+    private static boolean BAKE_ANIMATIONS = true;
+    private static final float TRANSLATION_TOLERANCE = 1.0e-4f;
+    private static final float SCALE_TOLERANCE = 1.0e-4f;
+    // 1 - cos(theta / 2) for an angular error of roughly half a degree
+    private static final float ROTATION_TOLERANCE = 1.0e-5f;
 
     private ModelLoader() {
         // Utility class
     }
 
+    /**
+     * @return {@link MeshCache} options describing how models are currently
+     *         imported
+     */
+    private static int importOptions() {
+        return (ModelLoader.OPTIMISE_MESHES ? MeshCache.OPTIMISED : 0)
+               | (ModelLoader.BAKE_ANIMATIONS ? 0 : MeshCache.KEYFRAMED);
+    }
+
+    public static int importFlags(final boolean animated) {
+        return aiProcess_GenSmoothNormals
+                | aiProcess_JoinIdenticalVertices
+                | aiProcess_Triangulate
+                | aiProcess_FixInfacingNormals
+                | aiProcess_CalcTangentSpace
+                | aiProcess_LimitBoneWeights
+                | aiProcess_GenBoundingBoxes
+                | (animated ? 0 : aiProcess_PreTransformVertices);
+    }
+
     public static Model loadModel(final String modelId,
                                   final String modelPath,
                                   final TextureCache textureCache,
@@ -60,14 +100,7 @@ public class ModelLoader {
                 modelPath,
                 textureCache,
                 materialCache,
-                aiProcess_GenSmoothNormals
-                        | aiProcess_JoinIdenticalVertices
-                        | aiProcess_Triangulate
-                        | aiProcess_FixInfacingNormals
-                        | aiProcess_CalcTangentSpace
-                        | aiProcess_LimitBoneWeights
-                        | aiProcess_GenBoundingBoxes
-                        | (animated ? 0 : aiProcess_PreTransformVertices),
+                ModelLoader.importFlags(animated),
                 classPathResource
         );
     }
@@ -93,34 +126,76 @@ public class ModelLoader {
                                   final MaterialCache materialCache,
                                   final int flags,
                                   final boolean classPathResource) {
+        return ModelLoader.processModel(
+                ModelLoader.importModel(
+                        modelId,
+                        modelPath,
+                        flags,
+                        classPathResource
+                ),
+                textureCache,
+                materialCache
+        );
+    }
+
+    /**
+     * Imports and converts a model without touching the GL context or the
+     * material cache, so that it can run on a loader thread. Imports are served
+     * from the {@link MeshCache} when the source contents and flags are
+     * unchanged since the last import. The result is completed into a
+     * {@link Model} with
+     * {@link #processModel(ImportedModel, TextureCache, MaterialCache)}.
+     */
+    static ImportedModel importModel(final String modelId,
+                                     final String modelPath,
+                                     final int flags,
+                                     final boolean classPathResource) {
         final File file = new File(modelPath);
         final String modelDir = file.getParent();
+        final int options = ModelLoader.importOptions();
         final AIScene aiScene;
+        final byte[] sourceHash;
         if (classPathResource) {
             try {
                 final ByteBuffer rawData = ResourceLoader.loadResource(modelPath);
                 if (rawData == null) {
                     throw new IOException();
                 }
+                sourceHash = MeshCache.hashSource(rawData);
+                final ImportedModel cached = MeshCache.read(modelId, modelPath, flags, options, sourceHash);
+                if (cached != null) {
+                    MemoryUtil.memFree(rawData);
+                    return cached;
+                }
                 aiScene = aiImportFileFromMemory(rawData, flags, modelPath);
                 MemoryUtil.memFree(rawData);
             } catch (final IOException e) {
                 throw new RuntimeException("Model path does not exist [" + modelPath + "]", e);
             }
         } else {
+            try {
+                sourceHash = MeshCache.hashSource(file.toPath());
+            } catch (final IOException e) {
+                throw new RuntimeException("Model path does not exist [" + modelPath + "]", e);
+            }
+            final ImportedModel cached = MeshCache.read(modelId, modelPath, flags, options, sourceHash);
+            if (cached != null) {
+                return cached;
+            }
             aiScene = aiImportFile(modelPath, flags);
         }
         if (aiScene == null) {
             throw new RuntimeException("Error loading model [modelPath: " + modelPath + "]");
         }
-        return ModelLoader.processModel(
+        final ImportedModel importedModel = ModelLoader.importScene(
                 modelId,
                 aiScene,
                 modelDir,
                 modelPath,
-                textureCache,
-                materialCache
+                options
         );
+        MeshCache.write(importedModel, flags, options, sourceHash);
+        return importedModel;
     }
 
     public static Model loadModel(final String modelId,
@@ -133,14 +208,7 @@ public class ModelLoader {
                 byteBuffer,
                 textureCache,
                 materialCache,
-                aiProcess_GenSmoothNormals
-                        | aiProcess_JoinIdenticalVertices
-                        | aiProcess_Triangulate
-                        | aiProcess_FixInfacingNormals
-                        | aiProcess_CalcTangentSpace
-                        | aiProcess_LimitBoneWeights
-                        | aiProcess_GenBoundingBoxes
-                        | (animated ? 0 : aiProcess_PreTransformVertices)
+                ModelLoader.importFlags(animated)
         );
     }
 
@@ -163,10 +231,13 @@ public class ModelLoader {
             throw new RuntimeException("Error loading model [modelPath: " + modelPath + "]");
         }
         return ModelLoader.processModel(
-                modelId,
-                aiScene,
-                null,
-                modelPath,
+                ModelLoader.importScene(
+                        modelId,
+                        aiScene,
+                        null,
+                        modelPath,
+                        ModelLoader.importOptions()
+                ),
                 textureCache,
                 materialCache
         );
@@ -178,6 +249,59 @@ public class ModelLoader {
                                      final String modelPath,
                                      final TextureCache textureCache,
                                      final MaterialCache materialCache) {
+        return ModelLoader.processModel(
+                ModelLoader.importScene(
+                        modelId,
+                        aiScene,
+                        modelDir,
+                        modelPath,
+                        ModelLoader.importOptions()
+                ),
+                textureCache,
+                materialCache
+        );
+    }
+
+    /**
+     * Creates any textures referenced by the imported materials, registers the
+     * materials and resolves the material index of each mesh. Must be called
+     * on the thread owning the GL context.
+     */
+    static Model processModel(final ImportedModel importedModel,
+                              final TextureCache textureCache,
+                              final MaterialCache materialCache) {
+        importedModel.texturePaths().forEach(textureCache::createTexture);
+        return ModelLoader.assembleModel(importedModel, materialCache);
+    }
+
+    static Model assembleModel(final ImportedModel importedModel,
+                               final MaterialCache materialCache) {
+        if (importedModel.registerMaterials()) {
+            importedModel.materials().forEach(materialCache::addMaterial);
+        }
+        final List<Material> materialList = importedModel.materials();
+        final List<MeshData> meshDataList = importedModel.meshData();
+        for (int i = 0; i < meshDataList.size(); i++) {
+            final int materialIdx = importedModel.meshMaterials()[i];
+            if (materialIdx >= 0 && materialIdx < materialList.size()) {
+                meshDataList.get(i).setMaterialIdx(materialList.get(materialIdx).getMaterialIdx());
+            } else {
+                meshDataList.get(i).setMaterialIdx(MaterialCache.DEFAULT_MATERIAL_IDX);
+            }
+        }
+        return new Model(
+                importedModel.modelId(),
+                importedModel.modelPath(),
+                meshDataList,
+                importedModel.animations()
+        );
+    }
+
+    private static ImportedModel importScene(final String modelId,
+                                             final AIScene aiScene,
+                                             final String modelDir,
+                                             final String modelPath,
+                                             final int options) {
         final int numMaterials = aiScene.mNumMaterials();
         final PointerBuffer aiMaterials = aiScene.mMaterials();
         if (numMaterials > 0 && aiMaterials == null) {
@@ -187,14 +311,13 @@ public class ModelLoader {
             ));
         }
         final List<Material> materialList = new ArrayList<>();
+        final Set<String> texturePaths = new LinkedHashSet<>();
         if (modelDir == null) {
             materialList.add(new Material());
         } else {
             for (int i = 0; i < numMaterials; i++) {
                 final AIMaterial aiMaterial = AIMaterial.create(aiMaterials.get(i));
-                final Material material = ModelLoader.processMaterial(aiMaterial, modelDir, textureCache);
-                materialCache.addMaterial(material);
-                materialList.add(material);
+                materialList.add(ModelLoader.processMaterial(aiMaterial, modelDir, texturePaths));
             }
         }
         final int numMeshes = aiScene.mNumMeshes();
@@ -207,17 +330,15 @@ public class ModelLoader {
             ));
         }
         final List<MeshData> meshDataList = new ArrayList<>();
+        final int[] meshMaterials = new int[numMeshes];
         final List<Bone> boneList = new ArrayList<>();
         for (int i = 0; i < numMeshes; i++) {
             final AIMesh aiMesh = AIMesh.create(aiMeshes.get(i));
             final MeshData meshData = ModelLoader.processMesh(aiMesh, boneList);
-            final int materialIdx = aiMesh.mMaterialIndex();
-            if (materialIdx >= 0 && materialIdx < materialList.size()) {
-                meshData.setMaterialIdx(materialList.get(materialIdx).getMaterialIdx());
-            } else {
-                meshData.setMaterialIdx(MaterialCache.DEFAULT_MATERIAL_IDX);
-            }
-            meshDataList.add(meshData);
+            meshDataList.add((options & MeshCache.OPTIMISED) != 0
+                    ? MeshOptimiser.optimise(meshData, modelId + " mesh " + i)
+                    : meshData);
+            meshMaterials[i] = aiMesh.mMaterialIndex();
         }
 
         List<Animation> animations = new ArrayList<>();
@@ -229,80 +350,27 @@ public class ModelLoader {
             }
             final Node rootNode = ModelLoader.buildNodesTree(sceneRootNode, null);
             final Matrix4f globalInverseTransformation = ModelLoader.toMatrix(sceneRootNode.mTransformation()).invert();
-            animations = ModelLoader.processAnimations(aiScene, boneList, rootNode, globalInverseTransformation);
+            final Skeleton skeleton = Skeleton.flatten(rootNode, boneList, globalInverseTransformation);
+            animations = (options & MeshCache.KEYFRAMED) != 0
+                    ? ModelLoader.processAnimationClips(modelId, aiScene, skeleton)
+                    : AnimationBaker.bake(modelId, aiScene, skeleton);
+            PoseBounds.expand(meshDataList, animations);
         }
 
         aiReleaseImport(aiScene);
 
-        return new Model(
+        return new ImportedModel(
                 modelId,
                 modelPath,
+                materialList,
+                modelDir != null,
                 meshDataList,
-                animations
+                meshMaterials,
+                animations,
+                texturePaths
         );
     }
 
-    private static void buildFrameMatrices(final AIAnimation aiAnimation,
-                                           final List<Bone> boneList,
-                                           final AnimatedFrame animatedFrame,
-                                           final int frame,
-                                           final Node node,
-                                           final Matrix4f parentTransformation,
-                                           final Matrix4f globalInverseTransform) {
-        final String nodeName = node.getName();
-        final AINodeAnim aiNodeAnim = ModelLoader.findAIAnimNode(aiAnimation, nodeName);
-        Matrix4f nodeTransform = node.getNodeTransformation();
-        if (aiNodeAnim != null) {
-            nodeTransform = ModelLoader.buildNodeTransformationMatrix(aiNodeAnim, frame);
-        }
-        final Matrix4f nodeGlobalTransform = new Matrix4f(parentTransformation).mul(nodeTransform);
-
-        final List<Bone> affectedBones = boneList.stream().filter(b -> b.boneName().equals(nodeName)).toList();
-        for (final Bone bone : affectedBones) {
-            final Matrix4f boneTransform = new Matrix4f(globalInverseTransform).mul(nodeGlobalTransform).
-                    mul(bone.offsetMatrix());
-            animatedFrame.getBoneMatrices()[bone.boneId()] = boneTransform;
-        }
-
-        for (final Node childNode : node.getChildren()) {
-            ModelLoader.buildFrameMatrices(aiAnimation, boneList, animatedFrame, frame, childNode, nodeGlobalTransform,
-                    globalInverseTransform);
-        }
-    }
-
-    private static Matrix4f buildNodeTransformationMatrix(final AINodeAnim aiNodeAnim,
-                                                          final int frame) {
-        final AIVectorKey.Buffer positionKeys = aiNodeAnim.mPositionKeys();
-        final AIVectorKey.Buffer scalingKeys = aiNodeAnim.mScalingKeys();
-        final AIQuatKey.Buffer rotationKeys = aiNodeAnim.mRotationKeys();
-
-        AIVectorKey aiVecKey;
-        AIVector3D vec;
-
-        final Matrix4f nodeTransform = new Matrix4f();
-        final int numPositions = aiNodeAnim.mNumPositionKeys();
-        if (numPositions > 0) {
-            aiVecKey = positionKeys.get(Math.min(numPositions - 1, frame));
-            vec = aiVecKey.mValue();
-            nodeTransform.translate(vec.x(), vec.y(), vec.z());
-        }
-        final int numRotations = aiNodeAnim.mNumRotationKeys();
-        if (numRotations > 0) {
-            final AIQuatKey quatKey = rotationKeys.get(Math.min(numRotations - 1, frame));
-            final AIQuaternion aiQuat = quatKey.mValue();
-            final Quaternionf quat = new Quaternionf(aiQuat.x(), aiQuat.y(), aiQuat.z(), aiQuat.w());
-            nodeTransform.rotate(quat);
-        }
-        final int numScalingKeys = aiNodeAnim.mNumScalingKeys();
-        if (numScalingKeys > 0) {
-            aiVecKey = scalingKeys.get(Math.min(numScalingKeys - 1, frame));
-            vec = aiVecKey.mValue();
-            nodeTransform.scale(vec.x(), vec.y(), vec.z());
-        }
-
-        return nodeTransform;
-    }
-
     private static Node buildNodesTree(final AINode aiNode,
                                        final Node parentNode) {
         final String nodeName = aiNode.mName().dataString();
@@ -318,7 +386,7 @@ public class ModelLoader {
         return node;
     }
 
-    private static int calcAnimationMaxFrames(final AIAnimation aiAnimation) {
+    static int calcAnimationMaxFrames(final AIAnimation aiAnimation) {
         int maxFrames = 0;
         final int numNodeAnims = aiAnimation.mNumChannels();
         final PointerBuffer aiChannels = aiAnimation.mChannels();
@@ -332,47 +400,103 @@ public class ModelLoader {
         return maxFrames;
     }
 
-    private static AINodeAnim findAIAnimNode(final AIAnimation aiAnimation,
-                                             final String nodeName) {
-        AINodeAnim result = null;
-        final int numAnimNodes = aiAnimation.mNumChannels();
-        final PointerBuffer aiChannels = aiAnimation.mChannels();
-        for (int i = 0; i < numAnimNodes; i++) {
-            final AINodeAnim aiNodeAnim = AINodeAnim.create(aiChannels.get(i));
-            if (nodeName.equals(aiNodeAnim.mNodeName().dataString())) {
-                result = aiNodeAnim;
-                break;
-            }
-        }
-        return result;
-    }
-
-    private static List<Animation> processAnimations(final AIScene aiScene,
-                                                     final List<Bone> boneList,
-                                                     final Node rootNode,
-                                                     final Matrix4f globalInverseTransformation) {
+    private static List<Animation> processAnimationClips(final String modelId,
+                                                         final AIScene aiScene,
+                                                         final Skeleton skeleton) {
         final List<Animation> animations = new ArrayList<>();
-        // Process all animations
         final int numAnimations = aiScene.mNumAnimations();
         final PointerBuffer aiAnimations = aiScene.mAnimations();
         for (int i = 0; i < numAnimations; i++) {
             final AIAnimation aiAnimation = AIAnimation.create(aiAnimations.get(i));
-            final int maxFrames = ModelLoader.calcAnimationMaxFrames(aiAnimation);
-            final List<AnimatedFrame> frames = new ArrayList<>();
-            final Animation animation = new Animation(aiAnimation.mName().dataString(), aiAnimation.mDuration(), frames);
-            animations.add(animation);
-            for (int j = 0; j < maxFrames; j++) {
-                final Matrix4f[] boneMatrices = new Matrix4f[ModelLoader.MAX_BONES];
-                Arrays.fill(boneMatrices, ModelLoader.IDENTITY_MATRIX);
-                final AnimatedFrame animatedFrame = new AnimatedFrame(boneMatrices);
-                ModelLoader.buildFrameMatrices(aiAnimation, boneList, animatedFrame, j, rootNode,
-                        rootNode.getNodeTransformation(), globalInverseTransformation);
-                frames.add(animatedFrame);
+            final int nodeCount = skeleton.getNodeCount();
+            final VectorTrack[] translations = new VectorTrack[nodeCount];
+            final QuaternionTrack[] rotations = new QuaternionTrack[nodeCount];
+            final VectorTrack[] scales = new VectorTrack[nodeCount];
+            final int numChannels = aiAnimation.mNumChannels();
+            final PointerBuffer aiChannels = aiAnimation.mChannels();
+            int sourceKeys = 0;
+            for (int j = 0; j < numChannels; j++) {
+                final AINodeAnim aiNodeAnim = AINodeAnim.create(aiChannels.get(j));
+                final int node = skeleton.getNodeIndex(aiNodeAnim.mNodeName().dataString());
+                if (node == Skeleton.NO_PARENT) {
+                    continue;
+                }
+                sourceKeys += aiNodeAnim.mNumPositionKeys() + aiNodeAnim.mNumRotationKeys() + aiNodeAnim.mNumScalingKeys();
+                translations[node] = ModelLoader.processVectorKeys(
+                        aiNodeAnim.mPositionKeys(),
+                        aiNodeAnim.mNumPositionKeys(),
+                        ModelLoader.TRANSLATION_TOLERANCE
+                );
+                rotations[node] = ModelLoader.processRotationKeys(
+                        aiNodeAnim.mRotationKeys(),
+                        aiNodeAnim.mNumRotationKeys()
+                );
+                scales[node] = ModelLoader.processVectorKeys(
+                        aiNodeAnim.mScalingKeys(),
+                        aiNodeAnim.mNumScalingKeys(),
+                        ModelLoader.SCALE_TOLERANCE
+                );
             }
+            final AnimationClip clip = new AnimationClip(
+                    skeleton,
+                    (float) aiAnimation.mDuration(),
+                    (float) aiAnimation.mTicksPerSecond(),
+                    translations,
+                    rotations,
+                    scales
+            );
+            final String name = aiAnimation.mName().dataString();
+            ModelLoader.LOGGER.info(
+                    "[ANIMATION] {} clip {}: {} source keys, {} bytes of keyframes, {} bytes if baked",
+                    modelId,
+                    name,
+                    sourceKeys,
+                    clip.getSizeInBytes(),
+                    (long) ModelLoader.calcAnimationMaxFrames(aiAnimation) * ModelLoader.MAX_BONES * 16 * Float.BYTES
+            );
+            animations.add(new Animation(name, aiAnimation.mDuration(), new ArrayList<>(), clip));
         }
         return animations;
     }
 
+    private static VectorTrack processVectorKeys(final AIVectorKey.Buffer keys,
+                                                 final int numKeys,
+                                                 final float tolerance) {
+        if (keys == null || numKeys == 0) {
+            return null;
+        }
+        final float[] times = new float[numKeys];
+        final float[] values = new float[numKeys * 3];
+        for (int i = 0; i < numKeys; i++) {
+            final AIVectorKey key = keys.get(i);
+            final AIVector3D value = key.mValue();
+            times[i] = (float) key.mTime();
+            values[i * 3] = value.x();
+            values[(i * 3) + 1] = value.y();
+            values[(i * 3) + 2] = value.z();
+        }
+        return VectorTrack.fit(times, values, tolerance);
+    }
+
+    private static QuaternionTrack processRotationKeys(final AIQuatKey.Buffer keys,
+                                                      final int numKeys) {
+        if (keys == null || numKeys == 0) {
+            return null;
+        }
+        final float[] times = new float[numKeys];
+        final float[] values = new float[numKeys * 4];
+        for (int i = 0; i < numKeys; i++) {
+            final AIQuatKey key = keys.get(i);
+            final AIQuaternion value = key.mValue();
+            times[i] = (float) key.mTime();
+            values[i * 4] = value.x();
+            values[(i * 4) + 1] = value.y();
+            values[(i * 4) + 2] = value.z();
+            values[(i * 4) + 3] = value.w();
+        }
+        return QuaternionTrack.fit(times, values, ModelLoader.ROTATION_TOLERANCE);
+    }
+
     private static float[] processBiTangents(final AIMesh aiMesh, final float[] normals) {
         final AIVector3D.Buffer buffer = aiMesh.mBitangents();
         if (buffer == null) {
@@ -452,7 +576,7 @@ public class ModelLoader {
 
     private static Material processMaterial(final AIMaterial aiMaterial,
                                             final String modelDir,
-                                            final TextureCache textureCache) {
+                                            final Set<String> texturePaths) {
         final Material material = new Material();
         try (final MemoryStack stack = MemoryStack.stackPush()) {
             final AIColor4D color = AIColor4D.create();
@@ -517,7 +641,7 @@ public class ModelLoader {
             final String texturePath = aiTexturePath.dataString();
             if (texturePath != null && texturePath.length() > 0) {
                 material.setTexturePath(modelDir + File.separator + new File(texturePath).getPath());
-                textureCache.createTexture(material.getTexturePath());
+                texturePaths.add(material.getTexturePath());
                 material.setDiffuseColor(Material.DEFAULT_COLOR);
             }
             final AIString aiNormalMapPath = AIString.calloc(stack);
@@ -536,7 +660,7 @@ public class ModelLoader {
             final String normalMapPath = aiNormalMapPath.dataString();
             if (normalMapPath != null && normalMapPath.length() > 0) {
                 material.setNormalMapPath(modelDir + File.separator + new File(normalMapPath).getName());
-                textureCache.createTexture(material.getNormalMapPath());
+                texturePaths.add(material.getNormalMapPath());
             }
             return material;
         }
@@ -659,4 +783,18 @@ public class ModelLoader {
         return result;
     }
 
+    /**
+     * Result of importing a model, with materials not yet registered in a
+     * {@link MaterialCache} and textures not yet created.
+     */
+    record ImportedModel(String modelId,
+                         String modelPath,
+                         List<Material> materials,
+                         boolean registerMaterials,
+                         List<MeshData> meshData,
+                         int[] meshMaterials,
+                         List<Animation> animations,
+                         Set<String> texturePaths) {
+    }
+
 }
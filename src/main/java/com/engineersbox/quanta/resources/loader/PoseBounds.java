@@ -0,0 +1,203 @@
+package com.engineersbox.quanta.resources.loader;
+
+import com.engineersbox.quanta.resources.assets.object.Mesh;
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+import com.engineersbox.quanta.resources.assets.object.animation.AnimatedFrame;
+import com.engineersbox.quanta.resources.assets.object.animation.Animation;
+import com.engineersbox.quanta.resources.assets.object.animation.AnimationClip;
+import com.engineersbox.quanta.resources.assets.object.animation.PoseSampler;
+import com.engineersbox.quanta.resources.assets.object.animation.QuaternionTrack;
+import com.engineersbox.quanta.resources.assets.object.animation.VectorTrack;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Widens the bounds of skinned meshes to enclose every pose of the model's
+ * animations, so culling against them never rejects a visible pose. A
+ * skinned vertex is a weighted average of its bind position transformed by
+ * each of its bones, so it lies within the union of those bones' bind pose
+ * bounds, each transformed by its bone. Those per bone bounds are taken once
+ * from the bind pose and transformed by every baked frame, or by the pose at
+ * every key time of a keyframed clip.
+ */
+final class PoseBounds {
+
+    private PoseBounds() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Bind pose bounds of the vertices each bone of a mesh influences, six
+     * floats per bone id. Bones influencing none are not {@code used}.
+     */
+    private record BoneBounds(MeshData meshData,
+                              float[] bounds,
+                              boolean[] used) {
+    }
+
+    static void expand(final List<MeshData> meshDataList,
+                       final List<Animation> animations) {
+        if (animations.isEmpty()) {
+            return;
+        }
+        final List<BoneBounds> boneBoundsList = new ArrayList<>();
+        for (final MeshData meshData : meshDataList) {
+            if (meshData.getAabbMin() != null
+                && meshData.getAabbMax() != null
+                && meshData.getWeights() != null
+                && meshData.getWeights().length > 0) {
+                boneBoundsList.add(PoseBounds.boneBounds(meshData));
+            }
+        }
+        if (boneBoundsList.isEmpty()) {
+            return;
+        }
+        final Vector3f min = new Vector3f();
+        final Vector3f max = new Vector3f();
+        for (final Animation animation : animations) {
+            if (animation.isKeyframed()) {
+                PoseBounds.includeClip(animation.clip(), boneBoundsList, min, max);
+                continue;
+            }
+            for (final AnimatedFrame frame : animation.frames()) {
+                PoseBounds.includePose(frame.getBoneMatrices(), boneBoundsList, min, max);
+            }
+        }
+    }
+
+    private static BoneBounds boneBounds(final MeshData meshData) {
+        final float[] positions = meshData.getPositions();
+        final float[] weights = meshData.getWeights();
+        final int[] boneIndices = meshData.getBoneIndices();
+        int boneCount = 0;
+        for (final int boneIndex : boneIndices) {
+            boneCount = Math.max(boneCount, boneIndex + 1);
+        }
+        final float[] bounds = new float[boneCount * 6];
+        final boolean[] used = new boolean[boneCount];
+        for (int bone = 0; bone < boneCount; bone++) {
+            Arrays.fill(bounds, bone * 6, (bone * 6) + 3, Float.POSITIVE_INFINITY);
+            Arrays.fill(bounds, (bone * 6) + 3, (bone * 6) + 6, Float.NEGATIVE_INFINITY);
+        }
+        final int vertexCount = positions.length / 3;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            for (int i = 0; i < Mesh.MAX_WEIGHTS; i++) {
+                final int weightIdx = (vertex * Mesh.MAX_WEIGHTS) + i;
+                if (weights[weightIdx] <= 0) {
+                    continue;
+                }
+                final int base = boneIndices[weightIdx] * 6;
+                used[boneIndices[weightIdx]] = true;
+                for (int axis = 0; axis < 3; axis++) {
+                    final float value = positions[(vertex * 3) + axis];
+                    bounds[base + axis] = Math.min(bounds[base + axis], value);
+                    bounds[base + 3 + axis] = Math.max(bounds[base + 3 + axis], value);
+                }
+            }
+        }
+        return new BoneBounds(meshData, bounds, used);
+    }
+
+    private static void includePose(final Matrix4f[] boneMatrices,
+                                    final List<BoneBounds> boneBoundsList,
+                                    final Vector3f min,
+                                    final Vector3f max) {
+        for (final BoneBounds boneBounds : boneBoundsList) {
+            final float[] bounds = boneBounds.bounds();
+            final boolean[] used = boneBounds.used();
+            final int boneCount = Math.min(used.length, boneMatrices.length);
+            for (int bone = 0; bone < boneCount; bone++) {
+                if (!used[bone]) {
+                    continue;
+                }
+                final int base = bone * 6;
+                boneMatrices[bone].transformAab(
+                        bounds[base], bounds[base + 1], bounds[base + 2],
+                        bounds[base + 3], bounds[base + 4], bounds[base + 5],
+                        min,
+                        max
+                );
+                boneBounds.meshData().getAabbMin().min(min);
+                boneBounds.meshData().getAabbMax().max(max);
+            }
+        }
+    }
+
+    private static void includeClip(final AnimationClip clip,
+                                    final List<BoneBounds> boneBoundsList,
+                                    final Vector3f min,
+                                    final Vector3f max) {
+        final int paletteSize = clip.getSkeleton().getPaletteSize();
+        final Matrix4f[] boneMatrices = new Matrix4f[paletteSize];
+        for (int i = 0; i < paletteSize; i++) {
+            boneMatrices[i] = new Matrix4f();
+        }
+        final PoseSampler sampler = new PoseSampler();
+        final ByteBuffer palette = MemoryUtil.memCalloc(paletteSize * PoseSampler.MATRIX_SIZE);
+        try {
+            for (final float ticks : PoseBounds.keyTimes(clip)) {
+                sampler.sample(clip, ticks / clip.getTicksPerSecond(), palette, 0);
+                for (int i = 0; i < paletteSize; i++) {
+                    boneMatrices[i].set(i * PoseSampler.MATRIX_SIZE, palette);
+                }
+                PoseBounds.includePose(boneMatrices, boneBoundsList, min, max);
+            }
+        } finally {
+            MemoryUtil.memFree(palette);
+        }
+    }
+
+    /**
+     * @return Distinct times of every key of the clip, in ticks
+     */
+    private static float[] keyTimes(final AnimationClip clip) {
+        final int nodeCount = clip.getSkeleton().getNodeCount();
+        int keyCount = 1;
+        for (int node = 0; node < nodeCount; node++) {
+            keyCount += PoseBounds.length(clip.getTranslation(node))
+                    + PoseBounds.length(clip.getRotation(node))
+                    + PoseBounds.length(clip.getScale(node));
+        }
+        final float[] times = new float[keyCount];
+        int count = 0;
+        times[count++] = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            count = PoseBounds.append(times, count, clip.getTranslation(node) == null ? null : clip.getTranslation(node).times());
+            count = PoseBounds.append(times, count, clip.getRotation(node) == null ? null : clip.getRotation(node).times());
+            count = PoseBounds.append(times, count, clip.getScale(node) == null ? null : clip.getScale(node).times());
+        }
+        Arrays.sort(times, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || times[i] != times[distinct - 1]) {
+                times[distinct++] = times[i];
+            }
+        }
+        return Arrays.copyOf(times, distinct);
+    }
+
+    private static int length(final VectorTrack track) {
+        return track == null ? 0 : track.getKeyCount();
+    }
+
+    private static int length(final QuaternionTrack track) {
+        return track == null ? 0 : track.getKeyCount();
+    }
+
+    private static int append(final float[] dest,
+                              final int count,
+                              final float[] times) {
+        if (times == null) {
+            return count;
+        }
+        System.arraycopy(times, 0, dest, count, times.length);
+        return count + times.length;
+    }
+
+}
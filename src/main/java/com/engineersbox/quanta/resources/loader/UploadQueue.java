@@ -0,0 +1,58 @@
+package com.engineersbox.quanta.resources.loader;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Work that must run on the thread owning the GL context, submitted from any
+ * thread and drained by the render loop a bounded amount at a time.
+ */
+public class UploadQueue {
+
+    private final Queue<Runnable> tasks;
+
+    public UploadQueue() {
+        this.tasks = new ConcurrentLinkedQueue<>();
+    }
+
+    public <T> CompletableFuture<T> submit(final Supplier<T> task) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        this.tasks.add(() -> {
+            try {
+                future.complete(task.get());
+            } catch (final RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Runs queued tasks until the queue is empty or the budget is spent. At
+     * least one task is run per call so that progress is always made, even
+     * when a single upload exceeds the budget.
+     *
+     * @param budgetNanos Time budget for this call in nanoseconds
+     * @return Number of tasks run
+     */
+    public int drain(final long budgetNanos) {
+        final long start = System.nanoTime();
+        int executed = 0;
+        Runnable task;
+        while ((task = this.tasks.poll()) != null) {
+            task.run();
+            executed++;
+            if (System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+        return executed;
+    }
+
+    public int size() {
+        return this.tasks.size();
+    }
+
+}
@@ -22,6 +22,8 @@ public class Entity {
     private float scale;
     private AnimationData animationData;
     private boolean selected;
+    private boolean transformDirty;
+    private int modelMatrixVersion;
 
     public Entity(final String id,
                   final String modelId) {
@@ -32,6 +34,8 @@ public class Entity {
         this.rotation = new Quaternionf();
         this.scale = 1;
         this.selected = false;
+        this.transformDirty = false;
+        this.modelMatrixVersion = 0;
     }
 
     @JsonCreator
@@ -49,6 +53,8 @@ public class Entity {
         this.rotation = rotation;
         this.scale = scale;
         this.selected = selected;
+        this.transformDirty = false;
+        this.modelMatrixVersion = 0;
     }
 
     @JsonProperty("id")
@@ -93,6 +99,7 @@ public class Entity {
         this.position.x = x;
         this.position.y = y;
         this.position.z = z;
+        this.transformDirty = true;
     }
 
     public void setPosition(final Vector3f pos) {
@@ -101,10 +108,35 @@ public class Entity {
 
     public void setRotation(final float x, final float y, final float z, final float angle) {
         this.rotation.fromAxisAngleRad(x, y, z, angle);
+        this.transformDirty = true;
     }
 
     public void setScale(final float scale) {
         this.scale = scale;
+        this.transformDirty = true;
+    }
+
+    /**
+     * Flags the transform as changed after mutating the vectors returned by
+     * {@link #getPosition()} or {@link #getRotation()} directly, so the next
+     * {@link Scene#updateModelMatrices()} pass picks it up.
+     */
+    public void markTransformDirty() {
+        this.transformDirty = true;
+    }
+
+    @JsonIgnore
+    public boolean isTransformDirty() {
+        return this.transformDirty;
+    }
+
+    /**
+     * Incremented every time the model matrix changes, allowing GPU side
+     * copies to detect stale entries without rewriting every matrix.
+     */
+    @JsonIgnore
+    public int getModelMatrixVersion() {
+        return this.modelMatrixVersion;
     }
 
     public void updateModelMatrix() {
@@ -113,6 +145,8 @@ public class Entity {
                 this.rotation,
                 this.scale
         );
+        this.transformDirty = false;
+        this.modelMatrixVersion++;
     }
 
     @JsonIgnore
@@ -134,12 +168,11 @@ public class Entity {
         this.rotation.set(other.rotation);
         this.modelMatrix.set(other.modelMatrix);
         this.scale = other.scale;
+        this.transformDirty = other.transformDirty;
+        this.modelMatrixVersion++;
         final AnimationData otherAnimationData = other.getAnimationData();
         if (otherAnimationData != null) {
-            this.animationData = new AnimationData(
-                    otherAnimationData.getCurrentAnimation(),
-                    otherAnimationData.getCurrentFrameIdx()
-            );
+            this.animationData = new AnimationData(otherAnimationData);
         }
     }
 
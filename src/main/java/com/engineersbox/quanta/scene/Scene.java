@@ -9,6 +9,7 @@ import com.engineersbox.quanta.resources.assets.object.Model;
 import com.engineersbox.quanta.resources.assets.object.serialization.ModelDeserializer;
 import com.engineersbox.quanta.scene.atmosphere.Fog;
 import com.engineersbox.quanta.scene.lighting.SceneLights;
+import com.engineersbox.quanta.scene.serialization.BinarySceneCodec;
 import com.engineersbox.quanta.scene.serialization.SceneDeserializer;
 import com.engineersbox.quanta.utils.serialization.SerializationUtils;
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -22,19 +23,26 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @JsonDeserialize(using = SceneDeserializer.class)
 public class Scene {
 
     private static final Logger LOGGER = LogManager.getLogger(Scene.class);
+    private static final int PARALLEL_MATRIX_UPDATE_THRESHOLD = 1024;
 
     private final Map<String, Model> models;
     private final Projection projection;
     private final TextureCache textureCache;
     private final MaterialCache materialCache;
     private final Camera camera;
+    private final List<Model> addedModels;
+    private final List<Model> removedModels;
+    private boolean entitiesChanged;
     private IGUIInstance guiInstance;
     private SceneLights sceneLights;
     private SkyBox skyBox;
@@ -48,6 +56,9 @@ public class Scene {
         this.materialCache = new MaterialCache();
         this.camera = new Camera();
         this.fog = new Fog();
+        this.addedModels = new ArrayList<>();
+        this.removedModels = new ArrayList<>();
+        this.entitiesChanged = false;
     }
 
     public void addEntity(final Entity entity) {
@@ -57,10 +68,82 @@ public class Scene {
             throw new RuntimeException("No such model: " + modelId);
         }
         model.getEntities().add(entity);
+        this.entitiesChanged = true;
+    }
+
+    public void removeEntity(final Entity entity) {
+        final Model model = this.models.get(entity.getModelId());
+        if (model == null || !model.getEntities().remove(entity)) {
+            throw new RuntimeException("No such entity: " + entity.getId());
+        }
+        this.entitiesChanged = true;
     }
 
     public void addModel(final Model model) {
-        this.models.put(model.getId(), model);
+        final Model previous = this.models.put(model.getId(), model);
+        if (previous != null && previous != model) {
+            recordRemovedModel(previous);
+        }
+        this.addedModels.add(model);
+        if (!model.getEntities().isEmpty()) {
+            this.entitiesChanged = true;
+        }
+    }
+
+    public Model removeModel(final String modelId) {
+        final Model model = this.models.remove(modelId);
+        if (model == null) {
+            throw new RuntimeException("No such model: " + modelId);
+        }
+        recordRemovedModel(model);
+        return model;
+    }
+
+    private void recordRemovedModel(final Model model) {
+        if (!this.addedModels.remove(model)) {
+            this.removedModels.add(model);
+        }
+        if (!model.getEntities().isEmpty()) {
+            this.entitiesChanged = true;
+        }
+    }
+
+    /**
+     * Collects the models and entities added or removed since the last call,
+     * allowing the renderer to stream them into its buffers incrementally
+     * instead of rebuilding all scene data.
+     */
+    public SceneChanges drainChanges() {
+        final SceneChanges changes = new SceneChanges(
+                List.copyOf(this.addedModels),
+                List.copyOf(this.removedModels),
+                this.entitiesChanged
+        );
+        this.addedModels.clear();
+        this.removedModels.clear();
+        this.entitiesChanged = false;
+        return changes;
+    }
+
+    /**
+     * Recomputes the model matrices of entities whose transform changed since
+     * their last update, leaving static entities untouched. Large batches are
+     * recomputed in parallel.
+     */
+    public void updateModelMatrices() {
+        final List<Entity> dirtyEntities = this.models.values()
+                .stream()
+                .flatMap((final Model model) -> model.getEntities().stream())
+                .filter(Entity::isTransformDirty)
+                .toList();
+        if (dirtyEntities.size() >= Scene.PARALLEL_MATRIX_UPDATE_THRESHOLD) {
+            dirtyEntities.parallelStream().forEach(Entity::updateModelMatrix);
+        } else {
+            dirtyEntities.forEach(Entity::updateModelMatrix);
+        }
+        if (this.skyBox != null && this.skyBox.getEntity().isTransformDirty()) {
+            this.skyBox.getEntity().updateModelMatrix();
+        }
     }
 
     @JsonProperty("models")
@@ -132,10 +215,14 @@ public class Scene {
         try {
             Scene.LOGGER.info("Started serializing scene {} to {}", this, filePath);
             final long start = System.currentTimeMillis();
-            SerializationUtils.OBJECT_MAPPER.writeValue(
-                    new File(filePath),
-                    this
-            );
+            if (BinarySceneCodec.isBinarySnapshot(filePath)) {
+                BinarySceneCodec.write(this, Path.of(filePath));
+            } else {
+                SerializationUtils.OBJECT_MAPPER.writeValue(
+                        new File(filePath),
+                        this
+                );
+            }
             final long end = System.currentTimeMillis();
             Scene.LOGGER.info(
                     "Finished serializing scene {} to {}, took {}ms",
@@ -156,8 +243,9 @@ public class Scene {
         try {
             Scene.LOGGER.info("Started deserializing scene from {}", filePath);
             final long start = System.currentTimeMillis();
-            final Scene scene = SerializationUtils.OBJECT_MAPPER.readerFor(Scene.class)
-                    .readValue(new File(filePath));
+            final Scene scene = BinarySceneCodec.isBinarySnapshot(filePath)
+                    ? BinarySceneCodec.read(Path.of(filePath), 0, 0)
+                    : SerializationUtils.OBJECT_MAPPER.readerFor(Scene.class).readValue(new File(filePath));
             final long end = System.currentTimeMillis();
             Scene.LOGGER.info(
                     "Finished deserializing scene from {} to {}, took {}ms",
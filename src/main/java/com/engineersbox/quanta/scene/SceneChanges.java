@@ -0,0 +1,17 @@
+package com.engineersbox.quanta.scene;
+
+import com.engineersbox.quanta.resources.assets.object.Model;
+
+import java.util.List;
+
+public record SceneChanges(List<Model> addedModels,
+                           List<Model> removedModels,
+                           boolean entitiesChanged) {
+
+    public boolean isEmpty() {
+        return this.addedModels.isEmpty()
+                && this.removedModels.isEmpty()
+                && !this.entitiesChanged;
+    }
+
+}
@@ -0,0 +1,337 @@
+package com.engineersbox.quanta.scene.serialization;
+
+import com.engineersbox.quanta.rendering.view.Camera;
+import com.engineersbox.quanta.rendering.view.Projection;
+import com.engineersbox.quanta.resources.assets.object.Model;
+import com.engineersbox.quanta.resources.assets.object.animation.Animation;
+import com.engineersbox.quanta.resources.assets.object.animation.AnimationData;
+import com.engineersbox.quanta.scene.Entity;
+import com.engineersbox.quanta.scene.Scene;
+import com.engineersbox.quanta.scene.SkyBox;
+import com.engineersbox.quanta.scene.atmosphere.Fog;
+import com.engineersbox.quanta.scene.lighting.AmbientLight;
+import com.engineersbox.quanta.scene.lighting.Attenuation;
+import com.engineersbox.quanta.scene.lighting.DirectionalLight;
+import com.engineersbox.quanta.scene.lighting.PointLight;
+import com.engineersbox.quanta.scene.lighting.SceneLights;
+import com.engineersbox.quanta.scene.lighting.SpotLight;
+import com.engineersbox.quanta.utils.serialization.BinaryChannelReader;
+import com.engineersbox.quanta.utils.serialization.BinaryChannelWriter;
+import com.engineersbox.quanta.utils.serialization.SerializationUtils;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versioned binary scene snapshot format, streamed over NIO channels. A
+ * snapshot is a header followed by tagged, length prefixed chunks for the
+ * projection, camera, lights, fog, skybox and one per model, so readers can
+ * skip chunks they do not recognise. Model chunks hold the model descriptor
+ * (type, path and any subclass specific parameters) as JSON, resolved through
+ * the same deserializers as the JSON scene format, followed by its entities in
+ * binary form.
+ */
+public class BinarySceneCodec {
+
+    public static final String EXTENSION = ".qscn";
+    private static final int MAGIC = 0x4E435351; // "QSCN"
+    private static final int VERSION = 1;
+    private static final int NO_ANIMATION = -1;
+
+    private static final int CHUNK_PROJECTION = 0x4A4F5250; // "PROJ"
+    private static final int CHUNK_CAMERA = 0x524D4143; // "CAMR"
+    private static final int CHUNK_LIGHTS = 0x5448474C; // "LGHT"
+    private static final int CHUNK_FOG = 0x5F474F46; // "FOG_"
+    private static final int CHUNK_SKYBOX = 0x42594B53; // "SKYB"
+    private static final int CHUNK_MODEL = 0x4C444F4D; // "MODL"
+    private static final int CHUNK_END = 0x5F444E45; // "END_"
+
+    private static final ObjectMapper DESCRIPTOR_MAPPER = SerializationUtils.OBJECT_MAPPER.copy()
+            .addMixIn(Model.class, ModelDescriptorMixIn.class);
+
+    private abstract static class ModelDescriptorMixIn {
+        @JsonIgnore
+        abstract List<Entity> getEntities();
+    }
+
+    private BinarySceneCodec() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static boolean isBinarySnapshot(final String filePath) {
+        return filePath.endsWith(BinarySceneCodec.EXTENSION);
+    }
+
+    public static void write(final Scene scene,
+                             final Path path) throws IOException {
+        try (final FileChannel channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        ); final BinaryChannelWriter writer = new BinaryChannelWriter(channel)) {
+            writer.putInt(BinarySceneCodec.MAGIC);
+            writer.putInt(BinarySceneCodec.VERSION);
+
+            long chunk = writer.beginChunk(BinarySceneCodec.CHUNK_PROJECTION);
+            writer.putMatrix4f(scene.getProjection().getProjectionMatrix());
+            writer.putMatrix4f(scene.getProjection().getInverseProjectionMatrix());
+            writer.endChunk(chunk);
+
+            chunk = writer.beginChunk(BinarySceneCodec.CHUNK_CAMERA);
+            final Camera camera = scene.getCamera();
+            writer.putVector3f(camera.getPosition());
+            writer.putVector3f(camera.getRotation());
+            writer.putMatrix4f(camera.getViewMatrix());
+            writer.putMatrix4f(camera.getInverseViewMatrix());
+            writer.endChunk(chunk);
+
+            if (scene.getSceneLights() != null) {
+                chunk = writer.beginChunk(BinarySceneCodec.CHUNK_LIGHTS);
+                BinarySceneCodec.writeLights(writer, scene.getSceneLights());
+                writer.endChunk(chunk);
+            }
+            if (scene.getFog() != null) {
+                chunk = writer.beginChunk(BinarySceneCodec.CHUNK_FOG);
+                final Fog fog = scene.getFog();
+                writer.putBoolean(fog.isActive());
+                writer.putVector3f(fog.getColor());
+                writer.putFloat(fog.getDensity());
+                writer.endChunk(chunk);
+            }
+            if (scene.getSkyBox() != null) {
+                chunk = writer.beginChunk(BinarySceneCodec.CHUNK_SKYBOX);
+                writer.putString(scene.getSkyBox().getModel().getPath());
+                BinarySceneCodec.writeEntity(writer, scene.getSkyBox().getEntity(), null);
+                writer.endChunk(chunk);
+            }
+            for (final Model model : scene.getModels().values()) {
+                chunk = writer.beginChunk(BinarySceneCodec.CHUNK_MODEL);
+                writer.putString(BinarySceneCodec.DESCRIPTOR_MAPPER.writeValueAsString(model));
+                writer.putInt(model.getEntities().size());
+                for (final Entity entity : model.getEntities()) {
+                    BinarySceneCodec.writeEntity(writer, entity, model.getAnimations());
+                }
+                writer.endChunk(chunk);
+            }
+            writer.putInt(BinarySceneCodec.CHUNK_END);
+        }
+    }
+
+    private static void writeLights(final BinaryChannelWriter writer,
+                                    final SceneLights sceneLights) throws IOException {
+        final AmbientLight ambientLight = sceneLights.getAmbientLight();
+        writer.putFloat(ambientLight.getIntensity());
+        writer.putVector3f(ambientLight.getColor());
+        final DirectionalLight directionalLight = sceneLights.getDirectionalLight();
+        writer.putVector3f(directionalLight.getColor());
+        writer.putVector3f(directionalLight.getDirection());
+        writer.putFloat(directionalLight.getIntensity());
+        writer.putInt(sceneLights.getPointLights().size());
+        for (final PointLight pointLight : sceneLights.getPointLights()) {
+            BinarySceneCodec.writePointLight(writer, pointLight);
+        }
+        writer.putInt(sceneLights.getSpotLights().size());
+        for (final SpotLight spotLight : sceneLights.getSpotLights()) {
+            BinarySceneCodec.writePointLight(writer, spotLight.getPointLight());
+            writer.putVector3f(spotLight.getConeDirection());
+            writer.putFloat(spotLight.getCutOffAngle());
+        }
+    }
+
+    private static void writePointLight(final BinaryChannelWriter writer,
+                                        final PointLight pointLight) throws IOException {
+        writer.putVector3f(pointLight.getColor());
+        writer.putVector3f(pointLight.getPosition());
+        writer.putFloat(pointLight.getIntensity());
+        final Attenuation attenuation = pointLight.getAttenuation();
+        writer.putFloat(attenuation.getConstant());
+        writer.putFloat(attenuation.getLinear());
+        writer.putFloat(attenuation.getExponent());
+    }
+
+    private static void writeEntity(final BinaryChannelWriter writer,
+                                    final Entity entity,
+                                    final List<Animation> animations) throws IOException {
+        writer.putString(entity.getId());
+        writer.putVector3f(entity.getPosition());
+        writer.putQuaternionf(entity.getRotation());
+        writer.putFloat(entity.getScale());
+        writer.putBoolean(entity.getSelected());
+        writer.putMatrix4f(entity.getModelMatrix());
+        final AnimationData animationData = entity.getAnimationData();
+        if (animationData == null || animations == null) {
+            writer.putInt(BinarySceneCodec.NO_ANIMATION);
+            return;
+        }
+        final int animationIdx = animations.indexOf(animationData.getCurrentAnimation());
+        writer.putInt(animationIdx);
+        if (animationIdx != BinarySceneCodec.NO_ANIMATION) {
+            writer.putInt(animationData.getCurrentFrameIdx());
+        }
+    }
+
+    public static Scene read(final Path path,
+                             final int width,
+                             final int height) throws IOException {
+        final Scene scene = new Scene(width, height);
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final BinaryChannelReader reader = new BinaryChannelReader(channel);
+            if (reader.getInt() != BinarySceneCodec.MAGIC) {
+                throw new IOException("Not a binary scene snapshot: " + path);
+            }
+            final int version = reader.getInt();
+            if (version != BinarySceneCodec.VERSION) {
+                throw new IOException(String.format(
+                        "Unsupported binary scene snapshot version %d in %s, expected %d",
+                        version,
+                        path,
+                        BinarySceneCodec.VERSION
+                ));
+            }
+            int tag;
+            while ((tag = reader.getInt()) != BinarySceneCodec.CHUNK_END) {
+                final long length = reader.getLong();
+                switch (tag) {
+                    case BinarySceneCodec.CHUNK_PROJECTION -> scene.getProjection().update(new Projection(
+                            reader.getMatrix4f(new Matrix4f()),
+                            reader.getMatrix4f(new Matrix4f())
+                    ));
+                    case BinarySceneCodec.CHUNK_CAMERA -> scene.getCamera().update(new Camera(
+                            reader.getVector3f(new Vector3f()),
+                            reader.getVector3f(new Vector3f()),
+                            reader.getMatrix4f(new Matrix4f()),
+                            reader.getMatrix4f(new Matrix4f())
+                    ));
+                    case BinarySceneCodec.CHUNK_LIGHTS -> scene.setSceneLights(BinarySceneCodec.readLights(reader));
+                    case BinarySceneCodec.CHUNK_FOG -> scene.setFog(new Fog(
+                            reader.getBoolean(),
+                            reader.getVector3f(new Vector3f()),
+                            reader.getFloat()
+                    ));
+                    case BinarySceneCodec.CHUNK_SKYBOX -> {
+                        final SkyBox skyBox = new SkyBox(
+                                reader.getString(),
+                                scene.getTextureCache(),
+                                scene.getMaterialCache()
+                        );
+                        skyBox.getEntity().update(BinarySceneCodec.readEntity(reader, skyBox.getModel()));
+                        scene.setSkyBox(skyBox);
+                    }
+                    case BinarySceneCodec.CHUNK_MODEL -> BinarySceneCodec.readModel(reader, scene);
+                    default -> reader.skip(length);
+                }
+            }
+        }
+        // Chunks were read directly into the scene rather than streamed in
+        scene.drainChanges();
+        return scene;
+    }
+
+    private static SceneLights readLights(final BinaryChannelReader reader) throws IOException {
+        final AmbientLight ambientLight = new AmbientLight(
+                reader.getFloat(),
+                reader.getVector3f(new Vector3f())
+        );
+        final DirectionalLight directionalLight = new DirectionalLight(
+                reader.getVector3f(new Vector3f()),
+                reader.getVector3f(new Vector3f()),
+                reader.getFloat()
+        );
+        final int pointLightCount = reader.getInt();
+        final List<PointLight> pointLights = new ArrayList<>(pointLightCount);
+        for (int i = 0; i < pointLightCount; i++) {
+            pointLights.add(BinarySceneCodec.readPointLight(reader));
+        }
+        final int spotLightCount = reader.getInt();
+        final List<SpotLight> spotLights = new ArrayList<>(spotLightCount);
+        for (int i = 0; i < spotLightCount; i++) {
+            spotLights.add(new SpotLight(
+                    BinarySceneCodec.readPointLight(reader),
+                    reader.getVector3f(new Vector3f()),
+                    reader.getFloat()
+            ));
+        }
+        return new SceneLights(
+                ambientLight,
+                directionalLight,
+                pointLights,
+                spotLights
+        );
+    }
+
+    private static PointLight readPointLight(final BinaryChannelReader reader) throws IOException {
+        return new PointLight(
+                reader.getVector3f(new Vector3f()),
+                reader.getVector3f(new Vector3f()),
+                reader.getFloat(),
+                new Attenuation(
+                        reader.getFloat(),
+                        reader.getFloat(),
+                        reader.getFloat()
+                )
+        );
+    }
+
+    private static void readModel(final BinaryChannelReader reader,
+                                  final Scene scene) throws IOException {
+        final ObjectNode descriptor = (ObjectNode) SerializationUtils.OBJECT_MAPPER.readTree(reader.getString());
+        descriptor.putArray("entities");
+        final Model model;
+        try (final JsonParser parser = SerializationUtils.OBJECT_MAPPER.treeAsTokens(descriptor)) {
+            model = SceneDeserializer.parseDeserializer(descriptor, scene).deserialize(
+                    parser,
+                    SerializationUtils.OBJECT_MAPPER.getDeserializationContext()
+            );
+        } catch (final ClassNotFoundException e) {
+            throw new IOException("Unknown model type in binary scene snapshot", e);
+        }
+        final int entityCount = reader.getInt();
+        final List<Entity> entities = model.getEntities();
+        for (int i = 0; i < entityCount; i++) {
+            entities.add(BinarySceneCodec.readEntity(reader, model));
+        }
+        scene.addModel(model);
+    }
+
+    private static Entity readEntity(final BinaryChannelReader reader,
+                                     final Model model) throws IOException {
+        final String id = reader.getString();
+        final Vector3f position = reader.getVector3f(new Vector3f());
+        final Quaternionf rotation = reader.getQuaternionf(new Quaternionf());
+        final float scale = reader.getFloat();
+        final boolean selected = reader.getBoolean();
+        final Matrix4f modelMatrix = reader.getMatrix4f(new Matrix4f());
+        final Entity entity = new Entity(
+                id,
+                model.getId(),
+                modelMatrix,
+                position,
+                rotation,
+                scale,
+                selected
+        );
+        final int animationIdx = reader.getInt();
+        if (animationIdx != BinarySceneCodec.NO_ANIMATION) {
+            final int frameIdx = reader.getInt();
+            final List<Animation> animations = model.getAnimations();
+            if (animationIdx < animations.size()) {
+                entity.setAnimationData(new AnimationData(animations.get(animationIdx), frameIdx));
+            }
+        }
+        return entity;
+    }
+
+}
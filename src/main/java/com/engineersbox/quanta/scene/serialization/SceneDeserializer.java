@@ -155,8 +155,8 @@ public class SceneDeserializer extends StdDeserializer<Scene> {
     }
 
     @SuppressWarnings({"unchecked"})
-    private JsonDeserializer<? extends Model> parseDeserializer(final JsonNode node,
-                                                                final Scene scene) throws ClassNotFoundException {
+    static JsonDeserializer<? extends Model> parseDeserializer(final JsonNode node,
+                                                               final Scene scene) throws ClassNotFoundException {
         final JsonNode typeNode = node.get("type");
         if (typeNode == null) {
             throw new IllegalStateException("Expected type field in model");
@@ -39,12 +39,6 @@ const int MAX_POINT_LIGHTS = 5;
 const int MAX_SPOT_LIGHTS = 5;
 const float SPECULAR_POWER = 10;
 const int NUM_CASCADES = 3;
-
-// Scene
-const int MAX_DRAW_ELEMENTS = 100;
-const int MAX_ENTITIES = 50;
-const int MAX_MATERIALS = 100;
-const int MAX_TEXTURES = 100;
 """)
 public class Main implements IAppLogic {
 
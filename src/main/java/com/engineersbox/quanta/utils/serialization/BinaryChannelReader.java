@@ -0,0 +1,132 @@
+package com.engineersbox.quanta.utils.serialization;
+
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered little endian reader over a {@link ReadableByteChannel}, the
+ * counterpart to {@link BinaryChannelWriter}.
+ */
+public class BinaryChannelReader {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    public BinaryChannelReader(final ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BinaryChannelReader.DEFAULT_BUFFER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer.flip();
+    }
+
+    private void ensure(final int bytes) throws IOException {
+        if (this.buffer.remaining() >= bytes) {
+            return;
+        }
+        this.buffer.compact();
+        while (this.buffer.position() < bytes) {
+            if (this.channel.read(this.buffer) < 0) {
+                throw new EOFException("Unexpected end of channel");
+            }
+        }
+        this.buffer.flip();
+    }
+
+    /**
+     * @return Whether any bytes remain, reading ahead if necessary
+     */
+    public boolean hasRemaining() throws IOException {
+        if (this.buffer.hasRemaining()) {
+            return true;
+        }
+        this.buffer.clear();
+        final int read = this.channel.read(this.buffer);
+        this.buffer.flip();
+        return read > 0;
+    }
+
+    public void skip(final long bytes) throws IOException {
+        long remaining = bytes;
+        while (remaining > 0) {
+            ensure(1);
+            final int skipped = (int) Math.min(remaining, this.buffer.remaining());
+            this.buffer.position(this.buffer.position() + skipped);
+            remaining -= skipped;
+        }
+    }
+
+    public byte getByte() throws IOException {
+        ensure(Byte.BYTES);
+        return this.buffer.get();
+    }
+
+    public boolean getBoolean() throws IOException {
+        return getByte() != 0;
+    }
+
+    public int getInt() throws IOException {
+        ensure(Integer.BYTES);
+        return this.buffer.getInt();
+    }
+
+    public long getLong() throws IOException {
+        ensure(Long.BYTES);
+        return this.buffer.getLong();
+    }
+
+    public float getFloat() throws IOException {
+        ensure(Float.BYTES);
+        return this.buffer.getFloat();
+    }
+
+    public double getDouble() throws IOException {
+        ensure(Double.BYTES);
+        return this.buffer.getDouble();
+    }
+
+    public String getString() throws IOException {
+        final int length = getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            ensure(1);
+            final int read = Math.min(this.buffer.remaining(), length - offset);
+            this.buffer.get(bytes, offset, read);
+            offset += read;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public Vector3f getVector3f(final Vector3f dest) throws IOException {
+        ensure(3 * Float.BYTES);
+        return dest.set(this.buffer.getFloat(), this.buffer.getFloat(), this.buffer.getFloat());
+    }
+
+    public Quaternionf getQuaternionf(final Quaternionf dest) throws IOException {
+        ensure(4 * Float.BYTES);
+        return dest.set(this.buffer.getFloat(), this.buffer.getFloat(), this.buffer.getFloat(), this.buffer.getFloat());
+    }
+
+    public Matrix4f getMatrix4f(final Matrix4f dest) throws IOException {
+        ensure(16 * Float.BYTES);
+        final float[] elements = new float[16];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = this.buffer.getFloat();
+        }
+        return dest.set(elements);
+    }
+
+}
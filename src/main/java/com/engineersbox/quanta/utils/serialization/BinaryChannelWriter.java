@@ -0,0 +1,138 @@
+package com.engineersbox.quanta.utils.serialization;
+
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered little endian writer over a {@link SeekableByteChannel}, with
+ * support for length prefixed chunks whose size is only known once their
+ * contents have been written.
+ */
+public class BinaryChannelWriter implements AutoCloseable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final SeekableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    public BinaryChannelWriter(final SeekableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BinaryChannelWriter.DEFAULT_BUFFER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void ensure(final int bytes) throws IOException {
+        if (this.buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    public void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Writes a chunk header with a placeholder length.
+     *
+     * @return Handle to pass to {@link #endChunk(long)}
+     */
+    public long beginChunk(final int tag) throws IOException {
+        putInt(tag);
+        flush();
+        final long lengthPosition = this.channel.position();
+        putLong(0);
+        return lengthPosition;
+    }
+
+    public void endChunk(final long lengthPosition) throws IOException {
+        flush();
+        final long end = this.channel.position();
+        final ByteBuffer length = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        length.putLong(end - lengthPosition - Long.BYTES).flip();
+        this.channel.position(lengthPosition);
+        while (length.hasRemaining()) {
+            this.channel.write(length);
+        }
+        this.channel.position(end);
+    }
+
+    public void putByte(final byte value) throws IOException {
+        ensure(Byte.BYTES);
+        this.buffer.put(value);
+    }
+
+    public void putBoolean(final boolean value) throws IOException {
+        putByte((byte) (value ? 1 : 0));
+    }
+
+    public void putInt(final int value) throws IOException {
+        ensure(Integer.BYTES);
+        this.buffer.putInt(value);
+    }
+
+    public void putLong(final long value) throws IOException {
+        ensure(Long.BYTES);
+        this.buffer.putLong(value);
+    }
+
+    public void putFloat(final float value) throws IOException {
+        ensure(Float.BYTES);
+        this.buffer.putFloat(value);
+    }
+
+    public void putDouble(final double value) throws IOException {
+        ensure(Double.BYTES);
+        this.buffer.putDouble(value);
+    }
+
+    public void putString(final String value) throws IOException {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensure(1);
+            final int length = Math.min(this.buffer.remaining(), bytes.length - offset);
+            this.buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    public void putVector3f(final Vector3f value) throws IOException {
+        ensure(3 * Float.BYTES);
+        this.buffer.putFloat(value.x).putFloat(value.y).putFloat(value.z);
+    }
+
+    public void putQuaternionf(final Quaternionf value) throws IOException {
+        ensure(4 * Float.BYTES);
+        this.buffer.putFloat(value.x).putFloat(value.y).putFloat(value.z).putFloat(value.w);
+    }
+
+    public void putMatrix4f(final Matrix4f value) throws IOException {
+        ensure(16 * Float.BYTES);
+        // Written element-wise as JOML ignores the byte order of direct buffers
+        for (final float element : value.get(new float[16])) {
+            this.buffer.putFloat(element);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+}
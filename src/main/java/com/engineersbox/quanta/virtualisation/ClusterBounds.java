@@ -0,0 +1,83 @@
+package com.engineersbox.quanta.virtualisation;
+
+import org.joml.Vector4f;
+
+/**
+ * Bounding sphere helpers for clusters, spheres are packed into a
+ * {@link Vector4f} as centre {@code (x, y, z)} and radius {@code w}.
+ */
+public final class ClusterBounds {
+
+    private ClusterBounds() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Sphere around the vertices referenced by {@code indices}, centred on
+     * their bounding box.
+     */
+    public static Vector4f sphere(final float[] positions,
+                                  final int[] indices) {
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        float maxZ = Float.NEGATIVE_INFINITY;
+        for (final int index : indices) {
+            final int offset = index * 3;
+            minX = Math.min(minX, positions[offset]);
+            minY = Math.min(minY, positions[offset + 1]);
+            minZ = Math.min(minZ, positions[offset + 2]);
+            maxX = Math.max(maxX, positions[offset]);
+            maxY = Math.max(maxY, positions[offset + 1]);
+            maxZ = Math.max(maxZ, positions[offset + 2]);
+        }
+        if (indices.length == 0) {
+            return new Vector4f();
+        }
+        final float centreX = (minX + maxX) * 0.5f;
+        final float centreY = (minY + maxY) * 0.5f;
+        final float centreZ = (minZ + maxZ) * 0.5f;
+        float radiusSquared = 0;
+        for (final int index : indices) {
+            final int offset = index * 3;
+            final float dx = positions[offset] - centreX;
+            final float dy = positions[offset + 1] - centreY;
+            final float dz = positions[offset + 2] - centreZ;
+            radiusSquared = Math.max(radiusSquared, (dx * dx) + (dy * dy) + (dz * dz));
+        }
+        return new Vector4f(
+                centreX,
+                centreY,
+                centreZ,
+                (float) Math.sqrt(radiusSquared)
+        );
+    }
+
+    /**
+     * Smallest sphere enclosing both {@code a} and {@code b}.
+     */
+    public static Vector4f merge(final Vector4f a,
+                                 final Vector4f b) {
+        final float dx = b.x - a.x;
+        final float dy = b.y - a.y;
+        final float dz = b.z - a.z;
+        final float distance = (float) Math.sqrt((dx * dx) + (dy * dy) + (dz * dz));
+        if (distance + b.w <= a.w) {
+            return new Vector4f(a);
+        }
+        if (distance + a.w <= b.w) {
+            return new Vector4f(b);
+        }
+        final float radius = (distance + a.w + b.w) * 0.5f;
+        final float t = (radius - a.w) / distance;
+        return new Vector4f(
+                a.x + (dx * t),
+                a.y + (dy * t),
+                a.z + (dz * t),
+                radius
+        );
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.engineersbox.quanta.virtualisation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Clusters selected by a view-dependent cut through an {@link LODGraph},
+ * along with counters describing the work done to select them. Cuts are
+ * filled concurrently by the selection tasks and reused between frames.
+ */
+public class ClusterCut {
+
+    private int[] clusters;
+    private final AtomicInteger clusterCount;
+    private final AtomicInteger triangleCount;
+    private final AtomicInteger tested;
+    private final AtomicInteger culled;
+
+    public ClusterCut() {
+        this.clusters = new int[0];
+        this.clusterCount = new AtomicInteger();
+        this.triangleCount = new AtomicInteger();
+        this.tested = new AtomicInteger();
+        this.culled = new AtomicInteger();
+    }
+
+    void reset(final int capacity) {
+        if (this.clusters.length < capacity) {
+            this.clusters = new int[capacity];
+        }
+        this.clusterCount.set(0);
+        this.triangleCount.set(0);
+        this.tested.set(0);
+        this.culled.set(0);
+    }
+
+    void select(final MeshCluster cluster) {
+        this.clusters[this.clusterCount.getAndIncrement()] = cluster.getId();
+        this.triangleCount.addAndGet(cluster.getTriangleCount());
+    }
+
+    void addTested(final int count) {
+        this.tested.addAndGet(count);
+    }
+
+    void addCulled() {
+        this.culled.incrementAndGet();
+    }
+
+    /**
+     * @return Ids of the selected clusters, only the first {@link #getClusterCount()} of which are valid
+     */
+    public int[] getClusters() {
+        return this.clusters;
+    }
+
+    public int getClusterCount() {
+        return this.clusterCount.get();
+    }
+
+    public int getTriangleCount() {
+        return this.triangleCount.get();
+    }
+
+    public int getTested() {
+        return this.tested.get();
+    }
+
+    public int getCulled() {
+        return this.culled.get();
+    }
+
+}
@@ -1,174 +1,150 @@
 package com.engineersbox.quanta.virtualisation;
 
+import com.engineersbox.quanta.virtualisation.graph.DisjointSet;
 import com.engineersbox.quanta.virtualisation.graph.Graph;
-import com.engineersbox.quanta.virtualisation.graph.GraphEdge;
-import com.engineersbox.quanta.virtualisation.graph.GraphVertex;
+import com.engineersbox.quanta.virtualisation.graph.SortedEdges;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
+/**
+ * Kruskal style greedy clustering over the vertices of a mesh graph. Edges
+ * are sorted by length once, then visited shortest first, merging the sets
+ * at either end in a {@link DisjointSet} whenever the clustering's stopping
+ * rule allows it.
+ */
 // https://github.com/palianytsia/algorithms/blob/master/src/main/java/edu/stanford/algo/greedy/Clustering.java
 public class ClusterGenerator {
 
     private static final Logger LOGGER = LogManager.getLogger(ClusterGenerator.class);
 
+    private ClusterGenerator() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Clusters the vertices of a graph, merging across each edge in order of
+     * length unless the merged cluster would reach the vertex threshold.
+     */
     public static List<VertexCluster> findClustersThreshold(final Graph graph,
                                                            final int clusterVertexThreshold) {
         ClusterGenerator.LOGGER.info("[CLUSTERING - THRESHOLD | START] Reducing graph {} with cluster threshold {}", graph, clusterVertexThreshold);
         final long timeStart = System.currentTimeMillis();
-        final PriorityQueue<GraphEdge> edges = new PriorityQueue<>(graph.getEdges().size(), (final GraphEdge a, final GraphEdge b) -> {
-            if (a.length() < b.length()) {
-                return -1;
-            } else if (a.length() > b.length()) {
-                return 1;
+        final SortedEdges edges = SortedEdges.of(graph.getAdjacency());
+        final DisjointSet sets = new DisjointSet(graph.getVertexCount());
+        for (int i = 0; i < edges.size(); i++) {
+            final int setA = sets.find(edges.getFrom()[i]);
+            final int setB = sets.find(edges.getTo()[i]);
+            if (setA != setB && sets.size(setA) + sets.size(setB) < clusterVertexThreshold) {
+                sets.union(setA, setB);
             }
-            return 0;
-        });
-        edges.addAll(graph.getEdges());
-
-        // Initialisation step 2: put each point in its own cluster and create mapping between vertices and clusters
-        // they belong to.
-        final Map<GraphVertex, VertexCluster> clusters = new HashMap<>(graph.getVertices().size());
-        for (final GraphVertex vertex : graph.getVertices()) {
-            final VertexCluster cluster = new VertexCluster(graph);
-            cluster.addVertex(vertex);
-            clusters.put(vertex, cluster);
         }
-
-        final List<VertexCluster> clustering = group(
-                clusters,
-                edges,
-                clusterVertexThreshold
-        );
-        final long timeEnd = System.currentTimeMillis();
-        final OptionalDouble average = clustering
-                .stream()
-                .map(VertexCluster::size)
-                .mapToDouble(Double::valueOf)
-                .average();
+        final List<VertexCluster> clustering = new ArrayList<>(sets.getSetCount());
+        for (final int[] vertices : ClusterGenerator.collectSets(sets)) {
+            clustering.add(new VertexCluster(graph, vertices));
+        }
         ClusterGenerator.LOGGER.info(
                 "[CLUSTERING - THRESHOLD | FINISH] Mesh clustering finished in {}ms [Clusters: {}] [Average Vertices per Cluster: {}]",
-                timeEnd - timeStart,
+                System.currentTimeMillis() - timeStart,
                 clustering.size(),
-                average.orElse(0)
+                clustering.isEmpty() ? 0 : (double) graph.getVertexCount() / clustering.size()
         );
         return clustering;
     }
 
-    private static List<VertexCluster> group(final Map<GraphVertex, VertexCluster> clusters,
-                                             final PriorityQueue<GraphEdge> edges,
-                                             final int clusterVertexThreshold) {
-        int numClusters = 0;
-        while (!edges.isEmpty()) {
-            final GraphEdge e = edges.remove();
-            final VertexCluster clusterA = clusters.get(e.v1());
-            final VertexCluster clusterB = clusters.get(e.v2());
-            if (clusterA.equals(clusterB) || clusterA.size() + clusterB.size() >= clusterVertexThreshold) {
-                continue;
-            }
-            final VertexCluster smallerCluster;
-            final VertexCluster biggerCluster;
-            if (clusterA.size() >= clusterB.size()) {
-                smallerCluster = clusterB;
-                biggerCluster = clusterA;
-            } else {
-                smallerCluster = clusterA;
-                biggerCluster = clusterB;
-            }
-            final VertexCluster merged = biggerCluster.copy();
-            merged.merge(smallerCluster.copy());
-            if (merged.getVertices().size() >= clusterVertexThreshold) {
-                continue;
-            }
-            for (final GraphVertex vertex : smallerCluster.getVertices()) {
-                clusters.put(vertex, biggerCluster);
-            }
-            numClusters++;
-        }
-        return new ArrayList<>(clusters.values());
-    }
-
-    private static Set<GraphEdge> getClustersEdges(final List<VertexCluster> clusters) {
-        final Set<GraphEdge> edges = new HashSet<>();
-        for (final VertexCluster cluster : clusters) {
-            final Set<GraphVertex> vertices = cluster.getVertices();
-            for (final GraphVertex vertex : vertices) {
-                edges.addAll(vertex.parent()
-                        .getOutgoingEdges(vertex)
-                        .stream()
-                        .filter((final GraphEdge edge) -> vertices.containsAll(List.of(edge.v1(), edge.v2())))
-                        .collect(Collectors.toSet())
-                );
-            }
-        }
-        return edges;
-    }
-
+    /**
+     * Merges clusters of the same graph across the shortest edges between
+     * them until only {@code k} remain, or no adjacent clusters are left.
+     *
+     * @return Each resulting cluster mapped to the clusters it was merged from
+     */
     public static Map<VertexCluster, List<VertexCluster>> findClustersCount(final List<VertexCluster> clusters,
                                                                             final int k) {
         ClusterGenerator.LOGGER.info("[CLUSTERING - COUNT | START] Reducing clusters with cluster count {}", k);
         final long timeStart = System.currentTimeMillis();
-        final PriorityQueue<GraphEdge> edges = new PriorityQueue<>(getClustersEdges(clusters).size(), (final GraphEdge a, final GraphEdge b) -> {
-            if (a.length() < b.length()) {
-                return -1;
-            } else if (a.length() > b.length()) {
-                return 1;
+        final Map<VertexCluster, List<VertexCluster>> mergeMappings = new LinkedHashMap<>();
+        if (clusters.isEmpty()) {
+            return mergeMappings;
+        }
+        final Graph graph = clusters.get(0).getGraph();
+        final int[] vertexClusters = new int[graph.getVertexCount()];
+        Arrays.fill(vertexClusters, -1);
+        for (int i = 0; i < clusters.size(); i++) {
+            if (clusters.get(i).getGraph() != graph) {
+                throw new IllegalArgumentException("Cannot merge clusters of different graphs");
             }
-            return 0;
-        });
-        // Initialisation step 2: put each point in its own cluster and create mapping between vertices and clusters
-        // they belong to.
-        final Map<GraphVertex, VertexCluster> vertexClusterMapping = new HashMap<>();
-        for (final VertexCluster cluster : clusters) {
-            for (final GraphVertex vertex : cluster.getVertices()) {
-                vertexClusterMapping.put(vertex, cluster);
+            for (final int vertex : clusters.get(i).getVertexIndices()) {
+                vertexClusters[vertex] = i;
             }
         }
-        final Map<VertexCluster, List<VertexCluster>> mergeMappings = new HashMap<>();
-        // Until k clusters left, merge the clusters with smallest spacing
-        int numClusters = clusters.size();
-        while (numClusters > k) {
-            GraphEdge edge = edges.remove();
-            VertexCluster clusterA = vertexClusterMapping.get(edge.v1());
-            VertexCluster clusterB = vertexClusterMapping.get(edge.v2());
-            // If vertices are not already in the same cluster - merge clusters
-            if (clusterA.equals(clusterB)) {
-                continue;
+        final SortedEdges edges = SortedEdges.of(graph.getAdjacency());
+        final DisjointSet sets = new DisjointSet(clusters.size());
+        for (int i = 0; i < edges.size() && sets.getSetCount() > k; i++) {
+            final int clusterA = vertexClusters[edges.getFrom()[i]];
+            final int clusterB = vertexClusters[edges.getTo()[i]];
+            if (clusterA != -1 && clusterB != -1) {
+                sets.union(clusterA, clusterB);
             }
-            // To reduce the number of cluster reassigments we want bigger cluster to merge the smaller one.
-            VertexCluster smallerCluster;
-            VertexCluster biggerCluster;
-            if (clusterA.size() >= clusterB.size()) {
-                smallerCluster = clusterB;
-                biggerCluster = clusterA;
-            } else {
-                smallerCluster = clusterA;
-                biggerCluster = clusterB;
+        }
+        for (final int[] members : ClusterGenerator.collectSets(sets)) {
+            final List<VertexCluster> sources = new ArrayList<>(members.length);
+            int vertexCount = 0;
+            for (final int member : members) {
+                sources.add(clusters.get(member));
+                vertexCount += clusters.get(member).size();
             }
-            biggerCluster.merge(smallerCluster);
-            for (GraphVertex vertex : smallerCluster.getVertices()) {
-                vertexClusterMapping.put(vertex, biggerCluster);
+            // Concatenate and sort once rather than merging pairwise, which is quadratic in large groups
+            final int[] vertices = new int[vertexCount];
+            int offset = 0;
+            for (final VertexCluster source : sources) {
+                System.arraycopy(source.getVertexIndices(), 0, vertices, offset, source.size());
+                offset += source.size();
             }
-            mergeMappings.computeIfAbsent(biggerCluster, (final VertexCluster key) -> new ArrayList<>()).add(smallerCluster);
-            numClusters--;
+            Arrays.sort(vertices);
+            int unique = 0;
+            for (int i = 0; i < vertices.length; i++) {
+                if (i == 0 || vertices[i] != vertices[i - 1]) {
+                    vertices[unique++] = vertices[i];
+                }
+            }
+            mergeMappings.put(new VertexCluster(graph, Arrays.copyOf(vertices, unique)), sources);
         }
-        final long timeEnd = System.currentTimeMillis();
-        final OptionalDouble average = vertexClusterMapping.values()
-                .stream()
-                .map(VertexCluster::size)
-                .mapToDouble(Double::valueOf)
-                .average();
         ClusterGenerator.LOGGER.info(
                 "[CLUSTERING - COUNT | FINISH] Mesh clustering finished in {}ms [Clusters: {}] [Average Vertices per Cluster: {}]",
-                timeEnd - timeStart,
-                vertexClusterMapping.size(),
-                average.orElse(0)
+                System.currentTimeMillis() - timeStart,
+                mergeMappings.size(),
+                mergeMappings.keySet()
+                        .stream()
+                        .mapToInt(VertexCluster::size)
+                        .average()
+                        .orElse(0)
         );
         return mergeMappings;
     }
 
+    /**
+     * Lists the elements of every set, each sorted ascending, with a counting
+     * sort over set representatives.
+     */
+    private static List<int[]> collectSets(final DisjointSet sets) {
+        final int elementCount = sets.getElementCount();
+        final int[] setIndices = new int[elementCount];
+        Arrays.fill(setIndices, -1);
+        final List<int[]> collected = new ArrayList<>(sets.getSetCount());
+        final int[] fill = new int[sets.getSetCount()];
+        for (int element = 0; element < elementCount; element++) {
+            final int root = sets.find(element);
+            if (setIndices[root] == -1) {
+                setIndices[root] = collected.size();
+                collected.add(new int[sets.size(root)]);
+            }
+            final int set = setIndices[root];
+            collected.get(set)[fill[set]++] = element;
+        }
+        return collected;
+    }
+
     public static Graph unifyClusters(final Set<VertexCluster> clusters) {
         final Graph graph = new Graph();
         // TODO: Finish this
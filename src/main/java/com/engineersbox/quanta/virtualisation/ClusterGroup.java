@@ -0,0 +1,24 @@
+package com.engineersbox.quanta.virtualisation;
+
+import org.joml.Vector4f;
+
+/**
+ * A set of neighbouring clusters at one level that were merged and
+ * simplified together, with their shared borders locked, to generate the
+ * clusters of the next coarser level. The group's error and bounds enclose
+ * those of every member, keeping the DAG's error metric monotonic.
+ *
+ * @param index Index of this group within its {@link LODGraph}
+ * @param level Level of the member clusters
+ * @param clusters Ids of the member clusters
+ * @param generatedClusters Ids of the next level clusters produced from this group
+ * @param lodBounds Sphere enclosing every member's LOD bounds
+ * @param lodError Simplification error of this group, at least that of any member
+ */
+public record ClusterGroup(int index,
+                           int level,
+                           int[] clusters,
+                           int[] generatedClusters,
+                           Vector4f lodBounds,
+                           float lodError) {
+}
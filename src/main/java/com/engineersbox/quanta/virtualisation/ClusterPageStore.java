@@ -0,0 +1,360 @@
+package com.engineersbox.quanta.virtualisation;
+
+import com.engineersbox.quanta.utils.serialization.BinaryChannelReader;
+import com.engineersbox.quanta.utils.serialization.BinaryChannelWriter;
+import org.joml.Vector4f;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-disk streaming store for an {@link LODGraph}. The DAG itself (cluster
+ * and group metadata, without vertex data) is written to {@value #GRAPH_FILE},
+ * while cluster vertex data is packed into fixed size {@value #PAGE_SIZE} byte
+ * pages in {@value #PAGES_FILE} so that pages can be memory mapped and loaded
+ * independently. Each page starts with its cluster count and a table of
+ * {@code (cluster id, byte offset, vertex count, triangle count)} entries,
+ * followed by each cluster's positions, normals and indices, all little endian.
+ */
+public class ClusterPageStore implements AutoCloseable {
+
+    public static final String GRAPH_FILE = "graph.qdag";
+    public static final String PAGES_FILE = "pages.qpg";
+    public static final int PAGE_SIZE = 1 << 17;
+    public static final int PAGE_HEADER_SIZE = Integer.BYTES;
+    public static final int PAGE_ENTRY_SIZE = 4 * Integer.BYTES;
+    private static final int MAGIC = 0x47414451; // "QDAG"
+    private static final int VERSION = 1;
+
+    private final FileChannel pagesChannel;
+    private final int pageCount;
+
+    private ClusterPageStore(final FileChannel pagesChannel,
+                             final int pageCount) {
+        this.pagesChannel = pagesChannel;
+        this.pageCount = pageCount;
+    }
+
+    public record StoredGraph(List<MeshCluster> clusters,
+                              List<ClusterGroup> groups,
+                              int pageCount) {
+    }
+
+    public record ClusterVertexData(float[] positions,
+                                    float[] normals,
+                                    int[] indices) {
+    }
+
+    public static int clusterDataSize(final int vertexCount,
+                                      final int triangleCount) {
+        return (vertexCount * 6 * Float.BYTES) + (triangleCount * 3 * Integer.BYTES);
+    }
+
+    /**
+     * Packs the vertex data of every cluster into pages and writes them along
+     * with the graph metadata, recording each cluster's page location.
+     *
+     * @return Number of pages written
+     */
+    public static int write(final Path directory,
+                            final List<MeshCluster> clusters,
+                            final List<ClusterGroup> groups) throws IOException {
+        Files.createDirectories(directory);
+        final int pageCount;
+        try (final FileChannel channel = FileChannel.open(
+                directory.resolve(ClusterPageStore.PAGES_FILE),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            pageCount = ClusterPageStore.writePages(channel, clusters);
+        }
+        try (final FileChannel channel = FileChannel.open(
+                directory.resolve(ClusterPageStore.GRAPH_FILE),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        ); final BinaryChannelWriter writer = new BinaryChannelWriter(channel)) {
+            ClusterPageStore.writeGraph(writer, clusters, groups, pageCount);
+        }
+        return pageCount;
+    }
+
+    private static int writePages(final FileChannel channel,
+                                  final List<MeshCluster> clusters) throws IOException {
+        final ByteBuffer page = ByteBuffer.allocateDirect(ClusterPageStore.PAGE_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        final List<MeshCluster> pageClusters = new ArrayList<>();
+        int pageBytes = ClusterPageStore.PAGE_HEADER_SIZE;
+        int pageCount = 0;
+        for (final MeshCluster cluster : clusters) {
+            if (!cluster.hasVertexData()) {
+                throw new IllegalStateException("Cluster " + cluster.getId() + " has no vertex data to write");
+            }
+            final int clusterBytes = ClusterPageStore.PAGE_ENTRY_SIZE + ClusterPageStore.clusterDataSize(
+                    cluster.getVertexCount(),
+                    cluster.getTriangleCount()
+            );
+            if (ClusterPageStore.PAGE_HEADER_SIZE + clusterBytes > ClusterPageStore.PAGE_SIZE) {
+                throw new IllegalStateException(String.format(
+                        "Cluster %d of %d bytes does not fit in a %d byte page",
+                        cluster.getId(),
+                        clusterBytes,
+                        ClusterPageStore.PAGE_SIZE
+                ));
+            }
+            if (pageBytes + clusterBytes > ClusterPageStore.PAGE_SIZE) {
+                ClusterPageStore.writePage(channel, page, pageClusters, pageCount++);
+                pageClusters.clear();
+                pageBytes = ClusterPageStore.PAGE_HEADER_SIZE;
+            }
+            pageClusters.add(cluster);
+            pageBytes += clusterBytes;
+        }
+        if (!pageClusters.isEmpty()) {
+            ClusterPageStore.writePage(channel, page, pageClusters, pageCount++);
+        }
+        return pageCount;
+    }
+
+    private static void writePage(final FileChannel channel,
+                                  final ByteBuffer page,
+                                  final List<MeshCluster> clusters,
+                                  final int pageIndex) throws IOException {
+        page.clear();
+        page.putInt(clusters.size());
+        int dataOffset = ClusterPageStore.PAGE_HEADER_SIZE + (clusters.size() * ClusterPageStore.PAGE_ENTRY_SIZE);
+        for (final MeshCluster cluster : clusters) {
+            page.putInt(cluster.getId());
+            page.putInt(dataOffset);
+            page.putInt(cluster.getVertexCount());
+            page.putInt(cluster.getTriangleCount());
+            cluster.setPageLocation(pageIndex, dataOffset);
+            dataOffset += ClusterPageStore.clusterDataSize(cluster.getVertexCount(), cluster.getTriangleCount());
+        }
+        for (final MeshCluster cluster : clusters) {
+            page.asFloatBuffer().put(cluster.getPositions());
+            page.position(page.position() + (cluster.getPositions().length * Float.BYTES));
+            page.asFloatBuffer().put(cluster.getNormals());
+            page.position(page.position() + (cluster.getNormals().length * Float.BYTES));
+            page.asIntBuffer().put(cluster.getIndices());
+            page.position(page.position() + (cluster.getIndices().length * Integer.BYTES));
+        }
+        // Pad to a whole page so every page can be mapped at a fixed offset
+        page.position(ClusterPageStore.PAGE_SIZE);
+        page.flip();
+        long position = (long) pageIndex * ClusterPageStore.PAGE_SIZE;
+        while (page.hasRemaining()) {
+            position += channel.write(page, position);
+        }
+    }
+
+    private static void writeGraph(final BinaryChannelWriter writer,
+                                   final List<MeshCluster> clusters,
+                                   final List<ClusterGroup> groups,
+                                   final int pageCount) throws IOException {
+        writer.putInt(ClusterPageStore.MAGIC);
+        writer.putInt(ClusterPageStore.VERSION);
+        writer.putInt(ClusterPageStore.PAGE_SIZE);
+        writer.putInt(pageCount);
+        writer.putInt(clusters.size());
+        for (final MeshCluster cluster : clusters) {
+            writer.putInt(cluster.getId());
+            writer.putInt(cluster.getLevel());
+            writer.putInt(cluster.getVertexCount());
+            writer.putInt(cluster.getTriangleCount());
+            ClusterPageStore.putSphere(writer, cluster.getBoundingSphere());
+            ClusterPageStore.putSphere(writer, cluster.getLodBounds());
+            writer.putFloat(cluster.getLodError());
+            writer.putInt(cluster.getGeneratingGroup());
+            writer.putInt(cluster.getGroupIndex());
+            ClusterPageStore.putSphere(writer, cluster.getParentLodBounds());
+            writer.putFloat(cluster.getParentLodError());
+            writer.putInt(cluster.getPage());
+            writer.putInt(cluster.getPageOffset());
+        }
+        writer.putInt(groups.size());
+        for (final ClusterGroup group : groups) {
+            writer.putInt(group.index());
+            writer.putInt(group.level());
+            ClusterPageStore.putInts(writer, group.clusters());
+            ClusterPageStore.putInts(writer, group.generatedClusters());
+            ClusterPageStore.putSphere(writer, group.lodBounds());
+            writer.putFloat(group.lodError());
+        }
+    }
+
+    private static void putSphere(final BinaryChannelWriter writer,
+                                  final Vector4f sphere) throws IOException {
+        writer.putFloat(sphere.x);
+        writer.putFloat(sphere.y);
+        writer.putFloat(sphere.z);
+        writer.putFloat(sphere.w);
+    }
+
+    private static void putInts(final BinaryChannelWriter writer,
+                                final int[] values) throws IOException {
+        writer.putInt(values.length);
+        for (final int value : values) {
+            writer.putInt(value);
+        }
+    }
+
+    /**
+     * Reads the graph metadata of a store, clusters are returned without
+     * vertex data but with their page locations set.
+     */
+    public static StoredGraph readGraph(final Path directory) throws IOException {
+        try (final FileChannel channel = FileChannel.open(
+                directory.resolve(ClusterPageStore.GRAPH_FILE),
+                StandardOpenOption.READ
+        )) {
+            final BinaryChannelReader reader = new BinaryChannelReader(channel);
+            if (reader.getInt() != ClusterPageStore.MAGIC) {
+                throw new IOException("Not a cluster graph store: " + directory);
+            }
+            final int version = reader.getInt();
+            if (version != ClusterPageStore.VERSION) {
+                throw new IOException("Unsupported cluster graph store version " + version);
+            }
+            final int pageSize = reader.getInt();
+            if (pageSize != ClusterPageStore.PAGE_SIZE) {
+                throw new IOException("Unsupported cluster page size " + pageSize);
+            }
+            final int pageCount = reader.getInt();
+            final int clusterCount = reader.getInt();
+            final List<MeshCluster> clusters = new ArrayList<>(clusterCount);
+            for (int i = 0; i < clusterCount; i++) {
+                final MeshCluster cluster = new MeshCluster(
+                        reader.getInt(),
+                        reader.getInt(),
+                        reader.getInt(),
+                        reader.getInt(),
+                        ClusterPageStore.getSphere(reader),
+                        ClusterPageStore.getSphere(reader),
+                        reader.getFloat(),
+                        reader.getInt()
+                );
+                final int groupIndex = reader.getInt();
+                cluster.setParent(
+                        groupIndex,
+                        ClusterPageStore.getSphere(reader),
+                        reader.getFloat()
+                );
+                cluster.setPageLocation(reader.getInt(), reader.getInt());
+                clusters.add(cluster);
+            }
+            final int groupCount = reader.getInt();
+            final List<ClusterGroup> groups = new ArrayList<>(groupCount);
+            for (int i = 0; i < groupCount; i++) {
+                groups.add(new ClusterGroup(
+                        reader.getInt(),
+                        reader.getInt(),
+                        ClusterPageStore.getInts(reader),
+                        ClusterPageStore.getInts(reader),
+                        ClusterPageStore.getSphere(reader),
+                        reader.getFloat()
+                ));
+            }
+            return new StoredGraph(clusters, groups, pageCount);
+        }
+    }
+
+    private static Vector4f getSphere(final BinaryChannelReader reader) throws IOException {
+        return new Vector4f(
+                reader.getFloat(),
+                reader.getFloat(),
+                reader.getFloat(),
+                reader.getFloat()
+        );
+    }
+
+    private static int[] getInts(final BinaryChannelReader reader) throws IOException {
+        final int[] values = new int[reader.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = reader.getInt();
+        }
+        return values;
+    }
+
+    public static ClusterPageStore open(final Path directory,
+                                        final int pageCount) throws IOException {
+        return new ClusterPageStore(
+                FileChannel.open(directory.resolve(ClusterPageStore.PAGES_FILE), StandardOpenOption.READ),
+                pageCount
+        );
+    }
+
+    public int getPageCount() {
+        return this.pageCount;
+    }
+
+    /**
+     * Maps a single page read-only, the returned buffer is little endian and
+     * spans exactly {@link #PAGE_SIZE} bytes.
+     */
+    public ByteBuffer mapPage(final int page) throws IOException {
+        if (page < 0 || page >= this.pageCount) {
+            throw new IllegalArgumentException("Page " + page + " out of range [0, " + this.pageCount + ")");
+        }
+        return this.pagesChannel.map(
+                FileChannel.MapMode.READ_ONLY,
+                (long) page * ClusterPageStore.PAGE_SIZE,
+                ClusterPageStore.PAGE_SIZE
+        ).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Copies the vertex data of a paged cluster out of its (already mapped)
+     * page without attaching it to the cluster, so pages can be read on
+     * threads other than the one owning the graph.
+     */
+    public static ClusterVertexData readVertexData(final ByteBuffer page,
+                                                   final MeshCluster cluster) {
+        final int vertexFloats = cluster.getVertexCount() * 3;
+        final float[] positions = new float[vertexFloats];
+        final float[] normals = new float[vertexFloats];
+        final int[] indices = new int[cluster.getTriangleCount() * 3];
+        final ByteBuffer data = page.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        data.position(cluster.getPageOffset());
+        final FloatBuffer floats = data.asFloatBuffer();
+        floats.get(positions);
+        floats.get(normals);
+        data.position(data.position() + (2 * vertexFloats * Float.BYTES));
+        final IntBuffer ints = data.asIntBuffer();
+        ints.get(indices);
+        return new ClusterVertexData(positions, normals, indices);
+    }
+
+    /**
+     * Copies the vertex data of a paged cluster out of its (already mapped)
+     * page and attaches it to the cluster.
+     */
+    public static void readCluster(final ByteBuffer page,
+                                   final MeshCluster cluster) {
+        final ClusterVertexData data = ClusterPageStore.readVertexData(page, cluster);
+        cluster.setVertexData(data.positions(), data.normals(), data.indices());
+    }
+
+    public void readCluster(final MeshCluster cluster) throws IOException {
+        if (!cluster.isPaged()) {
+            throw new IllegalStateException("Cluster " + cluster.getId() + " has not been written to a page");
+        }
+        ClusterPageStore.readCluster(mapPage(cluster.getPage()), cluster);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.pagesChannel.close();
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.engineersbox.quanta.virtualisation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Tracks which pages of an {@link LODGraph} have their clusters resident in
+ * GPU memory and which groups a cut may therefore descend into. Clusters of a
+ * graph that was never serialised to a streaming store are still in memory,
+ * so each forms a page of its own.
+ * <p>
+ * A group is ready once all of its members are resident and every group
+ * holding a cluster it generated is ready too. Cuts only descend into ready
+ * groups, drawing the coarser cluster in place of any group that is not,
+ * so every cluster a cut reaches is resident as long as the pages holding
+ * root clusters are never evicted. Requiring the coarser groups to be ready
+ * as well keeps per-cluster selection on the GPU consistent with the
+ * traversal, as a group is never drawn from while a cluster it generated
+ * might still be drawn in its place.
+ */
+public class ClusterResidency {
+
+    public static final int NOT_RESIDENT = 0;
+    public static final int REQUESTED = 1;
+    public static final int LOADING = 2;
+    public static final int RESIDENT = 3;
+    public static final int FAILED = 4;
+
+    private final LODGraph graph;
+    private final int[][] pageClusters;
+    private final boolean[] pinned;
+    private final AtomicIntegerArray pageStates;
+    private final int[] pageLastUsed;
+    private final int[] groupMissing;
+    private final boolean[] groupReady;
+    private final Queue<Integer> requests;
+    private boolean readinessDirty;
+    private int frame;
+
+    public ClusterResidency(final LODGraph graph) {
+        this.graph = graph;
+        final List<MeshCluster> clusters = graph.getClusters();
+        final int pageCount = graph.getStoreDirectory() != null ? graph.getStorePageCount() : clusters.size();
+        final List<List<Integer>> pages = new ArrayList<>(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            pages.add(new ArrayList<>());
+        }
+        this.pinned = new boolean[pageCount];
+        for (final MeshCluster cluster : clusters) {
+            final int page = pageOf(cluster);
+            pages.get(page).add(cluster.getId());
+            this.pinned[page] |= cluster.isRoot();
+        }
+        this.pageClusters = pages.stream()
+                .map((final List<Integer> ids) -> ids.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+        this.pageStates = new AtomicIntegerArray(pageCount);
+        this.pageLastUsed = new int[pageCount];
+        this.groupMissing = graph.getGroups()
+                .stream()
+                .mapToInt((final ClusterGroup group) -> group.clusters().length)
+                .toArray();
+        this.groupReady = new boolean[this.groupMissing.length];
+        this.requests = new ConcurrentLinkedQueue<>();
+        this.readinessDirty = true;
+        this.frame = 0;
+    }
+
+    public LODGraph getGraph() {
+        return this.graph;
+    }
+
+    public int pageOf(final MeshCluster cluster) {
+        return this.graph.getStoreDirectory() != null ? cluster.getPage() : cluster.getId();
+    }
+
+    public int getPageCount() {
+        return this.pageClusters.length;
+    }
+
+    public int[] getPageClusters(final int page) {
+        return this.pageClusters[page];
+    }
+
+    /**
+     * Pages holding root clusters, which are loaded with the graph and never
+     * evicted so that every cut has something to fall back on.
+     */
+    public boolean isPinned(final int page) {
+        return this.pinned[page];
+    }
+
+    public int getPageState(final int page) {
+        return this.pageStates.get(page);
+    }
+
+    public boolean isGroupReady(final int group) {
+        return this.groupReady[group];
+    }
+
+    /**
+     * Asks for the pages of every missing member of a group. Safe to call
+     * from cut tasks, pages already requested or in flight are skipped.
+     */
+    public void requestGroup(final int group) {
+        for (final int member : this.graph.getGroups().get(group).clusters()) {
+            requestPage(pageOf(this.graph.getClusters().get(member)));
+        }
+    }
+
+    public void requestPage(final int page) {
+        if (this.pageStates.compareAndSet(page, ClusterResidency.NOT_RESIDENT, ClusterResidency.REQUESTED)) {
+            this.requests.add(page);
+        }
+    }
+
+    Integer pollRequest() {
+        return this.requests.poll();
+    }
+
+    boolean beginLoading(final int page) {
+        return this.pageStates.compareAndSet(page, ClusterResidency.REQUESTED, ClusterResidency.LOADING);
+    }
+
+    void failLoading(final int page) {
+        this.pageStates.set(page, ClusterResidency.FAILED);
+    }
+
+    /**
+     * Returns a page that was loaded but could not be installed to be
+     * requested again later.
+     */
+    public void dropLoaded(final int page) {
+        this.pageStates.set(page, ClusterResidency.NOT_RESIDENT);
+    }
+
+    /**
+     * Records that a cluster was drawn this frame, for least recently used
+     * eviction. Concurrent cut tasks all write the same frame, so races are
+     * benign.
+     */
+    public void touch(final MeshCluster cluster) {
+        this.pageLastUsed[pageOf(cluster)] = this.frame;
+    }
+
+    public void touchPage(final int page,
+                          final int frame) {
+        this.pageLastUsed[page] = Math.max(this.pageLastUsed[page], frame);
+    }
+
+    public int getPageLastUsed(final int page) {
+        return this.pageLastUsed[page];
+    }
+
+    public void setFrame(final int frame) {
+        this.frame = frame;
+    }
+
+    public void markResident(final int page) {
+        this.pageStates.set(page, ClusterResidency.RESIDENT);
+        this.pageLastUsed[page] = this.frame;
+        updateMissing(page, -1);
+    }
+
+    public void markEvicted(final int page) {
+        this.pageStates.set(page, ClusterResidency.NOT_RESIDENT);
+        updateMissing(page, 1);
+    }
+
+    private void updateMissing(final int page,
+                               final int delta) {
+        for (final int id : this.pageClusters[page]) {
+            final MeshCluster cluster = this.graph.getClusters().get(id);
+            if (!cluster.isRoot()) {
+                this.groupMissing[cluster.getGroupIndex()] += delta;
+            }
+        }
+        this.readinessDirty = true;
+    }
+
+    /**
+     * Recomputes which groups are ready after pages were installed or
+     * evicted. Groups are indexed finest level first, so walking them in
+     * reverse visits every group after those holding the clusters it
+     * generated.
+     *
+     * @return Whether any group's readiness changed
+     */
+    public boolean updateReadiness() {
+        if (!this.readinessDirty) {
+            return false;
+        }
+        this.readinessDirty = false;
+        final List<ClusterGroup> groups = this.graph.getGroups();
+        final List<MeshCluster> clusters = this.graph.getClusters();
+        boolean changed = false;
+        for (int i = groups.size() - 1; i >= 0; i--) {
+            boolean ready = this.groupMissing[i] == 0;
+            for (final int generated : groups.get(i).generatedClusters()) {
+                if (!ready) {
+                    break;
+                }
+                final MeshCluster cluster = clusters.get(generated);
+                ready = cluster.isRoot() || this.groupReady[cluster.getGroupIndex()];
+            }
+            changed |= this.groupReady[i] != ready;
+            this.groupReady[i] = ready;
+        }
+        return changed;
+    }
+
+    /**
+     * Whether a cut can reach a cluster, as a root or a member of a ready group.
+     */
+    public boolean isDrawable(final MeshCluster cluster) {
+        return cluster.isRoot() || this.groupReady[cluster.getGroupIndex()];
+    }
+
+    /**
+     * Whether a cut can descend past a cluster into the group that generated it.
+     */
+    public boolean isRefinable(final MeshCluster cluster) {
+        return cluster.getGeneratingGroup() != MeshCluster.NO_GROUP
+               && this.groupReady[cluster.getGeneratingGroup()];
+    }
+
+}
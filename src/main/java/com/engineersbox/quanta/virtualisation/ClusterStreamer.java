@@ -0,0 +1,147 @@
+package com.engineersbox.quanta.virtualisation;
+
+import com.engineersbox.quanta.virtualisation.ClusterPageStore.ClusterVertexData;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads cluster pages requested by view-dependent cuts on background
+ * threads. Pages are memory mapped from the graph's streaming store and
+ * copied out on a worker, then handed back to the render thread through
+ * {@link #pollLoaded()} to be installed in GPU memory. The number of pages in
+ * flight is bounded so a sudden jump in detail cannot queue up more reads
+ * than can be installed in the next few frames.
+ */
+public class ClusterStreamer {
+
+    private static final Logger LOGGER = LogManager.getLogger(ClusterStreamer.class);
+
+    public static final int MAX_IN_FLIGHT_PAGES = 32;
+
+    public record StreamedPage(ClusterResidency residency,
+                               int page,
+                               MeshCluster[] clusters,
+                               ClusterVertexData[] vertexData) {
+    }
+
+    private final ExecutorService executor;
+    private final List<ClusterResidency> residencies;
+    private final Queue<StreamedPage> loaded;
+    private final AtomicInteger inFlight;
+
+    public ClusterStreamer() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 4));
+    }
+
+    public ClusterStreamer(final int workers) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ThreadFactory threadFactory = (final Runnable runnable) -> {
+            final Thread thread = new Thread(runnable, "Cluster Streamer " + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = Executors.newFixedThreadPool(workers, threadFactory);
+        this.residencies = new ArrayList<>();
+        this.loaded = new ConcurrentLinkedQueue<>();
+        this.inFlight = new AtomicInteger();
+    }
+
+    public ClusterResidency register(final LODGraph graph) {
+        final ClusterResidency residency = new ClusterResidency(graph);
+        this.residencies.add(residency);
+        return residency;
+    }
+
+    public void unregister(final ClusterResidency residency) {
+        this.residencies.remove(residency);
+    }
+
+    public List<ClusterResidency> getResidencies() {
+        return this.residencies;
+    }
+
+    /**
+     * Starts loading requested pages until the in-flight limit is reached,
+     * leaving any remaining requests queued for later frames.
+     */
+    public void dispatchRequests(final int frame) {
+        for (final ClusterResidency residency : this.residencies) {
+            residency.setFrame(frame);
+            while (this.inFlight.get() < ClusterStreamer.MAX_IN_FLIGHT_PAGES) {
+                final Integer page = residency.pollRequest();
+                if (page == null) {
+                    break;
+                }
+                if (!residency.beginLoading(page)) {
+                    continue;
+                }
+                this.inFlight.incrementAndGet();
+                this.executor.execute(() -> loadPage(residency, page));
+            }
+        }
+    }
+
+    private void loadPage(final ClusterResidency residency,
+                          final int page) {
+        try {
+            this.loaded.add(ClusterStreamer.readPage(residency, page));
+        } catch (final RuntimeException e) {
+            ClusterStreamer.LOGGER.error("[CLUSTER STREAMER] Unable to load page {}", page, e);
+            residency.failLoading(page);
+        } finally {
+            this.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Reads the vertex data of every cluster in a page, on the calling thread.
+     */
+    public static StreamedPage readPage(final ClusterResidency residency,
+                                        final int page) {
+        final LODGraph graph = residency.getGraph();
+        final int[] ids = residency.getPageClusters(page);
+        final MeshCluster[] clusters = new MeshCluster[ids.length];
+        final ClusterVertexData[] vertexData = new ClusterVertexData[ids.length];
+        final ByteBuffer mapped = graph.getStoreDirectory() != null ? graph.mapPage(page) : null;
+        for (int i = 0; i < ids.length; i++) {
+            clusters[i] = graph.getClusters().get(ids[i]);
+            vertexData[i] = mapped != null
+                    ? ClusterPageStore.readVertexData(mapped, clusters[i])
+                    : new ClusterVertexData(clusters[i].getPositions(), clusters[i].getNormals(), clusters[i].getIndices());
+        }
+        return new StreamedPage(residency, page, clusters, vertexData);
+    }
+
+    /**
+     * @return Next page finished loading, or {@code null} if there is none
+     */
+    public StreamedPage pollLoaded() {
+        StreamedPage page;
+        while ((page = this.loaded.poll()) != null) {
+            // Skip pages of graphs unloaded while their read was in flight
+            if (this.residencies.contains(page.residency())) {
+                return page;
+            }
+        }
+        return null;
+    }
+
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    public void cleanup() {
+        this.executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,743 @@
+package com.engineersbox.quanta.virtualisation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Splits triangles into clusters by multilevel recursive bisection of the
+ * mesh's dual graph, in which triangles are connected across shared edges.
+ * Each bisection coarsens the graph by heavy edge matching, grows a split of
+ * the coarsest graph and refines it with Fiduccia-Mattheyses passes while
+ * projecting it back onto the triangles. Minimising the edges cut keeps
+ * cluster borders short, so clusters come out compact and evenly filled.
+ * The two sides of large bisections are split further in parallel.
+ */
+public class GraphClusterPartitioner implements TrianglePartitioner {
+
+    private static final int COARSEST_NODES = 64;
+    private static final float MIN_COARSENING = 0.9f;
+    private static final float IMBALANCE = 0.02f;
+    private static final float SPARE_CAPACITY = 0.01f;
+    private static final int INITIAL_ATTEMPTS = 4;
+    private static final int REFINEMENT_PASSES = 4;
+    private static final int MAX_UNPRODUCTIVE_MOVES = 64;
+    private static final int PARALLEL_SPLIT_TRIANGLES = 1 << 14;
+
+    /**
+     * @param clusters Triangle lists of each cluster, indexing into the positions partitioned
+     * @param neighbours Number of triangle edges each cluster shares with each adjacent cluster
+     */
+    public record ClusterPartition(List<int[]> clusters,
+                                   List<Map<Integer, Integer>> neighbours) {
+    }
+
+    /**
+     * Graph in compressed sparse row form with weighted nodes and edges, each
+     * edge appearing in the rows of both of its endpoints.
+     */
+    private record WeightedGraph(int[] nodeWeights,
+                                 int[] offsets,
+                                 int[] neighbours,
+                                 int[] edgeWeights) {
+
+        int nodeCount() {
+            return this.nodeWeights.length;
+        }
+
+    }
+
+    private final ForkJoinPool pool;
+
+    public GraphClusterPartitioner() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public GraphClusterPartitioner(final ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public List<int[]> partition(final float[] positions,
+                                 final int[] indices,
+                                 final int maxTriangles) {
+        return partitionWithNeighbours(positions, indices, maxTriangles).clusters();
+    }
+
+    /**
+     * Partitions triangles as {@link #partition(float[], int[], int)} does,
+     * also counting the edges shared between clusters from the dual graph
+     * already built to partition them.
+     */
+    public ClusterPartition partitionWithNeighbours(final float[] positions,
+                                                    final int[] indices,
+                                                    final int maxTriangles) {
+        final int triangleCount = indices.length / 3;
+        final int clusterSize = Math.max(1, maxTriangles);
+        final WeightedGraph dual = GraphClusterPartitioner.dualGraph(positions.length / 3, indices, triangleCount);
+        final int[] triangles = new int[triangleCount];
+        for (int i = 0; i < triangleCount; i++) {
+            triangles[i] = i;
+        }
+        final List<int[]> clusterTriangles = this.pool.invoke(new SplitTask(dual, triangles, clusterSize));
+        final int[] triangleClusters = new int[triangleCount];
+        final List<int[]> clusters = new ArrayList<>(clusterTriangles.size());
+        final List<Map<Integer, Integer>> neighbours = new ArrayList<>(clusterTriangles.size());
+        for (int i = 0; i < clusterTriangles.size(); i++) {
+            final int[] members = clusterTriangles.get(i);
+            final int[] cluster = new int[members.length * 3];
+            for (int j = 0; j < members.length; j++) {
+                System.arraycopy(indices, members[j] * 3, cluster, j * 3, 3);
+                triangleClusters[members[j]] = i;
+            }
+            clusters.add(cluster);
+            neighbours.add(new HashMap<>());
+        }
+        for (int triangle = 0; triangle < triangleCount; triangle++) {
+            for (int i = dual.offsets()[triangle]; i < dual.offsets()[triangle + 1]; i++) {
+                final int other = dual.neighbours()[i];
+                final int clusterA = triangleClusters[triangle];
+                final int clusterB = triangleClusters[other];
+                if (other > triangle && clusterA != clusterB) {
+                    neighbours.get(clusterA).merge(clusterB, dual.edgeWeights()[i], Integer::sum);
+                    neighbours.get(clusterB).merge(clusterA, dual.edgeWeights()[i], Integer::sum);
+                }
+            }
+        }
+        return new ClusterPartition(clusters, neighbours);
+    }
+
+    /**
+     * Connects every pair of triangles sharing an edge, weighted by the
+     * number of edges they share, found through the triangles incident on
+     * each vertex.
+     */
+    private static WeightedGraph dualGraph(final int vertexCount,
+                                           final int[] indices,
+                                           final int triangleCount) {
+        final int[] vertexOffsets = new int[vertexCount + 1];
+        for (int i = 0; i < triangleCount * 3; i++) {
+            vertexOffsets[indices[i] + 1]++;
+        }
+        for (int i = 0; i < vertexCount; i++) {
+            vertexOffsets[i + 1] += vertexOffsets[i];
+        }
+        final int[] vertexTriangles = new int[vertexOffsets[vertexCount]];
+        final int[] cursors = Arrays.copyOf(vertexOffsets, vertexCount);
+        for (int i = 0; i < triangleCount * 3; i++) {
+            vertexTriangles[cursors[indices[i]]++] = i / 3;
+        }
+        final int[] offsets = new int[triangleCount + 1];
+        int[] neighbours = new int[triangleCount * 3];
+        int[] edgeWeights = new int[triangleCount * 3];
+        final int[] slots = new int[triangleCount];
+        Arrays.fill(slots, -1);
+        int edgeCount = 0;
+        for (int triangle = 0; triangle < triangleCount; triangle++) {
+            final int rowStart = edgeCount;
+            for (int corner = 0; corner < 3; corner++) {
+                final int a = indices[(triangle * 3) + corner];
+                final int b = indices[(triangle * 3) + ((corner + 1) % 3)];
+                if (a == b) {
+                    continue;
+                }
+                for (int i = vertexOffsets[a]; i < vertexOffsets[a + 1]; i++) {
+                    final int other = vertexTriangles[i];
+                    if (other == triangle || !GraphClusterPartitioner.hasVertex(indices, other, b)) {
+                        continue;
+                    }
+                    final int slot = slots[other];
+                    if (slot >= rowStart && neighbours[slot] == other) {
+                        edgeWeights[slot]++;
+                        continue;
+                    }
+                    if (edgeCount == neighbours.length) {
+                        neighbours = Arrays.copyOf(neighbours, edgeCount * 2);
+                        edgeWeights = Arrays.copyOf(edgeWeights, edgeCount * 2);
+                    }
+                    slots[other] = edgeCount;
+                    neighbours[edgeCount] = other;
+                    edgeWeights[edgeCount++] = 1;
+                }
+            }
+            offsets[triangle + 1] = edgeCount;
+        }
+        final int[] nodeWeights = new int[triangleCount];
+        Arrays.fill(nodeWeights, 1);
+        return new WeightedGraph(
+                nodeWeights,
+                offsets,
+                Arrays.copyOf(neighbours, edgeCount),
+                Arrays.copyOf(edgeWeights, edgeCount)
+        );
+    }
+
+    private static boolean hasVertex(final int[] indices,
+                                     final int triangle,
+                                     final int vertex) {
+        return indices[triangle * 3] == vertex
+               || indices[(triangle * 3) + 1] == vertex
+               || indices[(triangle * 3) + 2] == vertex;
+    }
+
+    /**
+     * Bisects a graph of unit weight triangles until every part fits in a
+     * cluster, listing clusters of the first side before the second.
+     */
+    private static final class SplitTask extends RecursiveTask<List<int[]>> {
+
+        private final WeightedGraph graph;
+        private final int[] triangles;
+        private final int maxTriangles;
+
+        private SplitTask(final WeightedGraph graph,
+                          final int[] triangles,
+                          final int maxTriangles) {
+            this.graph = graph;
+            this.triangles = triangles;
+            this.maxTriangles = maxTriangles;
+        }
+
+        @Override
+        protected List<int[]> compute() {
+            final List<int[]> clusters = new ArrayList<>();
+            split(this.graph, this.triangles, clusters);
+            return clusters;
+        }
+
+        private void split(final WeightedGraph graph,
+                           final int[] triangles,
+                           final List<int[]> clusters) {
+            final int count = graph.nodeCount();
+            if (count == 0) {
+                return;
+            }
+            if (count <= this.maxTriangles) {
+                clusters.add(triangles);
+                return;
+            }
+            // A little spare capacity leaves refinement room to move triangles across the cut
+            final int clusterCount = (int) Math.ceil(count * (1 + GraphClusterPartitioner.SPARE_CAPACITY) / this.maxTriangles);
+            final int leftClusters = clusterCount / 2;
+            final int target = Math.max(1, (int) ((long) count * leftClusters / clusterCount));
+            // Each side holds a whole number of clusters, and staying near its share keeps the other from emptying
+            final int[] capacities = {
+                    GraphClusterPartitioner.capacity(target, leftClusters * this.maxTriangles, count),
+                    GraphClusterPartitioner.capacity(count - target, (clusterCount - leftClusters) * this.maxTriangles, count)
+            };
+            final int[] sides = GraphClusterPartitioner.bisect(graph, capacities, target);
+            final int[] localIndices = new int[count];
+            final int[] sideCounts = new int[2];
+            for (int i = 0; i < count; i++) {
+                localIndices[i] = sideCounts[sides[i]]++;
+            }
+            final WeightedGraph[] sideGraphs = new WeightedGraph[2];
+            final int[][] sideTriangles = new int[2][];
+            for (int side = 0; side < 2; side++) {
+                sideGraphs[side] = GraphClusterPartitioner.subgraph(graph, sides, side, sideCounts[side], localIndices);
+                sideTriangles[side] = new int[sideCounts[side]];
+            }
+            for (int i = 0; i < count; i++) {
+                sideTriangles[sides[i]][localIndices[i]] = triangles[i];
+            }
+            if (count < GraphClusterPartitioner.PARALLEL_SPLIT_TRIANGLES) {
+                split(sideGraphs[0], sideTriangles[0], clusters);
+                split(sideGraphs[1], sideTriangles[1], clusters);
+                return;
+            }
+            final SplitTask left = new SplitTask(sideGraphs[0], sideTriangles[0], this.maxTriangles);
+            final SplitTask right = new SplitTask(sideGraphs[1], sideTriangles[1], this.maxTriangles);
+            invokeAll(left, right);
+            clusters.addAll(left.join());
+            clusters.addAll(right.join());
+        }
+
+    }
+
+    private static int capacity(final int share,
+                                final int clusterCapacity,
+                                final int count) {
+        final int tolerated = (int) Math.ceil(share * (1 + GraphClusterPartitioner.IMBALANCE));
+        return Math.min(count - 1, Math.min(clusterCapacity, tolerated));
+    }
+
+    private static WeightedGraph subgraph(final WeightedGraph graph,
+                                          final int[] sides,
+                                          final int side,
+                                          final int nodeCount,
+                                          final int[] localIndices) {
+        final int[] nodeWeights = new int[nodeCount];
+        final int[] offsets = new int[nodeCount + 1];
+        int edgeCount = 0;
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            if (sides[i] != side) {
+                continue;
+            }
+            nodeWeights[localIndices[i]] = graph.nodeWeights()[i];
+            for (int j = graph.offsets()[i]; j < graph.offsets()[i + 1]; j++) {
+                if (sides[graph.neighbours()[j]] == side) {
+                    edgeCount++;
+                }
+            }
+            offsets[localIndices[i] + 1] = edgeCount;
+        }
+        final int[] neighbours = new int[edgeCount];
+        final int[] edgeWeights = new int[edgeCount];
+        int edge = 0;
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            if (sides[i] != side) {
+                continue;
+            }
+            for (int j = graph.offsets()[i]; j < graph.offsets()[i + 1]; j++) {
+                final int neighbour = graph.neighbours()[j];
+                if (sides[neighbour] == side) {
+                    neighbours[edge] = localIndices[neighbour];
+                    edgeWeights[edge++] = graph.edgeWeights()[j];
+                }
+            }
+        }
+        return new WeightedGraph(nodeWeights, offsets, neighbours, edgeWeights);
+    }
+
+    /**
+     * Splits a graph in two, with the weight of each side within its
+     * capacity and the weight of the first side as close to the target as
+     * the cut allows.
+     *
+     * @return Side of each node, 0 or 1
+     */
+    private static int[] bisect(final WeightedGraph graph,
+                                final int[] capacities,
+                                final int target) {
+        final Random random = new Random(graph.nodeCount());
+        final List<WeightedGraph> graphs = new ArrayList<>();
+        final List<int[]> coarseMaps = new ArrayList<>();
+        int totalWeight = 0;
+        for (final int weight : graph.nodeWeights()) {
+            totalWeight += weight;
+        }
+        // Coarse nodes stay light enough for the coarsest split to be balanced
+        final int maxNodeWeight = Math.max(1, (totalWeight * 3) / (GraphClusterPartitioner.COARSEST_NODES * 2));
+        WeightedGraph current = graph;
+        graphs.add(current);
+        while (current.nodeCount() > GraphClusterPartitioner.COARSEST_NODES) {
+            final int[] coarseMap = new int[current.nodeCount()];
+            final int coarseCount = GraphClusterPartitioner.matchHeavyEdges(current, maxNodeWeight, random, coarseMap);
+            if (coarseCount > current.nodeCount() * GraphClusterPartitioner.MIN_COARSENING) {
+                break;
+            }
+            current = GraphClusterPartitioner.contract(current, coarseMap, coarseCount);
+            coarseMaps.add(coarseMap);
+            graphs.add(current);
+        }
+        final LongHeap heap = new LongHeap();
+        int[] sides = GraphClusterPartitioner.initialBisection(current, capacities, target, random, heap);
+        for (int level = coarseMaps.size() - 1; level >= 0; level--) {
+            final int[] coarseMap = coarseMaps.get(level);
+            final int[] finerSides = new int[coarseMap.length];
+            for (int i = 0; i < coarseMap.length; i++) {
+                finerSides[i] = sides[coarseMap[i]];
+            }
+            sides = finerSides;
+            GraphClusterPartitioner.refine(graphs.get(level), sides, capacities, target, heap);
+        }
+        return sides;
+    }
+
+    /**
+     * Pairs each node with its unmatched neighbour across the heaviest edge,
+     * visiting nodes in random order.
+     *
+     * @return Number of coarse nodes, with the coarse node of each node written to {@code coarseMap}
+     */
+    private static int matchHeavyEdges(final WeightedGraph graph,
+                                       final int maxNodeWeight,
+                                       final Random random,
+                                       final int[] coarseMap) {
+        final int nodeCount = graph.nodeCount();
+        final int[] order = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            final int swap = random.nextInt(i + 1);
+            order[i] = order[swap];
+            order[swap] = i;
+        }
+        final int[] matches = new int[nodeCount];
+        Arrays.fill(matches, -1);
+        for (final int node : order) {
+            if (matches[node] != -1) {
+                continue;
+            }
+            int match = node;
+            int matchWeight = 0;
+            for (int i = graph.offsets()[node]; i < graph.offsets()[node + 1]; i++) {
+                final int neighbour = graph.neighbours()[i];
+                if (matches[neighbour] == -1
+                    && graph.edgeWeights()[i] > matchWeight
+                    && graph.nodeWeights()[node] + graph.nodeWeights()[neighbour] <= maxNodeWeight) {
+                    match = neighbour;
+                    matchWeight = graph.edgeWeights()[i];
+                }
+            }
+            matches[node] = match;
+            matches[match] = node;
+        }
+        // Number coarse nodes in the order of their first node to keep the graph's memory locality
+        int coarseCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            final int match = matches[node];
+            if (match >= node) {
+                coarseMap[node] = coarseCount;
+                if (match != node) {
+                    coarseMap[match] = coarseCount;
+                }
+                coarseCount++;
+            }
+        }
+        return coarseCount;
+    }
+
+    /**
+     * Collapses matched nodes, summing the weights of their nodes and of
+     * edges that end up between the same coarse nodes.
+     */
+    private static WeightedGraph contract(final WeightedGraph graph,
+                                          final int[] coarseMap,
+                                          final int coarseCount) {
+        final int[] memberOffsets = new int[coarseCount + 1];
+        for (final int coarse : coarseMap) {
+            memberOffsets[coarse + 1]++;
+        }
+        for (int i = 0; i < coarseCount; i++) {
+            memberOffsets[i + 1] += memberOffsets[i];
+        }
+        final int[] members = new int[coarseMap.length];
+        final int[] cursors = Arrays.copyOf(memberOffsets, coarseCount);
+        for (int i = 0; i < coarseMap.length; i++) {
+            members[cursors[coarseMap[i]]++] = i;
+        }
+        final int[] nodeWeights = new int[coarseCount];
+        final int[] offsets = new int[coarseCount + 1];
+        final int[] neighbours = new int[graph.neighbours().length];
+        final int[] edgeWeights = new int[graph.neighbours().length];
+        final int[] slots = new int[coarseCount];
+        Arrays.fill(slots, -1);
+        int edgeCount = 0;
+        for (int coarse = 0; coarse < coarseCount; coarse++) {
+            final int rowStart = edgeCount;
+            for (int m = memberOffsets[coarse]; m < memberOffsets[coarse + 1]; m++) {
+                final int node = members[m];
+                nodeWeights[coarse] += graph.nodeWeights()[node];
+                for (int i = graph.offsets()[node]; i < graph.offsets()[node + 1]; i++) {
+                    final int neighbour = coarseMap[graph.neighbours()[i]];
+                    if (neighbour == coarse) {
+                        continue;
+                    }
+                    final int slot = slots[neighbour];
+                    if (slot >= rowStart && neighbours[slot] == neighbour) {
+                        edgeWeights[slot] += graph.edgeWeights()[i];
+                        continue;
+                    }
+                    slots[neighbour] = edgeCount;
+                    neighbours[edgeCount] = neighbour;
+                    edgeWeights[edgeCount++] = graph.edgeWeights()[i];
+                }
+            }
+            offsets[coarse + 1] = edgeCount;
+        }
+        return new WeightedGraph(
+                nodeWeights,
+                offsets,
+                Arrays.copyOf(neighbours, edgeCount),
+                Arrays.copyOf(edgeWeights, edgeCount)
+        );
+    }
+
+    /**
+     * Grows the first side breadth first from a few random seeds, refining
+     * each and keeping the split with the smallest cut.
+     */
+    private static int[] initialBisection(final WeightedGraph graph,
+                                          final int[] capacities,
+                                          final int target,
+                                          final Random random,
+                                          final LongHeap heap) {
+        final int nodeCount = graph.nodeCount();
+        int[] best = null;
+        int bestCut = Integer.MAX_VALUE;
+        final int[] queue = new int[nodeCount];
+        final boolean[] visited = new boolean[nodeCount];
+        for (int attempt = 0; attempt < GraphClusterPartitioner.INITIAL_ATTEMPTS; attempt++) {
+            final int[] sides = new int[nodeCount];
+            Arrays.fill(sides, 1);
+            Arrays.fill(visited, false);
+            int head = 0;
+            int tail = 0;
+            int nextUnvisited = 0;
+            int weight = 0;
+            final int seed = random.nextInt(nodeCount);
+            queue[tail++] = seed;
+            visited[seed] = true;
+            while (weight < target) {
+                if (head == tail) {
+                    // Continue from another component once this one is exhausted
+                    while (nextUnvisited < nodeCount && visited[nextUnvisited]) {
+                        nextUnvisited++;
+                    }
+                    if (nextUnvisited == nodeCount) {
+                        break;
+                    }
+                    queue[tail++] = nextUnvisited;
+                    visited[nextUnvisited] = true;
+                }
+                final int node = queue[head++];
+                if (weight + graph.nodeWeights()[node] > capacities[0]) {
+                    continue;
+                }
+                sides[node] = 0;
+                weight += graph.nodeWeights()[node];
+                for (int i = graph.offsets()[node]; i < graph.offsets()[node + 1]; i++) {
+                    final int neighbour = graph.neighbours()[i];
+                    if (!visited[neighbour]) {
+                        visited[neighbour] = true;
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+            final int cut = GraphClusterPartitioner.refine(graph, sides, capacities, target, heap);
+            if (cut < bestCut) {
+                best = sides;
+                bestCut = cut;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Moves nodes out of any side over capacity, then runs Fiduccia-Mattheyses
+     * passes. Each pass moves boundary nodes in order of gain, locking each
+     * once moved, and rolls back to the smallest cut seen during the pass.
+     *
+     * @return Weight of the edges cut
+     */
+    private static int refine(final WeightedGraph graph,
+                              final int[] sides,
+                              final int[] capacities,
+                              final int target,
+                              final LongHeap heap) {
+        final int nodeCount = graph.nodeCount();
+        final int[] gains = new int[nodeCount];
+        final boolean[] locked = new boolean[nodeCount];
+        final int[] moves = new int[nodeCount];
+        final int[] sideWeights = new int[2];
+        for (int i = 0; i < nodeCount; i++) {
+            sideWeights[sides[i]] += graph.nodeWeights()[i];
+        }
+        int cut = GraphClusterPartitioner.computeGains(graph, sides, gains);
+        for (int side = 0; side < 2; side++) {
+            if (sideWeights[side] <= capacities[side]) {
+                continue;
+            }
+            heap.clear();
+            for (int i = 0; i < nodeCount; i++) {
+                if (sides[i] == side) {
+                    heap.push(gains[i], i);
+                }
+            }
+            while (sideWeights[side] > capacities[side] && !heap.isEmpty()) {
+                final long entry = heap.pop();
+                final int node = LongHeap.node(entry);
+                if (sides[node] != side || LongHeap.gain(entry) != gains[node]
+                    || sideWeights[1 - side] + graph.nodeWeights()[node] > capacities[1 - side]) {
+                    continue;
+                }
+                cut = GraphClusterPartitioner.move(graph, sides, sideWeights, gains, node, cut);
+                for (int i = graph.offsets()[node]; i < graph.offsets()[node + 1]; i++) {
+                    final int neighbour = graph.neighbours()[i];
+                    if (sides[neighbour] == side) {
+                        heap.push(gains[neighbour], neighbour);
+                    }
+                }
+            }
+        }
+        for (int pass = 0; pass < GraphClusterPartitioner.REFINEMENT_PASSES; pass++) {
+            heap.clear();
+            for (int i = 0; i < nodeCount; i++) {
+                if (gains[i] > -GraphClusterPartitioner.incidentWeight(graph, i)) {
+                    // Boundary nodes only, as moving an interior node can never reduce the cut
+                    heap.push(gains[i], i);
+                }
+            }
+            Arrays.fill(locked, false);
+            int moveCount = 0;
+            int bestMoves = 0;
+            int bestCut = cut;
+            int bestImbalance = Math.abs(sideWeights[0] - target);
+            int unproductive = 0;
+            while (!heap.isEmpty() && unproductive < GraphClusterPartitioner.MAX_UNPRODUCTIVE_MOVES) {
+                final long entry = heap.pop();
+                final int node = LongHeap.node(entry);
+                final int to = 1 - sides[node];
+                if (locked[node] || LongHeap.gain(entry) != gains[node]
+                    || sideWeights[to] + graph.nodeWeights()[node] > capacities[to]) {
+                    continue;
+                }
+                cut = GraphClusterPartitioner.move(graph, sides, sideWeights, gains, node, cut);
+                locked[node] = true;
+                moves[moveCount++] = node;
+                for (int i = graph.offsets()[node]; i < graph.offsets()[node + 1]; i++) {
+                    final int neighbour = graph.neighbours()[i];
+                    if (!locked[neighbour]) {
+                        heap.push(gains[neighbour], neighbour);
+                    }
+                }
+                final int imbalance = Math.abs(sideWeights[0] - target);
+                if (cut < bestCut || (cut == bestCut && imbalance < bestImbalance)) {
+                    bestCut = cut;
+                    bestImbalance = imbalance;
+                    bestMoves = moveCount;
+                    unproductive = 0;
+                } else {
+                    unproductive++;
+                }
+            }
+            for (int i = moveCount - 1; i >= bestMoves; i--) {
+                cut = GraphClusterPartitioner.move(graph, sides, sideWeights, gains, moves[i], cut);
+            }
+            if (bestMoves == 0) {
+                break;
+            }
+        }
+        return cut;
+    }
+
+    /**
+     * Gain of moving each node to the other side, the weight of its cut edges
+     * less the weight of its uncut edges.
+     *
+     * @return Weight of the edges cut
+     */
+    private static int computeGains(final WeightedGraph graph,
+                                    final int[] sides,
+                                    final int[] gains) {
+        int cut = 0;
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            int gain = 0;
+            for (int i = graph.offsets()[node]; i < graph.offsets()[node + 1]; i++) {
+                if (sides[graph.neighbours()[i]] == sides[node]) {
+                    gain -= graph.edgeWeights()[i];
+                } else {
+                    gain += graph.edgeWeights()[i];
+                    cut += graph.edgeWeights()[i];
+                }
+            }
+            gains[node] = gain;
+        }
+        return cut / 2;
+    }
+
+    private static int incidentWeight(final WeightedGraph graph,
+                                      final int node) {
+        int weight = 0;
+        for (int i = graph.offsets()[node]; i < graph.offsets()[node + 1]; i++) {
+            weight += graph.edgeWeights()[i];
+        }
+        return weight;
+    }
+
+    /**
+     * Moves a node to the other side, updating side weights and the gains of
+     * the node and its neighbours.
+     *
+     * @return Weight of the edges cut after the move
+     */
+    private static int move(final WeightedGraph graph,
+                            final int[] sides,
+                            final int[] sideWeights,
+                            final int[] gains,
+                            final int node,
+                            final int cut) {
+        final int from = sides[node];
+        final int to = 1 - from;
+        sides[node] = to;
+        sideWeights[from] -= graph.nodeWeights()[node];
+        sideWeights[to] += graph.nodeWeights()[node];
+        final int newCut = cut - gains[node];
+        gains[node] = -gains[node];
+        for (int i = graph.offsets()[node]; i < graph.offsets()[node + 1]; i++) {
+            final int neighbour = graph.neighbours()[i];
+            final int weight = graph.edgeWeights()[i];
+            gains[neighbour] += sides[neighbour] == to ? -2 * weight : 2 * weight;
+        }
+        return newCut;
+    }
+
+    /**
+     * Binary max heap of (gain, node) pairs packed into longs, gain in the
+     * high bits. Gains change as nodes move, so entries are pushed again on
+     * every change and stale ones are skipped when popped.
+     */
+    private static final class LongHeap {
+
+        private long[] entries = new long[64];
+        private int size;
+
+        static int gain(final long entry) {
+            return (int) (entry >> 32);
+        }
+
+        static int node(final long entry) {
+            return (int) entry;
+        }
+
+        void push(final int gain,
+                  final int node) {
+            if (this.size == this.entries.length) {
+                this.entries = Arrays.copyOf(this.entries, this.size * 2);
+            }
+            final long entry = ((long) gain << 32) | (node & 0xFFFFFFFFL);
+            int i = this.size++;
+            while (i > 0 && this.entries[(i - 1) / 2] < entry) {
+                this.entries[i] = this.entries[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            this.entries[i] = entry;
+        }
+
+        long pop() {
+            final long top = this.entries[0];
+            final long last = this.entries[--this.size];
+            int i = 0;
+            while (true) {
+                int child = (i * 2) + 1;
+                if (child >= this.size) {
+                    break;
+                }
+                if (child + 1 < this.size && this.entries[child + 1] > this.entries[child]) {
+                    child++;
+                }
+                if (this.entries[child] <= last) {
+                    break;
+                }
+                this.entries[i] = this.entries[child];
+                i = child;
+            }
+            this.entries[i] = last;
+            return top;
+        }
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        void clear() {
+            this.size = 0;
+        }
+
+    }
+
+}
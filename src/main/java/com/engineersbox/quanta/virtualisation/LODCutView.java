@@ -0,0 +1,151 @@
+package com.engineersbox.quanta.virtualisation;
+
+import com.engineersbox.quanta.core.Window;
+import com.engineersbox.quanta.rendering.view.Camera;
+import com.engineersbox.quanta.rendering.view.Projection;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.joml.Vector4f;
+
+/**
+ * View state used to select a cut through an {@link LODGraph}, expressed in
+ * the model space of the instance being drawn so cluster bounds can be used
+ * untransformed. The projected error of a sphere with object space error
+ * {@code e} is {@code e * errorScale / d}, where {@code d} is the distance
+ * from the camera to the nearest point of the sphere and {@code errorScale}
+ * converts to pixels from the viewport height and the projection's vertical
+ * field of view.
+ */
+public class LODCutView {
+
+    /**
+     * Stands in for an unbounded error, as uploaded to the GPU where
+     * infinities are not reliably preserved.
+     */
+    public static final float MAX_ERROR = Float.MAX_VALUE;
+    public static final int FRUSTUM_PLANES = 6;
+
+    private final Matrix4f inverseModelMatrix;
+    private final Matrix4f projectionViewModelMatrix;
+    private final Vector3f cameraPosition;
+    private final Vector3f modelScale;
+    private final Vector4f[] frustumPlanes;
+    private float errorScale;
+    private float pixelThreshold;
+    private float minDistance;
+    private boolean culling;
+
+    public LODCutView() {
+        this.inverseModelMatrix = new Matrix4f();
+        this.projectionViewModelMatrix = new Matrix4f();
+        this.cameraPosition = new Vector3f();
+        this.modelScale = new Vector3f();
+        this.frustumPlanes = new Vector4f[LODCutView.FRUSTUM_PLANES];
+        for (int i = 0; i < LODCutView.FRUSTUM_PLANES; i++) {
+            this.frustumPlanes[i] = new Vector4f();
+        }
+        this.culling = true;
+    }
+
+    /**
+     * @param modelMatrix Model matrix of the instance the cut is for
+     * @param pixelThreshold Maximum projected error in pixels of any selected cluster
+     */
+    public void update(final Window window,
+                       final Camera camera,
+                       final Projection projection,
+                       final Matrix4f modelMatrix,
+                       final float pixelThreshold) {
+        final Matrix4f projectionMatrix = projection.getProjectionMatrix();
+        this.inverseModelMatrix.set(modelMatrix).invert();
+        this.inverseModelMatrix.transformPosition(camera.getPosition(), this.cameraPosition);
+        // m11 is cot(fov / 2) for a perspective projection
+        final float projectionScale = window.getHeight() * 0.5f * projectionMatrix.m11();
+        // Errors and distances are measured in model space, which is exact for
+        // uniform scales and kept conservative for non-uniform ones
+        modelMatrix.getScale(this.modelScale);
+        final float minScale = Math.min(this.modelScale.x, Math.min(this.modelScale.y, this.modelScale.z));
+        final float maxScale = Math.max(this.modelScale.x, Math.max(this.modelScale.y, this.modelScale.z));
+        this.errorScale = minScale > 0 ? projectionScale * (maxScale / minScale) : projectionScale;
+        this.minDistance = minScale > 0 ? (projectionMatrix.perspectiveNear() / maxScale) : 0;
+        this.pixelThreshold = pixelThreshold;
+        this.projectionViewModelMatrix.set(projectionMatrix)
+                .mul(camera.getViewMatrix())
+                .mul(modelMatrix);
+        for (int i = 0; i < LODCutView.FRUSTUM_PLANES; i++) {
+            this.projectionViewModelMatrix.frustumPlane(i, this.frustumPlanes[i]);
+        }
+    }
+
+    /**
+     * Screen space error in pixels of simplifying to {@code error} within
+     * {@code bounds}, unbounded when the camera is inside the bounds.
+     */
+    public float projectedError(final Vector4f bounds,
+                                final float error) {
+        if (error <= 0) {
+            return 0;
+        }
+        if (error >= LODCutView.MAX_ERROR) {
+            return LODCutView.MAX_ERROR;
+        }
+        final float distance = this.cameraPosition.distance(bounds.x, bounds.y, bounds.z) - bounds.w;
+        if (distance <= this.minDistance) {
+            return LODCutView.MAX_ERROR;
+        }
+        return error * this.errorScale / distance;
+    }
+
+    public boolean isAcceptable(final Vector4f bounds,
+                                final float error) {
+        return projectedError(bounds, error) <= this.pixelThreshold;
+    }
+
+    public boolean isVisible(final Vector4f sphere) {
+        if (!this.culling) {
+            return true;
+        }
+        for (final Vector4f plane : this.frustumPlanes) {
+            if ((plane.x * sphere.x) + (plane.y * sphere.y) + (plane.z * sphere.z) + plane.w < -sphere.w) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void setCulling(final boolean culling) {
+        this.culling = culling;
+    }
+
+    public boolean isCulling() {
+        return this.culling;
+    }
+
+    public Vector3f getCameraPosition() {
+        return this.cameraPosition;
+    }
+
+    public float getErrorScale() {
+        return this.errorScale;
+    }
+
+    public float getPixelThreshold() {
+        return this.pixelThreshold;
+    }
+
+    public float getMinDistance() {
+        return this.minDistance;
+    }
+
+    public Vector4f[] getFrustumPlanes() {
+        return this.frustumPlanes;
+    }
+
+    /**
+     * @return Transform from the instance's model space to clip space
+     */
+    public Matrix4f getProjectionViewModelMatrix() {
+        return this.projectionViewModelMatrix;
+    }
+
+}
@@ -1,163 +1,768 @@
 package com.engineersbox.quanta.virtualisation;
 
-import com.engineersbox.quanta.core.Window;
 import com.engineersbox.quanta.resources.assets.object.Mesh;
-import com.engineersbox.quanta.virtualisation.graph.Graph;
-import org.apache.commons.collections4.CollectionUtils;
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+import com.engineersbox.quanta.virtualisation.QuadricErrorSimplifier.SimplifiedMesh;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Vector4f;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
+/**
+ * Cluster hierarchy over a mesh, built as a DAG in the style of virtualised
+ * geometry systems. The mesh is split into small clusters, then each level is
+ * built from the previous one by grouping neighbouring clusters, merging each
+ * group, simplifying it to half its triangles with the borders it shares with
+ * other groups locked, and re-splitting the result into new clusters. Locking
+ * group borders keeps every level crack free against its neighbours, so a
+ * renderer can mix clusters from different levels in one view-dependent cut.
+ */
 public class LODGraph {
 
+    private static final Logger LOGGER = LogManager.getLogger(LODGraph.class);
+
+    private static final int DEFAULT_CLUSTER_TRIANGLES = 128;
+    private static final int DEFAULT_GROUPING_SIZE = 4;
+    private static final double SIMPLIFICATION_AGGRESSIVENESS = 7d;
+    // Stop building levels once a level keeps more than this fraction of its triangles
+    private static final float MIN_LEVEL_REDUCTION = 0.85f;
+    // Cut traversal tasks over more clusters than this are split in half
+    private static final int CUT_SPLIT_THRESHOLD = 64;
+
     private final Mesh initialMesh;
-    private final List<List<LODLevel>> levels;
-    private final int initialVertexClusterThreshold;
-    private final int initialGroupingSize;
+    private final MeshData initialMeshData;
+    private final List<LODLevel> levels;
+    private final List<MeshCluster> clusters;
+    private final List<ClusterGroup> groups;
+    private final int clusterTriangleThreshold;
+    private final int groupingSize;
     private final int lodLevels;
+    private final TrianglePartitioner partitioner;
+    private final ForkJoinPool pool;
+    private float[] vertexPositions;
+    private float[] vertexNormals;
+    private int vertexCount;
+    private Path storeDirectory;
+    private int storePageCount;
+    private ClusterPageStore store;
+    private final ClusterCut cut;
+    private int[] rootClusters;
+    private AtomicIntegerArray groupVisits;
+    private int cutStamp;
 
     public LODGraph(final Mesh mesh,
                     final int lodLevels) {
         this(
                 mesh,
-                128,
-                4,
+                LODGraph.DEFAULT_CLUSTER_TRIANGLES,
+                LODGraph.DEFAULT_GROUPING_SIZE,
                 lodLevels
         );
     }
 
+    public LODGraph(final MeshData meshData,
+                    final int lodLevels) {
+        this(
+                null,
+                meshData,
+                LODGraph.DEFAULT_CLUSTER_TRIANGLES,
+                LODGraph.DEFAULT_GROUPING_SIZE,
+                lodLevels,
+                new SpatialClusterPartitioner(),
+                ForkJoinPool.commonPool()
+        );
+    }
+
     public LODGraph(final Mesh mesh,
-                    final int initialVertexClusterThreshold,
-                    final int initialGroupingSize,
+                    final int clusterTriangleThreshold,
+                    final int groupingSize,
                     final int lodLevels) {
+        this(
+                mesh,
+                clusterTriangleThreshold,
+                groupingSize,
+                lodLevels,
+                new SpatialClusterPartitioner(),
+                ForkJoinPool.commonPool()
+        );
+    }
+
+    public LODGraph(final Mesh mesh,
+                    final int clusterTriangleThreshold,
+                    final int groupingSize,
+                    final int lodLevels,
+                    final TrianglePartitioner partitioner,
+                    final ForkJoinPool pool) {
+        this(
+                mesh,
+                mesh == null ? null : mesh.getMeshData(),
+                clusterTriangleThreshold,
+                groupingSize,
+                lodLevels,
+                partitioner,
+                pool
+        );
+    }
+
+    private LODGraph(final Mesh mesh,
+                     final MeshData meshData,
+                     final int clusterTriangleThreshold,
+                     final int groupingSize,
+                     final int lodLevels,
+                     final TrianglePartitioner partitioner,
+                     final ForkJoinPool pool) {
         this.initialMesh = mesh;
+        this.initialMeshData = meshData;
         this.levels = new ArrayList<>();
-        this.initialVertexClusterThreshold = initialVertexClusterThreshold;
-        this.initialGroupingSize = initialGroupingSize;
+        this.clusters = new ArrayList<>();
+        this.groups = new ArrayList<>();
+        this.clusterTriangleThreshold = clusterTriangleThreshold;
+        this.groupingSize = Math.max(2, groupingSize);
         this.lodLevels = lodLevels;
-        for (int i = 0; i < lodLevels; i++) {
-            this.levels.add(new ArrayList<>());
-        }
+        this.partitioner = partitioner;
+        this.pool = pool;
+        this.cut = new ClusterCut();
+        this.cutStamp = 0;
     }
 
     public void build() {
-        final Graph graph = new Graph(this.initialMesh);
+        final long timeStart = System.currentTimeMillis();
+        this.levels.clear();
+        this.clusters.clear();
+        this.groups.clear();
+        this.rootClusters = null;
+        this.groupVisits = null;
+        final MeshData meshData = this.initialMeshData;
+        final float[] positions = meshData.getPositions();
+        this.vertexCount = positions.length / 3;
+        this.vertexPositions = Arrays.copyOf(positions, positions.length);
+        this.vertexNormals = meshData.getNormals().length >= positions.length
+                ? Arrays.copyOf(meshData.getNormals(), positions.length)
+                : new float[positions.length];
         // 1. Cluster
-        List<VertexCluster> clustering = ClusterGenerator.findClustersThreshold(
-                graph,
-                this.initialVertexClusterThreshold
+        List<MeshCluster> currentClusters = new ArrayList<>();
+        List<int[]> currentIndices = this.partitioner.partition(
+                this.vertexPositions,
+                meshData.getIndices(),
+                this.clusterTriangleThreshold
         );
-        int groupingSize = this.initialGroupingSize;
-        // 2. Create LODLevels for each cluster
-        List<LODLevel> currentLevels = this.levels.get(this.lodLevels - 1);
-        for (final VertexCluster cluster : clustering) {
-            currentLevels.add(new LODLevel(
-                    this.lodLevels - 1,
+        for (final int[] indices : currentIndices) {
+            final Vector4f bounds = ClusterBounds.sphere(this.vertexPositions, indices);
+            currentClusters.add(createCluster(
+                    0,
+                    indices,
+                    bounds,
+                    new Vector4f(bounds),
                     0,
-                    List.of(cluster.copy()),
-                    new ArrayList<>()
+                    MeshCluster.NO_GROUP
             ));
         }
-        for (int i = this.lodLevels - 2; i >= 0; i--) {
-            // 3. Get previous lod levels
-            final List<LODLevel> previousLodLevels = this.levels.get(i + 1);
-            // 4. Group clusters and Update LODLevels with parent LODLevel containing group
-            final List<List<VertexCluster>> grouping = groupClusters(clustering, groupingSize /= 2, previousLodLevels, i);
-            // 5. Merge clusters in groups
-            final List<VertexCluster> mergedClusters = mergeGroups(grouping);
-            // 6. Simplify groups
-            final List<VertexCluster> simplifiedClusters = new ArrayList<>(); // TODO: refactor QuadricErrorSimplifier to work on VertexCluster, with target as 50%
-            for (final LODLevel level : previousLodLevels) {
-                for (final LODLevel current : level.parents()) {
-                    current.clusters().clear();
-                    current.clusters().add(simplifiedClusters.get(current.groupIndex()).copy());
+        for (int level = 0; ; level++) {
+            if (level >= this.lodLevels - 1 || currentClusters.size() <= 1) {
+                this.levels.add(new LODLevel(level, currentClusters, List.of()));
+                break;
+            }
+            // 2. Group neighbouring clusters
+            final List<int[]> grouping = groupClusters(currentIndices);
+            // 3. Merge and simplify each group with borders between groups locked
+            final List<SimplifiedMesh> simplified = simplifyGroups(currentIndices, grouping);
+            int triangles = 0;
+            int simplifiedTriangles = 0;
+            for (int i = 0; i < grouping.size(); i++) {
+                for (final int member : grouping.get(i)) {
+                    triangles += currentIndices.get(member).length / 3;
                 }
+                simplifiedTriangles += simplified.get(i).indices().length / 3;
+            }
+            if (simplifiedTriangles > triangles * LODGraph.MIN_LEVEL_REDUCTION) {
+                LODGraph.LOGGER.info(
+                        "[LOD GRAPH] Level {} could only be reduced from {} to {} triangles, stopping",
+                        level,
+                        triangles,
+                        simplifiedTriangles
+                );
+                this.levels.add(new LODLevel(level, currentClusters, List.of()));
+                break;
             }
-            // 7. Reduce group to new clusters
-            final Map<VertexCluster, List<VertexCluster>> mergeMappings = ClusterGenerator.findClustersCount(simplifiedClusters, simplifiedClusters.size() / 2);
-            // 8. Update LODLevel parents to remap group to next level clusters
-            for (final LODLevel level : previousLodLevels) {
-                for (final LODLevel current : level.parents()) {
-                    final List<VertexCluster> newMappings = mergeMappings.get(current.clusters().get(0))
-                            .stream()
-                            .map(VertexCluster::copy)
-                            .toList();
-                    current.clusters().clear();
-                    current.clusters().addAll(newMappings);
+            // 4. Re-split each group into clusters for the next level
+            final List<ClusterGroup> levelGroups = new ArrayList<>(grouping.size());
+            final List<MeshCluster> nextClusters = new ArrayList<>();
+            final List<int[]> nextIndices = new ArrayList<>();
+            for (int i = 0; i < grouping.size(); i++) {
+                final int[] members = grouping.get(i);
+                final int groupIndex = this.groups.size();
+                Vector4f lodBounds = currentClusters.get(members[0]).getLodBounds();
+                float lodError = (float) Math.sqrt(Math.max(0, simplified.get(i).maxError()));
+                for (final int member : members) {
+                    lodBounds = ClusterBounds.merge(lodBounds, currentClusters.get(member).getLodBounds());
+                    lodError = Math.max(lodError, currentClusters.get(member).getLodError());
+                }
+                final int[] memberIds = new int[members.length];
+                for (int j = 0; j < members.length; j++) {
+                    final MeshCluster member = currentClusters.get(members[j]);
+                    member.setParent(groupIndex, lodBounds, lodError);
+                    memberIds[j] = member.getId();
+                }
+                final int[] groupIndices = appendSimplifiedVertices(simplified.get(i));
+                final List<int[]> split = this.partitioner.partition(
+                        this.vertexPositions,
+                        groupIndices,
+                        this.clusterTriangleThreshold
+                );
+                final int[] generatedIds = new int[split.size()];
+                for (int j = 0; j < split.size(); j++) {
+                    final MeshCluster cluster = createCluster(
+                            level + 1,
+                            split.get(j),
+                            ClusterBounds.sphere(this.vertexPositions, split.get(j)),
+                            lodBounds,
+                            lodError,
+                            groupIndex
+                    );
+                    generatedIds[j] = cluster.getId();
+                    nextClusters.add(cluster);
+                    nextIndices.add(split.get(j));
                 }
+                final ClusterGroup group = new ClusterGroup(
+                        groupIndex,
+                        level,
+                        memberIds,
+                        generatedIds,
+                        lodBounds,
+                        lodError
+                );
+                this.groups.add(group);
+                levelGroups.add(group);
             }
+            this.levels.add(new LODLevel(level, currentClusters, levelGroups));
+            LODGraph.LOGGER.debug(
+                    "[LOD GRAPH] Level {} [Clusters: {}] [Groups: {}] [Triangles: {} -> {}]",
+                    level,
+                    currentClusters.size(),
+                    levelGroups.size(),
+                    triangles,
+                    simplifiedTriangles
+            );
+            currentClusters = nextClusters;
+            currentIndices = nextIndices;
+        }
+        // Vertex data now lives in the clusters
+        this.vertexPositions = null;
+        this.vertexNormals = null;
+        LODGraph.LOGGER.info(
+                "[LOD GRAPH] Built cluster DAG in {}ms [Levels: {}] [Clusters: {}] [Groups: {}]",
+                System.currentTimeMillis() - timeStart,
+                this.levels.size(),
+                this.clusters.size(),
+                this.groups.size()
+        );
+    }
+
+    private MeshCluster createCluster(final int level,
+                                      final int[] indices,
+                                      final Vector4f boundingSphere,
+                                      final Vector4f lodBounds,
+                                      final float lodError,
+                                      final int generatingGroup) {
+        final int[] globalVertices = Arrays.stream(indices)
+                .sorted()
+                .distinct()
+                .toArray();
+        final float[] positions = new float[globalVertices.length * 3];
+        final float[] normals = new float[globalVertices.length * 3];
+        for (int i = 0; i < globalVertices.length; i++) {
+            System.arraycopy(this.vertexPositions, globalVertices[i] * 3, positions, i * 3, 3);
+            System.arraycopy(this.vertexNormals, globalVertices[i] * 3, normals, i * 3, 3);
         }
+        final int[] localIndices = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            localIndices[i] = Arrays.binarySearch(globalVertices, indices[i]);
+        }
+        final MeshCluster cluster = new MeshCluster(
+                this.clusters.size(),
+                level,
+                globalVertices.length,
+                indices.length / 3,
+                boundingSphere,
+                lodBounds,
+                lodError,
+                generatingGroup
+        );
+        cluster.setVertexData(positions, normals, localIndices);
+        this.clusters.add(cluster);
+        return cluster;
     }
 
-    private List<VertexCluster> mergeGroups(final List<List<VertexCluster>> groups) {
-        return groups.stream()
-                .map((final List<VertexCluster> group) -> group.stream().reduce((final VertexCluster a, final VertexCluster b) -> {
-                        final VertexCluster newA = a.copy();
-                        newA.merge(b.copy());
-                        return newA;
-                })).filter(Optional::isPresent)
-                .map(Optional::get)
+    private List<int[]> groupClusters(final List<int[]> clusterIndices) {
+        final List<Map<Integer, Integer>> adjacency = clusterAdjacency(clusterIndices);
+        final int[] clusterGroups = new int[clusterIndices.size()];
+        Arrays.fill(clusterGroups, -1);
+        final List<List<Integer>> grouping = new ArrayList<>();
+        // Clusters are in spatially coherent order, so seeding in order keeps groups compact
+        for (int seed = 0; seed < clusterIndices.size(); seed++) {
+            if (clusterGroups[seed] != -1) {
+                continue;
+            }
+            final List<Integer> members = new ArrayList<>(this.groupingSize);
+            final Map<Integer, Integer> candidates = new HashMap<>();
+            int next = seed;
+            while (next != -1) {
+                members.add(next);
+                clusterGroups[next] = grouping.size();
+                candidates.remove(next);
+                for (final Map.Entry<Integer, Integer> neighbour : adjacency.get(next).entrySet()) {
+                    if (clusterGroups[neighbour.getKey()] == -1) {
+                        candidates.merge(neighbour.getKey(), neighbour.getValue(), Integer::sum);
+                    }
+                }
+                if (members.size() >= this.groupingSize) {
+                    break;
+                }
+                // Grow by the candidate sharing the most vertices with the group so far
+                next = candidates.entrySet()
+                        .stream()
+                        .max(Map.Entry.comparingByValue())
+                        .map(Map.Entry::getKey)
+                        .orElse(-1);
+            }
+            if (members.size() == 1) {
+                // Fold isolated leftovers into an adjacent group rather than simplifying them alone
+                final Optional<Integer> adjacentGroup = adjacency.get(seed)
+                        .keySet()
+                        .stream()
+                        .map((final Integer neighbour) -> clusterGroups[neighbour])
+                        .filter((final Integer group) -> group != -1 && group != grouping.size())
+                        .findFirst();
+                if (adjacentGroup.isPresent()) {
+                    clusterGroups[seed] = adjacentGroup.get();
+                    grouping.get(adjacentGroup.get()).add(seed);
+                    continue;
+                }
+            }
+            grouping.add(members);
+        }
+        return grouping.stream()
+                .map((final List<Integer> members) -> members.stream().mapToInt(Integer::intValue).toArray())
                 .toList();
     }
 
-    private List<List<VertexCluster>> groupClusters(final List<VertexCluster> clusters,
-                                                    final int maxSize,
-                                                    final List<LODLevel> previousLodLevels,
-                                                    final int level) {
-        final List<List<VertexCluster>> groups = new ArrayList<>();
-        final LinkedList<VertexCluster> clusterQueue = new LinkedList<>(clusters);
-        int index = 0;
-        while (!clusterQueue.isEmpty()) {
-            final VertexCluster cluster = clusterQueue.pop();
-            final List<VertexCluster> neighbours = getNeighbours(cluster, clusters, maxSize);
-            final LODLevel previousLodLevel = findPreviousLodLevel(cluster, previousLodLevels);
-            final LODLevel nextLODLevel = new LODLevel(
-                    level,
-                    index,
-                    neighbours,
-                    new ArrayList<>()
-            );
-            this.levels.get(level).add(nextLODLevel);
-            previousLodLevel.parents().add(nextLODLevel);
-            clusterQueue.removeAll(neighbours);
-            neighbours.add(cluster);
-            groups.add(neighbours);
-            index++;
-        }
-        return groups;
-    }
-
-    private LODLevel findPreviousLodLevel(final VertexCluster cluster,
-                                                final List<LODLevel> previousLodLevels) {
-        return previousLodLevels.stream()
-                .filter((final LODLevel level) -> level.clusters().contains(cluster))
-                .findFirst()
-                .orElse(null);
-    }
-
-    private List<VertexCluster> getNeighbours(final VertexCluster cluster,
-                                              final List<VertexCluster> clusters,
-                                              final int maxSize) {
-        return clusters.stream()
-                .filter((final VertexCluster vc) -> !vc.equals(cluster))
-                .filter((final VertexCluster vc) -> CollectionUtils.intersection(
-                        cluster.getVertices(),
-                        vc.getVertices()
-                ).size() > 0)
-                .limit(maxSize)
+    /**
+     * Number of vertices each cluster shares with each of its neighbours.
+     */
+    private List<Map<Integer, Integer>> clusterAdjacency(final List<int[]> clusterIndices) {
+        int pairCount = 0;
+        final List<int[]> clusterVertices = new ArrayList<>(clusterIndices.size());
+        for (final int[] indices : clusterIndices) {
+            final int[] vertices = Arrays.stream(indices).sorted().distinct().toArray();
+            clusterVertices.add(vertices);
+            pairCount += vertices.length;
+        }
+        // (vertex, cluster) pairs sorted by vertex, so each run lists the clusters sharing a vertex
+        final long[] pairs = new long[pairCount];
+        int pair = 0;
+        for (int i = 0; i < clusterVertices.size(); i++) {
+            for (final int vertex : clusterVertices.get(i)) {
+                pairs[pair++] = ((long) vertex << 32) | i;
+            }
+        }
+        Arrays.sort(pairs);
+        final List<Map<Integer, Integer>> adjacency = new ArrayList<>(clusterIndices.size());
+        for (int i = 0; i < clusterIndices.size(); i++) {
+            adjacency.add(new HashMap<>());
+        }
+        int runStart = 0;
+        while (runStart < pairs.length) {
+            int runEnd = runStart + 1;
+            while (runEnd < pairs.length && (pairs[runEnd] >>> 32) == (pairs[runStart] >>> 32)) {
+                runEnd++;
+            }
+            for (int a = runStart; a < runEnd; a++) {
+                for (int b = a + 1; b < runEnd; b++) {
+                    final int clusterA = (int) pairs[a];
+                    final int clusterB = (int) pairs[b];
+                    adjacency.get(clusterA).merge(clusterB, 1, Integer::sum);
+                    adjacency.get(clusterB).merge(clusterA, 1, Integer::sum);
+                }
+            }
+            runStart = runEnd;
+        }
+        return adjacency;
+    }
+
+    private List<SimplifiedMesh> simplifyGroups(final List<int[]> clusterIndices,
+                                                final List<int[]> grouping) {
+        final List<int[]> groupIndices = new ArrayList<>(grouping.size());
+        final int[] vertexGroups = new int[this.vertexCount];
+        Arrays.fill(vertexGroups, -1);
+        final BitSet lockedVertices = new BitSet(this.vertexCount);
+        for (int i = 0; i < grouping.size(); i++) {
+            int length = 0;
+            for (final int member : grouping.get(i)) {
+                length += clusterIndices.get(member).length;
+            }
+            final int[] indices = new int[length];
+            int offset = 0;
+            for (final int member : grouping.get(i)) {
+                final int[] memberIndices = clusterIndices.get(member);
+                System.arraycopy(memberIndices, 0, indices, offset, memberIndices.length);
+                offset += memberIndices.length;
+            }
+            for (final int vertex : indices) {
+                if (vertexGroups[vertex] == -1) {
+                    vertexGroups[vertex] = i;
+                } else if (vertexGroups[vertex] != i) {
+                    lockedVertices.set(vertex);
+                }
+            }
+            groupIndices.add(indices);
+        }
+        final float[] positions = this.vertexPositions;
+        final float[] normals = this.vertexNormals;
+        final List<ForkJoinTask<SimplifiedMesh>> tasks = groupIndices.stream()
+                .map((final int[] indices) -> this.pool.submit(() -> QuadricErrorSimplifier.simplifySubset(
+                        positions,
+                        normals,
+                        indices,
+                        lockedVertices,
+                        indices.length / 6,
+                        LODGraph.SIMPLIFICATION_AGGRESSIVENESS,
+                        true
+                )))
+                .toList();
+        return tasks.stream()
+                .map(ForkJoinTask::join)
                 .toList();
     }
 
+    /**
+     * Appends the vertices a group simplification moved to the shared vertex
+     * set, reusing the ids of unmoved vertices.
+     *
+     * @return Triangles of the simplified group, indexing into the shared vertex set
+     */
+    private int[] appendSimplifiedVertices(final SimplifiedMesh simplified) {
+        final int[] sources = simplified.sourceVertices();
+        final int[] remap = new int[sources.length];
+        int moved = 0;
+        for (final int source : sources) {
+            if (source == -1) {
+                moved++;
+            }
+        }
+        final int required = (this.vertexCount + moved) * 3;
+        if (required > this.vertexPositions.length) {
+            final int capacity = Math.max(required, this.vertexPositions.length + (this.vertexPositions.length >> 1));
+            this.vertexPositions = Arrays.copyOf(this.vertexPositions, capacity);
+            this.vertexNormals = Arrays.copyOf(this.vertexNormals, capacity);
+        }
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] != -1) {
+                remap[i] = sources[i];
+                continue;
+            }
+            System.arraycopy(simplified.positions(), i * 3, this.vertexPositions, this.vertexCount * 3, 3);
+            System.arraycopy(simplified.normals(), i * 3, this.vertexNormals, this.vertexCount * 3, 3);
+            remap[i] = this.vertexCount++;
+        }
+        final int[] indices = new int[simplified.indices().length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = remap[simplified.indices()[i]];
+        }
+        return indices;
+    }
 
-    public void viewDependentCut(final Window window) {
-        // TODO: Filter LOD levels on whether a cluster's triangles can be rendered based on if they are larger than a pixel
+    public List<LODLevel> getLevels() {
+        return this.levels;
     }
 
+    public List<MeshCluster> getClusters() {
+        return this.clusters;
+    }
+
+    public List<ClusterGroup> getGroups() {
+        return this.groups;
+    }
+
+    public Mesh getInitialMesh() {
+        return this.initialMesh;
+    }
+
+    public MeshData getInitialMeshData() {
+        return this.initialMeshData;
+    }
+
+    /**
+     * Selects the clusters to draw for a view. A cluster is drawn when its own
+     * projected error is within the view's threshold but that of the group it
+     * was merged into is not, so the DAG is walked down from the root clusters
+     * on the pool, only descending into the groups that generated a cluster
+     * whose error is too large. A group is shared by every cluster it
+     * generated and all of them reach the same decision, so each group is
+     * visited at most once per cut. Subtrees whose LOD bounds lie outside the
+     * view frustum are skipped, as are selected clusters outside it.
+     *
+     * @return Selected clusters, overwritten by the next cut through this graph
+     */
+    public ClusterCut viewDependentCut(final LODCutView view) {
+        return viewDependentCut(view, null);
+    }
+
+    /**
+     * Selects the clusters to draw for a view, limited to those resident in
+     * GPU memory. Where a cluster's error is too large but the group it was
+     * generated from is not ready, the cluster is drawn in its place and the
+     * group's pages are requested, so the cut never waits on streaming.
+     *
+     * @param residency Residency of this graph's clusters, or {@code null} if all are resident
+     * @return Selected clusters, overwritten by the next cut through this graph
+     */
+    public ClusterCut viewDependentCut(final LODCutView view,
+                                       final ClusterResidency residency) {
+        if (this.rootClusters == null) {
+            this.rootClusters = this.clusters.stream()
+                    .filter(MeshCluster::isRoot)
+                    .mapToInt(MeshCluster::getId)
+                    .toArray();
+        }
+        if (this.groupVisits == null || this.groupVisits.length() != this.groups.size()) {
+            this.groupVisits = new AtomicIntegerArray(this.groups.size());
+            this.cutStamp = 0;
+        }
+        if (++this.cutStamp == 0) {
+            // Stamps wrapped, clear visits left over from earlier cuts
+            this.groupVisits = new AtomicIntegerArray(this.groups.size());
+            this.cutStamp = 1;
+        }
+        this.cut.reset(this.clusters.size());
+        this.pool.invoke(new CutTask(
+                view,
+                residency,
+                this.rootClusters,
+                0,
+                this.rootClusters.length
+        ));
+        return this.cut;
+    }
+
+    private final class CutTask extends RecursiveAction {
+
+        private final LODCutView view;
+        private final ClusterResidency residency;
+        private final int[] clusterIds;
+        private final int from;
+        private final int to;
+
+        private CutTask(final LODCutView view,
+                        final ClusterResidency residency,
+                        final int[] clusterIds,
+                        final int from,
+                        final int to) {
+            this.view = view;
+            this.residency = residency;
+            this.clusterIds = clusterIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > LODGraph.CUT_SPLIT_THRESHOLD) {
+                final int mid = (this.from + this.to) >>> 1;
+                invokeAll(
+                        new CutTask(this.view, this.residency, this.clusterIds, this.from, mid),
+                        new CutTask(this.view, this.residency, this.clusterIds, mid, this.to)
+                );
+                return;
+            }
+            final ClusterCut clusterCut = LODGraph.this.cut;
+            clusterCut.addTested(this.to - this.from);
+            List<CutTask> opened = null;
+            for (int i = this.from; i < this.to; i++) {
+                final MeshCluster cluster = LODGraph.this.clusters.get(this.clusterIds[i]);
+                if (!this.view.isVisible(cluster.getLodBounds())) {
+                    clusterCut.addCulled();
+                    continue;
+                }
+                if (this.residency != null) {
+                    // Pages of clusters passed through keep the groups below them ready
+                    this.residency.touch(cluster);
+                }
+                if (cluster.getGeneratingGroup() == MeshCluster.NO_GROUP
+                    || this.view.isAcceptable(cluster.getLodBounds(), cluster.getLodError())) {
+                    selectVisible(clusterCut, cluster);
+                    continue;
+                }
+                final int group = cluster.getGeneratingGroup();
+                if (this.residency != null && !this.residency.isGroupReady(group)) {
+                    // Finer clusters are still streaming in, draw this one until they arrive
+                    if (selectVisible(clusterCut, cluster)) {
+                        this.residency.requestGroup(group);
+                    }
+                    continue;
+                }
+                if (LODGraph.this.groupVisits.getAndSet(group, LODGraph.this.cutStamp) == LODGraph.this.cutStamp) {
+                    continue;
+                }
+                final int[] members = LODGraph.this.groups.get(group).clusters();
+                if (opened == null) {
+                    opened = new ArrayList<>();
+                }
+                opened.add(new CutTask(
+                        this.view,
+                        this.residency,
+                        members,
+                        0,
+                        members.length
+                ));
+            }
+            if (opened != null) {
+                invokeAll(opened);
+            }
+        }
+
+        private boolean selectVisible(final ClusterCut clusterCut,
+                                      final MeshCluster cluster) {
+            if (!this.view.isVisible(cluster.getBoundingSphere())) {
+                clusterCut.addCulled();
+                return false;
+            }
+            clusterCut.select(cluster);
+            return true;
+        }
+
+    }
+
+    /**
+     * Writes the graph to paged streaming stores in the given directory and
+     * releases the in-memory vertex data of every cluster, which can then be
+     * restored on demand with {@link #lookupVertexData(MeshCluster)}.
+     */
     public void serialiseStreamingStores(final String outputDirectory) {
-        // TODO: Create serialised versions of the LOD graph and write them to the directory, then replace the
-        //       vertex data in LODLevel instances in the graph with filename references
+        final Path directory = Path.of(outputDirectory);
+        try {
+            closeStore();
+            this.storePageCount = ClusterPageStore.write(
+                    directory,
+                    this.clusters,
+                    this.groups
+            );
+        } catch (final IOException e) {
+            throw new RuntimeException("Unable to write cluster streaming stores to [" + outputDirectory + "]", e);
+        }
+        this.storeDirectory = directory;
+        this.clusters.forEach(MeshCluster::releaseVertexData);
+        LODGraph.LOGGER.info(
+                "[LOD GRAPH] Serialised {} clusters into {} pages at {}",
+                this.clusters.size(),
+                this.storePageCount,
+                directory
+        );
+    }
+
+    /**
+     * Loads a graph previously written by {@link #serialiseStreamingStores(String)},
+     * with clusters paged out until looked up.
+     */
+    public static LODGraph loadStreamingStores(final String directory) {
+        final ClusterPageStore.StoredGraph storedGraph;
+        try {
+            storedGraph = ClusterPageStore.readGraph(Path.of(directory));
+        } catch (final IOException e) {
+            throw new RuntimeException("Unable to read cluster streaming stores from [" + directory + "]", e);
+        }
+        final int levelCount = storedGraph.clusters()
+                .stream()
+                .mapToInt(MeshCluster::getLevel)
+                .max()
+                .orElse(-1) + 1;
+        final LODGraph graph = new LODGraph(
+                null,
+                null,
+                LODGraph.DEFAULT_CLUSTER_TRIANGLES,
+                LODGraph.DEFAULT_GROUPING_SIZE,
+                levelCount,
+                new SpatialClusterPartitioner(),
+                ForkJoinPool.commonPool()
+        );
+        graph.clusters.addAll(storedGraph.clusters());
+        graph.groups.addAll(storedGraph.groups());
+        for (int level = 0; level < levelCount; level++) {
+            graph.levels.add(new LODLevel(level, new ArrayList<>(), new ArrayList<>()));
+        }
+        graph.clusters.forEach((final MeshCluster cluster) -> graph.levels.get(cluster.getLevel()).clusters().add(cluster));
+        graph.groups.forEach((final ClusterGroup group) -> graph.levels.get(group.level()).groups().add(group));
+        graph.storeDirectory = Path.of(directory);
+        graph.storePageCount = storedGraph.pageCount();
+        return graph;
+    }
+
+    /**
+     * Restores the vertex data of a cluster from the streaming store, if it
+     * has been released.
+     */
+    public void lookupVertexData(final MeshCluster cluster) {
+        if (cluster.hasVertexData()) {
+            return;
+        }
+        if (this.storeDirectory == null) {
+            throw new IllegalStateException("Graph has not been serialised to a streaming store");
+        }
+        try {
+            openStore().readCluster(cluster);
+        } catch (final IOException e) {
+            throw new RuntimeException("Unable to read cluster " + cluster.getId() + " from [" + this.storeDirectory + "]", e);
+        }
     }
 
-    private void lookupVertexData(final String reference) {
-        // TODO: Load vertex data for this LOD designated by the given reference
+    public Path getStoreDirectory() {
+        return this.storeDirectory;
+    }
+
+    public int getStorePageCount() {
+        return this.storePageCount;
+    }
+
+    /**
+     * Maps a page of the streaming store read-only, safe to call from any thread.
+     */
+    public ByteBuffer mapPage(final int page) {
+        if (this.storeDirectory == null) {
+            throw new IllegalStateException("Graph has not been serialised to a streaming store");
+        }
+        try {
+            return openStore().mapPage(page);
+        } catch (final IOException e) {
+            throw new RuntimeException("Unable to map cluster page " + page + " from [" + this.storeDirectory + "]", e);
+        }
+    }
+
+    private synchronized ClusterPageStore openStore() throws IOException {
+        if (this.store == null) {
+            this.store = ClusterPageStore.open(this.storeDirectory, this.storePageCount);
+        }
+        return this.store;
+    }
+
+    private synchronized void closeStore() throws IOException {
+        if (this.store != null) {
+            this.store.close();
+            this.store = null;
+        }
+    }
+
+    public void cleanup() {
+        try {
+            closeStore();
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 }
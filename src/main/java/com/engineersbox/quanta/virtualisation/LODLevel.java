@@ -2,9 +2,15 @@ package com.engineersbox.quanta.virtualisation;
 
 import java.util.List;
 
+/**
+ * One level of an {@link LODGraph}, index 0 being the full resolution mesh.
+ *
+ * @param index Level index
+ * @param clusters Clusters at this level
+ * @param groups Groups the clusters at this level were merged into to build the next level, empty for the root level
+ */
 public record LODLevel(int index,
-                       int groupIndex,
-                       List<VertexCluster> clusters,
-                       List<LODLevel> parents) {
+                       List<MeshCluster> clusters,
+                       List<ClusterGroup> groups) {
 
 }
@@ -0,0 +1,165 @@
+package com.engineersbox.quanta.virtualisation;
+
+import org.joml.Vector4f;
+
+/**
+ * A small, independently renderable patch of triangles at one level of an
+ * {@link LODGraph}. Each cluster carries its own compacted vertex data, which
+ * is released once written to a streaming store and restored on demand. The
+ * LOD error and bounds are those of the group simplification that
+ * produced the cluster (zero and its own bounds for the finest level), while
+ * the parent error and bounds are those of the group this cluster was merged
+ * into to produce the next level. Both are monotonic up the DAG, so a cluster
+ * belongs to a view-dependent cut when its own projected error is acceptable
+ * but its parent's is not.
+ */
+public class MeshCluster {
+
+    public static final int NO_GROUP = -1;
+    public static final int NOT_PAGED = -1;
+
+    private final int id;
+    private final int level;
+    private final int vertexCount;
+    private final int triangleCount;
+    private final Vector4f boundingSphere;
+    private final Vector4f lodBounds;
+    private final float lodError;
+    private final int generatingGroup;
+    private Vector4f parentLodBounds;
+    private float parentLodError;
+    private int groupIndex;
+    private float[] positions;
+    private float[] normals;
+    private int[] indices;
+    private int page;
+    private int pageOffset;
+
+    public MeshCluster(final int id,
+                       final int level,
+                       final int vertexCount,
+                       final int triangleCount,
+                       final Vector4f boundingSphere,
+                       final Vector4f lodBounds,
+                       final float lodError,
+                       final int generatingGroup) {
+        this.id = id;
+        this.level = level;
+        this.vertexCount = vertexCount;
+        this.triangleCount = triangleCount;
+        this.boundingSphere = boundingSphere;
+        this.lodBounds = lodBounds;
+        this.lodError = lodError;
+        this.generatingGroup = generatingGroup;
+        this.parentLodBounds = lodBounds;
+        this.parentLodError = Float.POSITIVE_INFINITY;
+        this.groupIndex = MeshCluster.NO_GROUP;
+        this.page = MeshCluster.NOT_PAGED;
+        this.pageOffset = 0;
+    }
+
+    public int getId() {
+        return this.id;
+    }
+
+    public int getLevel() {
+        return this.level;
+    }
+
+    public int getVertexCount() {
+        return this.vertexCount;
+    }
+
+    public int getTriangleCount() {
+        return this.triangleCount;
+    }
+
+    public Vector4f getBoundingSphere() {
+        return this.boundingSphere;
+    }
+
+    public Vector4f getLodBounds() {
+        return this.lodBounds;
+    }
+
+    public float getLodError() {
+        return this.lodError;
+    }
+
+    public int getGeneratingGroup() {
+        return this.generatingGroup;
+    }
+
+    public Vector4f getParentLodBounds() {
+        return this.parentLodBounds;
+    }
+
+    public float getParentLodError() {
+        return this.parentLodError;
+    }
+
+    public int getGroupIndex() {
+        return this.groupIndex;
+    }
+
+    public boolean isRoot() {
+        return this.groupIndex == MeshCluster.NO_GROUP;
+    }
+
+    void setParent(final int groupIndex,
+                   final Vector4f parentLodBounds,
+                   final float parentLodError) {
+        this.groupIndex = groupIndex;
+        this.parentLodBounds = parentLodBounds;
+        this.parentLodError = parentLodError;
+    }
+
+    public boolean hasVertexData() {
+        return this.indices != null;
+    }
+
+    public float[] getPositions() {
+        return this.positions;
+    }
+
+    public float[] getNormals() {
+        return this.normals;
+    }
+
+    public int[] getIndices() {
+        return this.indices;
+    }
+
+    public void setVertexData(final float[] positions,
+                              final float[] normals,
+                              final int[] indices) {
+        this.positions = positions;
+        this.normals = normals;
+        this.indices = indices;
+    }
+
+    public void releaseVertexData() {
+        this.positions = null;
+        this.normals = null;
+        this.indices = null;
+    }
+
+    public int getPage() {
+        return this.page;
+    }
+
+    public int getPageOffset() {
+        return this.pageOffset;
+    }
+
+    public boolean isPaged() {
+        return this.page != MeshCluster.NOT_PAGED;
+    }
+
+    void setPageLocation(final int page,
+                         final int pageOffset) {
+        this.page = page;
+        this.pageOffset = pageOffset;
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.engineersbox.quanta.virtualisation;
+
+import org.joml.Vector4f;
+
+/**
+ * A small batch of triangles sharing at most {@link MeshletMesh#MAX_VERTICES}
+ * vertices, culled as a whole. The normal cone packs the average facing
+ * direction into {@code (x, y, z)} and a cutoff into {@code w}: every
+ * triangle faces away from a camera at {@code c} when
+ * {@code dot(centre - c, axis) >= cutoff * |centre - c| + radius}. Meshlets
+ * whose triangles face too many directions have a cutoff of 1 and are never
+ * rejected by their cone.
+ *
+ * @param vertexOffset Index of the meshlet's first entry in {@link MeshletMesh#getVertices()}
+ * @param vertexCount Number of unique vertices referenced by the meshlet
+ * @param triangleOffset Index of the meshlet's first triangle in {@link MeshletMesh#getTriangles()}
+ * @param triangleCount Number of triangles in the meshlet
+ * @param boundingSphere Sphere enclosing every vertex of the meshlet
+ * @param cone Axis and cutoff of the cone enclosing every triangle normal
+ */
+public record Meshlet(int vertexOffset,
+                      int vertexCount,
+                      int triangleOffset,
+                      int triangleCount,
+                      Vector4f boundingSphere,
+                      Vector4f cone) {
+
+    public boolean isBackfacing(final float cameraX,
+                                final float cameraY,
+                                final float cameraZ) {
+        if (this.cone.w >= 1) {
+            return false;
+        }
+        final float dx = this.boundingSphere.x - cameraX;
+        final float dy = this.boundingSphere.y - cameraY;
+        final float dz = this.boundingSphere.z - cameraZ;
+        final float distance = (float) Math.sqrt((dx * dx) + (dy * dy) + (dz * dz));
+        return (dx * this.cone.x) + (dy * this.cone.y) + (dz * this.cone.z)
+               >= (this.cone.w * distance) + this.boundingSphere.w;
+    }
+
+}
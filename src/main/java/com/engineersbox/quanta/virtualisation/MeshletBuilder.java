@@ -0,0 +1,302 @@
+package com.engineersbox.quanta.virtualisation;
+
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+import org.joml.Vector4f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits a triangle mesh into {@link Meshlet}s offline. Meshlets are grown
+ * greedily: each step adds the unused triangle touching the meshlet that
+ * brings in the fewest new vertices, preferring the one closest to the
+ * meshlet's centre on ties, which keeps meshlets compact and their normal
+ * cones tight. When no unused triangle touches the meshlet, as happens with
+ * meshes whose vertices are split along every edge, growth continues from
+ * the next unused triangle in index order instead. A meshlet is closed once
+ * the best candidate would exceed either limit, and that candidate seeds the
+ * next one.
+ */
+public final class MeshletBuilder {
+
+    /**
+     * Cosine of the widest normal spread a cone is kept for. Wider cones
+     * reject a meshlet from so few view directions that testing them is not
+     * worth it.
+     */
+    private static final float MIN_CONE_DOT = 0.1f;
+    private static final int MAX_LOCAL_VERTICES = 256;
+
+    private final float[] positions;
+    private final int[] indices;
+    private final int maxVertices;
+    private final int maxTriangles;
+    private final int[] offsets;
+    private final int[] vertexTriangles;
+    private final float[] centroids;
+    private final float[] normals;
+    private final boolean[] emitted;
+    private final int[] localIndices;
+    private final int[] meshletTriangles;
+    private final List<Meshlet> meshlets;
+    private final int[] vertices;
+    private final byte[] triangles;
+    private int vertexCursor;
+    private int triangleCursor;
+    private int meshletVertices;
+    private int meshletTriangleCount;
+    private float centreX;
+    private float centreY;
+    private float centreZ;
+
+    private MeshletBuilder(final float[] positions,
+                           final int[] indices,
+                           final int maxVertices,
+                           final int maxTriangles) {
+        this.positions = positions;
+        this.indices = indices;
+        this.maxVertices = maxVertices;
+        this.maxTriangles = maxTriangles;
+        final int triangleCount = indices.length / 3;
+        final int vertexCount = positions.length / 3;
+        this.offsets = new int[vertexCount + 1];
+        for (int i = 0; i < triangleCount * 3; i++) {
+            this.offsets[indices[i] + 1]++;
+        }
+        for (int i = 0; i < vertexCount; i++) {
+            this.offsets[i + 1] += this.offsets[i];
+        }
+        this.vertexTriangles = new int[triangleCount * 3];
+        final int[] cursors = Arrays.copyOf(this.offsets, vertexCount);
+        for (int i = 0; i < triangleCount * 3; i++) {
+            this.vertexTriangles[cursors[indices[i]]++] = i / 3;
+        }
+        this.centroids = new float[triangleCount * 3];
+        this.normals = new float[triangleCount * 3];
+        for (int triangle = 0; triangle < triangleCount; triangle++) {
+            computeTriangleGeometry(triangle);
+        }
+        this.emitted = new boolean[triangleCount];
+        this.localIndices = new int[vertexCount];
+        Arrays.fill(this.localIndices, -1);
+        this.meshletTriangles = new int[maxTriangles];
+        this.meshlets = new ArrayList<>();
+        this.vertices = new int[triangleCount * 3];
+        this.triangles = new byte[triangleCount * 3];
+    }
+
+    public static MeshletMesh build(final MeshData meshData) {
+        return MeshletBuilder.build(
+                meshData.getPositions(),
+                meshData.getIndices(),
+                MeshletMesh.MAX_VERTICES,
+                MeshletMesh.MAX_TRIANGLES
+        );
+    }
+
+    public static MeshletMesh build(final float[] positions,
+                                    final int[] indices,
+                                    final int maxVertices,
+                                    final int maxTriangles) {
+        if (maxVertices < 3 || maxVertices > MeshletBuilder.MAX_LOCAL_VERTICES) {
+            throw new IllegalArgumentException("Meshlets must hold between 3 and 256 vertices, got " + maxVertices);
+        }
+        if (maxTriangles < 1) {
+            throw new IllegalArgumentException("Meshlets must hold at least one triangle, got " + maxTriangles);
+        }
+        return new MeshletBuilder(positions, indices, maxVertices, maxTriangles).build();
+    }
+
+    private MeshletMesh build() {
+        int scan = 0;
+        while (true) {
+            int next = this.meshletTriangleCount > 0 ? findAdjacentCandidate() : -1;
+            if (next == -1) {
+                while (scan < this.emitted.length && this.emitted[scan]) {
+                    scan++;
+                }
+                if (scan == this.emitted.length) {
+                    break;
+                }
+                next = scan;
+            }
+            if (this.meshletVertices + newVertices(next) > this.maxVertices
+                || this.meshletTriangleCount == this.maxTriangles) {
+                finishMeshlet();
+            }
+            addTriangle(next);
+        }
+        if (this.meshletTriangleCount > 0) {
+            finishMeshlet();
+        }
+        return new MeshletMesh(
+                this.meshlets,
+                Arrays.copyOf(this.vertices, this.vertexCursor),
+                this.triangles
+        );
+    }
+
+    /**
+     * @return Unused triangle sharing a vertex with the current meshlet that
+     *         adds the fewest new vertices, or -1 if there is none
+     */
+    private int findAdjacentCandidate() {
+        int best = -1;
+        int bestNewVertices = Integer.MAX_VALUE;
+        float bestDistance = Float.POSITIVE_INFINITY;
+        final int start = this.vertexCursor;
+        for (int i = start; i < start + this.meshletVertices; i++) {
+            final int vertex = this.vertices[i];
+            for (int j = this.offsets[vertex]; j < this.offsets[vertex + 1]; j++) {
+                final int triangle = this.vertexTriangles[j];
+                if (this.emitted[triangle]) {
+                    continue;
+                }
+                final int newVertices = newVertices(triangle);
+                if (newVertices > bestNewVertices) {
+                    continue;
+                }
+                final float dx = this.centroids[triangle * 3] - this.centreX;
+                final float dy = this.centroids[(triangle * 3) + 1] - this.centreY;
+                final float dz = this.centroids[(triangle * 3) + 2] - this.centreZ;
+                final float distance = (dx * dx) + (dy * dy) + (dz * dz);
+                if (newVertices < bestNewVertices || distance < bestDistance) {
+                    best = triangle;
+                    bestNewVertices = newVertices;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best;
+    }
+
+    private int newVertices(final int triangle) {
+        final int a = this.indices[triangle * 3];
+        final int b = this.indices[(triangle * 3) + 1];
+        final int c = this.indices[(triangle * 3) + 2];
+        int count = 0;
+        if (this.localIndices[a] == -1) {
+            count++;
+        }
+        if (b != a && this.localIndices[b] == -1) {
+            count++;
+        }
+        if (c != a && c != b && this.localIndices[c] == -1) {
+            count++;
+        }
+        return count;
+    }
+
+    private void addTriangle(final int triangle) {
+        this.emitted[triangle] = true;
+        final int triangleOffset = (this.triangleCursor + this.meshletTriangleCount) * 3;
+        for (int corner = 0; corner < 3; corner++) {
+            final int vertex = this.indices[(triangle * 3) + corner];
+            if (this.localIndices[vertex] == -1) {
+                this.localIndices[vertex] = this.meshletVertices;
+                this.vertices[this.vertexCursor + this.meshletVertices] = vertex;
+                this.meshletVertices++;
+            }
+            this.triangles[triangleOffset + corner] = (byte) this.localIndices[vertex];
+        }
+        this.meshletTriangles[this.meshletTriangleCount++] = triangle;
+        // Running mean of the triangle centroids
+        final float weight = 1.0f / this.meshletTriangleCount;
+        this.centreX += (this.centroids[triangle * 3] - this.centreX) * weight;
+        this.centreY += (this.centroids[(triangle * 3) + 1] - this.centreY) * weight;
+        this.centreZ += (this.centroids[(triangle * 3) + 2] - this.centreZ) * weight;
+    }
+
+    private void finishMeshlet() {
+        final int[] meshletVertexIndices = Arrays.copyOfRange(
+                this.vertices,
+                this.vertexCursor,
+                this.vertexCursor + this.meshletVertices
+        );
+        this.meshlets.add(new Meshlet(
+                this.vertexCursor,
+                this.meshletVertices,
+                this.triangleCursor,
+                this.meshletTriangleCount,
+                ClusterBounds.sphere(this.positions, meshletVertexIndices),
+                normalCone()
+        ));
+        for (final int vertex : meshletVertexIndices) {
+            this.localIndices[vertex] = -1;
+        }
+        this.vertexCursor += this.meshletVertices;
+        this.triangleCursor += this.meshletTriangleCount;
+        this.meshletVertices = 0;
+        this.meshletTriangleCount = 0;
+        this.centreX = 0;
+        this.centreY = 0;
+        this.centreZ = 0;
+    }
+
+    /**
+     * Cone around the mean of the meshlet's face normals, opened just wide
+     * enough to hold every one of them. Degenerate triangles have no facing
+     * and are left out.
+     */
+    private Vector4f normalCone() {
+        float axisX = 0;
+        float axisY = 0;
+        float axisZ = 0;
+        for (int i = 0; i < this.meshletTriangleCount; i++) {
+            final int triangle = this.meshletTriangles[i];
+            axisX += this.normals[triangle * 3];
+            axisY += this.normals[(triangle * 3) + 1];
+            axisZ += this.normals[(triangle * 3) + 2];
+        }
+        final float length = (float) Math.sqrt((axisX * axisX) + (axisY * axisY) + (axisZ * axisZ));
+        if (length <= 0) {
+            return new Vector4f(0, 0, 0, 1);
+        }
+        axisX /= length;
+        axisY /= length;
+        axisZ /= length;
+        float minDot = 1;
+        for (int i = 0; i < this.meshletTriangleCount; i++) {
+            final int triangle = this.meshletTriangles[i];
+            final float normalX = this.normals[triangle * 3];
+            final float normalY = this.normals[(triangle * 3) + 1];
+            final float normalZ = this.normals[(triangle * 3) + 2];
+            if (normalX == 0 && normalY == 0 && normalZ == 0) {
+                continue;
+            }
+            minDot = Math.min(minDot, (normalX * axisX) + (normalY * axisY) + (normalZ * axisZ));
+        }
+        // The cutoff is the sine of the cone's half angle, the cosine of the
+        // angle past which a view direction sees every triangle from behind
+        final float cutoff = minDot <= MeshletBuilder.MIN_CONE_DOT
+                ? 1
+                : (float) Math.sqrt(1 - (minDot * minDot));
+        return new Vector4f(axisX, axisY, axisZ, cutoff);
+    }
+
+    private void computeTriangleGeometry(final int triangle) {
+        final int a = this.indices[triangle * 3] * 3;
+        final int b = this.indices[(triangle * 3) + 1] * 3;
+        final int c = this.indices[(triangle * 3) + 2] * 3;
+        final float abX = this.positions[b] - this.positions[a];
+        final float abY = this.positions[b + 1] - this.positions[a + 1];
+        final float abZ = this.positions[b + 2] - this.positions[a + 2];
+        final float acX = this.positions[c] - this.positions[a];
+        final float acY = this.positions[c + 1] - this.positions[a + 1];
+        final float acZ = this.positions[c + 2] - this.positions[a + 2];
+        final float normalX = (abY * acZ) - (abZ * acY);
+        final float normalY = (abZ * acX) - (abX * acZ);
+        final float normalZ = (abX * acY) - (abY * acX);
+        final float length = (float) Math.sqrt((normalX * normalX) + (normalY * normalY) + (normalZ * normalZ));
+        if (length > 0) {
+            this.normals[triangle * 3] = normalX / length;
+            this.normals[(triangle * 3) + 1] = normalY / length;
+            this.normals[(triangle * 3) + 2] = normalZ / length;
+        }
+        this.centroids[triangle * 3] = (this.positions[a] + this.positions[b] + this.positions[c]) / 3.0f;
+        this.centroids[(triangle * 3) + 1] = (this.positions[a + 1] + this.positions[b + 1] + this.positions[c + 1]) / 3.0f;
+        this.centroids[(triangle * 3) + 2] = (this.positions[a + 2] + this.positions[b + 2] + this.positions[c + 2]) / 3.0f;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.engineersbox.quanta.virtualisation;
+
+import java.util.List;
+
+/**
+ * Meshlets partitioning the triangles of a mesh, stored alongside its
+ * {@link com.engineersbox.quanta.resources.assets.object.MeshData}. Each
+ * meshlet indexes its own slice of {@link #getVertices()}, which maps local
+ * vertex indices back to the mesh's vertices, with its triangles kept as
+ * three local indices each in {@link #getTriangles()}. Local indices fit in a
+ * byte, so the triangles of a meshlet take a quarter of the space of a
+ * 32 bit index buffer.
+ */
+public class MeshletMesh {
+
+    public static final int MAX_VERTICES = 64;
+    public static final int MAX_TRIANGLES = 124;
+
+    private final List<Meshlet> meshlets;
+    private final int[] vertices;
+    private final byte[] triangles;
+
+    public MeshletMesh(final List<Meshlet> meshlets,
+                       final int[] vertices,
+                       final byte[] triangles) {
+        this.meshlets = meshlets;
+        this.vertices = vertices;
+        this.triangles = triangles;
+    }
+
+    public List<Meshlet> getMeshlets() {
+        return this.meshlets;
+    }
+
+    public int[] getVertices() {
+        return this.vertices;
+    }
+
+    public byte[] getTriangles() {
+        return this.triangles;
+    }
+
+    public int getTriangleCount() {
+        return this.triangles.length / 3;
+    }
+
+    /**
+     * Expands the local triangles of every meshlet back into an index buffer
+     * over the mesh's vertices, in meshlet order. Meshlet {@code m} is then
+     * drawn by the {@code m.triangleCount() * 3} indices starting at
+     * {@code m.triangleOffset() * 3}.
+     */
+    public int[] getIndices() {
+        final int[] indices = new int[this.triangles.length];
+        for (final Meshlet meshlet : this.meshlets) {
+            final int start = meshlet.triangleOffset() * 3;
+            final int end = start + (meshlet.triangleCount() * 3);
+            for (int i = start; i < end; i++) {
+                indices[i] = this.vertices[meshlet.vertexOffset() + Byte.toUnsignedInt(this.triangles[i])];
+            }
+        }
+        return indices;
+    }
+
+}
@@ -0,0 +1,511 @@
+package com.engineersbox.quanta.virtualisation;
+
+import com.engineersbox.quanta.resources.assets.object.Mesh;
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+import com.engineersbox.quanta.virtualisation.QuadricErrorSimplifier.SimplifiedMesh;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Simplifies a mesh in parallel by splitting its triangles into a uniform
+ * spatial grid of partitions. Each partition is simplified independently on a
+ * {@link ForkJoinPool} with the vertices it shares with other partitions locked
+ * as borders. The partitions are then stitched back together through those
+ * shared vertices and a seam pass over only the triangles touching them brings
+ * the mesh down to the target triangle count. The seam pass starts from the
+ * quadrics the partitions accumulated, so its collapse errors, like theirs,
+ * are measured against the input mesh. Vertices locked by the caller are
+ * never moved by either pass.
+ */
+public class ParallelQuadricErrorSimplifier {
+
+    private static final Logger LOGGER = LogManager.getLogger(ParallelQuadricErrorSimplifier.class);
+
+    private static final int DEFAULT_PARTITION_TRIANGLES = 1 << 16;
+    private static final int SEAM_RINGS = 3;
+
+    private final Mesh inMesh;
+    private final ForkJoinPool pool;
+    private final int partitionTriangles;
+
+    public ParallelQuadricErrorSimplifier(final Mesh mesh) {
+        this(
+                mesh,
+                ForkJoinPool.commonPool(),
+                ParallelQuadricErrorSimplifier.DEFAULT_PARTITION_TRIANGLES
+        );
+    }
+
+    /**
+     * @param mesh Mesh to simplify
+     * @param pool Pool to simplify partitions on
+     * @param partitionTriangles Approximate number of triangles per partition,
+     *                           meshes smaller than this are simplified on the
+     *                           calling thread without partitioning
+     */
+    public ParallelQuadricErrorSimplifier(final Mesh mesh,
+                                          final ForkJoinPool pool,
+                                          final int partitionTriangles) {
+        this.inMesh = mesh;
+        this.pool = pool;
+        this.partitionTriangles = Math.max(1, partitionTriangles);
+    }
+
+    public Mesh simplify(final float targetPercent,
+                         final double aggressiveness,
+                         final boolean complexNormals) {
+        return simplify(
+                (int) (this.inMesh.getMeshData().triangleCount() * targetPercent),
+                aggressiveness,
+                complexNormals
+        );
+    }
+
+    public Mesh simplify(final int targetCount,
+                         final double aggressiveness,
+                         final boolean complexNormals) {
+        return simplify(
+                targetCount,
+                new BitSet(),
+                aggressiveness,
+                complexNormals
+        );
+    }
+
+    /**
+     * @param lockedVertices Vertices to keep in place, such as borders shared
+     *                       with neighbouring meshes
+     */
+    public Mesh simplify(final int targetCount,
+                         final BitSet lockedVertices,
+                         final double aggressiveness,
+                         final boolean complexNormals) {
+        final MeshData meshData = this.inMesh.getMeshData();
+        final SimplifiedMesh simplified = simplifyData(
+                meshData.getPositions(),
+                meshData.getNormals(),
+                meshData.getIndices(),
+                lockedVertices,
+                targetCount,
+                aggressiveness,
+                complexNormals
+        );
+        return new Mesh(new MeshData(
+                simplified.positions(),
+                simplified.normals(),
+                new float[0],
+                new float[0],
+                new float[0],
+                simplified.indices(),
+                new int[0],
+                new float[0],
+                new Vector3f(),
+                new Vector3f()
+        ));
+    }
+
+    /**
+     * Simplifies the triangles {@code indices}, which may reference only part
+     * of the vertex set, as {@link QuadricErrorSimplifier#simplifySubset} does.
+     */
+    SimplifiedMesh simplifyData(final float[] positions,
+                                final float[] normals,
+                                final int[] indices,
+                                final BitSet lockedVertices,
+                                final int targetCount,
+                                final double aggressiveness,
+                                final boolean complexNormals) {
+        final int triangleCount = indices.length / 3;
+        final int gridSize = (int) Math.ceil(Math.cbrt((double) triangleCount / this.partitionTriangles));
+        if (gridSize <= 1) {
+            return QuadricErrorSimplifier.simplifySubset(
+                    positions,
+                    normals,
+                    indices,
+                    lockedVertices,
+                    targetCount,
+                    aggressiveness,
+                    complexNormals
+            );
+        }
+        final long timeStart = System.currentTimeMillis();
+        final int partitionCount = gridSize * gridSize * gridSize;
+        final int[] trianglePartitions = ParallelQuadricErrorSimplifier.assignPartitions(
+                positions,
+                indices,
+                gridSize
+        );
+        // Counting sort triangles by partition so each partition is a contiguous range
+        final int[] partitionOffsets = new int[partitionCount + 1];
+        for (final int partition : trianglePartitions) {
+            partitionOffsets[partition + 1]++;
+        }
+        for (int i = 0; i < partitionCount; i++) {
+            partitionOffsets[i + 1] += partitionOffsets[i];
+        }
+        final int[] partitionCursor = Arrays.copyOf(partitionOffsets, partitionCount);
+        final int[] sortedTriangles = new int[triangleCount];
+        for (int i = 0; i < triangleCount; i++) {
+            sortedTriangles[partitionCursor[trianglePartitions[i]]++] = i;
+        }
+        final BitSet sharedVertices = ParallelQuadricErrorSimplifier.findSharedVertices(
+                positions.length / 3,
+                indices,
+                trianglePartitions
+        );
+        final BitSet partitionLocked = (BitSet) sharedVertices.clone();
+        partitionLocked.or(lockedVertices);
+        final float targetPercent = (float) targetCount / triangleCount;
+        final List<ForkJoinTask<SimplifiedMesh>> tasks = IntStream.range(0, partitionCount)
+                .filter((final int partition) -> partitionOffsets[partition + 1] > partitionOffsets[partition])
+                .mapToObj((final int partition) -> this.pool.submit(() -> ParallelQuadricErrorSimplifier.simplifyPartition(
+                        positions,
+                        normals,
+                        indices,
+                        sortedTriangles,
+                        partitionOffsets[partition],
+                        partitionOffsets[partition + 1],
+                        sharedVertices,
+                        partitionLocked,
+                        targetPercent,
+                        aggressiveness,
+                        complexNormals
+                )))
+                .toList();
+        final List<SimplifiedMesh> partitions = tasks.stream()
+                .map(ForkJoinTask::join)
+                .toList();
+        final SimplifiedMesh stitched = ParallelQuadricErrorSimplifier.stitch(
+                partitions,
+                positions.length / 3,
+                sharedVertices
+        );
+        ParallelQuadricErrorSimplifier.LOGGER.info(
+                "[MESH PQES] Simplified {} partitions in {}ms [Triangles: {} -> {}], running seam pass",
+                partitions.size(),
+                System.currentTimeMillis() - timeStart,
+                triangleCount,
+                stitched.indices().length / 3
+        );
+        final SimplifiedMesh result = ParallelQuadricErrorSimplifier.simplifySeams(
+                stitched,
+                sharedVertices,
+                lockedVertices,
+                targetCount,
+                aggressiveness,
+                complexNormals
+        );
+        ParallelQuadricErrorSimplifier.LOGGER.info(
+                "[MESH PQES | FINISH] Mesh simplified in {}ms [Partitions: {}] [Triangles: {} -> {}]",
+                System.currentTimeMillis() - timeStart,
+                partitions.size(),
+                triangleCount,
+                result.indices().length / 3
+        );
+        return result;
+    }
+
+    private static int[] assignPartitions(final float[] positions,
+                                          final int[] indices,
+                                          final int gridSize) {
+        final float[] min = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+        final float[] max = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        for (int i = 0; i < positions.length; i++) {
+            min[i % 3] = Math.min(min[i % 3], positions[i]);
+            max[i % 3] = Math.max(max[i % 3], positions[i]);
+        }
+        final int[] partitions = new int[indices.length / 3];
+        final int[] cell = new int[3];
+        for (int i = 0; i < partitions.length; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                final float centroid = (positions[(indices[i * 3] * 3) + axis]
+                        + positions[(indices[(i * 3) + 1] * 3) + axis]
+                        + positions[(indices[(i * 3) + 2] * 3) + axis]) / 3.0f;
+                final float extent = max[axis] - min[axis];
+                final int index = extent > 0 ? (int) (((centroid - min[axis]) / extent) * gridSize) : 0;
+                cell[axis] = Math.min(gridSize - 1, Math.max(0, index));
+            }
+            partitions[i] = cell[0] + (gridSize * (cell[1] + (gridSize * cell[2])));
+        }
+        return partitions;
+    }
+
+    private static BitSet findSharedVertices(final int vertexCount,
+                                             final int[] indices,
+                                             final int[] trianglePartitions) {
+        final int[] vertexPartitions = new int[vertexCount];
+        Arrays.fill(vertexPartitions, -1);
+        final BitSet shared = new BitSet(vertexCount);
+        for (int i = 0; i < indices.length; i++) {
+            final int vertex = indices[i];
+            final int partition = trianglePartitions[i / 3];
+            if (vertexPartitions[vertex] == -1) {
+                vertexPartitions[vertex] = partition;
+            } else if (vertexPartitions[vertex] != partition) {
+                shared.set(vertex);
+            }
+        }
+        return shared;
+    }
+
+    private static SimplifiedMesh simplifyPartition(final float[] positions,
+                                                    final float[] normals,
+                                                    final int[] indices,
+                                                    final int[] sortedTriangles,
+                                                    final int start,
+                                                    final int end,
+                                                    final BitSet sharedVertices,
+                                                    final BitSet lockedVertices,
+                                                    final float targetPercent,
+                                                    final double aggressiveness,
+                                                    final boolean complexNormals) {
+        final int[] partitionIndices = new int[(end - start) * 3];
+        for (int i = start; i < end; i++) {
+            System.arraycopy(indices, sortedTriangles[i] * 3, partitionIndices, (i - start) * 3, 3);
+        }
+        // Leave triangles touching the partition border for the seam pass to reduce
+        int seamTriangles = 0;
+        for (int i = 0; i < partitionIndices.length; i += 3) {
+            if (sharedVertices.get(partitionIndices[i])
+                    || sharedVertices.get(partitionIndices[i + 1])
+                    || sharedVertices.get(partitionIndices[i + 2])) {
+                seamTriangles++;
+            }
+        }
+        return QuadricErrorSimplifier.simplifySubset(
+                positions,
+                normals,
+                partitionIndices,
+                lockedVertices,
+                (int) ((end - start - seamTriangles) * targetPercent) + seamTriangles,
+                aggressiveness,
+                complexNormals
+        );
+    }
+
+    private static SimplifiedMesh stitch(final List<SimplifiedMesh> partitions,
+                                         final int inputVertexCount,
+                                         final BitSet sharedVertices) {
+        int totalVertices = 0;
+        int totalIndices = 0;
+        double maxError = 0;
+        for (final SimplifiedMesh partition : partitions) {
+            totalVertices += partition.sourceVertices().length;
+            totalIndices += partition.indices().length;
+            maxError = Math.max(maxError, partition.maxError());
+        }
+        final float[] positions = new float[totalVertices * 3];
+        final float[] normals = new float[totalVertices * 3];
+        final int[] indices = new int[totalIndices];
+        final int[] sources = new int[totalVertices];
+        final double[] quadrics = new double[totalVertices * QuadricErrorSimplifier.QUADRIC_SIZE];
+        // Stitched id of each shared input vertex, shared vertices are locked so never move
+        final int[] sharedIds = new int[inputVertexCount];
+        Arrays.fill(sharedIds, -1);
+        int vertexCount = 0;
+        int indexCount = 0;
+        for (final SimplifiedMesh partition : partitions) {
+            final int[] partitionSources = partition.sourceVertices();
+            final int[] remap = new int[partitionSources.length];
+            for (int i = 0; i < partitionSources.length; i++) {
+                final int source = partitionSources[i];
+                if (source != -1 && sharedVertices.get(source)) {
+                    if (sharedIds[source] != -1) {
+                        // Each partition holds the planes of its own triangles around the vertex
+                        remap[i] = sharedIds[source];
+                        ParallelQuadricErrorSimplifier.addQuadric(partition.quadrics(), i, quadrics, remap[i]);
+                        continue;
+                    }
+                    sharedIds[source] = vertexCount;
+                }
+                remap[i] = vertexCount;
+                System.arraycopy(partition.positions(), i * 3, positions, vertexCount * 3, 3);
+                System.arraycopy(partition.normals(), i * 3, normals, vertexCount * 3, 3);
+                ParallelQuadricErrorSimplifier.addQuadric(partition.quadrics(), i, quadrics, vertexCount);
+                sources[vertexCount] = source;
+                vertexCount++;
+            }
+            for (final int index : partition.indices()) {
+                indices[indexCount++] = remap[index];
+            }
+        }
+        return new SimplifiedMesh(
+                Arrays.copyOf(positions, vertexCount * 3),
+                Arrays.copyOf(normals, vertexCount * 3),
+                indices,
+                Arrays.copyOf(sources, vertexCount),
+                Arrays.copyOf(quadrics, vertexCount * QuadricErrorSimplifier.QUADRIC_SIZE),
+                maxError
+        );
+    }
+
+    private static void addQuadric(final double[] from,
+                                   final int fromVertex,
+                                   final double[] to,
+                                   final int toVertex) {
+        final int fromOffset = fromVertex * QuadricErrorSimplifier.QUADRIC_SIZE;
+        final int toOffset = toVertex * QuadricErrorSimplifier.QUADRIC_SIZE;
+        for (int i = 0; i < QuadricErrorSimplifier.QUADRIC_SIZE; i++) {
+            to[toOffset + i] += from[fromOffset + i];
+        }
+    }
+
+    /**
+     * Simplifies the triangles of the stitched mesh touching a partition
+     * border, starting from the quadrics the partitions accumulated. Vertices
+     * those triangles share with the rest of the mesh are locked, so the
+     * untouched interior still meets the simplified seams.
+     */
+    private static SimplifiedMesh simplifySeams(final SimplifiedMesh stitched,
+                                                final BitSet sharedVertices,
+                                                final BitSet lockedVertices,
+                                                final int targetCount,
+                                                final double aggressiveness,
+                                                final boolean complexNormals) {
+        final int[] stitchedIndices = stitched.indices();
+        final int[] stitchedSources = stitched.sourceVertices();
+        final int stitchedVertexCount = stitchedSources.length;
+        final BitSet seamLocked = new BitSet(stitchedVertexCount);
+        final BitSet borderVertices = new BitSet(stitchedVertexCount);
+        for (int i = 0; i < stitchedVertexCount; i++) {
+            final int source = stitchedSources[i];
+            if (source == -1) {
+                continue;
+            }
+            if (sharedVertices.get(source)) {
+                borderVertices.set(i);
+            }
+            if (lockedVertices.get(source)) {
+                seamLocked.set(i);
+            }
+        }
+        // Grow the seam outwards from the borders, so collapses there have room to move
+        final BitSet seamTriangles = new BitSet(stitchedIndices.length / 3);
+        final BitSet seamVertices = (BitSet) borderVertices.clone();
+        final BitSet reached = new BitSet(stitchedVertexCount);
+        for (int ring = 0; ring < ParallelQuadricErrorSimplifier.SEAM_RINGS; ring++) {
+            for (int i = 0; i < stitchedIndices.length; i += 3) {
+                if (!seamTriangles.get(i / 3)
+                        && (seamVertices.get(stitchedIndices[i])
+                        || seamVertices.get(stitchedIndices[i + 1])
+                        || seamVertices.get(stitchedIndices[i + 2]))) {
+                    seamTriangles.set(i / 3);
+                    reached.set(stitchedIndices[i]);
+                    reached.set(stitchedIndices[i + 1]);
+                    reached.set(stitchedIndices[i + 2]);
+                }
+            }
+            seamVertices.or(reached);
+        }
+        int seamIndexCount = 0;
+        for (int i = 0; i < stitchedIndices.length; i += 3) {
+            if (seamTriangles.get(i / 3)) {
+                seamIndexCount += 3;
+                continue;
+            }
+            seamLocked.set(stitchedIndices[i]);
+            seamLocked.set(stitchedIndices[i + 1]);
+            seamLocked.set(stitchedIndices[i + 2]);
+        }
+        final int interiorTriangleCount = (stitchedIndices.length - seamIndexCount) / 3;
+        if (seamIndexCount == 0 || interiorTriangleCount + (seamIndexCount / 3) <= targetCount) {
+            return stitched;
+        }
+        final int[] seamIndices = new int[seamIndexCount];
+        int seamIndex = 0;
+        for (int triangle = seamTriangles.nextSetBit(0); triangle >= 0; triangle = seamTriangles.nextSetBit(triangle + 1)) {
+            System.arraycopy(stitchedIndices, triangle * 3, seamIndices, seamIndex, 3);
+            seamIndex += 3;
+        }
+        final SimplifiedMesh seamed = QuadricErrorSimplifier.simplifySubset(
+                stitched.positions(),
+                stitched.normals(),
+                seamIndices,
+                seamLocked,
+                stitched.quadrics(),
+                Math.max(0, targetCount - interiorTriangleCount),
+                aggressiveness,
+                complexNormals
+        );
+        return ParallelQuadricErrorSimplifier.mergeSeams(stitched, seamTriangles, seamed);
+    }
+
+    /**
+     * Replaces the seam triangles of the stitched mesh with their simplified
+     * counterparts, dropping stitched vertices no triangle references any more.
+     */
+    private static SimplifiedMesh mergeSeams(final SimplifiedMesh stitched,
+                                             final BitSet seamTriangles,
+                                             final SimplifiedMesh seamed) {
+        final int[] stitchedIndices = stitched.indices();
+        final int[] stitchedSources = stitched.sourceVertices();
+        final int[] seamedSources = seamed.sourceVertices();
+        final int stitchedVertexCount = stitchedSources.length;
+        // Output vertex of each stitched vertex, -1 until referenced
+        final int[] stitchedIds = new int[stitchedVertexCount];
+        Arrays.fill(stitchedIds, -1);
+        final int[] seamedIds = new int[seamedSources.length];
+        final int maxVertices = stitchedVertexCount + seamedSources.length;
+        final float[] positions = new float[maxVertices * 3];
+        final float[] normals = new float[maxVertices * 3];
+        final int[] sources = new int[maxVertices];
+        final double[] quadrics = new double[maxVertices * QuadricErrorSimplifier.QUADRIC_SIZE];
+        final int[] indices = new int[stitchedIndices.length - (seamTriangles.cardinality() * 3) + seamed.indices().length];
+        int vertexCount = 0;
+        int indexCount = 0;
+        // Seam output first, its quadrics include the collapses of the seam pass
+        for (int i = 0; i < seamedSources.length; i++) {
+            final int stitchedId = seamedSources[i];
+            seamedIds[i] = vertexCount;
+            if (stitchedId != -1) {
+                stitchedIds[stitchedId] = vertexCount;
+            }
+            System.arraycopy(seamed.positions(), i * 3, positions, vertexCount * 3, 3);
+            System.arraycopy(seamed.normals(), i * 3, normals, vertexCount * 3, 3);
+            ParallelQuadricErrorSimplifier.addQuadric(seamed.quadrics(), i, quadrics, vertexCount);
+            sources[vertexCount] = stitchedId == -1 ? -1 : stitchedSources[stitchedId];
+            vertexCount++;
+        }
+        for (final int index : seamed.indices()) {
+            indices[indexCount++] = seamedIds[index];
+        }
+        for (int i = 0; i < stitchedIndices.length; i += 3) {
+            if (seamTriangles.get(i / 3)) {
+                continue;
+            }
+            for (int j = i; j < i + 3; j++) {
+                final int stitchedId = stitchedIndices[j];
+                if (stitchedIds[stitchedId] == -1) {
+                    stitchedIds[stitchedId] = vertexCount;
+                    System.arraycopy(stitched.positions(), stitchedId * 3, positions, vertexCount * 3, 3);
+                    System.arraycopy(stitched.normals(), stitchedId * 3, normals, vertexCount * 3, 3);
+                    ParallelQuadricErrorSimplifier.addQuadric(stitched.quadrics(), stitchedId, quadrics, vertexCount);
+                    sources[vertexCount] = stitchedSources[stitchedId];
+                    vertexCount++;
+                }
+                indices[indexCount++] = stitchedIds[stitchedId];
+            }
+        }
+        return new SimplifiedMesh(
+                Arrays.copyOf(positions, vertexCount * 3),
+                Arrays.copyOf(normals, vertexCount * 3),
+                indices,
+                Arrays.copyOf(sources, vertexCount),
+                Arrays.copyOf(quadrics, vertexCount * QuadricErrorSimplifier.QUADRIC_SIZE),
+                Math.max(stitched.maxError(), seamed.maxError())
+        );
+    }
+
+    public Mesh getOriginalMesh() {
+        return this.inMesh;
+    }
+
+}
@@ -17,45 +17,79 @@ package com.engineersbox.quanta.virtualisation;
 
 import com.engineersbox.quanta.resources.assets.object.Mesh;
 import com.engineersbox.quanta.resources.assets.object.MeshData;
-import com.engineersbox.quanta.virtualisation.primitive.Ref;
-import com.engineersbox.quanta.virtualisation.primitive.SymetricMatrix;
-import com.engineersbox.quanta.virtualisation.primitive.Triangle;
-import com.engineersbox.quanta.virtualisation.primitive.Vertex;
-import org.apache.commons.collections4.iterators.ReverseListIterator;
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.joml.Vector3f;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import java.util.Vector;
-
+import java.util.BitSet;
+
+/**
+ * Quadric error edge-collapse simplifier. All mesh state is held as
+ * structure-of-arrays in flat primitive arrays indexed by vertex, triangle
+ * or reference id (with bitsets for per-element flags), so a simplification
+ * pass performs no boxing and allocates nothing beyond occasional growth of
+ * the reference arrays.
+ */
 public class QuadricErrorSimplifier {
 
     private static final Logger LOGGER = LogManager.getLogger(QuadricErrorSimplifier.class);
 
-    private final Vector<Triangle> triangles;
-    private final Vector<Vertex> vertices;
-    private final Vector<Ref> refs;
+    private static final double DEFAULT_THRESHOLD_BASE = 0.000000001d;
+    private static final double DEFAULT_POWER_OFFSET = 3d;
+    private static final int DEFAULT_MESH_UPDATE_FREQUENCY = 5;
+    private static final int DEFAULT_CLUSTER_VERTEX_THRESHOLD = 128;
+    private static final int MAX_ITERATIONS = 1000;
+    static final int QUADRIC_SIZE = 10;
+    private static final int ERROR_SIZE = 4;
+
     private final Mesh inMesh;
-    private Vector3f[] meshInVertices;
-    private Vector3f[] meshInNormals;
-    private int baseTriangleCount = 0;
-    private final Vector3f p = new Vector3f();
+    private final float[] meshInPositions;
+    private final float[] meshInNormals;
+    private final int[] meshInIndices;
+    private final BitSet lockedVertices;
+    private final double[] initialQuadrics;
     private final double thresholdBase;
     private final double powerOffset;
     private final int meshUpdateFrequency;
     private final int clusterVertexThreshold;
 
+    private int vertexCount;
+    private float[] vertexPositions;
+    private double[] vertexQuadrics;
+    private int[] vertexTriangleStart;
+    private int[] vertexTriangleCount;
+    // Input vertex whose position (and therefore normal) this vertex still matches, or -1 once moved
+    private int[] vertexSources;
+    private final BitSet vertexBorder;
+
+    private int triangleCount;
+    private int[] triangleVertices;
+    private double[] triangleErrors;
+    private float[] triangleNormals;
+    private final BitSet triangleDeleted;
+    private final BitSet triangleDirty;
+
+    private int refCount;
+    private double maxCollapseError;
+    private int[] refTriangles;
+    private int[] refVertices;
+
+    private final BitSet collapsed0;
+    private final BitSet collapsed1;
+    private final float[] collapsePosition;
+    private final float[] errorPosition;
+    private final double[] edgeQuadric;
+    private int[] boundaryVertexIds;
+    private int[] boundaryVertexCounts;
+
     public QuadricErrorSimplifier(final Mesh mesh) {
         this(
                 mesh,
-                0.000000001d,
-                3d,
-                5,
-                128
+                QuadricErrorSimplifier.DEFAULT_THRESHOLD_BASE,
+                QuadricErrorSimplifier.DEFAULT_POWER_OFFSET,
+                QuadricErrorSimplifier.DEFAULT_MESH_UPDATE_FREQUENCY,
+                QuadricErrorSimplifier.DEFAULT_CLUSTER_VERTEX_THRESHOLD
         );
     }
 
@@ -64,54 +98,120 @@ public class QuadricErrorSimplifier {
                                   final double powerOffset,
                                   final int meshUpdateFrequency,
                                   final int clusterVertexThreshold) {
+        this(
+                mesh,
+                mesh.getMeshData().getPositions(),
+                mesh.getMeshData().getNormals(),
+                mesh.getMeshData().getIndices(),
+                new BitSet(),
+                null,
+                thresholdBase,
+                powerOffset,
+                meshUpdateFrequency,
+                clusterVertexThreshold
+        );
+    }
+
+    /**
+     * Creates a simplifier over raw mesh arrays, without an owning {@link Mesh}.
+     * Vertices set in {@code lockedVertices} are treated as borders, so they are
+     * never moved or collapsed and remain in the output at their input position.
+     */
+    QuadricErrorSimplifier(final float[] positions,
+                           final float[] normals,
+                           final int[] indices,
+                           final BitSet lockedVertices) {
+        this(
+                positions,
+                normals,
+                indices,
+                lockedVertices,
+                null
+        );
+    }
+
+    /**
+     * Creates a simplifier over raw mesh arrays that starts from the given
+     * vertex quadrics, {@link #QUADRIC_SIZE} per vertex, instead of the planes
+     * of its own triangles. Passing the quadrics a previous simplification
+     * accumulated keeps collapse errors measured against that pass's input.
+     */
+    QuadricErrorSimplifier(final float[] positions,
+                           final float[] normals,
+                           final int[] indices,
+                           final BitSet lockedVertices,
+                           final double[] initialQuadrics) {
+        this(
+                null,
+                positions,
+                normals,
+                indices,
+                lockedVertices,
+                initialQuadrics,
+                QuadricErrorSimplifier.DEFAULT_THRESHOLD_BASE,
+                QuadricErrorSimplifier.DEFAULT_POWER_OFFSET,
+                QuadricErrorSimplifier.DEFAULT_MESH_UPDATE_FREQUENCY,
+                QuadricErrorSimplifier.DEFAULT_CLUSTER_VERTEX_THRESHOLD
+        );
+    }
+
+    private QuadricErrorSimplifier(final Mesh mesh,
+                                   final float[] positions,
+                                   final float[] normals,
+                                   final int[] indices,
+                                   final BitSet lockedVertices,
+                                   final double[] initialQuadrics,
+                                   final double thresholdBase,
+                                   final double powerOffset,
+                                   final int meshUpdateFrequency,
+                                   final int clusterVertexThreshold) {
         this.inMesh = mesh;
-        this.triangles = new Vector<>();
-        this.vertices = new Vector<>();
-        this.refs = new Vector<>();
+        this.meshInPositions = positions;
+        this.meshInNormals = normals;
+        this.meshInIndices = indices;
+        this.lockedVertices = lockedVertices;
+        this.initialQuadrics = initialQuadrics;
         this.thresholdBase = thresholdBase;
         this.powerOffset = powerOffset;
         this.meshUpdateFrequency = meshUpdateFrequency;
         this.clusterVertexThreshold = clusterVertexThreshold;
-    }
-
-    private int inMeshContainsVert(final Vector3f vert) {
-        for (int i = 0; i < this.meshInVertices.length; i++) {
-            if (this.meshInVertices[i].equals(vert)) {
-                return i;
-            }
-        }
-        return -1;
+        this.vertexBorder = new BitSet();
+        this.triangleDeleted = new BitSet();
+        this.triangleDirty = new BitSet();
+        this.collapsed0 = new BitSet();
+        this.collapsed1 = new BitSet();
+        this.collapsePosition = new float[3];
+        this.errorPosition = new float[3];
+        this.edgeQuadric = new double[QuadricErrorSimplifier.QUADRIC_SIZE];
+        this.boundaryVertexIds = new int[0];
+        this.boundaryVertexCounts = new int[0];
     }
 
     private void processMesh() {
-        this.triangles.clear();
-        this.vertices.clear();
-        this.refs.clear();
-        final MeshData meshData = this.inMesh.getMeshData();
-        this.meshInVertices = meshData.getGroupedVertices().toArray(Vector3f[]::new);
-        this.meshInNormals = meshData.getGroupedNormals().toArray(Vector3f[]::new);
-        final int[] meshIndices = meshData.getIndices();
-        Arrays.stream(this.meshInVertices)
-                .map(Vertex::new)
-                .forEach(this.vertices::add);
-
-        int index = 0;
-        this.baseTriangleCount = 0;
-        for (int i = 0; i < meshIndices.length; i += 3) {
-            final Triangle triangle = new Triangle(
-                    meshIndices[index++],
-                    meshIndices[index++],
-                    meshIndices[index++]
-            );
-            this.triangles.add(triangle);
-            final Ref ref1 = new Ref(this.baseTriangleCount, triangle.getVertices()[0]);
-            final Ref ref2 = new Ref(this.baseTriangleCount, triangle.getVertices()[1]);
-            final Ref ref3 = new Ref(this.baseTriangleCount, triangle.getVertices()[2]);
-            this.refs.add(ref1);
-            this.refs.add(ref2);
-            this.refs.add(ref3);
-            this.baseTriangleCount++;
+        final float[] positions = this.meshInPositions;
+        final int[] indices = this.meshInIndices;
+        this.vertexCount = positions.length / 3;
+        this.vertexPositions = Arrays.copyOf(positions, this.vertexCount * 3);
+        this.vertexQuadrics = new double[this.vertexCount * QuadricErrorSimplifier.QUADRIC_SIZE];
+        this.vertexTriangleStart = new int[this.vertexCount];
+        this.vertexTriangleCount = new int[this.vertexCount];
+        this.vertexSources = new int[this.vertexCount];
+        for (int i = 0; i < this.vertexCount; i++) {
+            this.vertexSources[i] = i;
         }
+        this.vertexBorder.clear();
+
+        this.triangleCount = indices.length / 3;
+        this.triangleVertices = Arrays.copyOf(indices, this.triangleCount * 3);
+        this.triangleErrors = new double[this.triangleCount * QuadricErrorSimplifier.ERROR_SIZE];
+        this.triangleNormals = new float[this.triangleCount * 3];
+        this.triangleDeleted.clear();
+        this.triangleDirty.clear();
+
+        this.refCount = 0;
+        this.maxCollapseError = 0;
+        this.refTriangles = new int[this.triangleCount * 3];
+        this.refVertices = new int[this.triangleCount * 3];
     }
 
     /**
@@ -127,7 +227,7 @@ public class QuadricErrorSimplifier {
                          final double agressiveness,
                          final boolean complexNormals) {
         return simplify(
-                (int) (this.baseTriangleCount * targetPercent),
+                (int) ((this.meshInIndices.length / 3) * targetPercent),
                 agressiveness,
                 complexNormals
         );
@@ -144,26 +244,46 @@ public class QuadricErrorSimplifier {
     public Mesh simplify(final int targetCount,
                          final double aggressiveness,
                          final boolean complexNormals) {
+        final SimplifiedMesh simplified = simplifyData(
+                targetCount,
+                aggressiveness,
+                complexNormals
+        );
+        return new Mesh(new MeshData(
+                simplified.positions(),
+                simplified.normals(),
+                new float[0],
+                new float[0],
+                new float[0],
+                simplified.indices(),
+                new int[0],
+                new float[0],
+                new Vector3f(),
+                new Vector3f()
+        ));
+    }
+
+    SimplifiedMesh simplifyData(final int targetCount,
+                                final double aggressiveness,
+                                final boolean complexNormals) {
         // re-read the mesh every time we simplify to start with the original data.
         processMesh();
+        final int triangleCount = this.triangleCount;
         QuadricErrorSimplifier.LOGGER.info(
                 "[MESH QES | START] Simplifying mesh with {} triangles to target count of {} ({} reduction)",
+                triangleCount,
                 targetCount,
-                this.triangles.size(),
-                (targetCount * 100) / this.triangles.size()
+                QuadricErrorSimplifier.percentage(triangleCount - targetCount, triangleCount)
         );
         final long timeStart = System.currentTimeMillis();
-        this.triangles.forEach(t -> t.setDeleted(false));
         int deletedTriangles = 0;
-        final int triangleCount = this.triangles.size();
-        this.p.set(0, 0, 0);
-        for (int iteration = 0; iteration < 1000; iteration++) {
+        for (int iteration = 0; iteration < QuadricErrorSimplifier.MAX_ITERATIONS; iteration++) {
             QuadricErrorSimplifier.LOGGER.debug(
                     "[MESH QES] Iteration {} Triangles [Deleted: {}] [Count: {}] [Reduction: {}]",
                     iteration,
                     deletedTriangles,
                     triangleCount - deletedTriangles,
-                    (deletedTriangles * 100) / triangleCount
+                    QuadricErrorSimplifier.percentage(deletedTriangles, triangleCount)
             );
             // target number of triangles reached ? Then break
             if (triangleCount - deletedTriangles <= targetCount) {
@@ -174,7 +294,7 @@ public class QuadricErrorSimplifier {
                 updateMesh(iteration);
             }
             // clear dirty flag
-            this.triangles.forEach((final Triangle triangle) -> triangle.setDirty(false));
+            this.triangleDirty.clear();
             //
             // All triangles with edges below the threshold will be removed
             //
@@ -199,55 +319,55 @@ public class QuadricErrorSimplifier {
                 timeEnd - timeStart,
                 triangleCount,
                 triangleCount - deletedTriangles,
-                (deletedTriangles * 100) / triangleCount
+                QuadricErrorSimplifier.percentage(deletedTriangles, triangleCount)
         );
         return createSimplifiedMesh(complexNormals);
     }
 
+    private static int percentage(final int value,
+                                  final int total) {
+        return total == 0 ? 0 : (int) ((value * 100L) / total);
+    }
+
     private int removeAndMarkVertices(final double threshold,
-                                      int globalDeletedTriangles,
+                                      final int globalDeletedTriangles,
                                       final int triangleCount,
                                       final int targetCount) {
-        final Vector<Boolean> deleted0 = new Vector<>();
-        final Vector<Boolean> deleted1 = new Vector<>();
         int deletedTriangles = 0;
-        final ReverseListIterator<Triangle> it = new ReverseListIterator<>(this.triangles);
-        for (Triangle triangle = it.next(); it.hasNext(); triangle = it.next()) {
-            if (triangle.getError()[3] > threshold || triangle.isDeleted() || triangle.isDirty()) {
+        for (int i = 0; i < this.triangleCount; i++) {
+            final int errorOffset = i * QuadricErrorSimplifier.ERROR_SIZE;
+            if (this.triangleErrors[errorOffset + 3] > threshold
+                    || this.triangleDeleted.get(i)
+                    || this.triangleDirty.get(i)) {
                 continue;
             }
             for (int j = 0; j < 3; j++) {
-                if (triangle.getError()[j] >= threshold) {
+                if (this.triangleErrors[errorOffset + j] >= threshold) {
                     continue;
                 }
-                final int index0 = triangle.getVertices()[j];
-                final int index1 = triangle.getVertices()[(j + 1) % 3];
-                final Vertex vertex0 = this.vertices.get(index0);
-                final Vertex vertex1 = this.vertices.get(index1);
+                final int index0 = this.triangleVertices[(i * 3) + j];
+                final int index1 = this.triangleVertices[(i * 3) + ((j + 1) % 3)];
                 // Border check
-                if (vertex0.isBorder() || vertex1.isBorder()) {
+                if (this.vertexBorder.get(index0) || this.vertexBorder.get(index1)) {
                     continue;
                 }
                 // Compute vertex to collapse to
-                this.p.set(0, 0, 0);
-                calculateError(index0, index1, this.p);
-                deleted0.setSize(vertex0.getTriangleCount()); // normals temporarily
-                deleted1.setSize(vertex1.getTriangleCount()); // normals temporarily
-                // deleted0.trimToSize();
-                // deleted1.trimToSize();
+                final double error = calculateError(index0, index1, this.collapsePosition);
+                this.collapsed0.clear();
+                this.collapsed1.clear();
                 // don't remove if flipped
-                if (flipped(this.p, index1, vertex0, deleted0) || flipped(this.p, index0, vertex1, deleted1)) {
+                if (flipped(index0, index1, this.collapsed0) || flipped(index1, index0, this.collapsed1)) {
                     continue;
                 }
                 // not flipped, so remove edge
-                vertex0.getPosition().set(this.p);
-                vertex0.getQ().addLocal(vertex1.getQ());
-                final int triangleStart = this.refs.size();
-                deletedTriangles += updateTriangles(index0, vertex0, deleted0);
-                deletedTriangles += updateTriangles(index0, vertex1, deleted1);
-                final int currentTriangleCount = this.refs.size() - triangleStart;
-                vertex0.setTriangleStart(triangleStart);
-                vertex0.setTriangleCount(currentTriangleCount);
+                collapseVertex(index0, index1);
+                this.maxCollapseError = Math.max(this.maxCollapseError, error);
+                ensureRefCapacity(this.refCount + this.vertexTriangleCount[index0] + this.vertexTriangleCount[index1]);
+                final int triangleStart = this.refCount;
+                deletedTriangles += updateTriangles(index0, index0, this.collapsed0);
+                deletedTriangles += updateTriangles(index0, index1, this.collapsed1);
+                this.vertexTriangleStart[index0] = triangleStart;
+                this.vertexTriangleCount[index0] = this.refCount - triangleStart;
                 break;
             }
             if (triangleCount - deletedTriangles - globalDeletedTriangles <= targetCount) {
@@ -257,133 +377,198 @@ public class QuadricErrorSimplifier {
         return deletedTriangles;
     }
 
+    private void collapseVertex(final int index0,
+                                final int index1) {
+        if (positionEquals(index1, this.collapsePosition)) {
+            this.vertexSources[index0] = this.vertexSources[index1];
+        } else if (!positionEquals(index0, this.collapsePosition)) {
+            this.vertexSources[index0] = -1;
+        }
+        System.arraycopy(this.collapsePosition, 0, this.vertexPositions, index0 * 3, 3);
+        final int q0 = index0 * QuadricErrorSimplifier.QUADRIC_SIZE;
+        final int q1 = index1 * QuadricErrorSimplifier.QUADRIC_SIZE;
+        for (int i = 0; i < QuadricErrorSimplifier.QUADRIC_SIZE; i++) {
+            this.vertexQuadrics[q0 + i] += this.vertexQuadrics[q1 + i];
+        }
+    }
+
+    private boolean positionEquals(final int vertex,
+                                   final float[] position) {
+        final int offset = vertex * 3;
+        return this.vertexPositions[offset] == position[0]
+                && this.vertexPositions[offset + 1] == position[1]
+                && this.vertexPositions[offset + 2] == position[2];
+    }
+
     // Check if a triangle flips when this edge is removed
-    private boolean flipped(final Vector3f p,
+    private boolean flipped(final int i0,
                             final int i1,
-                            final Vertex v0,
-                            final Vector<Boolean> deleted) {
-        for (int k = 0; k < v0.getTriangleCount(); k++) {
-            final Ref ref = this.refs.get(v0.getTriangleStart() + k);
-            final Triangle triangle = this.triangles.get(ref.getTriangleId());
-            if (triangle.isDeleted()) {
+                            final BitSet collapsed) {
+        final double px = this.collapsePosition[0];
+        final double py = this.collapsePosition[1];
+        final double pz = this.collapsePosition[2];
+        final int start = this.vertexTriangleStart[i0];
+        final int count = this.vertexTriangleCount[i0];
+        for (int k = 0; k < count; k++) {
+            final int triangle = this.refTriangles[start + k];
+            if (this.triangleDeleted.get(triangle)) {
                 continue;
             }
-            final int vertexIdx = ref.getTriangleVertex();
-            final int id1 = triangle.getVertices()[(vertexIdx + 1) % 3];
-            final int id2 = triangle.getVertices()[(vertexIdx + 2) % 3];
+            final int vertexIdx = this.refVertices[start + k];
+            final int id1 = this.triangleVertices[(triangle * 3) + ((vertexIdx + 1) % 3)];
+            final int id2 = this.triangleVertices[(triangle * 3) + ((vertexIdx + 2) % 3)];
             if (id1 == i1 || id2 == i1) { // delete ?
-                deleted.set(k, true);
+                collapsed.set(k);
                 continue;
             }
-            final Vector3f d1 = this.vertices.get(id1).getPosition().sub(p).normalize();
-            final Vector3f d2 = this.vertices.get(id2).getPosition().sub(p).normalize();
-            if (Math.abs(d1.dot(d2)) > 0.9999d) {
+            double d1x = this.vertexPositions[id1 * 3] - px;
+            double d1y = this.vertexPositions[(id1 * 3) + 1] - py;
+            double d1z = this.vertexPositions[(id1 * 3) + 2] - pz;
+            final double d1Length = Math.sqrt((d1x * d1x) + (d1y * d1y) + (d1z * d1z));
+            d1x /= d1Length;
+            d1y /= d1Length;
+            d1z /= d1Length;
+            double d2x = this.vertexPositions[id2 * 3] - px;
+            double d2y = this.vertexPositions[(id2 * 3) + 1] - py;
+            double d2z = this.vertexPositions[(id2 * 3) + 2] - pz;
+            final double d2Length = Math.sqrt((d2x * d2x) + (d2y * d2y) + (d2z * d2z));
+            d2x /= d2Length;
+            d2y /= d2Length;
+            d2z /= d2Length;
+            if (Math.abs((d1x * d2x) + (d1y * d2y) + (d1z * d2z)) > 0.9999d) {
                 return true;
             }
-            final Vector3f normal = new Vector3f(d1)
-                    .cross(d2)
-                    .normalize();
-            deleted.set(k, false);
-            if (normal.dot(triangle.getNormal()) < 0.2d) {
+            final double nx = (d1y * d2z) - (d1z * d2y);
+            final double ny = (d1z * d2x) - (d1x * d2z);
+            final double nz = (d1x * d2y) - (d1y * d2x);
+            final double nLength = Math.sqrt((nx * nx) + (ny * ny) + (nz * nz));
+            final int normalOffset = triangle * 3;
+            final double dot = (nx * this.triangleNormals[normalOffset])
+                    + (ny * this.triangleNormals[normalOffset + 1])
+                    + (nz * this.triangleNormals[normalOffset + 2]);
+            if (dot / nLength < 0.2d) {
                 return true;
             }
         }
         return false;
     }
 
-
     // Update triangle connections and edge error after a edge is collapsed
     private int updateTriangles(final int i0,
-                                final Vertex vertex,
-                                final Vector<Boolean> deleted) {
+                                final int vertex,
+                                final BitSet collapsed) {
         int trianglesRemoved = 0;
-        this.p.set(0, 0, 0);
-        for (int k = 0; k < vertex.getTriangleCount(); k++) {
-            final Ref ref = this.refs.get(vertex.getTriangleStart() + k);
-            final Triangle triangle = this.triangles.get(ref.getTriangleId());
-            if (triangle.isDeleted()) {
+        final int start = this.vertexTriangleStart[vertex];
+        final int count = this.vertexTriangleCount[vertex];
+        for (int k = 0; k < count; k++) {
+            final int triangle = this.refTriangles[start + k];
+            if (this.triangleDeleted.get(triangle)) {
                 continue;
             }
-            if (Boolean.TRUE.equals(deleted.get(k))) {
-                triangle.setDeleted(true);
+            if (collapsed.get(k)) {
+                this.triangleDeleted.set(triangle);
                 trianglesRemoved++;
                 continue;
             }
-            triangle.getVertices()[ref.getTriangleVertex()] = i0;
-            triangle.setDirty(true);
-            triangle.getError()[0] = calculateError(
-                    triangle.getVertices()[0],
-                    triangle.getVertices()[1],
-                    this.p
-            );
-            triangle.getError()[1] = calculateError(
-                    triangle.getVertices()[1],
-                    triangle.getVertices()[2],
-                    this.p
-            );
-            triangle.getError()[2] = calculateError(
-                    triangle.getVertices()[2],
-                    triangle.getVertices()[0],
-                    this.p
-            );
-            triangle.getError()[3] = Math.min(
-                    triangle.getError()[0],
-                    Math.min(
-                            triangle.getError()[1],
-                            triangle.getError()[2]
-                    )
-            );
-            this.refs.add(ref);
+            final int vertexIdx = this.refVertices[start + k];
+            this.triangleVertices[(triangle * 3) + vertexIdx] = i0;
+            this.triangleDirty.set(triangle);
+            updateTriangleErrors(triangle);
+            this.refTriangles[this.refCount] = triangle;
+            this.refVertices[this.refCount] = vertexIdx;
+            this.refCount++;
         }
         return trianglesRemoved;
     }
 
+    private void updateTriangleErrors(final int triangle) {
+        final int vertexOffset = triangle * 3;
+        final int errorOffset = triangle * QuadricErrorSimplifier.ERROR_SIZE;
+        for (int j = 0; j < 3; j++) {
+            this.triangleErrors[errorOffset + j] = calculateError(
+                    this.triangleVertices[vertexOffset + j],
+                    this.triangleVertices[vertexOffset + ((j + 1) % 3)],
+                    this.errorPosition
+            );
+        }
+        this.triangleErrors[errorOffset + 3] = Math.min(
+                this.triangleErrors[errorOffset],
+                Math.min(
+                        this.triangleErrors[errorOffset + 1],
+                        this.triangleErrors[errorOffset + 2]
+                )
+        );
+    }
+
+    private void ensureRefCapacity(final int required) {
+        if (required <= this.refTriangles.length) {
+            return;
+        }
+        final int capacity = Math.max(required, this.refTriangles.length + (this.refTriangles.length >> 1));
+        this.refTriangles = Arrays.copyOf(this.refTriangles, capacity);
+        this.refVertices = Arrays.copyOf(this.refVertices, capacity);
+    }
+
+    private void moveTriangle(final int from,
+                              final int to) {
+        System.arraycopy(this.triangleVertices, from * 3, this.triangleVertices, to * 3, 3);
+        System.arraycopy(this.triangleNormals, from * 3, this.triangleNormals, to * 3, 3);
+        System.arraycopy(
+                this.triangleErrors,
+                from * QuadricErrorSimplifier.ERROR_SIZE,
+                this.triangleErrors,
+                to * QuadricErrorSimplifier.ERROR_SIZE,
+                QuadricErrorSimplifier.ERROR_SIZE
+        );
+    }
+
     private void updateMesh(final int iteration) {
         if (iteration > 0) { // compact triangles
             int dst = 0;
-            for (int i = 0; i < this.triangles.size(); i++) {
-                if (!this.triangles.get(i).isDeleted()) {
-                    this.triangles.set(dst++, this.triangles.get(i));
+            for (int i = 0; i < this.triangleCount; i++) {
+                if (this.triangleDeleted.get(i)) {
+                    continue;
+                }
+                if (dst != i) {
+                    moveTriangle(i, dst);
                 }
+                dst++;
             }
-            this.triangles.setSize(dst);
-        }
-        if (iteration == 0) {
-            initQuadricPlaneEdge();
+            this.triangleCount = dst;
+            this.triangleDeleted.clear();
         }
         // Init Reference ID list
-        this.vertices.forEach((final Vertex vertex) -> {
-            vertex.setTriangleStart(0);
-            vertex.setTriangleCount(0);
-        });
-        this.triangles.forEach((final Triangle triangle) -> {
-            this.vertices.get(triangle.getVertices()[0]).setTriangleCount(this.vertices.get(triangle.getVertices()[0]).getTriangleCount() + 1);
-            this.vertices.get(triangle.getVertices()[1]).setTriangleCount(this.vertices.get(triangle.getVertices()[1]).getTriangleCount() + 1);
-            this.vertices.get(triangle.getVertices()[2]).setTriangleCount(this.vertices.get(triangle.getVertices()[2]).getTriangleCount() + 1);
-        });
+        Arrays.fill(this.vertexTriangleCount, 0, this.vertexCount, 0);
+        for (int i = 0; i < this.triangleCount * 3; i++) {
+            this.vertexTriangleCount[this.triangleVertices[i]]++;
+        }
         int triangleStart = 0;
-        for (final Vertex vertex : this.vertices) {
-            vertex.setTriangleStart(triangleStart);
-            triangleStart += vertex.getTriangleCount();
-            vertex.setTriangleCount(0);
+        for (int i = 0; i < this.vertexCount; i++) {
+            this.vertexTriangleStart[i] = triangleStart;
+            triangleStart += this.vertexTriangleCount[i];
+            this.vertexTriangleCount[i] = 0;
         }
         // Write References
-        this.refs.setSize(this.triangles.size() * 3);
-        for (int i = 0; i < this.triangles.size(); i++) {
-            final Triangle triangle = this.triangles.get(i);
+        ensureRefCapacity(this.triangleCount * 3);
+        this.refCount = this.triangleCount * 3;
+        for (int i = 0; i < this.triangleCount; i++) {
             for (int j = 0; j < 3; j++) {
-                final Vertex vertex = this.vertices.get(triangle.getVertices()[j]);
-                this.refs.get(vertex.getTriangleStart() + vertex.getTriangleCount()).setTriangleId(i);
-                this.refs.get(vertex.getTriangleStart() + vertex.getTriangleCount()).setTriangleVertex(j);
-                vertex.setTriangleCount(vertex.getTriangleCount() + 1);
+                final int vertex = this.triangleVertices[(i * 3) + j];
+                final int ref = this.vertexTriangleStart[vertex] + this.vertexTriangleCount[vertex]++;
+                this.refTriangles[ref] = i;
+                this.refVertices[ref] = j;
             }
         }
-        // Identify boundary : vertices[].border=0,1
         if (iteration != 0) {
             return;
         }
-        this.vertices.forEach((final Vertex vertex) -> vertex.setBorder(false));
-        this.vertices.forEach(this::findBoundary);
+        // Identify boundary : vertices[].border=0,1
+        this.vertexBorder.clear();
+        for (int i = 0; i < this.vertexCount; i++) {
+            findBoundary(i);
+        }
+        this.vertexBorder.or(this.lockedVertices);
+        initQuadricPlaneEdge();
     }
 
     //
@@ -394,229 +579,302 @@ public class QuadricErrorSimplifier {
     // but mostly improves the result for closed meshes
     //
     private void initQuadricPlaneEdge() {
-        this.vertices.stream()
-                .map(Vertex::getQ)
-                .forEach((final SymetricMatrix symetricMatrix) -> symetricMatrix.set(new SymetricMatrix(0.0d)));
-        this.triangles.forEach((final Triangle triangle) -> {
-            final Vector3f[] vertex = new Vector3f[]{
-                    this.vertices.get(triangle.getVertices()[0]).getPosition(),
-                    this.vertices.get(triangle.getVertices()[1]).getPosition(),
-                    this.vertices.get(triangle.getVertices()[2]).getPosition(),
-            };
-            final Vector3f normal = vertex[1].sub(vertex[0])
-                    .cross(vertex[2].sub(vertex[0]))
-                    .normalize();
-            triangle.getNormal().set(normal);
-            for (int j = 0; j < 3; j++) {
-                this.vertices.get(triangle.getVertices()[j]).getQ().set(
-                        this.vertices.get(triangle.getVertices()[j]).getQ().add(
-                                new SymetricMatrix(
-                                        normal.x,
-                                        normal.y,
-                                        normal.z,
-                                        -normal.dot(vertex[0])
-                                )
-                        )
-                );
+        Arrays.fill(this.vertexQuadrics, 0, this.vertexCount * QuadricErrorSimplifier.QUADRIC_SIZE, 0.0d);
+        for (int i = 0; i < this.triangleCount; i++) {
+            final int v0 = this.triangleVertices[i * 3] * 3;
+            final int v1 = this.triangleVertices[(i * 3) + 1] * 3;
+            final int v2 = this.triangleVertices[(i * 3) + 2] * 3;
+            final double e1x = this.vertexPositions[v1] - this.vertexPositions[v0];
+            final double e1y = this.vertexPositions[v1 + 1] - this.vertexPositions[v0 + 1];
+            final double e1z = this.vertexPositions[v1 + 2] - this.vertexPositions[v0 + 2];
+            final double e2x = this.vertexPositions[v2] - this.vertexPositions[v0];
+            final double e2y = this.vertexPositions[v2 + 1] - this.vertexPositions[v0 + 1];
+            final double e2z = this.vertexPositions[v2 + 2] - this.vertexPositions[v0 + 2];
+            double nx = (e1y * e2z) - (e1z * e2y);
+            double ny = (e1z * e2x) - (e1x * e2z);
+            double nz = (e1x * e2y) - (e1y * e2x);
+            final double length = Math.sqrt((nx * nx) + (ny * ny) + (nz * nz));
+            if (length == 0) {
+                // Degenerate triangle, has no plane to contribute
+                continue;
+            }
+            nx /= length;
+            ny /= length;
+            nz /= length;
+            this.triangleNormals[i * 3] = (float) nx;
+            this.triangleNormals[(i * 3) + 1] = (float) ny;
+            this.triangleNormals[(i * 3) + 2] = (float) nz;
+            final double d = -((nx * this.vertexPositions[v0])
+                    + (ny * this.vertexPositions[v0 + 1])
+                    + (nz * this.vertexPositions[v0 + 2]));
+            if (this.initialQuadrics != null) {
+                continue;
             }
-        });
-        this.p.set(0, 0, 0);
-        this.triangles.forEach((final Triangle triangle) -> {
             for (int j = 0; j < 3; j++) {
-                triangle.getError()[j] = calculateError(triangle.getVertices()[j], triangle.getVertices()[(j + 1) % 3], this.p);
+                addPlane(this.triangleVertices[(i * 3) + j], nx, ny, nz, d);
             }
-            triangle.getError()[3] = Math.min(triangle.getError()[0], Math.min(triangle.getError()[1], triangle.getError()[2]));
-        });
-    }
-
-    private void findBoundary(final Vertex vertex) {
-        final Vector<Integer> vertexCount = new Vector<>();
-        final Vector<Integer> vertexIds = new Vector<>();
-        for (int j = 0; j < vertex.getTriangleCount(); j++) {
-            int k = this.refs.get(vertex.getTriangleStart() + j).getTriangleId();
-            final Triangle triangle = this.triangles.get(k);
-            for (k = 0; k < 3; k++) {
-                final int vertexId = triangle.getVertices()[k];
+        }
+        if (this.initialQuadrics != null) {
+            System.arraycopy(
+                    this.initialQuadrics,
+                    0,
+                    this.vertexQuadrics,
+                    0,
+                    this.vertexCount * QuadricErrorSimplifier.QUADRIC_SIZE
+            );
+        }
+        for (int i = 0; i < this.triangleCount; i++) {
+            updateTriangleErrors(i);
+        }
+    }
+
+    private void addPlane(final int vertex,
+                          final double a,
+                          final double b,
+                          final double c,
+                          final double d) {
+        final int offset = vertex * QuadricErrorSimplifier.QUADRIC_SIZE;
+        this.vertexQuadrics[offset] += a * a;
+        this.vertexQuadrics[offset + 1] += a * b;
+        this.vertexQuadrics[offset + 2] += a * c;
+        this.vertexQuadrics[offset + 3] += a * d;
+        this.vertexQuadrics[offset + 4] += b * b;
+        this.vertexQuadrics[offset + 5] += b * c;
+        this.vertexQuadrics[offset + 6] += b * d;
+        this.vertexQuadrics[offset + 7] += c * c;
+        this.vertexQuadrics[offset + 8] += c * d;
+        this.vertexQuadrics[offset + 9] += d * d;
+    }
+
+    private void findBoundary(final int vertex) {
+        final int start = this.vertexTriangleStart[vertex];
+        final int count = this.vertexTriangleCount[vertex];
+        if (this.boundaryVertexIds.length < count * 3) {
+            this.boundaryVertexIds = new int[count * 3];
+            this.boundaryVertexCounts = new int[count * 3];
+        }
+        int unique = 0;
+        for (int j = 0; j < count; j++) {
+            final int triangle = this.refTriangles[start + j];
+            for (int k = 0; k < 3; k++) {
+                final int vertexId = this.triangleVertices[(triangle * 3) + k];
                 int ofs;
-                for (ofs = 0; ofs < vertexCount.size() && vertexIds.get(ofs) != vertexId; ofs++);
-                if (ofs == vertexCount.size()) {
-                    vertexCount.add(1);
-                    vertexIds.add(vertexId);
+                for (ofs = 0; ofs < unique && this.boundaryVertexIds[ofs] != vertexId; ofs++);
+                if (ofs == unique) {
+                    this.boundaryVertexIds[unique] = vertexId;
+                    this.boundaryVertexCounts[unique++] = 1;
                 } else {
-                    vertexCount.set(ofs, vertexCount.get(ofs) + 1);
+                    this.boundaryVertexCounts[ofs]++;
                 }
             }
         }
-        vertexCount.stream()
-                .mapToInt(Integer::intValue)
-                .filter((final int i) -> i == 1)
-                .mapToObj(this.vertices::get)
-                .forEach((final Vertex matchedVertex) -> matchedVertex.setBorder(true));
+        for (int ofs = 0; ofs < unique; ofs++) {
+            if (this.boundaryVertexCounts[ofs] == 1) {
+                this.vertexBorder.set(this.boundaryVertexIds[ofs]);
+            }
+        }
     }
 
     // Finally compact mesh before exiting
     private void compactMesh() {
-        var anonymousDst = new Object() {
-            int dst = 0;
-        };
-        this.vertices.forEach((final Vertex vertex) -> vertex.setTriangleCount(0));
-        for (final Triangle triangle : this.triangles) {
-            if (!triangle.isDeleted()) {
-                this.triangles.set(anonymousDst.dst++, triangle);
-                for (int j = 0; j < 3; j++) {
-                    this.vertices.get(triangle.getVertices()[j]).setTriangleCount(1);
-                }
+        Arrays.fill(this.vertexTriangleCount, 0, this.vertexCount, 0);
+        int dst = 0;
+        for (int i = 0; i < this.triangleCount; i++) {
+            if (this.triangleDeleted.get(i)) {
+                continue;
+            }
+            if (dst != i) {
+                moveTriangle(i, dst);
             }
-        }
-        this.triangles.setSize(anonymousDst.dst);
-        anonymousDst.dst = 0;
-        this.vertices.stream()
-                .filter((final Vertex vertex) -> vertex.getTriangleCount() != 0)
-                .forEach((final Vertex vertex) -> {
-                    vertex.setTriangleStart(anonymousDst.dst);
-                    this.vertices.get(anonymousDst.dst).getPosition().set(vertex.getPosition());
-                    anonymousDst.dst++;
-                });
-        for (final Triangle triangle : this.triangles) {
             for (int j = 0; j < 3; j++) {
-                triangle.getVertices()[j] = this.vertices.get(triangle.getVertices()[j]).getTriangleStart();
+                this.vertexTriangleCount[this.triangleVertices[(dst * 3) + j]] = 1;
+            }
+            dst++;
+        }
+        this.triangleCount = dst;
+        this.triangleDeleted.clear();
+        dst = 0;
+        for (int i = 0; i < this.vertexCount; i++) {
+            if (this.vertexTriangleCount[i] == 0) {
+                continue;
             }
+            this.vertexTriangleStart[i] = dst;
+            System.arraycopy(this.vertexPositions, i * 3, this.vertexPositions, dst * 3, 3);
+            System.arraycopy(
+                    this.vertexQuadrics,
+                    i * QuadricErrorSimplifier.QUADRIC_SIZE,
+                    this.vertexQuadrics,
+                    dst * QuadricErrorSimplifier.QUADRIC_SIZE,
+                    QuadricErrorSimplifier.QUADRIC_SIZE
+            );
+            this.vertexSources[dst] = this.vertexSources[i];
+            dst++;
         }
-        this.vertices.setSize(anonymousDst.dst);
+        for (int i = 0; i < this.triangleCount * 3; i++) {
+            this.triangleVertices[i] = this.vertexTriangleStart[this.triangleVertices[i]];
+        }
+        this.vertexCount = dst;
     }
 
     // Error between vertex and Quadric
-    private static double vertexError(final SymetricMatrix q,
+    private static double vertexError(final double[] q,
                                       final double x,
                                       final double y,
                                       final double z) {
-        return q.getValue(0) * x * x + 2
-                * q.getValue(1) * x * y + 2
-                * q.getValue(2) * x * z + 2
-                * q.getValue(3) * x
-                + q.getValue(4) * y * y + 2
-                * q.getValue(5) * y * z + 2
-                * q.getValue(6) * y
-                + q.getValue(7) * z * z + 2
-                * q.getValue(8) * z
-                + q.getValue(9);
+        return q[0] * x * x + 2
+                * q[1] * x * y + 2
+                * q[2] * x * z + 2
+                * q[3] * x
+                + q[4] * y * y + 2
+                * q[5] * y * z + 2
+                * q[6] * y
+                + q[7] * z * z + 2
+                * q[8] * z
+                + q[9];
+    }
+
+    // Determinant
+    private static double det(final double[] m,
+                              final int a11, final int a12, final int a13,
+                              final int a21, final int a22, final int a23,
+                              final int a31, final int a32, final int a33) {
+        return m[a11] * m[a22] * m[a33] + m[a13] * m[a21] * m[a32] + m[a12] * m[a23] * m[a31]
+                - m[a13] * m[a22] * m[a31] - m[a11] * m[a23] * m[a32] - m[a12] * m[a21] * m[a33];
     }
 
     // Error for one edge
     private double calculateError(final int idV1,
                                   final int idV2,
-                                  final Vector3f pResult) {
+                                  final float[] pResult) {
         // compute interpolated vertex
-        final SymetricMatrix q = this.vertices.get(idV1).getQ().add(this.vertices.get(idV2).getQ());
-        final boolean border = this.vertices.get(idV1).isBorder() & this.vertices.get(idV2).isBorder();
-        final double error;
-        final double det = q.det(0, 1, 2, 1, 4, 5, 2, 5, 7);
+        final double[] q = this.edgeQuadric;
+        final int q1 = idV1 * QuadricErrorSimplifier.QUADRIC_SIZE;
+        final int q2 = idV2 * QuadricErrorSimplifier.QUADRIC_SIZE;
+        for (int i = 0; i < QuadricErrorSimplifier.QUADRIC_SIZE; i++) {
+            q[i] = this.vertexQuadrics[q1 + i] + this.vertexQuadrics[q2 + i];
+        }
+        final boolean border = this.vertexBorder.get(idV1) && this.vertexBorder.get(idV2);
+        final double det = QuadricErrorSimplifier.det(q, 0, 1, 2, 1, 4, 5, 2, 5, 7);
         if (det != 0 && !border) {
             // q_delta is invertible
-            pResult.x = (float) (-1 / det * (q.det(1, 2, 3, 4, 5, 6, 5, 7, 8)));    // vx = A41/det(q_delta)
-            pResult.y = (float) (1 / det * (q.det(0, 2, 3, 1, 5, 6, 2, 7, 8)));    // vy = A42/det(q_delta)
-            pResult.z = (float) (-1 / det * (q.det(0, 1, 3, 1, 4, 6, 2, 5, 8)));    // vz = A43/det(q_delta)
-            error = QuadricErrorSimplifier.vertexError(q, pResult.x, pResult.y, pResult.z);
+            pResult[0] = (float) (-1 / det * (QuadricErrorSimplifier.det(q, 1, 2, 3, 4, 5, 6, 5, 7, 8)));    // vx = A41/det(q_delta)
+            pResult[1] = (float) (1 / det * (QuadricErrorSimplifier.det(q, 0, 2, 3, 1, 5, 6, 2, 7, 8)));     // vy = A42/det(q_delta)
+            pResult[2] = (float) (-1 / det * (QuadricErrorSimplifier.det(q, 0, 1, 3, 1, 4, 6, 2, 5, 8)));    // vz = A43/det(q_delta)
+            return QuadricErrorSimplifier.vertexError(q, pResult[0], pResult[1], pResult[2]);
+        }
+        // det = 0 -> try to find best result
+        final int p1 = idV1 * 3;
+        final int p2 = idV2 * 3;
+        final float x1 = this.vertexPositions[p1];
+        final float y1 = this.vertexPositions[p1 + 1];
+        final float z1 = this.vertexPositions[p1 + 2];
+        final float x2 = this.vertexPositions[p2];
+        final float y2 = this.vertexPositions[p2 + 1];
+        final float z2 = this.vertexPositions[p2 + 2];
+        final float x3 = (x1 + x2) / 2.0f; // (p1+p2)/2;
+        final float y3 = (y1 + y2) / 2.0f;
+        final float z3 = (z1 + z2) / 2.0f;
+        final double error1 = QuadricErrorSimplifier.vertexError(q, x1, y1, z1);
+        final double error2 = QuadricErrorSimplifier.vertexError(q, x2, y2, z2);
+        final double error3 = QuadricErrorSimplifier.vertexError(q, x3, y3, z3);
+        final double error = Math.min(error1, Math.min(error2, error3));
+        if (error3 == error) {
+            pResult[0] = x3;
+            pResult[1] = y3;
+            pResult[2] = z3;
+        } else if (error2 == error) {
+            pResult[0] = x2;
+            pResult[1] = y2;
+            pResult[2] = z2;
         } else {
-            // det = 0 -> try to find best result
-            final Vector3f p1 = this.vertices.get(idV1).getPosition();
-            final Vector3f p2 = this.vertices.get(idV2).getPosition();
-            final Vector3f p3 = p1.add(p2).div(2.0f); // (p1+p2)/2;
-            final double error1 = QuadricErrorSimplifier.vertexError(q, p1.x, p1.y, p1.z);
-            final double error2 = QuadricErrorSimplifier.vertexError(q, p2.x, p2.y, p2.z);
-            final double error3 = QuadricErrorSimplifier.vertexError(q, p3.x, p3.y, p3.z);
-            error = Math.min(error1, Math.min(error2, error3));
-            if (error1 == error) {
-                pResult.set(p1);
-            }
-            if (error2 == error) {
-                pResult.set(p2);
-            }
-            if (error3 == error) {
-                pResult.set(p3);
-            }
+            pResult[0] = x1;
+            pResult[1] = y1;
+            pResult[2] = z1;
         }
         return error;
     }
 
-
-    private Mesh createSimplifiedMesh(final boolean complexNormals) {
-        final int reducedVertexCount = this.vertices.size();
-        final List<Float> newVertices = new ArrayList<>();
-        for (final Vertex vertex : this.vertices) {
-            newVertices.add(vertex.getPosition().x);
-            newVertices.add(vertex.getPosition().y);
-            newVertices.add(vertex.getPosition().z);
-        }
-        final List<Integer> indexList = new ArrayList<>();
-        final Vector3f[] normalsArray = complexNormals
-                ? normalizeMesh(this.triangles, this.vertices)
-                : new Vector3f[reducedVertexCount];
-        this.triangles.forEach((final Triangle triangle) -> {
-            indexList.add(triangle.getVertices()[0]);
-            indexList.add(triangle.getVertices()[1]);
-            indexList.add(triangle.getVertices()[2]);
-            if (!complexNormals) {
-                normalsArray[triangle.getVertices()[0]] = new Vector3f(triangle.getNormal());
-                normalsArray[triangle.getVertices()[1]] = new Vector3f(triangle.getNormal());
-                normalsArray[triangle.getVertices()[2]] = new Vector3f(triangle.getNormal());
+    private SimplifiedMesh createSimplifiedMesh(final boolean complexNormals) {
+        final float[] positions = Arrays.copyOf(this.vertexPositions, this.vertexCount * 3);
+        final int[] indices = Arrays.copyOf(this.triangleVertices, this.triangleCount * 3);
+        final float[] normals = complexNormals
+                ? normalizeMesh()
+                : new float[this.vertexCount * 3];
+        if (!complexNormals) {
+            for (int i = 0; i < this.triangleCount; i++) {
+                for (int j = 0; j < 3; j++) {
+                    System.arraycopy(this.triangleNormals, i * 3, normals, indices[(i * 3) + j] * 3, 3);
+                }
             }
-        });
-        final List<Float> newNormals = new ArrayList<>();
-        for (final Vector3f normal : normalsArray) {
-            newNormals.add(normal.x);
-            newNormals.add(normal.y);
-            newNormals.add(normal.z);
-        }
-        final MeshData meshData = this.inMesh.getMeshData();
+        }
         QuadricErrorSimplifier.LOGGER.info(
                 "[MESH QES] Simplified mesh [Vertices: {} -> {}] [Triangles: {} -> {}]",
-                meshData.vertexCount(),
-                newVertices.size(),
-                meshData.triangleCount(),
-                indexList.size() / 3
+                this.meshInPositions.length / 3,
+                this.vertexCount,
+                this.meshInIndices.length / 3,
+                this.triangleCount
+        );
+        return new SimplifiedMesh(
+                positions,
+                normals,
+                indices,
+                Arrays.copyOf(this.vertexSources, this.vertexCount),
+                Arrays.copyOf(this.vertexQuadrics, this.vertexCount * QuadricErrorSimplifier.QUADRIC_SIZE),
+                this.maxCollapseError
         );
-        return new Mesh(new MeshData(
-                ArrayUtils.toPrimitive(newVertices.toArray(Float[]::new)),
-                ArrayUtils.toPrimitive(newNormals.toArray(Float[]::new)),
-                new float[0],
-                new float[0],
-                new float[0],
-                ArrayUtils.toPrimitive(indexList.toArray(Integer[]::new)),
-                new int[0],
-                new float[0],
-                new Vector3f(),
-                new Vector3f()
-        ));
     }
 
-    private Vector3f[] normalizeMesh(final Vector<Triangle> triangles,
-                                     final List<Vertex> vertices) {
-        final Vector3f[] newNormals = new Vector3f[vertices.size()];
-        for (int i = 0; i < vertices.size(); i++) {
-            newNormals[i] = new Vector3f();
-        }
-        for (final Triangle face : triangles) {
-            final int ia = face.getVertices()[0];
-            final int ib = face.getVertices()[1];
-            final int ic = face.getVertices()[2];
-            final Vector3f e1 = vertices.get(ia).getPosition().sub(vertices.get(ib).getPosition());
-            final Vector3f e2 = vertices.get(ic).getPosition().sub(vertices.get(ib).getPosition());
-            final Vector3f no = e2.cross(e1); //cross( e1, e2 );
-            newNormals[ia].add(no);
-            newNormals[ib].add(no);
-            newNormals[ic].add(no);
-        }
-        Arrays.stream(newNormals).forEach(Vector3f::normalize);
-        for (int i = 0; i < vertices.size(); i++) {
-            final int index = inMeshContainsVert(vertices.get(i).getPosition());
-            if (index != -1) {
-                newNormals[i] = this.meshInNormals[index];
+    private float[] normalizeMesh() {
+        final float[] newNormals = new float[this.vertexCount * 3];
+        for (int i = 0; i < this.triangleCount; i++) {
+            final int ia = this.triangleVertices[i * 3] * 3;
+            final int ib = this.triangleVertices[(i * 3) + 1] * 3;
+            final int ic = this.triangleVertices[(i * 3) + 2] * 3;
+            final float e1x = this.vertexPositions[ia] - this.vertexPositions[ib];
+            final float e1y = this.vertexPositions[ia + 1] - this.vertexPositions[ib + 1];
+            final float e1z = this.vertexPositions[ia + 2] - this.vertexPositions[ib + 2];
+            final float e2x = this.vertexPositions[ic] - this.vertexPositions[ib];
+            final float e2y = this.vertexPositions[ic + 1] - this.vertexPositions[ib + 1];
+            final float e2z = this.vertexPositions[ic + 2] - this.vertexPositions[ib + 2];
+            final float nx = (e2y * e1z) - (e2z * e1y); //cross( e1, e2 );
+            final float ny = (e2z * e1x) - (e2x * e1z);
+            final float nz = (e2x * e1y) - (e2y * e1x);
+            QuadricErrorSimplifier.accumulate(newNormals, ia, nx, ny, nz);
+            QuadricErrorSimplifier.accumulate(newNormals, ib, nx, ny, nz);
+            QuadricErrorSimplifier.accumulate(newNormals, ic, nx, ny, nz);
+        }
+        for (int i = 0; i < this.vertexCount; i++) {
+            final int offset = i * 3;
+            final int source = this.vertexSources[i];
+            if (source != -1 && this.meshInNormals != null && (source * 3) + 2 < this.meshInNormals.length) {
+                // Vertex was never moved, keep its authored normal
+                System.arraycopy(this.meshInNormals, source * 3, newNormals, offset, 3);
+                continue;
+            }
+            final float length = (float) Math.sqrt(
+                    (newNormals[offset] * newNormals[offset])
+                    + (newNormals[offset + 1] * newNormals[offset + 1])
+                    + (newNormals[offset + 2] * newNormals[offset + 2])
+            );
+            if (length > 0) {
+                newNormals[offset] /= length;
+                newNormals[offset + 1] /= length;
+                newNormals[offset + 2] /= length;
             }
         }
         return newNormals;
     }
 
+    private static void accumulate(final float[] values,
+                                   final int offset,
+                                   final float x,
+                                   final float y,
+                                   final float z) {
+        values[offset] += x;
+        values[offset + 1] += y;
+        values[offset + 2] += z;
+    }
+
     /**
      * The mesh that was given in the constructor.
      *
@@ -626,4 +884,113 @@ public class QuadricErrorSimplifier {
         return this.inMesh;
     }
 
-}
\ No newline at end of file
+    /**
+     * Simplifies the triangles {@code indices} taken from a larger shared
+     * vertex set, locking every vertex set in {@code lockedVertices}. The
+     * referenced vertices are compacted into a local mesh for simplification,
+     * and the source vertices of the result are mapped back to ids in the
+     * shared set.
+     */
+    static SimplifiedMesh simplifySubset(final float[] positions,
+                                         final float[] normals,
+                                         final int[] indices,
+                                         final BitSet lockedVertices,
+                                         final int targetCount,
+                                         final double aggressiveness,
+                                         final boolean complexNormals) {
+        return QuadricErrorSimplifier.simplifySubset(
+                positions,
+                normals,
+                indices,
+                lockedVertices,
+                null,
+                targetCount,
+                aggressiveness,
+                complexNormals
+        );
+    }
+
+    /**
+     * Simplifies a subset as {@link #simplifySubset(float[], float[], int[], BitSet, int, double, boolean)}
+     * does, starting each vertex from its quadric in {@code quadrics} when
+     * given, {@link #QUADRIC_SIZE} per vertex of the shared set.
+     */
+    static SimplifiedMesh simplifySubset(final float[] positions,
+                                         final float[] normals,
+                                         final int[] indices,
+                                         final BitSet lockedVertices,
+                                         final double[] quadrics,
+                                         final int targetCount,
+                                         final double aggressiveness,
+                                         final boolean complexNormals) {
+        // Sorted distinct shared ids, local vertex ids are positions in this array
+        final int[] globalVertices = Arrays.stream(indices)
+                .sorted()
+                .distinct()
+                .toArray();
+        final int[] localIndices = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            localIndices[i] = Arrays.binarySearch(globalVertices, indices[i]);
+        }
+        final boolean hasNormals = normals != null && normals.length >= positions.length;
+        final float[] localPositions = new float[globalVertices.length * 3];
+        final float[] localNormals = new float[hasNormals ? globalVertices.length * 3 : 0];
+        final double[] localQuadrics = quadrics == null
+                ? null
+                : new double[globalVertices.length * QuadricErrorSimplifier.QUADRIC_SIZE];
+        final BitSet locked = new BitSet(globalVertices.length);
+        for (int i = 0; i < globalVertices.length; i++) {
+            System.arraycopy(positions, globalVertices[i] * 3, localPositions, i * 3, 3);
+            if (localQuadrics != null) {
+                System.arraycopy(
+                        quadrics,
+                        globalVertices[i] * QuadricErrorSimplifier.QUADRIC_SIZE,
+                        localQuadrics,
+                        i * QuadricErrorSimplifier.QUADRIC_SIZE,
+                        QuadricErrorSimplifier.QUADRIC_SIZE
+                );
+            }
+            if (hasNormals) {
+                System.arraycopy(normals, globalVertices[i] * 3, localNormals, i * 3, 3);
+            }
+            if (lockedVertices.get(globalVertices[i])) {
+                locked.set(i);
+            }
+        }
+        final SimplifiedMesh simplified = new QuadricErrorSimplifier(
+                localPositions,
+                localNormals,
+                localIndices,
+                locked,
+                localQuadrics
+        ).simplifyData(
+                targetCount,
+                aggressiveness,
+                complexNormals
+        );
+        final int[] sources = simplified.sourceVertices();
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] != -1) {
+                sources[i] = globalVertices[sources[i]];
+            }
+        }
+        return simplified;
+    }
+
+    /**
+     * Raw simplification output. {@code sourceVertices} maps each output vertex
+     * to the input vertex it still coincides with, or -1 if it was moved by a
+     * collapse. {@code quadrics} holds the accumulated quadric of each output
+     * vertex, {@link #QUADRIC_SIZE} per vertex. {@code maxError} is the largest
+     * quadric error (squared distance to the original planes) of any collapse
+     * performed.
+     */
+    record SimplifiedMesh(float[] positions,
+                          float[] normals,
+                          int[] indices,
+                          int[] sourceVertices,
+                          double[] quadrics,
+                          double maxError) {
+    }
+
+}
@@ -1,8 +1,9 @@
 package com.engineersbox.quanta.virtualisation;
 
-import com.engineersbox.quanta.core.Window;
 import com.engineersbox.quanta.resources.assets.object.Mesh;
 
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -19,21 +20,36 @@ public class Quanta {
         this.meshGraph = meshes.stream()
                 .collect(Collectors.toMap(
                         Function.identity(),
-                        (final Mesh mesh) -> new LODGraph(mesh, lodLevels)
+                        (final Mesh mesh) -> new LODGraph(mesh, lodLevels),
+                        (final LODGraph a, final LODGraph b) -> a,
+                        LinkedHashMap::new
                 ));
     }
 
     public void buildLODGraph(final String serialiseOutputDirectory) {
+        int index = 0;
         for (final Map.Entry<Mesh, LODGraph> meshGraph : meshGraph.entrySet()) {
             final LODGraph graph = meshGraph.getValue();
             graph.build();
-            graph.serialiseStreamingStores(serialiseOutputDirectory/*, meshGraph.getKey().getName() */); // TODO: Supply mesh name to serialiser to identify it
+            // TODO: Supply mesh name to serialiser to identify it instead of its index
+            graph.serialiseStreamingStores(Path.of(serialiseOutputDirectory, "mesh_" + index++).toString());
         }
     }
 
-    public Mesh queryLODGraph(final String meshName,
-                              final Window window) {
-        // TODO: Search meshGraphs for mesh and call LODGraph$viewDependentCut() and return result
-        return null;
+    /**
+     * Selects the clusters of a mesh's graph to draw for a view, see
+     * {@link LODGraph#viewDependentCut(LODCutView)}.
+     */
+    public ClusterCut queryLODGraph(final Mesh mesh,
+                                    final LODCutView view) {
+        final LODGraph graph = this.meshGraph.get(mesh);
+        if (graph == null) {
+            throw new IllegalArgumentException("No LOD graph built for mesh");
+        }
+        return graph.viewDependentCut(view);
+    }
+
+    public LODGraph getLODGraph(final Mesh mesh) {
+        return this.meshGraph.get(mesh);
     }
-}
+}
\ No newline at end of file
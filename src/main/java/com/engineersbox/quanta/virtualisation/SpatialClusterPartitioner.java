@@ -0,0 +1,98 @@
+package com.engineersbox.quanta.virtualisation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits triangles into clusters by recursive median bisection of their
+ * centroids along the longest axis, yielding spatially compact clusters in a
+ * spatially coherent order.
+ */
+public class SpatialClusterPartitioner implements TrianglePartitioner {
+
+    @Override
+    public List<int[]> partition(final float[] positions,
+                                 final int[] indices,
+                                 final int maxTriangles) {
+        final int triangleCount = indices.length / 3;
+        final float[] centroids = new float[triangleCount * 3];
+        for (int i = 0; i < triangleCount; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                centroids[(i * 3) + axis] = (positions[(indices[i * 3] * 3) + axis]
+                        + positions[(indices[(i * 3) + 1] * 3) + axis]
+                        + positions[(indices[(i * 3) + 2] * 3) + axis]) / 3.0f;
+            }
+        }
+        final int[] triangles = new int[triangleCount];
+        for (int i = 0; i < triangleCount; i++) {
+            triangles[i] = i;
+        }
+        final List<int[]> clusters = new ArrayList<>((triangleCount / Math.max(1, maxTriangles)) + 1);
+        final long[] keys = new long[triangleCount];
+        split(
+                indices,
+                centroids,
+                triangles,
+                keys,
+                0,
+                triangleCount,
+                Math.max(1, maxTriangles),
+                clusters
+        );
+        return clusters;
+    }
+
+    private void split(final int[] indices,
+                       final float[] centroids,
+                       final int[] triangles,
+                       final long[] keys,
+                       final int from,
+                       final int to,
+                       final int maxTriangles,
+                       final List<int[]> clusters) {
+        final int count = to - from;
+        if (count <= 0) {
+            return;
+        }
+        if (count <= maxTriangles) {
+            final int[] cluster = new int[count * 3];
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(indices, triangles[from + i] * 3, cluster, i * 3, 3);
+            }
+            clusters.add(cluster);
+            return;
+        }
+        final float[] min = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+        final float[] max = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        for (int i = from; i < to; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                final float value = centroids[(triangles[i] * 3) + axis];
+                min[axis] = Math.min(min[axis], value);
+                max[axis] = Math.max(max[axis], value);
+            }
+        }
+        int axis = 0;
+        for (int i = 1; i < 3; i++) {
+            if (max[i] - min[i] > max[axis] - min[axis]) {
+                axis = i;
+            }
+        }
+        // Sort by centroid along the axis, keyed as (sortable float bits, triangle)
+        for (int i = from; i < to; i++) {
+            final int bits = Float.floatToIntBits(centroids[(triangles[i] * 3) + axis]);
+            final int sortable = bits ^ ((bits >> 31) & 0x7FFFFFFF);
+            keys[i] = ((long) sortable << 32) | (triangles[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(keys, from, to);
+        for (int i = from; i < to; i++) {
+            triangles[i] = (int) keys[i];
+        }
+        // Split on a multiple of the cluster size where possible to avoid small remainders
+        final int clusterCount = (count + maxTriangles - 1) / maxTriangles;
+        final int mid = from + ((clusterCount / 2) * maxTriangles);
+        split(indices, centroids, triangles, keys, from, mid, maxTriangles, clusters);
+        split(indices, centroids, triangles, keys, mid, to, maxTriangles, clusters);
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.engineersbox.quanta.virtualisation;
+
+/**
+ * Adapts the pixel error threshold used for view-dependent cuts between
+ * frames, so the triangles drawn across a frame settle at a fixed budget
+ * rather than growing with the number of virtualised meshes in view. Cut size
+ * falls off roughly with the square of the threshold, so the threshold is
+ * scaled by the square root of the ratio of drawn to budgeted triangles,
+ * smoothed to avoid flickering between levels.
+ */
+public class TriangleBudget {
+
+    private static final float SMOOTHING = 0.25f;
+
+    private final float maxPixelError;
+    private float pixelError;
+
+    public TriangleBudget(final float initialPixelError,
+                          final float maxPixelError) {
+        this.pixelError = initialPixelError;
+        this.maxPixelError = maxPixelError;
+    }
+
+    /**
+     * @param frameTriangles Triangles selected across all cuts last frame
+     * @param budget Triangles to aim for each frame
+     * @param minPixelError Threshold never to refine beyond, even when under budget
+     */
+    public void update(final int frameTriangles,
+                       final int budget,
+                       final float minPixelError) {
+        final float target = this.pixelError * (float) Math.sqrt((double) frameTriangles / Math.max(1, budget));
+        final float smoothed = this.pixelError + ((target - this.pixelError) * TriangleBudget.SMOOTHING);
+        this.pixelError = Math.max(minPixelError, Math.min(this.maxPixelError, smoothed));
+    }
+
+    public float getPixelError() {
+        return this.pixelError;
+    }
+
+}
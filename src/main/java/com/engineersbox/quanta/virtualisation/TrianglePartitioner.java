@@ -0,0 +1,21 @@
+package com.engineersbox.quanta.virtualisation;
+
+import java.util.List;
+
+/**
+ * Splits a set of triangles into clusters of bounded size.
+ */
+@FunctionalInterface
+public interface TrianglePartitioner {
+
+    /**
+     * @param positions Vertex positions, three floats per vertex
+     * @param indices Triangle list to split, three vertex indices per triangle
+     * @param maxTriangles Maximum number of triangles in any cluster
+     * @return Triangle lists of each cluster, indexing into {@code positions}
+     */
+    List<int[]> partition(final float[] positions,
+                          final int[] indices,
+                          final int maxTriangles);
+
+}
@@ -1,79 +1,108 @@
 package com.engineersbox.quanta.virtualisation;
 
 import com.engineersbox.quanta.virtualisation.graph.Graph;
-import com.engineersbox.quanta.virtualisation.graph.GraphEdge;
 import com.engineersbox.quanta.virtualisation.graph.GraphVertex;
+import com.engineersbox.quanta.virtualisation.graph.MeshAdjacency;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
 
+/**
+ * A set of vertices of a {@link Graph}, held as a sorted array of vertex
+ * indices. Clusters are immutable, merging produces a new cluster.
+ */
 public class VertexCluster {
 
     private final Graph graph;
+    private final int[] vertices;
 
-    private Set<GraphVertex> vertices = new HashSet<>();
-
-    public VertexCluster(final Graph graph) {
+    /**
+     * @param vertices Indices of the vertices in this cluster, sorted ascending
+     */
+    public VertexCluster(final Graph graph,
+                         final int[] vertices) {
         this.graph = graph;
+        this.vertices = vertices;
+    }
+
+    public Graph getGraph() {
+        return this.graph;
     }
 
-    public void addVertex(final GraphVertex vertexId) {
-        this.vertices.add(vertexId);
+    public boolean contains(final int vertex) {
+        return Arrays.binarySearch(this.vertices, vertex) >= 0;
     }
 
+    /**
+     * Length of the shortest edge between this cluster and another, or
+     * infinity if they are not adjacent.
+     */
     public float distanceTo(final VertexCluster other) {
         if (this.equals(other)) {
             return 0f;
         }
+        final MeshAdjacency adjacency = this.graph.getAdjacency();
+        final int[] offsets = adjacency.getOffsets();
+        final int[] neighbours = adjacency.getNeighbours();
         float distance = Float.POSITIVE_INFINITY;
-        for (final GraphEdge edge : getOutgoingEdges()) {
-            if ((other.vertices.contains(edge.v1()) || other.vertices.contains(edge.v2())) && edge.length() < distance) {
-                distance = edge.length();
+        for (final int vertex : this.vertices) {
+            for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+                if (adjacency.getLengths()[i] < distance && other.contains(neighbours[i])) {
+                    distance = adjacency.getLengths()[i];
+                }
             }
         }
         return distance;
     }
 
-    public Set<GraphVertex> getVertices() {
+    public int[] getVertexIndices() {
         return this.vertices;
     }
 
-    public void merge(final VertexCluster other) {
-        if (!this.graph.equals(other.graph)) {
-            throw new IllegalArgumentException();
-        }
-        this.vertices.addAll(other.vertices);
+    public List<GraphVertex> getVertices() {
+        return new AbstractList<>() {
+            @Override
+            public GraphVertex get(final int index) {
+                return VertexCluster.this.graph.getVertex(VertexCluster.this.vertices[index]);
+            }
+
+            @Override
+            public int size() {
+                return VertexCluster.this.vertices.length;
+            }
+        };
     }
 
-    public void removeVertex(final GraphVertex vertexId) {
-        this.vertices.remove(vertexId);
+    public VertexCluster merge(final VertexCluster other) {
+        if (this.graph != other.graph) {
+            throw new IllegalArgumentException("Cannot merge clusters of different graphs");
+        }
+        final int[] merged = new int[this.vertices.length + other.vertices.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < this.vertices.length || j < other.vertices.length) {
+            final int next;
+            if (j >= other.vertices.length || (i < this.vertices.length && this.vertices[i] <= other.vertices[j])) {
+                next = this.vertices[i++];
+            } else {
+                next = other.vertices[j++];
+            }
+            if (count == 0 || merged[count - 1] != next) {
+                merged[count++] = next;
+            }
+        }
+        return new VertexCluster(this.graph, Arrays.copyOf(merged, count));
     }
 
     public int size() {
-        return this.vertices.size();
+        return this.vertices.length;
     }
 
     @Override
     public String toString() {
-        return "Cluster [vertices=" + this.vertices + "]";
-    }
-
-    private Set<GraphEdge> getOutgoingEdges() {
-        final Set<GraphEdge> outgoingEdges = new HashSet<>();
-        for (final GraphVertex vertex : this.vertices) {
-            for (final GraphEdge edge : this.graph.getOutgoingEdges(vertex)) {
-                if (!this.vertices.contains(edge.v2())) {
-                    outgoingEdges.add(edge);
-                }
-            }
-        }
-        return outgoingEdges;
-    }
-
-    public VertexCluster copy() {
-        final VertexCluster cluster = new VertexCluster(this.graph);
-        cluster.vertices = new HashSet<>(this.vertices);
-        return cluster;
+        return "Cluster [vertices=" + getVertices() + "]";
     }
 
     @Override
@@ -81,6 +110,11 @@ public class VertexCluster {
         if (!(other instanceof VertexCluster vco)) {
             return false;
         }
-        return this.vertices.equals(vco.vertices);
+        return this.graph == vco.graph && Arrays.equals(this.vertices, vco.vertices);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.vertices);
     }
 }
@@ -0,0 +1,71 @@
+package com.engineersbox.quanta.virtualisation.graph;
+
+/**
+ * Disjoint-set forest over the integers {@code [0, count)}, with union by
+ * size and path halving, so any sequence of operations runs in near linear
+ * time.
+ */
+public class DisjointSet {
+
+    private final int[] parents;
+    private final int[] sizes;
+    private int setCount;
+
+    public DisjointSet(final int count) {
+        this.parents = new int[count];
+        this.sizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            this.parents[i] = i;
+            this.sizes[i] = 1;
+        }
+        this.setCount = count;
+    }
+
+    public int find(final int element) {
+        int current = element;
+        while (this.parents[current] != current) {
+            this.parents[current] = this.parents[this.parents[current]];
+            current = this.parents[current];
+        }
+        return current;
+    }
+
+    /**
+     * Merges the sets containing two elements, the smaller into the larger.
+     *
+     * @return Whether the elements were in different sets
+     */
+    public boolean union(final int a,
+                         final int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return false;
+        }
+        if (this.sizes[rootA] < this.sizes[rootB]) {
+            final int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        this.parents[rootB] = rootA;
+        this.sizes[rootA] += this.sizes[rootB];
+        this.setCount--;
+        return true;
+    }
+
+    /**
+     * @return Size of the set containing an element
+     */
+    public int size(final int element) {
+        return this.sizes[find(element)];
+    }
+
+    public int getElementCount() {
+        return this.parents.length;
+    }
+
+    public int getSetCount() {
+        return this.setCount;
+    }
+
+}
@@ -2,52 +2,37 @@ package com.engineersbox.quanta.virtualisation.graph;
 
 import com.engineersbox.quanta.resources.assets.object.Mesh;
 import com.engineersbox.quanta.resources.assets.object.MeshData;
-import com.engineersbox.quanta.virtualisation.primitive.Triangle;
-import com.engineersbox.quanta.virtualisation.primitive.Vertex;
 import org.joml.Vector3f;
 
-import java.util.*;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Vertex adjacency of a mesh viewed as a graph. Backed by a
+ * {@link MeshAdjacency}, so vertices and edges are only materialised as
+ * {@link GraphVertex} and {@link GraphEdge} records as they are read from the
+ * returned lists, while clustering passes that need speed work on the
+ * adjacency arrays directly.
+ */
 public class Graph {
-    private final Set<GraphEdge> edges;
-    private final Map<GraphVertex, List<GraphVertex>> adjVertices;
+
+    private final MeshAdjacency adjacency;
 
     public Graph() {
-        this.edges = new HashSet<>();
-        this.adjVertices = new HashMap<>();
+        this(MeshAdjacency.build(new float[0], new int[0]));
     }
 
     public Graph(final Mesh mesh) {
-        this();
-        final MeshData meshData = mesh.getMeshData();
-        final List<Vertex> vertices = meshData.getGroupedVertices()
-                .stream()
-                .map(Vertex::new)
-                .toList();
-        final int[] meshIndices = meshData.getIndices();
-        int index = 0;
-        for (int i = 0; i < meshIndices.length; i += 3) {
-            final Triangle triangle = new Triangle(
-                    meshIndices[index++],
-                    meshIndices[index++],
-                    meshIndices[index++]
-            );
-            addGraphVertex(vertices.get(triangle.getVertices()[0]));
-            addGraphVertex(vertices.get(triangle.getVertices()[1]));
-            addGraphVertex(vertices.get(triangle.getVertices()[2]));
-            addEdge(
-                    vertices.get(triangle.getVertices()[0]),
-                    vertices.get(triangle.getVertices()[1])
-            );
-            addEdge(
-                    vertices.get(triangle.getVertices()[1]),
-                    vertices.get(triangle.getVertices()[2])
-            );
-            addEdge(
-                    vertices.get(triangle.getVertices()[2]),
-                    vertices.get(triangle.getVertices()[0])
-            );
-        }
+        this(mesh.getMeshData());
+    }
+
+    public Graph(final MeshData meshData) {
+        this(MeshAdjacency.build(meshData.getPositions(), meshData.getIndices()));
+    }
+
+    public Graph(final MeshAdjacency adjacency) {
+        this.adjacency = adjacency;
     }
 
     public static Mesh reconstructMesh() {
@@ -67,66 +52,96 @@ public class Graph {
         return mesh;
     }
 
-    public void addGraphVertex(final Vertex label) {
-        this.adjVertices.putIfAbsent(new GraphVertex(label, this), new ArrayList<>());
+    public MeshAdjacency getAdjacency() {
+        return this.adjacency;
+    }
+
+    public GraphVertex getVertex(final int index) {
+        return new GraphVertex(index, this);
     }
 
-    public void removeGraphVertex(final Vertex label) {
-        final GraphVertex v = new GraphVertex(label, this);
-        this.adjVertices.values().forEach((final List<GraphVertex> edges) -> edges.remove(v));
-        this.adjVertices.remove(new GraphVertex(label, this));
+    public List<GraphVertex> getAdjVertices(final GraphVertex vertex) {
+        final int start = this.adjacency.getOffsets()[vertex.index()];
+        final int end = this.adjacency.getOffsets()[vertex.index() + 1];
+        return new AbstractList<>() {
+            @Override
+            public GraphVertex get(final int index) {
+                return new GraphVertex(Graph.this.adjacency.getNeighbours()[start + index], Graph.this);
+            }
+
+            @Override
+            public int size() {
+                return end - start;
+            }
+        };
     }
 
-    public void addEdge(final Vertex label1,
-                        final Vertex label2) {
-        final GraphVertex v1 = new GraphVertex(label1, this);
-        final GraphVertex v2 = new GraphVertex(label2, this);
-        this.adjVertices.get(v1).add(v2);
-        this.adjVertices.get(v2).add(v1);
-        this.edges.add(new GraphEdge(v1, v2));
+    public List<GraphEdge> getOutgoingEdges(final GraphVertex vertex) {
+        final int start = this.adjacency.getOffsets()[vertex.index()];
+        final int end = this.adjacency.getOffsets()[vertex.index() + 1];
+        return new AbstractList<>() {
+            @Override
+            public GraphEdge get(final int index) {
+                return new GraphEdge(
+                        vertex,
+                        new GraphVertex(Graph.this.adjacency.getNeighbours()[start + index], Graph.this),
+                        Graph.this.adjacency.getLengths()[start + index]
+                );
+            }
+
+            @Override
+            public int size() {
+                return end - start;
+            }
+        };
     }
 
-    public void removeEdge(final Vertex label1,
-                           final Vertex label2) {
-        final GraphVertex vertex1 = new GraphVertex(label1, this);
-        final GraphVertex vertex2 = new GraphVertex(label2, this);
-        final List<GraphVertex> vertex1Edges = this.adjVertices.get(vertex1);
-        final List<GraphVertex> vertex2Edges = this.adjVertices.get(vertex2);
-        if (vertex1Edges != null) {
-            vertex1Edges.remove(vertex2);
+    /**
+     * @return Every undirected edge once, oriented from its lower to its higher vertex index
+     */
+    public List<GraphEdge> getEdges() {
+        final int[] offsets = this.adjacency.getOffsets();
+        final int[] neighbours = this.adjacency.getNeighbours();
+        final List<GraphEdge> edges = new ArrayList<>(this.adjacency.getEdgeCount());
+        for (int v = 0; v < this.adjacency.getVertexCount(); v++) {
+            final GraphVertex vertex = new GraphVertex(v, this);
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                if (neighbours[i] > v) {
+                    edges.add(new GraphEdge(vertex, new GraphVertex(neighbours[i], this), this.adjacency.getLengths()[i]));
+                }
+            }
         }
-        if (vertex2Edges != null) {
-            vertex2Edges.remove(vertex1);
-        }
-        this.edges.remove(new GraphEdge(vertex1, vertex2));
-        this.edges.remove(new GraphEdge(vertex2, vertex1));
+        return edges;
     }
 
-    public List<GraphVertex> getAdjVertices(final Vertex label) {
-        return this.adjVertices.get(new GraphVertex(label, this));
-    }
+    public List<GraphVertex> getVertices() {
+        return new AbstractList<>() {
+            @Override
+            public GraphVertex get(final int index) {
+                return new GraphVertex(index, Graph.this);
+            }
 
-    public List<GraphEdge> getOutgoingEdges(final GraphVertex vertex) {
-        return this.adjVertices.get(vertex)
-                .stream()
-                .map((final GraphVertex otherVertex) -> new GraphEdge(vertex, otherVertex))
-                .toList();
+            @Override
+            public int size() {
+                return Graph.this.adjacency.getVertexCount();
+            }
+        };
     }
 
-    public Set<GraphEdge> getEdges() {
-        return this.edges;
+    public int getVertexCount() {
+        return this.adjacency.getVertexCount();
     }
 
-    public Set<GraphVertex> getVertices() {
-        return this.adjVertices.keySet();
+    public int getEdgeCount() {
+        return this.adjacency.getEdgeCount();
     }
 
     @Override
     public String toString() {
         return String.format(
                 "[Vertices: %d] [Edges: %d]",
-                getVertices().size(),
-                getEdges().size()
+                getVertexCount(),
+                getEdgeCount()
         );
     }
 }
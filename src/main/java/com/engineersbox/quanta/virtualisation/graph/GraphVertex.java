@@ -1,22 +1,25 @@
 package com.engineersbox.quanta.virtualisation.graph;
 
-import com.engineersbox.quanta.virtualisation.primitive.Vertex;
+import org.joml.Vector3f;
 
-public record GraphVertex(Vertex vertex, Graph parent) {
+/**
+ * A vertex of a {@link Graph}, identified by its index in the mesh. Equal
+ * when both the index and the graph are the same.
+ */
+public record GraphVertex(int index, Graph parent) {
 
-    @Override
-    public boolean equals(final Object obj) {
-        if (this == obj) return true;
-        if (obj == null || getClass() != obj.getClass()) return false;
-        final GraphVertex other = (GraphVertex) obj;
-        if (!parent().equals(other.parent())) return false;
-        if (vertex == null) return other.vertex == null;
-        return vertex.equals(other.vertex);
+    public Vector3f getPosition() {
+        final float[] positions = this.parent.getAdjacency().getPositions();
+        return new Vector3f(
+                positions[this.index * 3],
+                positions[(this.index * 3) + 1],
+                positions[(this.index * 3) + 2]
+        );
     }
 
     @Override
     public String toString() {
-        return this.vertex.getPosition().toString();
+        return getPosition().toString();
     }
 
 }
@@ -0,0 +1,138 @@
+package com.engineersbox.quanta.virtualisation.graph;
+
+import java.util.Arrays;
+
+/**
+ * Vertex adjacency of a triangle mesh in compressed sparse row form. The
+ * neighbours of vertex {@code v} are
+ * {@code neighbours[offsets[v]] .. neighbours[offsets[v + 1] - 1]}, sorted
+ * ascending without duplicates, and the length of each of those edges is at
+ * the same position in {@code lengths}. Every undirected edge appears once in
+ * the row of each of its endpoints.
+ */
+public class MeshAdjacency {
+
+    private final float[] positions;
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final float[] lengths;
+
+    private MeshAdjacency(final float[] positions,
+                          final int[] offsets,
+                          final int[] neighbours,
+                          final float[] lengths) {
+        this.positions = positions;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Builds the adjacency of a triangle list. Vertex degrees are counted in
+     * a first pass to lay out the rows, a second pass scatters both
+     * directions of every triangle edge into them, and each row is then
+     * sorted and compacted in place to drop edges shared between triangles.
+     */
+    public static MeshAdjacency build(final float[] positions,
+                                      final int[] indices) {
+        final int vertexCount = positions.length / 3;
+        final int[] offsets = new int[vertexCount + 1];
+        for (final int index : indices) {
+            // Each corner of a triangle has two incident edges within it
+            offsets[index + 1] += 2;
+        }
+        for (int i = 0; i < vertexCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        final int[] neighbours = new int[offsets[vertexCount]];
+        final int[] cursors = Arrays.copyOf(offsets, vertexCount);
+        for (int i = 0; i + 2 < indices.length; i += 3) {
+            final int a = indices[i];
+            final int b = indices[i + 1];
+            final int c = indices[i + 2];
+            neighbours[cursors[a]++] = b;
+            neighbours[cursors[a]++] = c;
+            neighbours[cursors[b]++] = c;
+            neighbours[cursors[b]++] = a;
+            neighbours[cursors[c]++] = a;
+            neighbours[cursors[c]++] = b;
+        }
+        int write = 0;
+        int rowStart = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            final int rowEnd = offsets[v + 1];
+            Arrays.sort(neighbours, rowStart, rowEnd);
+            offsets[v] = write;
+            int previous = -1;
+            for (int i = rowStart; i < rowEnd; i++) {
+                final int neighbour = neighbours[i];
+                // Skip duplicates and the self loops of degenerate triangles
+                if (neighbour != previous && neighbour != v) {
+                    neighbours[write++] = neighbour;
+                }
+                previous = neighbour;
+            }
+            rowStart = rowEnd;
+        }
+        offsets[vertexCount] = write;
+        final int[] compacted = Arrays.copyOf(neighbours, write);
+        final float[] lengths = new float[write];
+        for (int v = 0; v < vertexCount; v++) {
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                lengths[i] = MeshAdjacency.distance(positions, v, compacted[i]);
+            }
+        }
+        return new MeshAdjacency(positions, offsets, compacted, lengths);
+    }
+
+    private static float distance(final float[] positions,
+                                  final int a,
+                                  final int b) {
+        final float dx = positions[a * 3] - positions[b * 3];
+        final float dy = positions[(a * 3) + 1] - positions[(b * 3) + 1];
+        final float dz = positions[(a * 3) + 2] - positions[(b * 3) + 2];
+        return (float) Math.sqrt((dx * dx) + (dy * dy) + (dz * dz));
+    }
+
+    public int getVertexCount() {
+        return this.offsets.length - 1;
+    }
+
+    /**
+     * @return Number of undirected edges
+     */
+    public int getEdgeCount() {
+        return this.neighbours.length / 2;
+    }
+
+    public int degree(final int vertex) {
+        return this.offsets[vertex + 1] - this.offsets[vertex];
+    }
+
+    /**
+     * Position of an edge in {@link #getNeighbours()}, or -1 if the vertices
+     * are not adjacent.
+     */
+    public int findEdge(final int from,
+                        final int to) {
+        final int edge = Arrays.binarySearch(this.neighbours, this.offsets[from], this.offsets[from + 1], to);
+        return edge < 0 ? -1 : edge;
+    }
+
+    public float[] getPositions() {
+        return this.positions;
+    }
+
+    public int[] getOffsets() {
+        return this.offsets;
+    }
+
+    public int[] getNeighbours() {
+        return this.neighbours;
+    }
+
+    public float[] getLengths() {
+        return this.lengths;
+    }
+
+}
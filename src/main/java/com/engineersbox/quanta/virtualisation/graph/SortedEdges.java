@@ -0,0 +1,133 @@
+package com.engineersbox.quanta.virtualisation.graph;
+
+import java.util.Arrays;
+
+/**
+ * The undirected edges of a {@link MeshAdjacency} in primitive arrays,
+ * sorted by ascending length in the order of {@link Float#compare}, so
+ * {@code -0.0} precedes {@code 0.0} and NaN lengths come last. Lengths are
+ * mapped to integer keys that order the same as their values and the edges
+ * are radix sorted on those keys in a fixed number of stable linear passes.
+ */
+public class SortedEdges {
+
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX = 1 << SortedEdges.RADIX_BITS;
+    private static final int RADIX_PASSES = (Integer.SIZE + SortedEdges.RADIX_BITS - 1) / SortedEdges.RADIX_BITS;
+
+    private final int[] from;
+    private final int[] to;
+    private final float[] lengths;
+
+    private SortedEdges(final int[] from,
+                        final int[] to,
+                        final float[] lengths) {
+        this.from = from;
+        this.to = to;
+        this.lengths = lengths;
+    }
+
+    public static SortedEdges of(final MeshAdjacency adjacency) {
+        final int edgeCount = adjacency.getEdgeCount();
+        final int[] offsets = adjacency.getOffsets();
+        final int[] neighbours = adjacency.getNeighbours();
+        final float[] adjacencyLengths = adjacency.getLengths();
+        final int[] from = new int[edgeCount];
+        final int[] to = new int[edgeCount];
+        final float[] lengths = new float[edgeCount];
+        int edge = 0;
+        for (int v = 0; v < adjacency.getVertexCount(); v++) {
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                if (neighbours[i] <= v) {
+                    continue;
+                }
+                from[edge] = v;
+                to[edge] = neighbours[i];
+                lengths[edge] = adjacencyLengths[i];
+                edge++;
+            }
+        }
+        return SortedEdges.of(from, to, lengths);
+    }
+
+    /**
+     * Sorts arbitrary edges by length. Edges of equal length keep their
+     * relative order.
+     */
+    static SortedEdges of(final int[] from,
+                          final int[] to,
+                          final float[] lengths) {
+        final int edgeCount = lengths.length;
+        int[] keys = new int[edgeCount];
+        int[] order = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            keys[i] = SortedEdges.sortKey(lengths[i]);
+            order[i] = i;
+        }
+        int[] scratchKeys = new int[edgeCount];
+        int[] scratchOrder = new int[edgeCount];
+        final int[] counts = new int[SortedEdges.RADIX];
+        for (int pass = 0; pass < SortedEdges.RADIX_PASSES; pass++) {
+            final int shift = pass * SortedEdges.RADIX_BITS;
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < edgeCount; i++) {
+                counts[(keys[i] >>> shift) & (SortedEdges.RADIX - 1)]++;
+            }
+            int total = 0;
+            for (int digit = 0; digit < SortedEdges.RADIX; digit++) {
+                final int count = counts[digit];
+                counts[digit] = total;
+                total += count;
+            }
+            for (int i = 0; i < edgeCount; i++) {
+                final int slot = counts[(keys[i] >>> shift) & (SortedEdges.RADIX - 1)]++;
+                scratchKeys[slot] = keys[i];
+                scratchOrder[slot] = order[i];
+            }
+            final int[] swapKeys = keys;
+            keys = scratchKeys;
+            scratchKeys = swapKeys;
+            final int[] swapOrder = order;
+            order = scratchOrder;
+            scratchOrder = swapOrder;
+        }
+        final int[] sortedFrom = new int[edgeCount];
+        final int[] sortedTo = new int[edgeCount];
+        final float[] sortedLengths = new float[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            sortedFrom[i] = from[order[i]];
+            sortedTo[i] = to[order[i]];
+            sortedLengths[i] = lengths[order[i]];
+        }
+        return new SortedEdges(sortedFrom, sortedTo, sortedLengths);
+    }
+
+    /**
+     * Maps a length to a key whose unsigned order matches
+     * {@link Float#compare}. Positive values have their sign bit set so they
+     * follow every negative value, and negative values have all their bits
+     * flipped so larger magnitudes come first. NaNs are collapsed to the
+     * canonical NaN, which then sorts after positive infinity.
+     */
+    private static int sortKey(final float length) {
+        final int bits = Float.floatToIntBits(length);
+        return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+    }
+
+    public int size() {
+        return this.from.length;
+    }
+
+    public int[] getFrom() {
+        return this.from;
+    }
+
+    public int[] getTo() {
+        return this.to;
+    }
+
+    public float[] getLengths() {
+        return this.lengths;
+    }
+
+}
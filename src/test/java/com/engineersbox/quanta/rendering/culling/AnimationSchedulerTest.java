@@ -0,0 +1,88 @@
+package com.engineersbox.quanta.rendering.culling;
+
+import com.engineersbox.quanta.rendering.indirect.MeshDrawData;
+import com.engineersbox.quanta.resources.assets.object.animation.Animation;
+import com.engineersbox.quanta.resources.assets.object.animation.AnimationData;
+import com.engineersbox.quanta.scene.Entity;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnimationSchedulerTest {
+
+    private static final Matrix4f PROJECTION = new Matrix4f().perspective((float) Math.toRadians(60), 1, 0.1f, 100);
+    // Camera at the origin looking down -Z
+    private static final Matrix4f VIEW = new Matrix4f();
+    private static final Matrix4f SHADOW_VOLUME = new Matrix4f().ortho(-30, 30, -30, 30, -30, 30);
+
+    private static Entity entity() {
+        final Entity entity = new Entity("entity", "model");
+        entity.setAnimationData(new AnimationData((Animation) null));
+        return entity;
+    }
+
+    private static MeshDrawData meshAt(final float z) {
+        return new MeshDrawData(
+                0,
+                0,
+                0,
+                0,
+                0,
+                new Vector3f(-1, -1, z - 1),
+                new Vector3f(1, 1, z + 1)
+        );
+    }
+
+    private static AnimationScheduler.Tier schedule(final AnimationScheduler scheduler,
+                                                    final Entity entity,
+                                                    final float z,
+                                                    final boolean shadowVolume) {
+        scheduler.begin(AnimationSchedulerTest.PROJECTION, AnimationSchedulerTest.VIEW, new Vector3f());
+        if (shadowVolume) {
+            scheduler.includeShadowVolume(AnimationSchedulerTest.SHADOW_VOLUME);
+        }
+        scheduler.include(entity, AnimationSchedulerTest.meshAt(z));
+        scheduler.resolve();
+        return scheduler.getTier(entity);
+    }
+
+    @Test
+    void animatesEntitiesInView() {
+        final AnimationScheduler scheduler = new AnimationScheduler();
+        assertNotEquals(
+                AnimationScheduler.Tier.FROZEN,
+                AnimationSchedulerTest.schedule(scheduler, AnimationSchedulerTest.entity(), -10, false)
+        );
+    }
+
+    @Test
+    void freezesEntitiesOutOfViewAndShadow() {
+        final AnimationScheduler scheduler = new AnimationScheduler();
+        assertEquals(
+                AnimationScheduler.Tier.FROZEN,
+                AnimationSchedulerTest.schedule(scheduler, AnimationSchedulerTest.entity(), 10, false)
+        );
+        assertEquals(
+                AnimationScheduler.Tier.FROZEN,
+                AnimationSchedulerTest.schedule(scheduler, AnimationSchedulerTest.entity(), 50, true)
+        );
+    }
+
+    @Test
+    void animatesShadowCastersOutOfView() {
+        final AnimationScheduler scheduler = new AnimationScheduler();
+        final Entity entity = AnimationSchedulerTest.entity();
+        assertNotEquals(
+                AnimationScheduler.Tier.FROZEN,
+                AnimationSchedulerTest.schedule(scheduler, entity, 10, true)
+        );
+        // Shadow volumes only apply to the frame they were included in
+        assertEquals(
+                AnimationScheduler.Tier.FROZEN,
+                AnimationSchedulerTest.schedule(scheduler, entity, 10, false)
+        );
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.engineersbox.quanta.rendering.indirect;
+
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+import com.engineersbox.quanta.resources.assets.object.Model;
+import com.engineersbox.quanta.virtualisation.LODGraph;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.opengl.GL;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.lwjgl.glfw.GLFW.*;
+import static org.lwjgl.system.MemoryUtil.NULL;
+
+/**
+ * Streams static models in and out of the geometry arena as the renderer
+ * does. Needs a GL context, so is skipped where no window can be created.
+ */
+class AnimationRenderBuffersTest {
+
+    private static long WINDOW_HANDLE = NULL;
+
+    private AnimationRenderBuffers buffers;
+
+    @BeforeAll
+    static void createContext() {
+        assumeTrue(glfwInit(), "GLFW is unavailable");
+        glfwDefaultWindowHints();
+        glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 4);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 6);
+        glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
+        glfwWindowHint(GLFW_OPENGL_FORWARD_COMPAT, GLFW_TRUE);
+        AnimationRenderBuffersTest.WINDOW_HANDLE = glfwCreateWindow(1, 1, "AnimationRenderBuffersTest", NULL, NULL);
+        assumeTrue(AnimationRenderBuffersTest.WINDOW_HANDLE != NULL, "No OpenGL 4.6 context is available");
+        glfwMakeContextCurrent(AnimationRenderBuffersTest.WINDOW_HANDLE);
+        GL.createCapabilities();
+    }
+
+    @AfterAll
+    static void destroyContext() {
+        if (AnimationRenderBuffersTest.WINDOW_HANDLE != NULL) {
+            glfwDestroyWindow(AnimationRenderBuffersTest.WINDOW_HANDLE);
+        }
+        glfwTerminate();
+    }
+
+    @BeforeEach
+    void createBuffers() {
+        this.buffers = new AnimationRenderBuffers();
+    }
+
+    @AfterEach
+    void cleanupBuffers() {
+        this.buffers.cleanup();
+    }
+
+    private static Model triangleModel() {
+        final List<MeshData> meshData = new ArrayList<>();
+        meshData.add(new MeshData(
+                new float[]{0, 0, 0, 1, 0, 0, 0, 1, 0},
+                new float[]{0, 0, 1, 0, 0, 1, 0, 0, 1},
+                new float[9],
+                new float[9],
+                new float[6],
+                new int[]{0, 1, 2},
+                new int[0],
+                new float[0],
+                new Vector3f(0, 0, 0),
+                new Vector3f(1, 1, 0)
+        ));
+        return new Model("triangle", "triangle", meshData, new ArrayList<>());
+    }
+
+    @Test
+    void readdsModelAfterMeshDataIsReleased() {
+        final Model model = AnimationRenderBuffersTest.triangleModel();
+        this.buffers.loadStaticModel(model);
+        final List<MeshDrawData> uploaded = List.copyOf(model.getMeshDrawData());
+        // The renderer releases CPU side mesh data once a model is streamed in
+        model.getMeshData().clear();
+
+        this.buffers.unloadStaticModel(model);
+        this.buffers.loadStaticModel(model);
+
+        assertEquals(uploaded, model.getMeshDrawData());
+        assertEquals(3, this.buffers.getStaticGeometry().getUsedVertices());
+    }
+
+    @Test
+    void freesModelWithMeshDataOnUnload() {
+        final Model model = AnimationRenderBuffersTest.triangleModel();
+        this.buffers.loadStaticModel(model);
+
+        this.buffers.unloadStaticModel(model);
+        assertTrue(model.getMeshDrawData().isEmpty());
+        assertEquals(0, this.buffers.getStaticGeometry().getUsedVertices());
+
+        this.buffers.loadStaticModel(model);
+        assertEquals(1, model.getMeshDrawData().size());
+        assertEquals(3, this.buffers.getStaticGeometry().getUsedVertices());
+    }
+
+    @Test
+    void leavesVirtualisedMeshesOutOfStaticGeometry() {
+        final Model model = AnimationRenderBuffersTest.triangleModel();
+        model.setLODGraph(0, new LODGraph(model.getMeshData().get(0), 1));
+        this.buffers.loadStaticModel(model);
+
+        assertEquals(1, model.getMeshDrawData().size());
+        assertEquals(0, model.getMeshDrawData().get(0).vertices());
+        assertEquals(0, this.buffers.getStaticGeometry().getUsedVertices());
+
+        this.buffers.unloadStaticModel(model);
+        assertEquals(0, this.buffers.getStaticGeometry().getUsedVertices());
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.engineersbox.quanta.resources.loader;
+
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+
+import java.util.List;
+
+/**
+ * Imports the bundled models for tests and benchmarks, without a GL context.
+ */
+public final class ModelFixtures {
+
+    private ModelFixtures() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static List<MeshData> importMeshData(final String modelPath,
+                                                final boolean animated) {
+        return ModelLoader.importModel(
+                modelPath,
+                modelPath,
+                ModelLoader.importFlags(animated),
+                false
+        ).meshData();
+    }
+
+}
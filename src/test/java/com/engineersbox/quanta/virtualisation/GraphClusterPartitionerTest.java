@@ -0,0 +1,162 @@
+package com.engineersbox.quanta.virtualisation;
+
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+import com.engineersbox.quanta.resources.loader.ModelFixtures;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphClusterPartitionerTest {
+
+    private static final int MAX_TRIANGLES = 128;
+
+    private static List<Integer> triangleKey(final int[] indices,
+                                             final int offset) {
+        return List.of(indices[offset], indices[offset + 1], indices[offset + 2]);
+    }
+
+    private static long edgeKey(final int a,
+                                final int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
+    private static void assertValidPartition(final float[] positions,
+                                             final int[] indices) {
+        final GraphClusterPartitioner.ClusterPartition partition = new GraphClusterPartitioner()
+                .partitionWithNeighbours(positions, indices, GraphClusterPartitionerTest.MAX_TRIANGLES);
+        final List<int[]> clusters = partition.clusters();
+        final int triangleCount = indices.length / 3;
+
+        // Every triangle is assigned to exactly one cluster
+        final Map<List<Integer>, Deque<Integer>> unassigned = new HashMap<>();
+        for (int triangle = 0; triangle < triangleCount; triangle++) {
+            unassigned.computeIfAbsent(
+                    GraphClusterPartitionerTest.triangleKey(indices, triangle * 3),
+                    (final List<Integer> key) -> new ArrayDeque<>()
+            ).add(triangle);
+        }
+        final int[] triangleClusters = new int[triangleCount];
+        Arrays.fill(triangleClusters, -1);
+        for (int cluster = 0; cluster < clusters.size(); cluster++) {
+            final int[] clusterIndices = clusters.get(cluster);
+            assertEquals(0, clusterIndices.length % 3);
+            assertTrue(clusterIndices.length > 0, "Cluster " + cluster + " is empty");
+            assertTrue(
+                    clusterIndices.length / 3 <= GraphClusterPartitionerTest.MAX_TRIANGLES,
+                    "Cluster " + cluster + " has " + (clusterIndices.length / 3) + " triangles"
+            );
+            for (int i = 0; i < clusterIndices.length; i += 3) {
+                final Deque<Integer> candidates = unassigned.get(GraphClusterPartitionerTest.triangleKey(clusterIndices, i));
+                assertNotNull(candidates, "Cluster " + cluster + " has a triangle not in the input");
+                assertFalse(candidates.isEmpty(), "Cluster " + cluster + " repeats a triangle");
+                triangleClusters[candidates.poll()] = cluster;
+            }
+        }
+        for (int triangle = 0; triangle < triangleCount; triangle++) {
+            assertNotEquals(-1, triangleClusters[triangle], "Triangle " + triangle + " is unassigned");
+        }
+
+        // Neighbour counts are mutual and equal the edges shared across cluster borders
+        final Map<Long, List<Integer>> edgeTriangles = new HashMap<>();
+        for (int triangle = 0; triangle < triangleCount; triangle++) {
+            for (int j = 0; j < 3; j++) {
+                final int a = indices[(triangle * 3) + j];
+                final int b = indices[(triangle * 3) + ((j + 1) % 3)];
+                if (a != b) {
+                    edgeTriangles.computeIfAbsent(
+                            GraphClusterPartitionerTest.edgeKey(a, b),
+                            (final Long key) -> new ArrayList<>()
+                    ).add(triangle);
+                }
+            }
+        }
+        final List<Map<Integer, Integer>> expected = new ArrayList<>();
+        for (int cluster = 0; cluster < clusters.size(); cluster++) {
+            expected.add(new HashMap<>());
+        }
+        for (final List<Integer> triangles : edgeTriangles.values()) {
+            for (int i = 0; i < triangles.size(); i++) {
+                for (int j = i + 1; j < triangles.size(); j++) {
+                    final int clusterA = triangleClusters[triangles.get(i)];
+                    final int clusterB = triangleClusters[triangles.get(j)];
+                    if (triangles.get(i).equals(triangles.get(j)) || clusterA == clusterB) {
+                        continue;
+                    }
+                    expected.get(clusterA).merge(clusterB, 1, Integer::sum);
+                    expected.get(clusterB).merge(clusterA, 1, Integer::sum);
+                }
+            }
+        }
+        final List<Map<Integer, Integer>> neighbours = partition.neighbours();
+        assertEquals(clusters.size(), neighbours.size());
+        for (int cluster = 0; cluster < clusters.size(); cluster++) {
+            assertFalse(neighbours.get(cluster).containsKey(cluster), "Cluster " + cluster + " neighbours itself");
+            for (final Map.Entry<Integer, Integer> entry : neighbours.get(cluster).entrySet()) {
+                assertEquals(
+                        entry.getValue(),
+                        neighbours.get(entry.getKey()).get(cluster),
+                        "Clusters " + cluster + " and " + entry.getKey() + " are not mutual neighbours"
+                );
+            }
+            assertEquals(expected.get(cluster), neighbours.get(cluster), "Neighbours of cluster " + cluster);
+        }
+    }
+
+    @Test
+    void partitionsBobMeshes() {
+        final List<MeshData> meshDataList = ModelFixtures.importMeshData("assets/models/bob/boblamp.md5mesh", true);
+        assertFalse(meshDataList.isEmpty());
+        for (final MeshData meshData : meshDataList) {
+            GraphClusterPartitionerTest.assertValidPartition(meshData.getPositions(), meshData.getIndices());
+        }
+    }
+
+    @Test
+    void partitionsSmallMeshes() {
+        for (final String modelPath : new String[]{
+                "assets/models/cube/cube.obj",
+                "assets/models/terrain/terrain.obj"
+        }) {
+            for (final MeshData meshData : ModelFixtures.importMeshData(modelPath, false)) {
+                GraphClusterPartitionerTest.assertValidPartition(meshData.getPositions(), meshData.getIndices());
+            }
+        }
+    }
+
+    @Test
+    void partitionsLargeGridInParallel() {
+        // Enough triangles for both sides of the first bisections to be split in parallel
+        final int size = 160;
+        final float[] positions = new float[(size + 1) * (size + 1) * 3];
+        for (int z = 0; z <= size; z++) {
+            for (int x = 0; x <= size; x++) {
+                final int vertex = (z * (size + 1)) + x;
+                positions[vertex * 3] = x;
+                positions[(vertex * 3) + 2] = z;
+            }
+        }
+        final int[] indices = new int[size * size * 6];
+        int index = 0;
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                final int corner = (z * (size + 1)) + x;
+                indices[index++] = corner;
+                indices[index++] = corner + size + 1;
+                indices[index++] = corner + 1;
+                indices[index++] = corner + 1;
+                indices[index++] = corner + size + 1;
+                indices[index++] = corner + size + 2;
+            }
+        }
+        GraphClusterPartitionerTest.assertValidPartition(positions, indices);
+    }
+
+}
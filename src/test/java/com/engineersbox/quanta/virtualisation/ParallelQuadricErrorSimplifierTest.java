@@ -0,0 +1,150 @@
+package com.engineersbox.quanta.virtualisation;
+
+import com.engineersbox.quanta.virtualisation.QuadricErrorSimplifier.SimplifiedMesh;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelQuadricErrorSimplifierTest {
+
+    private static final int GRID_SIZE = 120;
+    private static final int PARTITION_TRIANGLES = 2000;
+    private static final double AGGRESSIVENESS = 7;
+
+    private static float[] gridPositions() {
+        final int size = ParallelQuadricErrorSimplifierTest.GRID_SIZE + 1;
+        final float[] positions = new float[size * size * 3];
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                final int vertex = (z * size) + x;
+                positions[vertex * 3] = x;
+                positions[(vertex * 3) + 1] = (float) (Math.sin(x * 0.15) * Math.cos(z * 0.11) * 4);
+                positions[(vertex * 3) + 2] = z;
+            }
+        }
+        return positions;
+    }
+
+    private static int[] gridIndices() {
+        final int cells = ParallelQuadricErrorSimplifierTest.GRID_SIZE;
+        final int size = cells + 1;
+        final int[] indices = new int[cells * cells * 6];
+        int index = 0;
+        for (int z = 0; z < cells; z++) {
+            for (int x = 0; x < cells; x++) {
+                final int corner = (z * size) + x;
+                indices[index++] = corner;
+                indices[index++] = corner + size;
+                indices[index++] = corner + 1;
+                indices[index++] = corner + 1;
+                indices[index++] = corner + size;
+                indices[index++] = corner + size + 1;
+            }
+        }
+        return indices;
+    }
+
+    private static SimplifiedMesh simplify(final float[] positions,
+                                           final int[] indices,
+                                           final BitSet lockedVertices,
+                                           final int targetCount) {
+        return new ParallelQuadricErrorSimplifier(
+                null,
+                ForkJoinPool.commonPool(),
+                ParallelQuadricErrorSimplifierTest.PARTITION_TRIANGLES
+        ).simplifyData(
+                positions,
+                new float[positions.length],
+                indices,
+                lockedVertices,
+                targetCount,
+                ParallelQuadricErrorSimplifierTest.AGGRESSIVENESS,
+                false
+        );
+    }
+
+    @Test
+    void reachesTargetWithValidIndices() {
+        final float[] positions = ParallelQuadricErrorSimplifierTest.gridPositions();
+        final int[] indices = ParallelQuadricErrorSimplifierTest.gridIndices();
+        final int targetCount = indices.length / 12;
+        final SimplifiedMesh simplified = ParallelQuadricErrorSimplifierTest.simplify(
+                positions,
+                indices,
+                new BitSet(),
+                targetCount
+        );
+        assertTrue(
+                simplified.indices().length / 3 <= targetCount,
+                "Simplified to " + (simplified.indices().length / 3) + " triangles, target " + targetCount
+        );
+        final int vertexCount = simplified.sourceVertices().length;
+        assertEquals(vertexCount * 3, simplified.positions().length);
+        final BitSet referenced = new BitSet(vertexCount);
+        for (final int index : simplified.indices()) {
+            assertTrue(index >= 0 && index < vertexCount, "Index " + index + " out of range");
+            referenced.set(index);
+        }
+        assertEquals(vertexCount, referenced.cardinality(), "Unreferenced vertices were kept");
+    }
+
+    @Test
+    void keepsLockedVerticesInPlace() {
+        final float[] positions = ParallelQuadricErrorSimplifierTest.gridPositions();
+        final int[] indices = ParallelQuadricErrorSimplifierTest.gridIndices();
+        final int size = ParallelQuadricErrorSimplifierTest.GRID_SIZE + 1;
+        final BitSet locked = new BitSet();
+        for (int x = 0; x < size; x += 3) {
+            locked.set(((size / 2) * size) + x);
+        }
+        final SimplifiedMesh simplified = ParallelQuadricErrorSimplifierTest.simplify(
+                positions,
+                indices,
+                locked,
+                indices.length / 12
+        );
+        final BitSet kept = new BitSet();
+        final int[] sources = simplified.sourceVertices();
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] == -1 || !locked.get(sources[i])) {
+                continue;
+            }
+            kept.set(sources[i]);
+            for (int axis = 0; axis < 3; axis++) {
+                assertEquals(positions[(sources[i] * 3) + axis], simplified.positions()[(i * 3) + axis]);
+            }
+        }
+        assertEquals(locked, kept, "Locked vertices were collapsed");
+    }
+
+    @Test
+    void reportsErrorComparableToSerial() {
+        final float[] positions = ParallelQuadricErrorSimplifierTest.gridPositions();
+        final int[] indices = ParallelQuadricErrorSimplifierTest.gridIndices();
+        final int targetCount = indices.length / 12;
+        final SimplifiedMesh parallel = ParallelQuadricErrorSimplifierTest.simplify(
+                positions,
+                indices,
+                new BitSet(),
+                targetCount
+        );
+        final SimplifiedMesh serial = QuadricErrorSimplifier.simplifySubset(
+                positions,
+                new float[positions.length],
+                indices,
+                new BitSet(),
+                targetCount,
+                ParallelQuadricErrorSimplifierTest.AGGRESSIVENESS,
+                false
+        );
+        // Seam errors are measured against the input, like those of a serial pass
+        assertTrue(
+                parallel.maxError() >= serial.maxError() * 0.9,
+                "Parallel error " + parallel.maxError() + " under-reports serial error " + serial.maxError()
+        );
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.engineersbox.quanta.virtualisation.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DisjointSetTest {
+
+    @Test
+    void startsAsSingletons() {
+        final DisjointSet set = new DisjointSet(5);
+        assertEquals(5, set.getElementCount());
+        assertEquals(5, set.getSetCount());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, set.find(i));
+            assertEquals(1, set.size(i));
+        }
+    }
+
+    @Test
+    void unionMergesOnlyDistinctSets() {
+        final DisjointSet set = new DisjointSet(6);
+        assertTrue(set.union(0, 1));
+        assertTrue(set.union(2, 3));
+        assertTrue(set.union(1, 3));
+        assertFalse(set.union(0, 2));
+        assertFalse(set.union(4, 4));
+        assertEquals(3, set.getSetCount());
+        assertEquals(set.find(0), set.find(3));
+        assertEquals(4, set.size(2));
+        assertNotEquals(set.find(0), set.find(4));
+        assertEquals(1, set.size(5));
+    }
+
+    @Test
+    void smallerSetJoinsLarger() {
+        final DisjointSet set = new DisjointSet(4);
+        set.union(0, 1);
+        set.union(0, 2);
+        final int root = set.find(0);
+        set.union(3, 0);
+        assertEquals(root, set.find(3));
+    }
+
+    @Test
+    void matchesNaiveLabellingOnRandomUnions() {
+        final int count = 2_000;
+        final Random random = new Random(7);
+        final DisjointSet set = new DisjointSet(count);
+        final int[] labels = new int[count];
+        for (int i = 0; i < count; i++) {
+            labels[i] = i;
+        }
+        int setCount = count;
+        for (int step = 0; step < 1_500; step++) {
+            final int a = random.nextInt(count);
+            final int b = random.nextInt(count);
+            final int labelA = labels[a];
+            final int labelB = labels[b];
+            assertEquals(labelA != labelB, set.union(a, b));
+            if (labelA != labelB) {
+                setCount--;
+                for (int i = 0; i < count; i++) {
+                    if (labels[i] == labelB) {
+                        labels[i] = labelA;
+                    }
+                }
+            }
+        }
+        assertEquals(setCount, set.getSetCount());
+        final int[] labelSizes = new int[count];
+        for (final int label : labels) {
+            labelSizes[label]++;
+        }
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < Math.min(count, i + 50); j++) {
+                assertEquals(labels[i] == labels[j], set.find(i) == set.find(j));
+            }
+            assertEquals(labelSizes[labels[i]], set.size(i));
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.engineersbox.quanta.virtualisation.graph;
+
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+import com.engineersbox.quanta.resources.loader.ModelFixtures;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeshAdjacencyTest {
+
+    /**
+     * Neighbour lists as the map backed {@link Graph} built them, adding both
+     * directions of every triangle edge and keeping duplicates.
+     */
+    private static Map<Integer, List<Integer>> referenceNeighbours(final int[] indices) {
+        final Map<Integer, List<Integer>> neighbours = new HashMap<>();
+        for (int i = 0; i < indices.length; i += 3) {
+            for (int j = 0; j < 3; j++) {
+                final int a = indices[i + j];
+                final int b = indices[i + ((j + 1) % 3)];
+                neighbours.computeIfAbsent(a, (final Integer key) -> new ArrayList<>()).add(b);
+                neighbours.computeIfAbsent(b, (final Integer key) -> new ArrayList<>()).add(a);
+            }
+        }
+        return neighbours;
+    }
+
+    private static List<Integer> row(final MeshAdjacency adjacency,
+                                     final int vertex) {
+        final List<Integer> row = new ArrayList<>();
+        for (int i = adjacency.getOffsets()[vertex]; i < adjacency.getOffsets()[vertex + 1]; i++) {
+            row.add(adjacency.getNeighbours()[i]);
+        }
+        return row;
+    }
+
+    @Test
+    void neighboursMatchReferenceGraphOnCube() {
+        final MeshData meshData = ModelFixtures.importMeshData("assets/models/cube/cube.obj", false).get(0);
+        final MeshAdjacency adjacency = MeshAdjacency.build(meshData.getPositions(), meshData.getIndices());
+        final Map<Integer, List<Integer>> reference = MeshAdjacencyTest.referenceNeighbours(meshData.getIndices());
+        assertEquals(meshData.getPositions().length / 3, adjacency.getVertexCount());
+        final Set<Long> undirectedEdges = new HashSet<>();
+        for (int v = 0; v < adjacency.getVertexCount(); v++) {
+            final List<Integer> row = MeshAdjacencyTest.row(adjacency, v);
+            final TreeSet<Integer> expected = new TreeSet<>(reference.getOrDefault(v, List.of()));
+            assertEquals(new ArrayList<>(expected), row, "Neighbours of vertex " + v);
+            for (final int neighbour : row) {
+                undirectedEdges.add(((long) Math.min(v, neighbour) << 32) | Math.max(v, neighbour));
+            }
+        }
+        assertEquals(undirectedEdges.size(), adjacency.getEdgeCount());
+    }
+
+    @Test
+    void lengthsAreEdgeDistances() {
+        final MeshData meshData = ModelFixtures.importMeshData("assets/models/cube/cube.obj", false).get(0);
+        final float[] positions = meshData.getPositions();
+        final MeshAdjacency adjacency = MeshAdjacency.build(positions, meshData.getIndices());
+        for (int v = 0; v < adjacency.getVertexCount(); v++) {
+            for (int i = adjacency.getOffsets()[v]; i < adjacency.getOffsets()[v + 1]; i++) {
+                final int n = adjacency.getNeighbours()[i];
+                final double dx = positions[v * 3] - positions[n * 3];
+                final double dy = positions[(v * 3) + 1] - positions[(n * 3) + 1];
+                final double dz = positions[(v * 3) + 2] - positions[(n * 3) + 2];
+                assertEquals(Math.sqrt((dx * dx) + (dy * dy) + (dz * dz)), adjacency.getLengths()[i], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void sharedEdgesAndSelfLoopsAreDropped() {
+        final float[] positions = new float[]{
+                0, 0, 0,
+                1, 0, 0,
+                1, 1, 0,
+                0, 1, 0
+        };
+        final int[] indices = new int[]{
+                0, 1, 2,
+                0, 2, 3,
+                // Degenerate
+                3, 3, 1
+        };
+        final MeshAdjacency adjacency = MeshAdjacency.build(positions, indices);
+        assertEquals(List.of(1, 2, 3), MeshAdjacencyTest.row(adjacency, 0));
+        assertEquals(List.of(0, 2, 3), MeshAdjacencyTest.row(adjacency, 1));
+        assertEquals(List.of(0, 1, 3), MeshAdjacencyTest.row(adjacency, 2));
+        assertEquals(List.of(0, 1, 2), MeshAdjacencyTest.row(adjacency, 3));
+        assertEquals(6, adjacency.getEdgeCount());
+        assertEquals(3, adjacency.degree(0));
+    }
+
+    @Test
+    void findEdgeLocatesBothDirections() {
+        final float[] positions = new float[]{
+                0, 0, 0,
+                1, 0, 0,
+                0, 1, 0,
+                5, 5, 5
+        };
+        final MeshAdjacency adjacency = MeshAdjacency.build(positions, new int[]{0, 1, 2});
+        final int forward = adjacency.findEdge(0, 2);
+        final int backward = adjacency.findEdge(2, 0);
+        assertEquals(2, adjacency.getNeighbours()[forward]);
+        assertEquals(0, adjacency.getNeighbours()[backward]);
+        assertEquals(adjacency.getLengths()[forward], adjacency.getLengths()[backward]);
+        assertEquals(-1, adjacency.findEdge(0, 3));
+        assertEquals(0, adjacency.degree(3));
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.engineersbox.quanta.virtualisation.graph;
+
+import com.engineersbox.quanta.resources.assets.object.MeshData;
+import com.engineersbox.quanta.resources.loader.ModelFixtures;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedEdgesTest {
+
+    private static int[] sequence(final int count) {
+        return IntStream.range(0, count).toArray();
+    }
+
+    @Test
+    void ordersNegativeZeroAndNaNLengthsLikeFloatCompare() {
+        final float[] lengths = new float[]{
+                3.5f,
+                Float.NaN,
+                -0.0f,
+                0.0f,
+                -2.0f,
+                Float.POSITIVE_INFINITY,
+                Float.MIN_VALUE,
+                -Float.MIN_VALUE,
+                Float.NEGATIVE_INFINITY,
+                Float.intBitsToFloat(0xFFC00001), // NaN with the sign bit set
+                -1000.0f,
+                0.0f
+        };
+        final int[] ids = SortedEdgesTest.sequence(lengths.length);
+        final SortedEdges sorted = SortedEdges.of(ids, ids, lengths);
+        final Integer[] expected = IntStream.range(0, lengths.length).boxed().toArray(Integer[]::new);
+        // Stable, as the radix sort is
+        Arrays.sort(expected, Comparator.comparing((final Integer i) -> lengths[i], Float::compare));
+        assertEquals(lengths.length, sorted.size());
+        for (int i = 0; i < lengths.length; i++) {
+            assertEquals(expected[i], sorted.getFrom()[i], "Edge at position " + i);
+            assertEquals(expected[i], sorted.getTo()[i], "Edge at position " + i);
+            assertEquals(
+                    Float.floatToRawIntBits(lengths[expected[i]]),
+                    Float.floatToRawIntBits(sorted.getLengths()[i]),
+                    "Length at position " + i
+            );
+        }
+        assertEquals(Float.NEGATIVE_INFINITY, sorted.getLengths()[0]);
+        assertTrue(Float.isNaN(sorted.getLengths()[lengths.length - 1]));
+        assertTrue(Float.isNaN(sorted.getLengths()[lengths.length - 2]));
+    }
+
+    @Test
+    void keepsTheOrderOfEqualLengths() {
+        final float[] lengths = new float[]{1, 0, 1, 0, 1};
+        final int[] ids = SortedEdgesTest.sequence(lengths.length);
+        final SortedEdges sorted = SortedEdges.of(ids, ids, lengths);
+        assertArrayEquals(new int[]{1, 3, 0, 2, 4}, sorted.getFrom());
+    }
+
+    @Test
+    void matchesComparisonSortOnRandomLengths() {
+        final Random random = new Random(42);
+        final float[] lengths = new float[10_000];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = (random.nextFloat() - 0.5f) * (float) Math.pow(10, random.nextInt(12) - 6);
+        }
+        final int[] ids = SortedEdgesTest.sequence(lengths.length);
+        final float[] expected = lengths.clone();
+        Arrays.sort(expected);
+        assertArrayEquals(expected, SortedEdges.of(ids, ids, lengths).getLengths());
+    }
+
+    @Test
+    void listsEveryAdjacencyEdgeOnceInLengthOrder() {
+        final MeshData meshData = ModelFixtures.importMeshData("assets/models/cube/cube.obj", false).get(0);
+        final MeshAdjacency adjacency = MeshAdjacency.build(meshData.getPositions(), meshData.getIndices());
+        final SortedEdges sorted = SortedEdges.of(adjacency);
+        assertEquals(adjacency.getEdgeCount(), sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            final int from = sorted.getFrom()[i];
+            final int to = sorted.getTo()[i];
+            assertTrue(from < to);
+            final int edge = adjacency.findEdge(from, to);
+            assertNotEquals(-1, edge);
+            assertEquals(adjacency.getLengths()[edge], sorted.getLengths()[i]);
+            if (i > 0) {
+                assertTrue(sorted.getLengths()[i - 1] <= sorted.getLengths()[i]);
+            }
+        }
+    }
+
+}